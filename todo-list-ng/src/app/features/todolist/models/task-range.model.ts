@@ -0,0 +1,21 @@
+import { Task } from './task.model';
+import { TaskColumns } from './task-columns.model';
+
+/** Liste de tâches lue par plages : toutes les tâches ou les tâches à effectuer */
+export type TaskList = 'all' | 'todo';
+
+export interface TaskRange {
+  /** Rang de la première tâche de la plage dans la liste triée par id */
+  offset: number;
+  /** Nombre de tâches de la liste */
+  total: number;
+  /** Tâches de la plage, triées par id */
+  tasks: Task[];
+}
+
+/** Plage de tâches renvoyée par le serveur, les tâches en colonnes */
+export interface TaskRangeColumns {
+  offset: number;
+  total: number;
+  tasks: TaskColumns;
+}
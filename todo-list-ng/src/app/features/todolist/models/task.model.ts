@@ -3,4 +3,8 @@ export interface Task {
   label: string;
   description: string;
   completed: boolean;
+  // Version lue sur le serveur, renvoyée lors de la mise à jour pour détecter les modifications concurrentes
+  version?: number;
+  // Date de fin de la tâche (millisecondes depuis 1970), null si elle est à effectuer
+  completedAt?: number | null;
 }
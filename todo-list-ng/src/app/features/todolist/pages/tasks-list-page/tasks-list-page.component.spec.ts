@@ -1,7 +1,7 @@
 import { ComponentFixture, TestBed, fakeAsync, tick } from '@angular/core/testing';
 import { Router } from '@angular/router';
 import { MatDialog, MatDialogRef } from '@angular/material/dialog';
-import { of, throwError } from 'rxjs';
+import { of, Subject, throwError } from 'rxjs';
 import { NoopAnimationsModule } from '@angular/platform-browser/animations';
 import { FormsModule } from '@angular/forms';
 
@@ -11,8 +11,8 @@ import { TasksListPageComponent } from './tasks-list-page.component';
 import { QuestionComponent } from '../../../../shared/components/question/question.component';
 import { AlertComponent } from '../../../../shared/components/alert/alert.component';
 import { TaskDetailsComponent } from '../../components/task-details/task-details.component';
-import { Pagination } from '../../models/pagination.model';
-import { PageEvent } from '@angular/material/paginator';
+import { TaskList, TaskRange } from '../../models/task-range.model';
+import { TaskChange } from '../../models/task-change.model';
 
 // Mocks
 const mockTasks: Task[] = [
@@ -27,8 +27,15 @@ const mockTodoTasks: Task[] = [
 ];
 
 class MockTasksService {
-  getAllTasks() { return of(mockTasks); }
-  getTodoTasks() { return of(mockTodoTasks); }
+  readonly changes = new Subject<TaskChange | null>();
+  streamChanges() { return this.changes; }
+  applyChange(change: TaskChange | null) {}
+  getTaskWindow(list: TaskList, index: number) {
+    const tasks = list === 'all' ? mockTasks : mockTodoTasks;
+    return of<TaskRange>({offset: 0, total: tasks.length, tasks});
+  }
+  patchTask(task: Task) {}
+  resetTask(task: Task) {}
   updateTask(task: Task) { return of(task); }
   removeTask(id: number) { return of(null); } // Simule une suppression réussie
   getTaskStatus(completed: boolean) { return completed ? 'Terminée' : 'A faire'; }
@@ -90,28 +97,52 @@ describe('TasksListPageComponent', () => {
   });
 
   describe('Initialisation (ngOnInit)', () => {
-    it('devrait appeler getAllTasks et initialiser les tâches et la pagination', fakeAsync(() => {
-      spyOn(tasksService, 'getAllTasks').and.callThrough();
+    it('devrait lire la première plage de toutes les tâches et connaître leur nombre', fakeAsync(() => {
+      spyOn(tasksService, 'getTaskWindow').and.callThrough();
       fixture.detectChanges(); // Déclenche ngOnInit
       tick();
 
-      expect(tasksService.getAllTasks).toHaveBeenCalled();
-      expect(component.tasks.length).toBe(mockTasks.length);
-      expect(component.displayedTasks.length).toBe(Math.min(mockTasks.length, component.pageSizeDef));
+      expect(tasksService.getTaskWindow).toHaveBeenCalledWith('all', 0);
+      expect(component.dataSource?.list).toBe('all');
+      expect(component.total).toBe(mockTasks.length);
       expect(component.loading).toBeFalse();
       expect(component.errorMessage).toBeNull();
-      expect(component.pagination.length).toBe(mockTasks.length);
     }));
 
-    it('devrait gérer les erreurs lors de l\'appel à getAllTasks', fakeAsync(() => {
-      spyOn(tasksService, 'getAllTasks').and.returnValue(throwError(() => new Error('Erreur API')));
+    it('devrait appliquer les modifications du flux aux plages en cache et relire les lignes', fakeAsync(() => {
+      const mockService = tasksService as unknown as MockTasksService;
+      spyOn(tasksService, 'applyChange');
+      fixture.detectChanges(); // Déclenche ngOnInit
+      tick();
+      spyOn(component.dataSource!, 'refresh').and.callThrough();
+      const change: TaskChange = { sequence: 4, type: 'UPDATE', id: 1, task: { ...mockTasks[0], completed: true } };
+
+      mockService.changes.next(change);
+      mockService.changes.next(null);
+
+      expect(tasksService.applyChange).toHaveBeenCalledWith(change);
+      expect(tasksService.applyChange).toHaveBeenCalledWith(null);
+      expect(component.dataSource!.refresh).toHaveBeenCalledTimes(2);
+
+      component.ngOnDestroy();
+      expect(mockService.changes.observed).toBeFalse();
+    }));
+
+    it('devrait gérer les erreurs lors de la lecture d\'une plage', fakeAsync(() => {
+      spyOn(tasksService, 'getTaskWindow').and.returnValue(throwError(() => new Error('Erreur API')));
       fixture.detectChanges(); // Déclenche ngOnInit
       tick();
 
       expect(component.loading).toBeFalse();
       expect(component.errorMessage).toBe('Données indisponibles');
-      expect(component.tasks.length).toBe(0);
+      expect(component.total).toBe(0);
     }));
+
+    it('devrait identifier les lignes par la tâche, ou par leur rang avant leur lecture', () => {
+      expect(component.trackTask(5, mockTasks[1])).toBe(mockTasks[1]);
+      expect(component.trackTask(5, { ...mockTasks[1] })).not.toBe(mockTasks[1]);
+      expect(component.trackTask(5, undefined)).toBe(-6);
+    });
   });
 
   describe('Gestion des filtres (toggleFilter)', () => {
@@ -120,47 +151,29 @@ describe('TasksListPageComponent', () => {
       tick();
     }));
 
-    it('devrait appeler getTodoTasks quand le filtre est activé et non getAllTasks par cette action', fakeAsync(() => {
-      // fixture.detectChanges() dans le beforeEach a déjà appelé ngOnInit -> component.getAllTasks()
-      // Vérification des méthodes du composant pour voir si toggleFilter les appelle.
-      const getAllTasksSpyOnComponent = spyOn(component, 'getAllTasks').and.callThrough();
-      const getTodoTasksSpyOnComponent = spyOn(component, 'getTodoTasks').and.callThrough();
-      // Espionner aussi les méthodes du service pour vérifier les appels au backend
-      const getAllTasksSpyOnService = spyOn(tasksService, 'getAllTasks').and.callThrough();
-      const getTodoTasksSpyOnService = spyOn(tasksService, 'getTodoTasks').and.callThrough();
-
-      getAllTasksSpyOnComponent.calls.reset();
-      getAllTasksSpyOnService.calls.reset();
+    it('devrait lire les tâches à faire quand le filtre est activé', fakeAsync(() => {
+      const getTaskWindowSpy = spyOn(tasksService, 'getTaskWindow').and.callThrough();
 
       component.toggleFilter(true);
       tick();
 
-      expect(getAllTasksSpyOnComponent).not.toHaveBeenCalled();
-      expect(getTodoTasksSpyOnComponent).toHaveBeenCalledTimes(1);
-      expect(getTodoTasksSpyOnService).toHaveBeenCalledTimes(1); // Vérifie l'appel au service
-      expect(component.tasks.length).toBe(mockTodoTasks.length);
+      expect(getTaskWindowSpy).toHaveBeenCalledOnceWith('todo', 0);
+      expect(component.dataSource?.list).toBe('todo');
+      expect(component.total).toBe(mockTodoTasks.length);
       expect(component.filter).toBeTrue();
     }));
 
-    it('devrait appeler getAllTasks quand le filtre est désactivé et non getTodoTasks par cette action', fakeAsync(() => {
-      component.filter = true; // Simule un état où le filtre était actif
-      // Vérification des méthodes du composant pour voir si toggleFilter les appelle.
-      const getAllTasksSpyOnComponent = spyOn(component, 'getAllTasks').and.callThrough();
-      const getTodoTasksSpyOnComponent = spyOn(component, 'getTodoTasks').and.callThrough();
-      // Espionner aussi les méthodes du service pour vérifier les appels au backend
-      const getAllTasksSpyOnService = spyOn(tasksService, 'getAllTasks').and.callThrough();
-      const getTodoTasksSpyOnService = spyOn(tasksService, 'getTodoTasks').and.callThrough();
-
-      getTodoTasksSpyOnComponent.calls.reset();
-      getTodoTasksSpyOnService.calls.reset();
+    it('devrait lire toutes les tâches quand le filtre est désactivé', fakeAsync(() => {
+      component.toggleFilter(true);
+      tick();
+      const getTaskWindowSpy = spyOn(tasksService, 'getTaskWindow').and.callThrough();
 
       component.toggleFilter(false);
       tick();
 
-      expect(getAllTasksSpyOnComponent).toHaveBeenCalledTimes(1);
-      expect(getTodoTasksSpyOnComponent).not.toHaveBeenCalled();
-      expect(getAllTasksSpyOnService).toHaveBeenCalledTimes(1); // Vérifie l'appel au service
-      expect(component.tasks.length).toBe(mockTasks.length);
+      expect(getTaskWindowSpy).toHaveBeenCalledOnceWith('all', 0);
+      expect(component.dataSource?.list).toBe('all');
+      expect(component.total).toBe(mockTasks.length);
       expect(component.filter).toBeFalse();
     }));
   });
@@ -179,28 +192,51 @@ describe('TasksListPageComponent', () => {
       tick();
     }));
 
-    it('devrait mettre à jour une tâche et rafraîchir la liste', fakeAsync(() => {
+    it('devrait mettre à jour une copie de la tâche et relire les lignes depuis le cache, sans relire la liste', fakeAsync(() => {
+      const task = { ...mockTasks[0] };
       const taskToUpdate = { ...mockTasks[0], completed: true };
       spyOn(tasksService, 'updateTask').and.returnValue(of(taskToUpdate));
-      spyOn(component, 'initPage').and.callThrough();
+      spyOn(component.dataSource!, 'refresh').and.callThrough();
 
-      component.updateTask(taskToUpdate);
+      component.updateTask(task, true);
       tick();
 
       expect(tasksService.updateTask).toHaveBeenCalledWith(taskToUpdate);
-      expect(component.tasks.find(t => t.id === taskToUpdate.id)?.completed).toBeTrue();
-      expect(component.initPage).toHaveBeenCalled();
+      expect((tasksService.updateTask as jasmine.Spy).calls.mostRecent().args[0]).not.toBe(task);
+      expect(task.completed).toBeFalse(); // La tâche du cache n'est modifiée que par le service, avec la réponse
+      expect(component.dataSource!.refresh).toHaveBeenCalled();
+      expect(component.dataSource?.list).toBe('all');
       expect(component.loading).toBeFalse();
     }));
 
-    it('devrait ouvrir un dialogue d\'alerte en cas d\'erreur de mise à jour', fakeAsync(() => {
-      const taskToUpdate = { ...mockTasks[0], completed: true };
-      spyOn(tasksService, 'updateTask').and.returnValue(throwError(() => new Error('Erreur de mise à jour')));
+    it('devrait appliquer la version du serveur en cas de conflit de version', fakeAsync(() => {
+      const current = { ...mockTasks[0], completed: true, version: 4 };
+      spyOn(tasksService, 'updateTask').and.returnValue(throwError(() => ({status: 409, error: current})));
+      spyOn(tasksService, 'patchTask');
       spyOn(dialog, 'open').and.callThrough();
 
-      component.updateTask(taskToUpdate);
+      component.updateTask({ ...mockTasks[0], version: 3 }, true);
       tick();
 
+      expect(tasksService.patchTask).toHaveBeenCalledWith(current);
+      expect(dialog.open).toHaveBeenCalledWith(AlertComponent, {data: "La tâche a été modifiée entre-temps, elle a été rechargée", width: "50%"});
+    }));
+
+    it('devrait ouvrir un dialogue d\'alerte et rétablir le statut enregistré en cas d\'erreur de mise à jour', fakeAsync(() => {
+      const task = { ...mockTasks[0] };
+      spyOn(tasksService, 'updateTask').and.returnValue(throwError(() => ({status: 500, error: null})));
+      spyOn(tasksService, 'resetTask');
+      spyOn(tasksService, 'patchTask');
+      spyOn(component.dataSource!, 'refresh').and.callThrough();
+      spyOn(dialog, 'open').and.callThrough();
+
+      component.updateTask(task, true);
+      tick();
+
+      expect(task.completed).toBeFalse();
+      expect(tasksService.patchTask).not.toHaveBeenCalled();
+      expect(tasksService.resetTask).toHaveBeenCalledWith(task);
+      expect(component.dataSource!.refresh).toHaveBeenCalled();
       expect(dialog.open).toHaveBeenCalledWith(AlertComponent, {data: "Erreur lors de la sauvegarde des données", width: "50%"});
       expect(component.loading).toBeFalse();
     }));
@@ -212,47 +248,24 @@ describe('TasksListPageComponent', () => {
       expect(dialog.open).toHaveBeenCalledWith(TaskDetailsComponent, {data: task.id, width: "50%"});
     });
 
-    it('devrait supprimer une tâche après confirmation et appeler getTodoTasks si le filtre est actif', fakeAsync(() => {
+    it('devrait supprimer une tâche après confirmation et relire les lignes depuis le cache', fakeAsync(() => {
       spyOn(dialog, 'open').and.returnValue({ afterClosed: () => of(true) } as MatDialogRef<typeof QuestionComponent>);
       spyOn(tasksService, 'removeTask').and.callThrough();
-
+      const dataSource = component.dataSource!;
+      spyOn(dataSource, 'refresh').and.callThrough();
       const getAllTasksSpy = spyOn(component, 'getAllTasks').and.callThrough();
-      const getTodoTasksSpy = spyOn(component, 'getTodoTasks').and.callThrough();
-
-      // ngOnInit a appelé component.getAllTasks()
-      getAllTasksSpy.calls.reset();
 
-      component.filter = true;
       component.onDeleteTaskClick(mockTasks[0].id);
       tick(); // Pour la fermeture du dialogue et l'appel au service
 
       expect(dialog.open).toHaveBeenCalledWith(QuestionComponent, {data: "Êtes-vous sûr de vouloir supprimer cette tâche ?", width: "50%"});
       expect(tasksService.removeTask).toHaveBeenCalledWith(mockTasks[0].id);
-      expect(getTodoTasksSpy).toHaveBeenCalledTimes(1);
+      expect(dataSource.refresh).toHaveBeenCalledTimes(1);
+      expect(component.dataSource).toBe(dataSource);
       expect(getAllTasksSpy).not.toHaveBeenCalled();
       expect(component.loading).toBeFalse();
     }));
 
-    it('devrait supprimer une tâche après confirmation et appeler getAllTasks si le filtre est inactif', fakeAsync(() => {
-      spyOn(dialog, 'open').and.returnValue({ afterClosed: () => of(true) } as MatDialogRef<typeof QuestionComponent>);
-      spyOn(tasksService, 'removeTask').and.callThrough();
-      const getAllTasksSpy = spyOn(component, 'getAllTasks').and.callThrough();
-      const getTodoTasksSpy = spyOn(component, 'getTodoTasks').and.callThrough();
-
-      // ngOnInit a appelé component.getAllTasks()
-      getAllTasksSpy.calls.reset();
-
-      component.filter = false;
-      component.onDeleteTaskClick(mockTasks[0].id);
-      tick();
-
-      expect(dialog.open).toHaveBeenCalledWith(QuestionComponent, {data: "Êtes-vous sûr de vouloir supprimer cette tâche ?", width: "50%"});
-      expect(tasksService.removeTask).toHaveBeenCalledWith(mockTasks[0].id);
-      expect(getAllTasksSpy).toHaveBeenCalledTimes(1);
-      expect(getTodoTasksSpy).not.toHaveBeenCalled();
-      expect(component.loading).toBeFalse();
-    }));
-
     it('ne devrait pas supprimer une tâche si la confirmation est annulée', fakeAsync(() => {
       spyOn(dialog, 'open').and.returnValue({ afterClosed: () => of(false) } as MatDialogRef<typeof QuestionComponent>);
       spyOn(tasksService, 'removeTask');
@@ -272,40 +285,4 @@ describe('TasksListPageComponent', () => {
     });
   });
 
-  describe('Gestion de la pagination', () => {
-    it('devrait initialiser la pagination correctement dans ngOnInit', fakeAsync(() => {
-      fixture.detectChanges();
-      tick();
-      expect(component.pagination.length).toBe(mockTasks.length);
-      expect(component.pagination.pageSize).toBe(component.pageSizeDef);
-      expect(component.pagination.idxPage).toBe(0);
-      expect(component.pagination.idxPremiereLigne).toBe(0);
-      expect(component.pagination.idxDerniereLigne).toBe(Math.min(mockTasks.length, component.pageSizeDef));
-      expect(component.displayedTasks.length).toBe(Math.min(mockTasks.length, component.pageSizeDef));
-    }));
-
-    it('devrait mettre à jour displayedTasks et pagination lors de l\'appel à changePagination avec un PageEvent', fakeAsync(() => {
-      const mockPageEvent: PageEvent = {
-        length: mockTasks.length, // La longueur totale reste la même
-        pageIndex: 1,             // L'utilisateur va à la deuxième page
-        pageSize: 1,              // L'utilisateur change la taille de la page à 1
-        previousPageIndex: 0      // Page précédente était la première
-      };
-
-      fixture.detectChanges(); // ngOnInit -> getAllTasks -> initPage
-      tick();
-
-      component.changePagination(mockPageEvent);
-      // Pas besoin de tick() ici car changePagination est synchrone et met à jour les propriétés directement.
-
-      expect(component.pagination.length).toBe(mockTasks.length);
-      expect(component.pagination.pageSize).toBe(mockPageEvent.pageSize);
-      expect(component.pagination.idxPage).toBe(mockPageEvent.pageIndex);
-      expect(component.pagination.idxPremiereLigne).toBe(mockPageEvent.pageIndex * mockPageEvent.pageSize); // 1 * 1 = 1
-      expect(component.pagination.idxDerniereLigne).toBe(Math.min(mockTasks.length, (mockPageEvent.pageIndex * mockPageEvent.pageSize) + mockPageEvent.pageSize)); // min(3, 1+1=2) = 2
-      expect(component.displayedTasks.length).toBe(mockPageEvent.pageSize); // Devrait être 1
-      expect(component.displayedTasks[0]).toEqual(mockTasks[1]); // La tâche à l'index 1 (Task 2)
-    }));
-  });
-
 });
@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { Router } from '@angular/router';
 import { FormsModule } from '@angular/forms';
@@ -7,14 +7,14 @@ import { MatButtonToggleModule } from '@angular/material/button-toggle';
 import { MatDialog } from '@angular/material/dialog';
 import { MatFormFieldModule } from '@angular/material/form-field';
 import { MatIconModule } from '@angular/material/icon';
-import { MatPaginatorIntl, MatPaginatorModule, PageEvent } from '@angular/material/paginator';
 import { MatSelectModule } from '@angular/material/select';
-import { MatTableModule } from '@angular/material/table';
+import { ScrollingModule } from '@angular/cdk/scrolling';
+import { Subscription } from 'rxjs';
 
 import { TasksService } from '../../services/tasks.service';
+import { TaskWindowDataSource } from '../../services/task-window-data-source';
 import { Task } from '../../models/task.model';
-import { Pagination } from '../../models/pagination.model';
-import { MyCustomPaginatorIntl } from '../../../../shared/components/paginator/my-custom-paginator-intl.component';
+import { TaskList } from '../../models/task-range.model';
 import { TaskDetailsComponent } from "../../components/task-details/task-details.component";
 import { ErrorMessageComponent } from '../../../../shared/components/error-message/error-message.component';
 import { QuestionComponent } from "../../../../shared/components/question/question.component";
@@ -30,119 +30,99 @@ import { AlertComponent } from "../../../../shared/components/alert/alert.compon
     MatButtonToggleModule,
     MatFormFieldModule,
     MatIconModule,
-    MatPaginatorModule,
     MatSelectModule,
-    MatTableModule,
+    ScrollingModule,
     ErrorMessageComponent
 ],
   templateUrl: './tasks-list-page.component.html',
   styleUrl: './tasks-list-page.component.scss',
-  providers: [{provide: MatPaginatorIntl, useClass: MyCustomPaginatorIntl}],
 })
-export class TasksListPageComponent implements OnInit {
+export class TasksListPageComponent implements OnInit, OnDestroy {
 
   constructor(
     private readonly tasksService: TasksService,
     private readonly router: Router,
     private readonly dialog: MatDialog
-  ){
-    // Valeur par défaut de la pagination
-    this.pagination = {length: 0, pageSize: this.pageSizeDef, idxPage: 0, idxPremiereLigne: 0, idxDerniereLigne: 0};
-  }
+  ){}
 
-  /** Liste des tâches à afficher */
-  tasks: Task[] = [];
-  /** Ordre des colonnes du tableau */
-  displayedColumns: string[] = ['label', 'description', 'completed', 'details', 'supprimer'];
+  /** Hauteur d'une ligne du tableau en pixels, fixe pour le défilement virtuel */
+  readonly rowHeight = 64;
+  /**
+   * Lignes du tableau, lues par plages au fil du défilement : seules les lignes visibles sont créées dans la page
+   * et seules les plages affichées sont lues sur le serveur
+   */
+  dataSource: TaskWindowDataSource | null = null;
+  /** Nombre de tâches de la liste affichée */
+  total: number = 0;
   /** Filtre à appliquer ou non sur les tâches terminées */
   filter: boolean = false;
   /** Si erreur de lecture des données, permet l'affichage d'un message d'erreur */
   errorMessage: string | null = null;
   /** Attente le temps du chargement des données */
   loading: boolean = true;
+  /** Abonnement aux lectures de la source des lignes */
+  private dataSourceSubscription = new Subscription();
+  /** Abonnement au flux des modifications faites par les autres clients */
+  private changesSubscription = new Subscription();
 
-  // --------------- Gestion de la pagination en local -----------------
-  /** Liste des tâches à afficher */
-  displayedTasks: Task[] = [];
-  /** Nombre de lignes par défaut dans une page du tableau */
-  pageSizeDef = 10;
-  /** Données de la pagination */
-  pagination: Pagination;
+  ngOnInit() {
+    // Flux ouvert avant la première lecture : une modification lue avec une plage et reçue ensuite
+    // ne change pas les plages en cache
+    this.changesSubscription = this.tasksService.streamChanges().subscribe(change => {
+      this.tasksService.applyChange(change);
+      this.dataSource?.refresh();
+    });
+    this.getAllTasks();
+  }
 
-  /**
-   * Initialisation de la liste des tâches à afficher et de la pagination suite à une nouvelle lecture des données
-   */
-  initPage(){
-    // Mise à jour du nombre de lignes dans la pagination
-    this.pagination.length = this.tasks.length;
-    // Mise à jour des index des première et dernière lignes de la page
-    this.pagination.idxDerniereLigne = Math.min(this.tasks.length, this.pagination.idxPremiereLigne + this.pagination.pageSize);
-    if (this.pagination.idxDerniereLigne <= this.pagination.idxPremiereLigne) {
-      this.pagination.idxPremiereLigne = Math.max(0, this.pagination.idxPremiereLigne - this.pagination.pageSize);
-      this.pagination.idxDerniereLigne = this.tasks.length;
-    }
-    // Mise à jour de l'index de la page
-    this.pagination.idxPage = Math.floor(this.pagination.idxPremiereLigne / this.pagination.pageSize);
-    // Mise à jour de la liste des tâches à afficher en fonction de la page sélectionnée
-    this.displayedTasks = this.tasks.slice(this.pagination.idxPremiereLigne, this.pagination.idxDerniereLigne);
+  ngOnDestroy() {
+    this.changesSubscription.unsubscribe();
+    this.dataSourceSubscription.unsubscribe();
   }
 
   /**
-   * Mise à jour de la liste des tâches à afficher et de la pagination suite à action sur les boutons de pagination
-   * @param event Données de la pagination
+   * Affichage de la liste de toutes les tâches, terminées ou non
    */
-  changePagination(event: PageEvent){
-    this.pagination.pageSize = event.pageSize;
-    this.pagination.idxPage = event.pageIndex;
-    this.pagination.idxPremiereLigne = event.pageIndex * event.pageSize;
-    this.pagination.idxDerniereLigne = Math.min(this.pagination.length, this.pagination.idxPremiereLigne + event.pageSize);
-    // Mise à jour de la liste des tâches à afficher en fonction de la page sélectionnée
-    this.displayedTasks = this.tasks.slice(this.pagination.idxPremiereLigne, this.pagination.idxDerniereLigne);
+  getAllTasks(){
+    this.openList('all');
   }
-  // --------------- Fin gestion de la pagination -----------------
 
-  ngOnInit() {
-    this.getAllTasks();
+  /**
+   * Affichage de la liste des tâches restant à effectuer
+   */
+  getTodoTasks(){
+    this.openList('todo');
   }
 
   /**
-   * Récupération de la liste de toutes les tâches, terminées ou non
+   * Création de la source des lignes d'une liste et lecture de sa première plage
+   * @param list Liste à afficher
    */
-  getAllTasks(){
+  private openList(list: TaskList){
     this.loading = true;
-    this.tasksService.getAllTasks().subscribe({
-      next: (data) => {
-        this.tasks = data;
-        this.initPage();
-        this.loading = false;
-        this.errorMessage = null;
-      },
-      error: (error) => {
-        console.error(error);
-        this.loading = false;
-        this.errorMessage = "Données indisponibles";
-      },
+    this.dataSourceSubscription.unsubscribe();
+    this.dataSource = new TaskWindowDataSource(this.tasksService, list);
+    this.dataSourceSubscription = this.dataSource.loaded.subscribe(total => {
+      this.total = total;
+      this.loading = false;
+      this.errorMessage = null;
     });
+    this.dataSourceSubscription.add(this.dataSource.errors.subscribe(error => {
+      console.error(error);
+      this.loading = false;
+      this.errorMessage = "Données indisponibles";
+    }));
+    this.dataSource.refresh();
   }
 
   /**
-   * Récupération de la liste des tâches restant à effectuer
+   * Identifiant d'une ligne pour le défilement virtuel : la tâche elle-même, ou le rang d'une ligne pas encore lue.
+   * Une tâche remplacée dans le cache, par la réponse du serveur ou par l'annulation d'un choix, recrée sa ligne
+   * @param index Rang de la ligne dans la liste
+   * @param task Tâche de la ligne, undefined si elle n'est pas encore lue
    */
-  getTodoTasks(){
-    this.loading = true;
-    this.tasksService.getTodoTasks().subscribe({
-      next: (data) => {
-        this.tasks = data;
-        this.initPage();
-        this.loading = false;
-        this.errorMessage = null;
-      },
-      error: (error) => {
-        console.error(error);
-        this.loading = false;
-        this.errorMessage = "Données indisponibles";
-      },
-    });
+  trackTask(index: number, task: Task | undefined){
+    return task ?? -1 - index;
   }
 
   /**
@@ -153,26 +133,32 @@ export class TasksListPageComponent implements OnInit {
   }
 
   /**
-   * Demande de modification du statut de la tâche
-   * @param task Tâche modifiée dans l'IHM, à sauvegarder
+   * Demande de modification du statut de la tâche.
+   * Une copie de la tâche est envoyée : le service applique la tâche renvoyée aux plages en cache, et les lignes
+   * affichées sont relues depuis le cache. En cas d'erreur, la ligne reprend le statut enregistré
+   * @param task Tâche de la ligne, telle qu'elle est dans le cache
+   * @param completed Statut choisi dans l'IHM
    */
-  updateTask(task: Task){
+  updateTask(task: Task, completed: boolean){
     this.loading = true;
-    this.tasksService.updateTask(task).subscribe({
-      next: (updatedTask) => {
+    this.tasksService.updateTask({...task, completed}).subscribe({
+      next: () => {
         this.loading = false;
-        const index = this.tasks.findIndex(t => t.id === updatedTask.id);
-        if (index !== -1) {
-          // Remplacer l'ancien objet tâche par le nouveau du serveur pour s'assurer que toutes les données sont à jour.
-          this.tasks[index] = updatedTask;
-          // Créer une nouvelle référence de tableau pour déclencher la détection de changement de mat-table.
-          this.tasks = [...this.tasks];
-          this.initPage();
-        }
+        this.dataSource?.refresh();
       },
       error: (error) => {
         console.error(error);
         this.loading = false;
+        if (error.status === 409) {
+          // Tâche modifiée entre-temps : affichage de la version du serveur, que l'utilisateur peut modifier à nouveau
+          this.tasksService.patchTask(error.error);
+          this.dataSource?.refresh();
+          this.dialog.open(AlertComponent, {data: "La tâche a été modifiée entre-temps, elle a été rechargée", width: "50%"});
+          return;
+        }
+        // Statut choisi non enregistré : la ligne est recréée avec la tâche du cache, restée inchangée
+        this.tasksService.resetTask(task);
+        this.dataSource?.refresh();
         this.dialog.open(AlertComponent, {data: "Erreur lors de la sauvegarde des données", width: "50%"});
       },
     });
@@ -198,14 +184,10 @@ export class TasksListPageComponent implements OnInit {
         if (confirmeSupprime) {
           this.loading = true;
           this.tasksService.removeTask(id).subscribe({
-            next: (data) => {
+            next: () => {
               this.loading = false;
-              // Relecture de la liste des tâches pour mise à jour du tableau
-              if (this.filter) {
-                this.getTodoTasks();
-              } else {
-                this.getAllTasks();
-              }
+              // Tâche retirée des plages en cache par le service : seules les plages qui ne sont plus en cache sont relues
+              this.dataSource?.refresh();
             },
             error: (error) => {
               this.loading = false;
@@ -232,7 +214,7 @@ export class TasksListPageComponent implements OnInit {
    */
   toggleFilter(filter: boolean){
     this.filter = filter;
-    // Relecture de la liste des tâches, en fonction de la valeur du filtre à appliquer
+    // Lecture de la liste des tâches, en fonction de la valeur du filtre à appliquer
     if (this.filter === true){
       this.getTodoTasks();
     } else {
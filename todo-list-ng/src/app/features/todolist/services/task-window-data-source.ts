@@ -0,0 +1,103 @@
+import { CollectionViewer, DataSource, ListRange } from '@angular/cdk/collections';
+import { BehaviorSubject, Observable, Subject, Subscription } from 'rxjs';
+
+import { Task } from '../models/task.model';
+import { TaskList, TaskRange } from '../models/task-range.model';
+import { TASK_WINDOW_SIZE, TasksService } from './tasks.service';
+
+/**
+ * Lignes d'un tableau à défilement virtuel, lues par plages de TASK_WINDOW_SIZE tâches au fil du défilement.
+ * Le tableau émis a la longueur de la liste complète, mais seules les lignes des plages lues sont renseignées :
+ * une ligne pas encore lue vaut undefined et s'affiche en attente de chargement.
+ * La première plage est lue par {@link refresh}, après l'abonnement à loaded et errors : une plage en cache
+ * est émise sans attendre.
+ */
+export class TaskWindowDataSource extends DataSource<Task | undefined> {
+
+  /** Nombre de tâches de la liste, émis à chaque plage reçue */
+  readonly loaded = new Subject<number>();
+  /** Erreur de lecture d'une plage */
+  readonly errors = new Subject<unknown>();
+
+  private rows: (Task | undefined)[] = [];
+  private readonly rows$ = new BehaviorSubject<(Task | undefined)[]>(this.rows);
+  /** Plages demandées et pas encore reçues */
+  private readonly pending = new Set<number>();
+  /** Lignes affichées par le défilement virtuel */
+  private range: ListRange = {start: 0, end: 0};
+  private readonly subscription = new Subscription();
+
+  constructor(private readonly tasksService: TasksService, readonly list: TaskList) {
+    super();
+  }
+
+  connect(collectionViewer: CollectionViewer): Observable<(Task | undefined)[]> {
+    this.subscription.add(collectionViewer.viewChange.subscribe(range => {
+      this.range = range;
+      this.loadRange();
+    }));
+    return this.rows$;
+  }
+
+  disconnect(): void {
+    this.subscription.unsubscribe();
+  }
+
+  /**
+   * Lecture des lignes affichées, la première plage avant l'affichage ; relecture après une modification
+   * appliquée aux plages en cache du service : les plages encore en cache sont relues sans appel au serveur
+   */
+  refresh(): void {
+    this.rows = [];
+    this.pending.clear();
+    this.load(Math.floor(this.range.start / TASK_WINDOW_SIZE));
+    this.loadRange();
+  }
+
+  /**
+   * Lecture des plages qui contiennent les lignes affichées
+   */
+  private loadRange(): void {
+    const last = Math.floor(Math.max(this.range.start, this.range.end - 1) / TASK_WINDOW_SIZE);
+    for (let index = Math.floor(this.range.start / TASK_WINDOW_SIZE); index <= last; index++) {
+      if (this.rows[index * TASK_WINDOW_SIZE] === undefined && index * TASK_WINDOW_SIZE < Math.max(1, this.rows.length)) {
+        this.load(index);
+      }
+    }
+  }
+
+  private load(index: number): void {
+    if (this.pending.has(index)) {
+      return;
+    }
+    this.pending.add(index);
+    this.subscription.add(this.tasksService.getTaskWindow(this.list, index).subscribe({
+      next: range => {
+        this.pending.delete(index);
+        this.apply(range);
+      },
+      error: error => {
+        this.pending.delete(index);
+        this.errors.next(error);
+      }
+    }));
+  }
+
+  /**
+   * Copie d'une plage reçue dans les lignes. Si le nombre de tâches a changé, les lignes déjà lues
+   * n'ont plus le bon rang : elles sont oubliées et les plages affichées relues
+   */
+  private apply(range: TaskRange): void {
+    if (range.total !== this.rows.length) {
+      this.rows = new Array(range.total);
+      this.pending.clear();
+      this.pending.add(range.offset / TASK_WINDOW_SIZE);
+      this.loadRange();
+      this.pending.delete(range.offset / TASK_WINDOW_SIZE);
+    }
+    range.tasks.forEach((task, i) => this.rows[range.offset + i] = task);
+    // Même tableau émis : le défilement virtuel relit la longueur et les lignes affichées à chaque émission
+    this.rows$.next(this.rows);
+    this.loaded.next(range.total);
+  }
+}
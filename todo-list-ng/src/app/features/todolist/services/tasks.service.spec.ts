@@ -1,7 +1,10 @@
 import { TestBed } from '@angular/core/testing';
 import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
-import { TasksService } from './tasks.service';
+import { TASK_WINDOW_CACHE_SIZE, TASK_WINDOW_SIZE, TasksService } from './tasks.service';
 import { Task } from '../models/task.model';
+import { TaskChange } from '../models/task-change.model';
+import { TASK_COLUMNS_MEDIA_TYPE, TaskColumns } from '../models/task-columns.model';
+import { TaskList, TaskRange } from '../models/task-range.model';
 import { environment } from '../../../../environments/environment';
 
 describe('TasksService', () => { // Correction du nom de la suite de tests pour correspondre au service
@@ -45,6 +48,29 @@ describe('TasksService', () => { // Correction du nom de la suite de tests pour
     });
   });
 
+  describe('getAllTasks en colonnes', () => {
+    it('devrait demander le format en colonnes et reconstruire les tâches', () => {
+      const columns: TaskColumns = {
+        id: [1, 2],
+        label: ['Task 1', 'Task 2'],
+        description: ['Description 1', 'Description 2'],
+        completed: [false, true],
+        version: [1, 3]
+      };
+
+      service.getAllTasks(true).subscribe(tasks => {
+        expect(tasks).toEqual([
+          { id: 1, label: 'Task 1', description: 'Description 1', completed: false, version: 1 },
+          { id: 2, label: 'Task 2', description: 'Description 2', completed: true, version: 3 }
+        ]);
+      });
+
+      const req = httpMock.expectOne(`${apiUrl}all`);
+      expect(req.request.headers.get('Accept')).toBe(TASK_COLUMNS_MEDIA_TYPE);
+      req.flush(columns);
+    });
+  });
+
   describe('getTodoTasks', () => {
     it('devrait retourner une liste de tâches à faire', () => {
       const mockTodoTasks: Task[] = [
@@ -122,6 +148,227 @@ describe('TasksService', () => { // Correction du nom de la suite de tests pour
     });
   });
 
+  describe('getTaskWindow', () => {
+    /** Réponse du serveur à la lecture d'une plage, avec des tâches d'ids consécutifs à partir de firstId */
+    function flushWindow(list: TaskList, index: number, firstId: number, count: number, total: number) {
+      const req = httpMock.expectOne(`${apiUrl}${list}/range?offset=${index * TASK_WINDOW_SIZE}&limit=${TASK_WINDOW_SIZE}`);
+      expect(req.request.headers.get('Accept')).toBe(TASK_COLUMNS_MEDIA_TYPE);
+      const ids = Array.from({length: count}, (_, i) => firstId + i);
+      req.flush({
+        offset: index * TASK_WINDOW_SIZE,
+        total,
+        tasks: {
+          id: ids,
+          label: ids.map(id => 'Task ' + id),
+          description: ids.map(id => 'Description ' + id),
+          completed: ids.map(() => false),
+          version: ids.map(() => 1)
+        }
+      });
+    }
+
+    /** Lecture d'une plage, depuis le cache ou sur le serveur */
+    function readWindow(list: TaskList, index: number): TaskRange | undefined {
+      let range: TaskRange | undefined;
+      service.getTaskWindow(list, index).subscribe(r => range = r);
+      return range;
+    }
+
+    it('devrait lire une plage en colonnes puis la servir depuis le cache', () => {
+      let range: TaskRange | undefined;
+      service.getTaskWindow('all', 2).subscribe(r => range = r);
+      flushWindow('all', 2, 201, TASK_WINDOW_SIZE, 1000);
+
+      expect(range?.offset).toBe(2 * TASK_WINDOW_SIZE);
+      expect(range?.total).toBe(1000);
+      expect(range?.tasks[0]).toEqual({ id: 201, label: 'Task 201', description: 'Description 201', completed: false, version: 1 });
+
+      // Deuxième lecture sans requête : httpMock.verify échouerait sinon
+      expect(readWindow('all', 2)?.tasks.length).toBe(TASK_WINDOW_SIZE);
+    });
+
+    it('devrait retirer du cache la plage la moins récemment utilisée', () => {
+      for (let index = 0; index < TASK_WINDOW_CACHE_SIZE; index++) {
+        readWindow('all', index);
+        flushWindow('all', index, index * TASK_WINDOW_SIZE + 1, TASK_WINDOW_SIZE, 100000);
+      }
+      // La plage 0 devient la plus récemment utilisée, la plage 1 la moins récente
+      readWindow('all', 0);
+      readWindow('all', TASK_WINDOW_CACHE_SIZE);
+      flushWindow('all', TASK_WINDOW_CACHE_SIZE, TASK_WINDOW_CACHE_SIZE * TASK_WINDOW_SIZE + 1, TASK_WINDOW_SIZE, 100000);
+
+      expect(readWindow('all', 0)).toBeDefined();
+      expect(readWindow('all', 1)).toBeUndefined();
+      flushWindow('all', 1, TASK_WINDOW_SIZE + 1, TASK_WINDOW_SIZE, 100000);
+    });
+
+    it('devrait oublier les plages d\'une liste dont le nombre de tâches a changé sur le serveur', () => {
+      readWindow('todo', 0);
+      flushWindow('todo', 0, 1, TASK_WINDOW_SIZE, 250);
+      readWindow('todo', 1);
+      flushWindow('todo', 1, 101, TASK_WINDOW_SIZE, 251);
+
+      expect(readWindow('todo', 0)).toBeUndefined();
+      flushWindow('todo', 0, 1, TASK_WINDOW_SIZE, 251);
+    });
+
+    it('devrait appliquer une mise à jour aux plages en cache, sans les relire', () => {
+      readWindow('all', 0);
+      flushWindow('all', 0, 1, TASK_WINDOW_SIZE, 150);
+      readWindow('todo', 0);
+      flushWindow('todo', 0, 1, TASK_WINDOW_SIZE, TASK_WINDOW_SIZE);
+      const updated: Task = { id: 5, label: 'Task 5', description: 'Description 5', completed: true, version: 2 };
+
+      service.updateTask(updated).subscribe();
+      httpMock.expectOne(`${apiUrl}update`).flush(updated);
+
+      expect(readWindow('all', 0)?.tasks[4]).toEqual(updated);
+      const todo = readWindow('todo', 0);
+      expect(todo?.total).toBe(TASK_WINDOW_SIZE - 1);
+      expect(todo?.tasks.some(task => task.id === 5)).toBeFalse();
+    });
+
+    it('ne devrait pas modifier les plages en cache si la mise à jour échoue', () => {
+      readWindow('all', 0);
+      flushWindow('all', 0, 1, TASK_WINDOW_SIZE, 150);
+      const cached = readWindow('all', 0)!.tasks[4];
+
+      service.updateTask({ ...cached, completed: true }).subscribe({ error: () => {} });
+      httpMock.expectOne(`${apiUrl}update`).flush(null, { status: 500, statusText: 'Server Error' });
+
+      expect(readWindow('all', 0)?.tasks[4]).toBe(cached);
+      expect(cached.completed).toBeFalse();
+
+      // Copie remise dans le cache pour recréer la ligne, avec les mêmes valeurs
+      service.resetTask(cached);
+      const reset = readWindow('all', 0)!.tasks[4];
+      expect(reset).not.toBe(cached);
+      expect(reset).toEqual(cached);
+    });
+
+    it('devrait retirer une tâche supprimée en avançant les tâches des plages suivantes en cache', () => {
+      readWindow('all', 0);
+      flushWindow('all', 0, 1, TASK_WINDOW_SIZE, 250);
+      readWindow('all', 1);
+      flushWindow('all', 1, 101, TASK_WINDOW_SIZE, 250);
+
+      service.removeTask(50).subscribe();
+      httpMock.expectOne(`${apiUrl}50`).flush(null, { status: 204, statusText: 'No Content' });
+
+      const first = readWindow('all', 0);
+      expect(first?.total).toBe(249);
+      expect(first?.tasks.length).toBe(TASK_WINDOW_SIZE);
+      expect(first?.tasks[49].id).toBe(51);
+      expect(first?.tasks[TASK_WINDOW_SIZE - 1].id).toBe(101);
+      // La plage 1 a perdu sa première tâche sans recevoir celle de la plage 2, absente du cache : elle est relue
+      expect(readWindow('all', 1)).toBeUndefined();
+      flushWindow('all', 1, 102, TASK_WINDOW_SIZE, 249);
+    });
+
+    it('devrait ajouter une tâche créée à la fin de la dernière plage en cache', () => {
+      readWindow('all', 1);
+      flushWindow('all', 1, 101, 50, 150);
+      const created: Task = { id: 151, label: 'Task 151', description: 'Description 151', completed: false, version: 1 };
+
+      service.addTask(created).subscribe();
+      httpMock.expectOne(`${apiUrl}add`).flush(created);
+
+      const last = readWindow('all', 1);
+      expect(last?.total).toBe(151);
+      expect(last?.tasks[50]).toEqual(created);
+    });
+
+    it('devrait appliquer les modifications du flux aux plages en cache, sans les relire', () => {
+      readWindow('all', 0);
+      flushWindow('all', 0, 1, 50, 50);
+      readWindow('todo', 0);
+      flushWindow('todo', 0, 1, 50, 50);
+      const created: Task = { id: 51, label: 'Task 51', description: 'Description 51', completed: false, version: 1 };
+      const updated: Task = { id: 3, label: 'Task 3', description: 'Description 3', completed: true, version: 2 };
+      const changes: TaskChange[] = [
+        { sequence: 1, type: 'ADD', id: 51, task: created },
+        // Même ajout reçu deux fois, par la réponse à ce client puis par le flux : pas de doublon
+        { sequence: 1, type: 'ADD', id: 51, task: created },
+        { sequence: 2, type: 'UPDATE', id: 3, task: updated },
+        { sequence: 3, type: 'DELETE', id: 10, task: null }
+      ];
+
+      changes.forEach(change => service.applyChange(change));
+
+      const all = readWindow('all', 0);
+      expect(all?.total).toBe(50);
+      expect(all?.tasks.map(task => task.id).filter(id => id === 51).length).toBe(1);
+      expect(all?.tasks[2]).toEqual(updated);
+      expect(all?.tasks.some(task => task.id === 10)).toBeFalse();
+      const todo = readWindow('todo', 0);
+      expect(todo?.total).toBe(49);
+      expect(todo?.tasks.some(task => task.id === 3)).toBeFalse();
+      expect(todo?.tasks[todo.tasks.length - 1]).toEqual(created);
+    });
+
+    it('devrait ignorer une suppression de ce client reçue aussi par le flux, avant ou après la réponse', () => {
+      readWindow('all', 0);
+      flushWindow('all', 0, 1, 50, 50);
+      readWindow('todo', 0);
+      flushWindow('todo', 0, 1, 50, 50);
+
+      service.removeTask(10).subscribe();
+      httpMock.expectOne(`${apiUrl}10`).flush(null, { status: 204, statusText: 'No Content' });
+      service.applyChange({ sequence: 1, type: 'DELETE', id: 10, task: null });
+      service.applyChange({ sequence: 2, type: 'DELETE', id: 20, task: null });
+      service.removeTask(20).subscribe();
+      httpMock.expectOne(`${apiUrl}20`).flush(null, { status: 204, statusText: 'No Content' });
+
+      // Plages toujours en cache : httpMock.verify échouerait sinon
+      expect(readWindow('all', 0)?.total).toBe(48);
+      expect(readWindow('todo', 0)?.total).toBe(48);
+    });
+
+    it('devrait ignorer une mise à jour de ce client reçue aussi par le flux', () => {
+      readWindow('all', 0);
+      flushWindow('all', 0, 1, 50, 50);
+      readWindow('todo', 0);
+      flushWindow('todo', 0, 1, 50, 50);
+      const updated: Task = { id: 5, label: 'Task 5', description: 'Description 5', completed: true, version: 2 };
+
+      service.updateTask(updated).subscribe();
+      httpMock.expectOne(`${apiUrl}update`).flush(updated);
+      service.applyChange({ sequence: 1, type: 'UPDATE', id: 5, task: updated });
+
+      expect(readWindow('all', 0)?.tasks[4]).toEqual(updated);
+      expect(readWindow('todo', 0)?.total).toBe(49);
+    });
+
+    it('devrait compter sans relire la liste une tâche ajoutée après toutes les plages en cache', () => {
+      readWindow('all', 0);
+      // Ids 2 à 101 : l'id 1 est libre, par exemple créé par un autre nœud du cluster
+      flushWindow('all', 0, 2, TASK_WINDOW_SIZE, 251);
+      const created: Task = { id: 252, label: 'Task 252', description: 'Description 252', completed: false, version: 1 };
+      const inserted: Task = { id: 1, label: 'Task 1', description: 'Description 1', completed: false, version: 1 };
+
+      service.applyChange({ sequence: 1, type: 'ADD', id: 252, task: created });
+
+      const first = readWindow('all', 0);
+      expect(first?.total).toBe(252);
+      expect(first?.tasks.length).toBe(TASK_WINDOW_SIZE);
+
+      // Un id plus petit que ceux en cache décale leurs rangs : la liste est relue
+      service.applyChange({ sequence: 2, type: 'ADD', id: 1, task: inserted });
+      expect(readWindow('all', 0)).toBeUndefined();
+      flushWindow('all', 0, 1, TASK_WINDOW_SIZE, 253);
+    });
+
+    it('devrait oublier les plages en cache quand le flux demande de relire les listes', () => {
+      readWindow('all', 0);
+      flushWindow('all', 0, 1, 50, 50);
+
+      service.applyChange(null);
+
+      expect(readWindow('all', 0)).toBeUndefined();
+      flushWindow('all', 0, 1, 50, 50);
+    });
+  });
+
   describe('getTaskStatus', () => {
     it('devrait retourner "Terminée" si completed est true', () => {
       expect(service.getTaskStatus(true)).toBe('Terminée');
@@ -2,29 +2,293 @@ import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { environment } from '../../../../environments/environment';
 import { Task } from '../models/task.model';
-import { Observable } from 'rxjs';
+import { TaskChange } from '../models/task-change.model';
+import { fromColumns, TASK_COLUMNS_MEDIA_TYPE, TaskColumns } from '../models/task-columns.model';
+import { TaskList, TaskRange, TaskRangeColumns } from '../models/task-range.model';
+import { map, Observable, of, tap } from 'rxjs';
+
+/** Nombre de tâches d'une plage lue sur le serveur */
+export const TASK_WINDOW_SIZE = 100;
+/** Nombre maximum de plages gardées en cache, toutes listes confondues */
+export const TASK_WINDOW_CACHE_SIZE = 50;
+/** Nombre maximum d'ids de tâches supprimées retenus pour ignorer une suppression reçue deux fois */
+const REMOVED_IDS_SIZE = 1000;
 
 @Injectable({
   providedIn: 'root'
 })
 export class TasksService {
 
+  /**
+   * Plages lues, par liste et numéro de plage, de la moins récemment utilisée à la plus récente :
+   * une Map garde l'ordre d'insertion, une plage lue est retirée puis remise en fin de Map
+   */
+  private readonly windows = new Map<string, Task[]>();
+  /** Nombre de tâches de chaque liste, lu avec les plages puis tenu à jour par les modifications */
+  private readonly totals = new Map<TaskList, number>();
+  /**
+   * Ids des tâches supprimées déjà retirées des plages en cache, du plus ancien au plus récent : une suppression
+   * faite par ce client arrive aussi par le flux des modifications, avant ou après la réponse du serveur.
+   * Un id n'est jamais réattribué par le serveur.
+   */
+  private readonly removedIds = new Set<number>();
+
   constructor(private http: HttpClient) { }
 
   /**
    * Récupération de la liste de toutes les tâches, terminées ou non
+   * @param compact true pour recevoir les tâches en colonnes, plus compactes que la liste d'objets JSON
    * @returns Observable vers la liste des tâches renvoyée par le serveur
    */
-  getAllTasks(): Observable<Task[]> {
-    return this.http.get<Task[]>(environment.url + 'all');
+  getAllTasks(compact = false): Observable<Task[]> {
+    return this.getTaskList('all', compact);
   }
 
   /**
    * Récupération de la liste des les tâches restant à effectuer
+   * @param compact true pour recevoir les tâches en colonnes, plus compactes que la liste d'objets JSON
    * @returns Observable vers la liste des tâches renvoyée par le serveur
    */
-  getTodoTasks(): Observable<Task[]> {
-    return this.http.get<Task[]>(environment.url + 'todo');
+  getTodoTasks(compact = false): Observable<Task[]> {
+    return this.getTaskList('todo', compact);
+  }
+
+  /**
+   * Lecture d'une liste de tâches, en JSON ou en colonnes
+   * @param path Chemin de la liste
+   * @param compact true pour demander le format en colonnes
+   * @returns Observable vers la liste des tâches
+   */
+  private getTaskList(path: string, compact: boolean): Observable<Task[]> {
+    if (!compact) {
+      return this.http.get<Task[]>(environment.url + path);
+    }
+    return this.http.get<TaskColumns>(environment.url + path, {headers: {Accept: TASK_COLUMNS_MEDIA_TYPE}})
+      .pipe(map(fromColumns));
+  }
+
+  /**
+   * Lecture d'une plage de tâches d'une liste, depuis le cache ou sur le serveur, en colonnes.
+   * Si le nombre de tâches lu sur le serveur a changé, la liste a été modifiée ailleurs : les autres plages
+   * de la liste, dont les rangs ont pu changer, sont retirées du cache.
+   * @param list Liste lue
+   * @param index Numéro de la plage : elle commence au rang index * TASK_WINDOW_SIZE
+   * @returns Observable vers la plage, avec le nombre de tâches de la liste
+   */
+  getTaskWindow(list: TaskList, index: number): Observable<TaskRange> {
+    const key = this.windowKey(list, index);
+    const cached = this.windows.get(key);
+    if (cached) {
+      this.windows.delete(key);
+      this.windows.set(key, cached);
+      return of({offset: index * TASK_WINDOW_SIZE, total: this.totals.get(list)!, tasks: cached});
+    }
+    const params = {offset: index * TASK_WINDOW_SIZE, limit: TASK_WINDOW_SIZE};
+    return this.http.get<TaskRangeColumns>(environment.url + list + '/range', {params, headers: {Accept: TASK_COLUMNS_MEDIA_TYPE}})
+      .pipe(
+        map(range => ({offset: range.offset, total: range.total, tasks: fromColumns(range.tasks)})),
+        tap(range => {
+          if (this.totals.get(list) !== range.total) {
+            this.clearTaskWindows(list);
+            this.totals.set(list, range.total);
+          }
+          this.storeWindow(key, range.tasks);
+        })
+      );
+  }
+
+  /**
+   * Retrait des plages d'une liste du cache, relues sur le serveur à la prochaine lecture
+   * @param list Liste à relire
+   */
+  clearTaskWindows(list: TaskList): void {
+    for (const key of [...this.windows.keys()]) {
+      if (key.startsWith(list + ':')) {
+        this.windows.delete(key);
+      }
+    }
+    this.totals.delete(list);
+  }
+
+  /**
+   * Application d'une tâche modifiée aux plages en cache, sans les relire : remplacée dans les deux listes,
+   * retirée des tâches à effectuer si elle est terminée. Une tâche redevenue à effectuer prend un rang inconnu
+   * dans cette liste, relue en entier.
+   * @param task Tâche renvoyée par le serveur
+   */
+  patchTask(task: Task): void {
+    this.replaceInList('all', task);
+    if (task.completed) {
+      this.removeFromList('todo', task.id);
+    } else if (!this.replaceInList('todo', task)) {
+      this.clearTaskWindows('todo');
+    }
+  }
+
+  /**
+   * Remplacement d'une tâche des plages en cache par une copie, sans changer ses valeurs ni son rang :
+   * les lignes qui l'affichent sont recréées avec les valeurs du cache, par exemple pour annuler
+   * un choix de l'utilisateur que le serveur n'a pas enregistré
+   * @param task Tâche du cache
+   */
+  resetTask(task: Task): void {
+    const copy = {...task};
+    this.replaceInList('all', copy);
+    this.replaceInList('todo', copy);
+  }
+
+  /**
+   * Mise en cache d'une plage, en retirant la moins récemment utilisée au-delà de TASK_WINDOW_CACHE_SIZE plages
+   */
+  private storeWindow(key: string, tasks: Task[]): void {
+    this.windows.delete(key);
+    this.windows.set(key, tasks);
+    if (this.windows.size > TASK_WINDOW_CACHE_SIZE) {
+      this.windows.delete(this.windows.keys().next().value!);
+    }
+  }
+
+  private windowKey(list: TaskList, index: number): string {
+    return list + ':' + index;
+  }
+
+  /**
+   * Plages en cache d'une liste, par numéro croissant
+   */
+  private cachedWindows(list: TaskList): number[] {
+    const indexes: number[] = [];
+    for (const key of this.windows.keys()) {
+      if (key.startsWith(list + ':')) {
+        indexes.push(Number(key.substring(list.length + 1)));
+      }
+    }
+    return indexes.sort((a, b) => a - b);
+  }
+
+  /**
+   * Recherche d'une tâche dans les plages en cache d'une liste
+   * @returns Tâche du cache, undefined si elle n'est dans aucune plage en cache
+   */
+  private findInList(list: TaskList, id: number): Task | undefined {
+    for (const index of this.cachedWindows(list)) {
+      const task = this.windows.get(this.windowKey(list, index))!.find(t => t.id === id);
+      if (task) {
+        return task;
+      }
+    }
+    return undefined;
+  }
+
+  /**
+   * Remplacement d'une tâche dans la plage en cache qui la contient
+   * @returns true si la tâche a été trouvée
+   */
+  private replaceInList(list: TaskList, task: Task): boolean {
+    for (const index of this.cachedWindows(list)) {
+      const tasks = this.windows.get(this.windowKey(list, index))!;
+      const position = tasks.findIndex(t => t.id === task.id);
+      if (position !== -1) {
+        tasks[position] = task;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Retrait d'une tâche de la plage en cache qui la contient. Les tâches suivantes avancent d'un rang :
+   * chaque plage suivante en cache donne sa première tâche à la précédente. Après une plage absente du cache,
+   * les rangs des plages ne sont plus connus et elles sont retirées, comme la plage qui précède, incomplète.
+   * Si la tâche n'est dans aucune plage en cache, son rang est inconnu et la liste est relue en entier.
+   */
+  private removeFromList(list: TaskList, id: number): void {
+    const total = this.totals.get(list);
+    const indexes = this.cachedWindows(list);
+    const first = indexes.find(index => this.windows.get(this.windowKey(list, index))!.some(t => t.id === id));
+    if (total === undefined || first === undefined) {
+      this.clearTaskWindows(list);
+      return;
+    }
+    const tasks = this.windows.get(this.windowKey(list, first))!;
+    tasks.splice(tasks.findIndex(t => t.id === id), 1);
+    this.totals.set(list, total - 1);
+    let index = first;
+    while ((index + 1) * TASK_WINDOW_SIZE < total) {
+      const current = this.windows.get(this.windowKey(list, index))!;
+      const next = this.windows.get(this.windowKey(list, index + 1));
+      if (!next) {
+        this.windows.delete(this.windowKey(list, index));
+        indexes.filter(other => other > index).forEach(other => this.windows.delete(this.windowKey(list, other)));
+        return;
+      }
+      current.push(next.shift()!);
+      index++;
+    }
+    // Dernière plage de la liste, vide si sa seule tâche a avancé dans la précédente
+    if (this.windows.get(this.windowKey(list, index))?.length === 0) {
+      this.windows.delete(this.windowKey(list, index));
+    }
+  }
+
+  /**
+   * Retrait d'une tâche supprimée des deux listes, une seule fois : la même suppression reçue de nouveau
+   * n'est plus trouvée dans les plages en cache, qui seraient relues en entier
+   */
+  private removeFromLists(id: number): void {
+    if (this.removedIds.has(id)) {
+      return;
+    }
+    this.removedIds.add(id);
+    if (this.removedIds.size > REMOVED_IDS_SIZE) {
+      this.removedIds.delete(this.removedIds.values().next().value!);
+    }
+    this.removeFromList('all', id);
+    this.removeFromList('todo', id);
+  }
+
+  /**
+   * Ajout d'une tâche créée en fin de liste, si elle y est : les ids sont croissants, sauf dans un cluster
+   * où chaque nœud crée les siens. Si la dernière plage de la liste n'est pas en cache, une tâche d'id plus grand
+   * que toutes celles en cache ne change le rang d'aucune d'elles : seul le nombre de tâches change.
+   * Sinon, si la dernière tâche de la liste a un id plus grand, le rang de la tâche est inconnu et la liste
+   * est relue en entier.
+   */
+  private appendToList(list: TaskList, task: Task): void {
+    const total = this.totals.get(list);
+    if (total === undefined) {
+      return;
+    }
+    const lastWindow = this.windows.get(this.windowKey(list, Math.floor((total - 1) / TASK_WINDOW_SIZE)));
+    if (total > 0 && !lastWindow) {
+      // Plages triées par id : la plus grande en cache finit par l'id le plus grand
+      const indexes = this.cachedWindows(list);
+      const highest = indexes.length ? this.windows.get(this.windowKey(list, indexes[indexes.length - 1]))! : [];
+      if (highest.length && highest[highest.length - 1].id > task.id) {
+        this.clearTaskWindows(list);
+      } else {
+        this.totals.set(list, total + 1);
+      }
+      return;
+    }
+    if (total > 0 && lastWindow![lastWindow!.length - 1].id > task.id) {
+      this.clearTaskWindows(list);
+      return;
+    }
+    this.totals.set(list, total + 1);
+    if (total % TASK_WINDOW_SIZE !== 0) {
+      lastWindow!.push(task);
+    } else {
+      this.storeWindow(this.windowKey(list, total / TASK_WINDOW_SIZE), [task]);
+    }
+  }
+
+  /**
+   * Ajout d'une tâche créée aux plages en cache d'une liste, ou remplacement si elle y est déjà
+   */
+  private addToList(list: TaskList, task: Task): void {
+    if (!this.replaceInList(list, task)) {
+      this.appendToList(list, task);
+    }
   }
 
   /**
@@ -37,32 +301,82 @@ export class TasksService {
   }
 
   /**
-   * Sauvegarde d'une nouvelle tâche
+   * Sauvegarde d'une nouvelle tâche, ajoutée aux plages en cache
    * @param task Tâche à sauvegarder
    * @returns Observable vers les données de la tâche sauvegardée renvoyées par le serveur
    */
   addTask(task: Task): Observable<Task> {
-    return this.http.post<Task>(environment.url + 'add', task);
+    return this.http.post<Task>(environment.url + 'add', task).pipe(
+      tap(created => {
+        this.addToList('all', created);
+        if (!created.completed) {
+          this.addToList('todo', created);
+        }
+      })
+    );
   }
 
   /**
-   * Mise à jour du statut d'une tâche
-   * @param task Tâche à mettre à jour, avec la nouvelle valeur de son statut
+   * Mise à jour du statut d'une tâche, appliquée aux plages en cache avec la tâche renvoyée par le serveur
+   * @param task Copie de la tâche à mettre à jour, avec la nouvelle valeur de son statut : la tâche du cache
+   * n'est pas modifiée avant la réponse du serveur
    * @returns Observable vers les données de la tâche sauvegardée renvoyées par le serveur
    */
   updateTask(task: Task): Observable<Task> {
-    return this.http.put<Task>(environment.url+ 'update', task);
+    return this.http.put<Task>(environment.url+ 'update', task).pipe(tap(updated => this.patchTask(updated)));
   }
 
   /**
-   * Suppression d'une tâche
+   * Suppression d'une tâche, retirée des plages en cache
    * @param id Identifiant de la tâche à supprimer
    * @returns Observable
    */
   removeTask(id: number): Observable<void> {
-    return this.http.delete<void>(environment.url + id);
+    return this.http.delete<void>(environment.url + id).pipe(
+      tap(() => this.removeFromLists(id))
+    );
+  }
+
+  /**
+   * Réception des modifications au fil de l'eau (Server-Sent Events), à partir de la version courante du serveur.
+   * En cas de coupure, le navigateur se reconnecte et le serveur reprend après le dernier événement reçu.
+   * @returns Observable vers chaque modification, ou null si les listes doivent être relues
+   */
+  streamChanges(): Observable<TaskChange | null> {
+    return new Observable<TaskChange | null>(subscriber => {
+      const source = new EventSource(environment.url + 'changes/stream');
+      source.addEventListener('change', event => subscriber.next(JSON.parse((event as MessageEvent).data)));
+      source.addEventListener('resync', () => subscriber.next(null));
+      // Fermeture de la connexion au désabonnement
+      return () => source.close();
+    });
   }
 
+  /**
+   * Application d'une modification du flux des modifications aux plages en cache, sans les relire.
+   * Une modification déjà appliquée, faite par ce client ou lue avec une plage, est ignorée : une tâche ajoutée
+   * déjà en cache y est remplacée, une mise à jour dont la version est déjà en cache et une suppression
+   * déjà retirée des plages ne changent rien.
+   * @param change Modification, ou null si le serveur demande de relire les listes
+   */
+  applyChange(change: TaskChange | null): void {
+    if (change === null) {
+      this.clearTaskWindows('all');
+      this.clearTaskWindows('todo');
+    } else if (change.type === 'DELETE' || !change.task) {
+      this.removeFromLists(change.id);
+    } else if (change.type === 'UPDATE') {
+      const cached = this.findInList('all', change.id);
+      if (cached?.version === undefined || change.task.version === undefined || cached.version < change.task.version) {
+        this.patchTask(change.task);
+      }
+    } else {
+      this.addToList('all', change.task);
+      if (!change.task.completed) {
+        this.addToList('todo', change.task);
+      }
+    }
+  }
 
   /**
    * Renvoit le statut à afficher pour une tâche
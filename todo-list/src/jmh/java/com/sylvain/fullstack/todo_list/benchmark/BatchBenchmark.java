@@ -0,0 +1,108 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.persistence.TaskPersistence;
+import com.sylvain.fullstack.todo_list.persistence.WalTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Comparaison d'un lot de 10 000 ajouts avec 10 000 appels unitaires à addTask,
+ * sans persistance et avec le journal WAL en écriture synchrone (un fsync par appel unitaire, un seul pour le lot).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BatchBenchmark {
+
+    @Param({"10000"})
+    public int batchSize;
+
+    @Param({"memory", "wal"})
+    public String persistenceType;
+
+    private Path directory;
+    private TaskPersistence persistence;
+    private TodoListService service;
+
+    @Setup(Level.Iteration)
+    public void openService() throws IOException {
+        if ("wal".equals(persistenceType)) {
+            directory = Files.createTempDirectory("todo-batch-benchmark");
+            persistence = new WalTaskPersistence(directory, true, Duration.ofMillis(10), Long.MAX_VALUE);
+        } else {
+            persistence = new InMemoryTaskPersistence();
+        }
+        service = new TodoListService(persistence);
+        // Tâches modifiées par batchUpdate
+        List<TaskOperation> operations = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            operations.add(new TaskOperation(TaskOperation.Type.ADD, BenchmarkData.task(i)));
+        }
+        service.applyBatch(operations);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeService() throws IOException {
+        persistence.close();
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public void singleAdds(Blackhole blackhole) {
+        for (int i = 0; i < batchSize; i++) {
+            blackhole.consume(service.addTask(BenchmarkData.task(i)));
+        }
+    }
+
+    @Benchmark
+    public List<TaskOperationResult> batchAdd() {
+        List<TaskOperation> operations = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            operations.add(new TaskOperation(TaskOperation.Type.ADD, BenchmarkData.task(i)));
+        }
+        return service.applyBatch(operations);
+    }
+
+    @Benchmark
+    public List<TaskOperationResult> batchUpdate() {
+        List<TaskOperation> operations = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            operations.add(new TaskOperation(TaskOperation.Type.UPDATE, new Task((long) i + 1, null, null, i % 2 == 0)));
+        }
+        return service.applyBatch(operations);
+    }
+}
@@ -0,0 +1,37 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jeux de données communs aux benchmarks
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param index Rang de la tâche dans le jeu de données
+     * @return Tâche sans id, terminée une fois sur trois
+     */
+    static Task task(int index) {
+        return new Task(null, "Tâche n°" + index, "Description détaillée de la tâche n°" + index, index % 3 == 0);
+    }
+
+    /**
+     * @param size Nombre de tâches
+     * @return Liste de tâches avec leurs ids
+     */
+    static List<Task> tasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Task task = task(i);
+            task.setId(i + 1L);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
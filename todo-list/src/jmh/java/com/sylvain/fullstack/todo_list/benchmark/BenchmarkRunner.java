@@ -0,0 +1,41 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Lancement des benchmarks JMH pour chaque nombre de threads demandé, avec le profileur GC
+ * (débit d'allocation et nombre de GC). Les résultats sont écrits dans target/jmh-result-N-threads.json.
+ * <p>
+ * Arguments : expression régulière des benchmarks, nombres de threads séparés par des virgules,
+ * tailles du stockage séparées par des virgules (optionnel).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 && !args[0].isBlank() ? args[0] : ".*";
+        int[] threads = args.length > 1 && !args[1].isBlank()
+                ? Arrays.stream(args[1].split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1, Runtime.getRuntime().availableProcessors()};
+        String[] sizes = args.length > 2 && !args[2].isBlank() ? args[2].split(",") : new String[0];
+
+        for (int threadCount : threads) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threadCount)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-result-" + threadCount + "-threads.json");
+            if (sizes.length > 0) {
+                options.param("storeSize", sizes);
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
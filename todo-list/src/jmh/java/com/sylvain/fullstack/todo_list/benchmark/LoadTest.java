@@ -0,0 +1,244 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.TodoListApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Test de charge du serveur embarqué : Spring MVC sur Tomcat avec les threads de requête de plateforme ou virtuels,
+ * et la variante réactive sur WebFlux et Netty (mode reactive, compilée avec le profil Maven reactive).
+ * <p>
+ * Pour chaque mode, l'application démarre sur un port libre avec la persistance WAL (fsync à chaque écriture).
+ * Des connexions SSE sur /changes/stream peuvent être ouvertes d'abord et gardées ouvertes pendant la mesure,
+ * comme des clients qui attendent les modifications. Puis chaque client, sur son propre thread virtuel et sa propre
+ * connexion, enchaîne sans pause lectures GET /{id} et ajouts POST /add.
+ * Seules les requêtes terminées après la chauffe sont mesurées. Le débit, les latences p50 / p99, le nombre
+ * d'erreurs et le nombre de connexions SSE ouvertes de chaque mode sont affichés à la fin.
+ * <p>
+ * Arguments : nombre de clients, durée de mesure en secondes, modes séparés par des virgules (platform, virtual,
+ * reactive), proportion d'écritures entre 0 et 1, nombre de connexions SSE gardées ouvertes.
+ */
+public class LoadTest {
+
+    /** Nombre de tâches créées avant la mesure, lues par les clients */
+    private static final int STORE_SIZE = 10_000;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    /** Attente maximum de l'ouverture des connexions SSE */
+    private static final Duration STREAMS_TIMEOUT = Duration.ofSeconds(30);
+    private static final String REACTIVE_APPLICATION = "com.sylvain.fullstack.todo_list.reactive.ReactiveTodoListApplication";
+
+    public static void main(String[] args) throws Exception {
+        // Sinon devtools relance main dans un nouveau class loader, sans les arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        int clients = args.length > 0 && !args[0].isBlank() ? Integer.parseInt(args[0].trim()) : 1000;
+        Duration duration = Duration.ofSeconds(args.length > 1 && !args[1].isBlank() ? Long.parseLong(args[1].trim()) : 20);
+        String[] modes = args.length > 2 && !args[2].isBlank() ? args[2].split(",") : new String[]{"platform", "virtual"};
+        double writeRatio = args.length > 3 && !args[3].isBlank() ? Double.parseDouble(args[3].trim()) : 0.2;
+        int streams = args.length > 4 && !args[4].isBlank() ? Integer.parseInt(args[4].trim()) : 0;
+
+        List<String> report = new ArrayList<>();
+        for (String mode : modes) {
+            String result = run(mode.trim(), clients, duration, writeRatio, streams);
+            if (result != null) {
+                report.add(result);
+            }
+        }
+        System.out.printf("%n%d clients, %d s, %.0f %% d'écritures, %d connexions SSE%n", clients, duration.toSeconds(),
+                writeRatio * 100, streams);
+        System.out.printf("%-10s %12s %10s %10s %10s %10s%n", "mode", "requêtes/s", "p50 (ms)", "p99 (ms)", "erreurs", "flux SSE");
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * @return Ligne du rapport, null si le mode n'est pas compilé
+     */
+    private static String run(String mode, int clients, Duration duration, double writeRatio, int streams) throws Exception {
+        SpringApplicationBuilder builder = switch (mode) {
+            case "platform", "virtual" -> new SpringApplicationBuilder(TodoListApplication.class);
+            case "reactive" -> {
+                Class<?> application;
+                try {
+                    application = Class.forName(REACTIVE_APPLICATION);
+                } catch (ClassNotFoundException e) {
+                    System.out.printf("%s : non compilé (profil Maven reactive), ignoré%n", mode);
+                    yield null;
+                }
+                yield new SpringApplicationBuilder(application).web(WebApplicationType.REACTIVE);
+            }
+            default -> throw new IllegalArgumentException("Mode inconnu : " + mode);
+        };
+        if (builder == null) {
+            return null;
+        }
+        Path directory = Files.createTempDirectory("todo-load-test");
+        // Arguments de la ligne de commande : ils l'emportent sur application.properties, pas les propriétés par défaut
+        ConfigurableApplicationContext context = builder.run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                "--todo-list.persistence.type=wal",
+                "--todo-list.persistence.directory=" + directory,
+                // Tous les clients ont la même adresse : la limitation de débit les confondrait
+                "--todo-list.rate-limit.enabled=false",
+                "--logging.level.root=WARN");
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        try {
+            URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/tasks/");
+            for (int i = 0; i < STORE_SIZE; i++) {
+                send(http, add(base, i));
+            }
+            int opened = openStreams(http, base, streams);
+
+            long start = System.nanoTime();
+            long measureFrom = start + WARMUP.toNanos();
+            long end = measureFrom + duration.toNanos();
+            AtomicLong errors = new AtomicLong();
+            List<long[]> latencies = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<long[]>> results = new ArrayList<>();
+                for (int c = 0; c < clients; c++) {
+                    results.add(executor.submit(() -> client(http, base, writeRatio, measureFrom, end, errors)));
+                }
+                for (var result : results) {
+                    latencies.add(result.get());
+                }
+            }
+
+            long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            double seconds = duration.toNanos() / 1e9;
+            return String.format("%-10s %12.0f %10.2f %10.2f %10d %10d", mode, all.length / seconds,
+                    percentile(all, 0.50), percentile(all, 0.99), errors.get(), opened);
+        } finally {
+            // Les connexions SSE encore ouvertes sont fermées avec le client
+            http.shutdownNow();
+            context.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Boucle d'un client : une requête à la fois, jusqu'à la fin de la mesure
+     * @return Latences en nanosecondes des requêtes réussies pendant la mesure
+     */
+    private static long[] client(HttpClient http, URI base, double writeRatio, long measureFrom, long end, AtomicLong errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1024];
+        int count = 0;
+        while (true) {
+            HttpRequest request = random.nextDouble() < writeRatio
+                    ? add(base, random.nextInt(STORE_SIZE))
+                    : HttpRequest.newBuilder(base.resolve(Long.toString(random.nextInt(STORE_SIZE) + 1))).GET().build();
+            long sent = System.nanoTime();
+            if (sent >= end) {
+                break;
+            }
+            boolean ok = send(http, request);
+            long received = System.nanoTime();
+            if (sent < measureFrom || received > end) {
+                continue;
+            }
+            if (!ok) {
+                errors.incrementAndGet();
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = received - sent;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /**
+     * Ouverture de connexions SSE gardées ouvertes jusqu'à la fin du mode, chacune lue par un thread virtuel
+     * @return Nombre de connexions dont la réponse a commencé avant l'expiration de l'attente
+     */
+    private static int openStreams(HttpClient http, URI base, int streams) throws InterruptedException {
+        if (streams == 0) {
+            return 0;
+        }
+        AtomicInteger opened = new AtomicInteger();
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("changes/stream"))
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+        for (int i = 0; i < streams; i++) {
+            http.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()).thenAccept(response -> {
+                if (response.statusCode() == 200) {
+                    opened.incrementAndGet();
+                }
+                Thread.startVirtualThread(() -> {
+                    try (InputStream body = response.body()) {
+                        body.transferTo(OutputStream.nullOutputStream());
+                    } catch (IOException e) {
+                        // Connexion fermée à la fin du mode
+                    }
+                });
+            });
+        }
+        long deadline = System.nanoTime() + STREAMS_TIMEOUT.toNanos();
+        while (opened.get() < streams && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        return opened.get();
+    }
+
+    private static HttpRequest add(URI base, int i) {
+        String json = "{\"label\":\"" + BenchmarkData.task(i).getLabel() + "\",\"description\":\"Description\",\"completed\":false}";
+        return HttpRequest.newBuilder(base.resolve("add"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static boolean send(HttpClient http, HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.cluster.IdPartition;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TaskMetrics;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import com.sylvain.fullstack.todo_list.store.MapTaskStore;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût des métriques sur les opérations du service : sans registre (NONE, aucune mesure) et avec le registre
+ * Prometheus configuré comme l'application (PROMETHEUS, histogrammes des durées). La différence entre les deux
+ * est le surcoût par opération, à comparer à la durée de l'opération elle-même.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MetricsOverheadBenchmark {
+
+    public enum Registry { NONE, PROMETHEUS }
+
+    @Param({"1000"})
+    public int storeSize;
+
+    @Param({"NONE", "PROMETHEUS"})
+    public Registry registry;
+
+    private TodoListService service;
+
+    @Setup(Level.Trial)
+    public void fillStore() {
+        service = new TodoListService(new InMemoryTaskPersistence(), new TaskChangeFeed(), new MapTaskStore(),
+                IdPartition.all(), meterRegistry());
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+    }
+
+    private MeterRegistry meterRegistry() {
+        if (registry == Registry.NONE) {
+            return new CompositeMeterRegistry();
+        }
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        // Équivalent de management.metrics.distribution.percentiles-histogram.todo.tasks.operations=true
+        prometheus.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(TaskMetrics.OPERATIONS)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+            }
+        });
+        return prometheus;
+    }
+
+    @Benchmark
+    public Task addTask() {
+        return service.addTask(new Task(null, "Nouvelle tâche", "Ajoutée par le benchmark", false));
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.updateTask(random.nextLong(1, storeSize + 1), random.nextBoolean());
+    }
+
+    @Benchmark
+    public boolean deleteMissingTask() {
+        return service.deleteTask(-ThreadLocalRandom.current().nextLong(1, storeSize + 1));
+    }
+
+    @Benchmark
+    public List<Task> getTodoTasks() {
+        return service.getTodoTasks();
+    }
+}
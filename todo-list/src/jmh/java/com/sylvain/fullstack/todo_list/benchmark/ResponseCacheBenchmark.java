@@ -0,0 +1,64 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sylvain.fullstack.todo_list.controller.TaskRepresentation;
+import com.sylvain.fullstack.todo_list.controller.TaskResponseCache;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import com.sylvain.fullstack.todo_list.store.MapTaskStore;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture de /all sans modification entre deux appels : relecture et sérialisation JSON de toutes les tâches
+ * (uncached), ou octets du cache des réponses (cached). Le profileur GC donne les octets alloués par lecture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ResponseCacheBenchmark {
+
+    @Param({"1000", "100000"})
+    public int storeSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TodoListService service;
+    private TaskResponseCache cache;
+
+    @Setup(Level.Trial)
+    public void fillStore() {
+        service = new TodoListService(new InMemoryTaskPersistence(), new TaskChangeFeed(), new MapTaskStore());
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+        cache = new TaskResponseCache(objectMapper, 1L << 30, 100, new CompositeMeterRegistry());
+    }
+
+    @Benchmark
+    public byte[] uncached() throws IOException {
+        return objectMapper.writeValueAsBytes(service.getAllTasks());
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cache.get("/all", TaskRepresentation.JSON, service.getVersion(), service::getAllTasks);
+    }
+}
@@ -0,0 +1,60 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.model.TaskSearchPage;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence de la recherche plein texte selon la sélectivité de la requête :
+ * un mot présent dans toutes les tâches, un numéro présent dans une seule, et un début de mot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SearchBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int storeSize;
+
+    private TodoListService service;
+    private String rareTerm;
+
+    @Setup
+    public void fillService() {
+        service = new TodoListService();
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+        rareTerm = "tache " + (storeSize / 2);
+    }
+
+    @Benchmark
+    public TaskSearchPage commonTerm() {
+        return service.searchTasks("description", 0, 50);
+    }
+
+    @Benchmark
+    public TaskSearchPage rareTerm() {
+        return service.searchTasks(rareTerm, 0, 50);
+    }
+
+    @Benchmark
+    public TaskSearchPage prefix() {
+        return service.searchTasks("deta", 0, 50);
+    }
+}
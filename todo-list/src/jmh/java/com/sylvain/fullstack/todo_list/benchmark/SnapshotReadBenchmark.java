@@ -0,0 +1,81 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit des lectures de toutes les tâches pendant des modifications continues : un thread lit la liste complète
+ * pendant que trois threads modifient des statuts sans pause.
+ * <p>
+ * La lecture à une version du stockage (SNAPSHOT, {@link TodoListService#getAllTasks()}) est comparée au parcours
+ * sans version du stockage (WEAK, {@link TodoListService#iterateTasks(boolean)}), qui peut mélanger des états d'avant
+ * et d'après une modification. L'écart mesure le coût des états remplacés rangés par les modifications et relus
+ * par la lecture ; le débit des modifications est mesuré en même temps.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotReadBenchmark {
+
+    public enum Read { SNAPSHOT, WEAK }
+
+    @Param({"10000", "100000"})
+    public int storeSize;
+
+    @Param({"SNAPSHOT", "WEAK"})
+    public Read read;
+
+    private TodoListService service;
+
+    @Setup(Level.Trial)
+    public void fillStore() {
+        service = new TodoListService(new InMemoryTaskPersistence(), new TaskChangeFeed());
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public List<Task> readAll() {
+        if (read == Read.SNAPSHOT) {
+            return service.getAllTasks();
+        }
+        List<Task> tasks = new ArrayList<>(storeSize);
+        service.iterateTasks(false).forEachRemaining(tasks::add);
+        return tasks;
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public Task write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.updateTask(random.nextLong(1, storeSize + 1), random.nextBoolean());
+    }
+}
@@ -0,0 +1,85 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.service.TaskQuery;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence d'une page de 50 tâches filtrée et triée, lue dans les index de tri ou en triant toutes les tâches :
+ * tâches terminées par libellé décroissant, et tâches à effectuer dont le libellé commence par un préfixe
+ * rare, par id décroissant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SortedPageBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "100000"})
+    public int storeSize;
+
+    private TodoListService service;
+    private TaskQuery doneByLabel;
+    private TaskQuery prefixById;
+
+    @Setup
+    public void fillService() {
+        service = new TodoListService();
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+        doneByLabel = TaskQuery.of(true, null, null, null, "label,desc");
+        // Libellés "Tâche n°5", "Tâche n°50" à "Tâche n°59", "Tâche n°500"... : un peu plus de 1 % des tâches
+        prefixById = TaskQuery.of(false, null, null, "tache n°5", "id,desc");
+    }
+
+    @Benchmark
+    public TaskPage doneByLabelIndexed() {
+        return service.queryTasks(doneByLabel, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Task> doneByLabelScan() {
+        return scan(doneByLabel);
+    }
+
+    @Benchmark
+    public TaskPage prefixByIdIndexed() {
+        return service.queryTasks(prefixById, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Task> prefixByIdScan() {
+        return scan(prefixById);
+    }
+
+    /**
+     * Lecture sans index : copie, filtre et tri de toutes les tâches
+     */
+    private List<Task> scan(TaskQuery query) {
+        return service.getAllTasks().stream()
+                .filter(query::matches)
+                .sorted(query.comparator())
+                .limit(PAGE_SIZE)
+                .toList();
+    }
+}
@@ -0,0 +1,145 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Temps de démarrage jusqu'à la première réponse, et mémoire résidente à ce moment, de chaque mode de lancement
+ * de l'application packagée : jar exécutable, jar extrait avec le traitement AOT de Spring, le même avec l'archive
+ * AppCDS, et image native. Les modes dont les fichiers n'ont pas été construits sont ignorés.
+ * <p>
+ * Chaque lancement démarre un nouveau processus sur un port libre, puis lit GET /api/v1/tasks/all toutes les 5 ms
+ * jusqu'à la première réponse 200 : le temps mesuré va du lancement du processus à cette réponse. La mémoire
+ * résidente (VmRSS, Linux seulement) est lue juste après, puis le processus est arrêté. Les médianes sont affichées.
+ * <p>
+ * Arguments : répertoire de build (target), modes séparés par des virgules (jar, aot, aot-cds, native),
+ * nombre de lancements par mode.
+ */
+public class StartupTime {
+
+    private static final String JAR = "todo-list-0.0.1-SNAPSHOT.jar";
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    public static void main(String[] args) throws Exception {
+        Path target = Path.of(args.length > 0 && !args[0].isBlank() ? args[0].trim() : "target");
+        String[] modes = args.length > 1 && !args[1].isBlank() ? args[1].split(",") : new String[]{"jar", "aot", "aot-cds", "native"};
+        int runs = args.length > 2 && !args[2].isBlank() ? Integer.parseInt(args[2].trim()) : 5;
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        List<String> report = new ArrayList<>();
+        for (String mode : modes) {
+            List<String> command = command(mode.trim(), target, java);
+            if (command == null) {
+                System.out.printf("%s : non construit, ignoré%n", mode.trim());
+                continue;
+            }
+            long[] times = new long[runs];
+            long[] rss = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] measure = measure(command);
+                times[run] = measure[0];
+                rss[run] = measure[1];
+                System.out.printf("%s #%d : %d ms, %d Mio%n", mode.trim(), run + 1, times[run], rss[run] / 1024);
+            }
+            report.add(String.format("%-10s %14d %12d", mode.trim(), median(times), median(rss) / 1024));
+        }
+        System.out.printf("%n%d lancements par mode, médianes%n", runs);
+        System.out.printf("%-10s %14s %12s%n", "mode", "1re réponse (ms)", "RSS (Mio)");
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * @return Commande de lancement du mode, sans le port, null si ses fichiers n'existent pas
+     */
+    private static List<String> command(String mode, Path target, String java) {
+        Path cds = target.resolve("cds");
+        return switch (mode) {
+            case "jar" -> Files.exists(target.resolve(JAR))
+                    ? List.of(java, "-jar", target.resolve(JAR).toString()) : null;
+            case "aot" -> Files.exists(cds.resolve(JAR))
+                    ? List.of(java, "-Dspring.aot.enabled=true", "-jar", cds.resolve(JAR).toString()) : null;
+            case "aot-cds" -> Files.exists(cds.resolve("application.jsa"))
+                    ? List.of(java, "-XX:SharedArchiveFile=" + cds.resolve("application.jsa"), "-Dspring.aot.enabled=true",
+                    "-jar", cds.resolve(JAR).toString()) : null;
+            case "native" -> Files.isExecutable(target.resolve("todo-list"))
+                    ? List.of(target.resolve("todo-list").toString()) : null;
+            default -> throw new IllegalArgumentException("Mode inconnu : " + mode);
+        };
+    }
+
+    /**
+     * Lancement, attente de la première réponse, lecture de la mémoire résidente et arrêt
+     * @return Temps jusqu'à la première réponse en millisecondes, mémoire résidente en Kio (0 si inconnue)
+     */
+    private static long[] measure(List<String> command) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        arguments.add("--logging.level.root=WARN");
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/tasks/all")).GET().build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Arrêt du processus, code " + process.exitValue() + " : " + arguments);
+                }
+                if (System.nanoTime() - start > TIMEOUT.toNanos()) {
+                    throw new IllegalStateException("Pas de réponse après " + TIMEOUT.toSeconds() + " s : " + arguments);
+                }
+                try {
+                    if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // Serveur pas encore à l'écoute
+                }
+                Thread.sleep(5);
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            return new long[]{elapsed, rss(process.pid())};
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * @return Mémoire résidente du processus en Kio, 0 si /proc n'existe pas
+     */
+    private static long rss(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(0);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,50 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.config.StoreProperties;
+import com.sylvain.fullstack.todo_list.store.CompactTaskStore;
+import com.sylvain.fullstack.todo_list.store.MapTaskStore;
+import com.sylvain.fullstack.todo_list.store.TaskStore;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Mémoire occupée par chaque stockage en mémoire, mesurée après GC avant et après le remplissage.
+ * <p>
+ * Argument : nombre de tâches (1 000 000 par défaut).
+ */
+public class StoreFootprint {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 && !args[0].isBlank() ? Integer.parseInt(args[0].trim()) : 1_000_000;
+        System.out.printf("%,d tâches%n%-10s %12s %14s %10s%n", size, "stockage", "tas (Mio)", "octets/tâche", "GC (ms)");
+        for (StoreProperties.Type type : StoreProperties.Type.values()) {
+            long before = usedHeapAfterGc();
+            long gcBefore = gcTime();
+            TaskStore store = type == StoreProperties.Type.MAP ? new MapTaskStore() : new CompactTaskStore();
+            for (int i = 0; i < size; i++) {
+                var task = BenchmarkData.task(i);
+                task.setId(i + 1L);
+                store.put(task);
+            }
+            long gc = gcTime() - gcBefore;
+            long used = usedHeapAfterGc() - before;
+            System.out.printf("%-10s %12.1f %14.1f %10d%n", type.name().toLowerCase(), used / 1048576.0,
+                    (double) used / store.size(), gc);
+            // Garde le stockage vivant jusqu'à la mesure
+            if (store.size() != size) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(bean -> Math.max(bean.getCollectionTime(), 0)).sum();
+    }
+}
@@ -0,0 +1,69 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence de la lecture d'une plage de 100 tâches par rang, au début, au milieu et à la fin de la liste, comparée
+ * à la lecture de toutes les tâches qu'elle remplace dans l'IHM. Le stockage donne la tranche d'ids du rang :
+ * le coût d'une plage ne dépend pas de son rang, mais des tâches de la tranche qui le précèdent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TaskRangeBenchmark {
+
+    private static final int RANGE_SIZE = 100;
+
+    @Param({"100000"})
+    public int storeSize;
+
+    /** Rang de la plage, en pourcentage de la liste */
+    @Param({"0", "50", "100"})
+    public int position;
+
+    private TodoListService service;
+    private int offset;
+
+    @Setup
+    public void fillService() {
+        service = new TodoListService();
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+        offset = Math.max(0, Math.min(storeSize - RANGE_SIZE, storeSize / 100 * position));
+    }
+
+    @Benchmark
+    public TaskRange range() {
+        return service.getTasksRange(offset, RANGE_SIZE, false);
+    }
+
+    @Benchmark
+    public TaskRange todoRange() {
+        return service.getTasksRange(offset / 2, RANGE_SIZE, true);
+    }
+
+    @Benchmark
+    public List<Task> allTasks() {
+        return service.getAllTasks();
+    }
+}
@@ -0,0 +1,81 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.sylvain.fullstack.todo_list.controller.TaskColumnsHttpMessageConverter;
+import com.sylvain.fullstack.todo_list.model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Coût et taille d'une liste de tâches dans chaque format de réponse de /api/v1/tasks/all :
+ * JSON (un objet par tâche), colonnes (un tableau par champ) et CBOR, avec ou sans compression gzip.
+ * La taille de la réponse de chaque combinaison est affichée au début de la mesure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TaskWireFormatBenchmark {
+
+    public enum Format { JSON, COLUMNS, CBOR }
+
+    @Param({"1000", "100000"})
+    public int storeSize;
+
+    @Param({"JSON", "COLUMNS", "CBOR"})
+    public Format format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private List<Task> tasks;
+    private ObjectWriter jsonWriter;
+    private ObjectWriter cborWriter;
+    private TaskColumnsHttpMessageConverter columnsConverter;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        tasks = BenchmarkData.tasks(storeSize);
+        tasks.forEach(task -> task.setVersion(1L));
+        ObjectMapper objectMapper = new ObjectMapper();
+        jsonWriter = objectMapper.writer();
+        cborWriter = new CBORMapper().writer();
+        columnsConverter = new TaskColumnsHttpMessageConverter(objectMapper);
+        System.out.printf("%n%s%s, %d tâches : %d octets%n", format, gzip ? " + gzip" : "", storeSize, serialize().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        // Niveau de compression par défaut, comme Tomcat
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8 * 1024) : bytes) {
+            switch (format) {
+                case JSON -> jsonWriter.writeValue(out, tasks);
+                case COLUMNS -> columnsConverter.writeTasks(tasks, out);
+                case CBOR -> cborWriter.writeValue(out, tasks);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
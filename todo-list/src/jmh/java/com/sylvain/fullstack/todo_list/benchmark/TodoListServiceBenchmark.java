@@ -0,0 +1,105 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.config.StoreProperties;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TaskVersionConflictException;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import com.sylvain.fullstack.todo_list.store.CompactTaskStore;
+import com.sylvain.fullstack.todo_list.store.MapTaskStore;
+import com.sylvain.fullstack.todo_list.store.TaskStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit des opérations de TodoListService en fonction du nombre de tâches stockées.
+ * Une tâche sur trois est terminée, comme dans un historique réaliste. Chaque stockage en mémoire est mesuré.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TodoListServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int storeSize;
+
+    @Param({"MAP", "COMPACT"})
+    public StoreProperties.Type store;
+
+    private TodoListService service;
+
+    @Setup(Level.Trial)
+    public void fillStore() {
+        TaskStore taskStore = store == StoreProperties.Type.MAP ? new MapTaskStore() : new CompactTaskStore();
+        service = new TodoListService(new InMemoryTaskPersistence(), new TaskChangeFeed(), taskStore);
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+    }
+
+    @Benchmark
+    public Task addTask() {
+        return service.addTask(new Task(null, "Nouvelle tâche", "Ajoutée par le benchmark", false));
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.updateTask(random.nextLong(1, storeSize + 1), random.nextBoolean());
+    }
+
+    /**
+     * Mise à jour optimiste, comme un client : lecture de la tâche puis modification à sa version, relue en cas de conflit
+     */
+    @Benchmark
+    public Task updateTaskWithVersion() {
+        long id = ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+        while (true) {
+            Task task = service.getTaskById(id);
+            try {
+                return service.updateTask(id, !task.isCompleted(), task.getVersion());
+            } catch (TaskVersionConflictException e) {
+                // Modifiée par un autre thread entre la lecture et la mise à jour : nouvel essai
+            }
+        }
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return service.getTaskById(ThreadLocalRandom.current().nextLong(1, storeSize + 1));
+    }
+
+    @Benchmark
+    public List<Task> getAllTasks() {
+        return service.getAllTasks();
+    }
+
+    @Benchmark
+    public List<Task> getTodoTasks() {
+        return service.getTodoTasks();
+    }
+
+    @Benchmark
+    public TaskPage getTasksPage() {
+        return service.getTasksPage(ThreadLocalRandom.current().nextLong(storeSize), 50);
+    }
+}
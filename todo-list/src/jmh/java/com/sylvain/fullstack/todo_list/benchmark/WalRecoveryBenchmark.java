@@ -0,0 +1,76 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.persistence.WalTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Temps de démarrage du service avec la persistance WAL : chargement du snapshot puis rejeu du journal.
+ * Le jeu de données contient storeSize tâches dans le snapshot et 10 % de modifications dans le journal.
+ * À lancer seul, sur un thread : mvn -Pbenchmark test-compile exec:exec -Dbench.include=WalRecoveryBenchmark -Dbench.threads=1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WalRecoveryBenchmark {
+
+    @Param({"1000000"})
+    public int storeSize;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void writeDataset() throws IOException {
+        directory = Files.createTempDirectory("todo-wal-benchmark");
+        // Un seul snapshot est écrit, à la fin du remplissage : les 10 % suivants restent dans le journal
+        WalTaskPersistence persistence = new WalTaskPersistence(directory, false, Duration.ofMillis(10), storeSize);
+        TodoListService service = new TodoListService(persistence);
+        for (int i = 0; i < storeSize; i++) {
+            service.addTask(BenchmarkData.task(i));
+        }
+        for (long id = 1; id <= storeSize / 10; id++) {
+            service.updateTask(id * 7 % storeSize + 1, true);
+        }
+        persistence.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDataset() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TodoListService recover() {
+        WalTaskPersistence persistence = new WalTaskPersistence(directory, false, Duration.ofMillis(10), Long.MAX_VALUE);
+        TodoListService service = new TodoListService(persistence);
+        persistence.close();
+        return service;
+    }
+}
@@ -0,0 +1,79 @@
+package com.sylvain.fullstack.todo_list.benchmark;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.persistence.WalTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TaskWriteQueue;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Débit des ajouts avec la persistance WAL (fsync avant chaque réponse) : appliqués directement par les threads
+ * appelants (DIRECT) ou mis en file et appliqués par lots (QUEUED). La différence n'apparaît qu'avec des ajouts
+ * concurrents : mvn -Pbenchmark test-compile exec:exec -Dbench.include=WriteQueueBenchmark -Dbench.threads=1,16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WriteQueueBenchmark {
+
+    public enum WriteMode { DIRECT, QUEUED }
+
+    @Param({"DIRECT", "QUEUED"})
+    public WriteMode mode;
+
+    private Path directory;
+    private WalTaskPersistence persistence;
+    private TodoListService service;
+    private TaskWriteQueue queue;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        directory = Files.createTempDirectory("todo-write-queue-benchmark");
+        persistence = new WalTaskPersistence(directory, true, Duration.ofMillis(10), Long.MAX_VALUE);
+        service = new TodoListService(persistence);
+        if (mode == WriteMode.QUEUED) {
+            queue = new TaskWriteQueue(service, 100_000, 1000, new CompositeMeterRegistry());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        if (queue != null) {
+            queue.close();
+        }
+        persistence.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Task addTask() {
+        Task task = new Task(null, "Nouvelle tâche", "Ajoutée par le benchmark", false);
+        return queue == null ? service.addTask(task) : queue.addTask(task).join();
+    }
+}
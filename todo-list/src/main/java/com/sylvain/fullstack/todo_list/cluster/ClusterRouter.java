@@ -0,0 +1,242 @@
+package com.sylvain.fullstack.todo_list.cluster;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Routage des requêtes entre les nœuds d'un cluster.
+ * Les tâches sont réparties entre les nœuds par hachage cohérent de leur id : une requête sur une tâche est
+ * transmise à son nœud propriétaire, une lecture de liste interroge tous les nœuds en parallèle.
+ * Les requêtes entre nœuds portent l'en-tête {@value #LOCAL_HEADER}, avec le secret partagé par les nœuds :
+ * le nœud qui les reçoit répond avec ses seules tâches, sans les router à nouveau. Sans le bon secret,
+ * l'en-tête est ignoré et la requête est traitée comme celle d'un client.
+ */
+public class ClusterRouter {
+
+    /** En-tête des requêtes entre nœuds, dont la valeur est le secret du cluster */
+    public static final String LOCAL_HEADER = "X-Todo-List-Local";
+    /** Chemin de l'API des tâches sur chaque nœud */
+    private static final String BASE_PATH = "/api/v1/tasks";
+
+    private final ConsistentHashRing ring;
+    private final int node;
+    // Client de chaque nœud, null pour le nœud courant
+    private final List<RestClient> clients;
+    private final List<URI> nodes;
+    // Secret du cluster, en octets pour la comparaison en temps constant
+    private final byte[] secret;
+    // Un thread virtuel par appel à un autre nœud
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param nodes Adresse de chaque nœud du cluster (http://hôte:port), dans le même ordre sur tous les nœuds
+     * @param node Numéro du nœud courant dans la liste
+     * @param virtualNodes Nombre de points de chaque nœud sur l'anneau
+     * @param builder Client HTTP configuré par Spring, copié pour chaque nœud
+     * @param timeout Durée maximum d'un appel à un autre nœud
+     * @param secret Secret partagé par les nœuds, qui authentifie les requêtes entre nœuds ; obligatoire
+     *               pour un cluster de plusieurs nœuds
+     */
+    public ClusterRouter(List<URI> nodes, int node, int virtualNodes, RestClient.Builder builder, Duration timeout,
+                         String secret) {
+        if (!nodes.isEmpty() && (node < 0 || node >= nodes.size())) {
+            throw new IllegalArgumentException("Numéro de nœud " + node + " absent de la liste des " + nodes.size() + " nœuds");
+        }
+        if (nodes.size() > 1 && (secret == null || secret.isBlank())) {
+            throw new IllegalArgumentException("Secret du cluster absent : todo-list.cluster.secret est obligatoire avec plusieurs nœuds");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.secret = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        this.node = node;
+        this.ring = nodes.size() > 1 ? new ConsistentHashRing(nodes.size(), virtualNodes) : null;
+        this.clients = new ArrayList<>(nodes.size());
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(timeout).build());
+        requestFactory.setReadTimeout(timeout);
+        for (int i = 0; i < nodes.size(); i++) {
+            clients.add(i == node ? null : builder.clone()
+                    .baseUrl(nodes.get(i).resolve(BASE_PATH).toString())
+                    .requestFactory(requestFactory)
+                    .defaultHeader(LOCAL_HEADER, secret)
+                    .build());
+        }
+    }
+
+    /**
+     * @return Routeur d'un nœud seul : toutes les tâches sont locales
+     */
+    public static ClusterRouter standalone() {
+        return new ClusterRouter(List.of(), 0, 1, RestClient.builder(), Duration.ofSeconds(1), null);
+    }
+
+    /**
+     * @return Partition des ids créés par le nœud courant
+     */
+    public IdPartition idPartition() {
+        return ring == null ? IdPartition.all() : new IdPartition(ring, node);
+    }
+
+    /**
+     * @return true si les tâches sont réparties sur plusieurs nœuds
+     */
+    public boolean isClustered() {
+        return ring != null;
+    }
+
+    /**
+     * @param header Valeur de l'en-tête {@value #LOCAL_HEADER} de la requête reçue, null s'il est absent
+     * @return true si la requête vient d'un autre nœud du cluster : l'en-tête porte le secret du cluster.
+     * Toujours false pour un nœud seul
+     */
+    public boolean isPeerRequest(String header) {
+        return ring != null && header != null
+                && MessageDigest.isEqual(secret, header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param id id de la tâche
+     * @return true si la tâche appartient au nœud courant
+     */
+    public boolean isLocal(long id) {
+        return ring == null || ring.nodeFor(id) == node;
+    }
+
+    /**
+     * @param id id de la tâche
+     * @return Numéro du nœud propriétaire de la tâche
+     */
+    public int ownerOf(long id) {
+        return ring == null ? node : ring.nodeFor(id);
+    }
+
+    /**
+     * Transmission d'une requête sur une tâche à son nœud propriétaire
+     * @param id id de la tâche
+     * @param method Méthode HTTP
+     * @param path Chemin sous /api/v1/tasks
+     * @param body Corps de la requête, null s'il n'y en a pas
+     * @param type Type du corps de la réponse
+     * @return Statut et corps de la réponse du nœud ; le corps n'est lu que pour un succès ou un conflit
+     */
+    public <T> ResponseEntity<T> forward(long id, HttpMethod method, String path, Object body, Class<T> type) {
+        int owner = ring.nodeFor(id);
+        RestClient.RequestBodySpec request = clients.get(owner).method(method).uri(path);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        try {
+            return request.exchange((clientRequest, response) -> {
+                boolean withBody = response.getStatusCode().is2xxSuccessful() || response.getStatusCode().isSameCodeAs(HttpStatus.CONFLICT);
+                return ResponseEntity.status(response.getStatusCode()).body(withBody ? response.bodyTo(type) : null);
+            });
+        } catch (RestClientException e) {
+            throw unavailable(owner, e);
+        }
+    }
+
+    /**
+     * Envoi en parallèle d'un corps différent à plusieurs autres nœuds, en POST
+     * @param path Chemin sous /api/v1/tasks
+     * @param bodies Corps de la requête de chaque nœud destinataire, par numéro de nœud
+     * @param type Type du corps de la réponse
+     * @return Réponse de chaque nœud destinataire, par numéro de nœud
+     */
+    public <T> Map<Integer, T> scatter(String path, Map<Integer, ?> bodies, ParameterizedTypeReference<T> type) {
+        Map<Integer, Future<T>> calls = new LinkedHashMap<>();
+        bodies.forEach((peer, body) -> calls.put(peer, executor.submit(() -> clients.get(peer).post().uri(path)
+                .contentType(MediaType.APPLICATION_JSON).body(body).retrieve().body(type))));
+        Map<Integer, T> results = new LinkedHashMap<>();
+        calls.forEach((peer, call) -> results.put(peer, result(peer, call)));
+        return results;
+    }
+
+    /**
+     * Lecture en parallèle sur tous les autres nœuds
+     * @param path Chemin sous /api/v1/tasks, avec ses paramètres
+     * @param type Type du corps de la réponse
+     * @return Réponse de chaque autre nœud
+     */
+    public <T> List<T> gather(String path, ParameterizedTypeReference<T> type) {
+        return gather(type, client -> client.get().uri(path));
+    }
+
+    /**
+     * Lecture en parallèle sur tous les autres nœuds, avec des paramètres de texte libre
+     * @param path Chemin sous /api/v1/tasks, sans paramètres
+     * @param params Paramètres de la requête, encodés ici : un texte peut contenir &, + ou {
+     * @param type Type du corps de la réponse
+     * @return Réponse de chaque autre nœud
+     */
+    public <T> List<T> gather(String path, Map<String, ?> params, ParameterizedTypeReference<T> type) {
+        return gather(type, client -> client.get().uri(builder -> {
+            builder.path(path);
+            // Valeurs passées en variables : elles sont encodées entièrement, y compris les caractères réservés
+            params.keySet().forEach(name -> builder.queryParam(name, "{" + name + "}"));
+            return builder.build(params);
+        }));
+    }
+
+    private <T> List<T> gather(ParameterizedTypeReference<T> type, Function<RestClient, RestClient.RequestHeadersSpec<?>> request) {
+        List<Future<T>> calls = new ArrayList<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            RestClient client = clients.get(i);
+            if (client != null) {
+                calls.add(executor.submit(() -> request.apply(client).retrieve().body(type)));
+            }
+        }
+        List<T> results = new ArrayList<>(calls.size());
+        for (int i = 0, peer = 0; i < calls.size(); i++, peer++) {
+            if (peer == node) {
+                peer++;
+            }
+            results.add(result(peer, calls.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Attente de la réponse d'un autre nœud
+     * @param peer Numéro du nœud appelé
+     * @param call Appel en cours
+     * @return Corps de la réponse
+     */
+    private <T> T result(int peer, Future<T> call) {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            throw unavailable(peer, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw unavailable(peer, e);
+        }
+    }
+
+    /**
+     * Erreur renvoyée au client quand un nœud ne répond pas : 503 Service Unavailable
+     */
+    private ResponseStatusException unavailable(int peer, Throwable cause) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Nœud injoignable : " + nodes.get(peer), cause);
+    }
+}
@@ -0,0 +1,80 @@
+package com.sylvain.fullstack.todo_list.cluster;
+
+import java.util.Arrays;
+
+/**
+ * Anneau de hachage cohérent : chaque nœud y occupe plusieurs points (nœuds virtuels), et un id appartient
+ * au premier point qui suit son empreinte sur l'anneau.
+ * Les nœuds virtuels répartissent les ids de manière homogène ; l'ajout d'un nœud ne déplace que la part
+ * des ids qu'il reprend aux autres.
+ * Les points sont rangés dans des tableaux triés : la recherche du nœud d'un id est une recherche dichotomique.
+ */
+public final class ConsistentHashRing {
+
+    // Empreintes des points de l'anneau, triées, et nœud de chaque point
+    private final long[] points;
+    private final int[] nodes;
+    private final int nodeCount;
+
+    /**
+     * @param nodeCount Nombre de nœuds
+     * @param virtualNodes Nombre de points de chaque nœud sur l'anneau
+     */
+    public ConsistentHashRing(int nodeCount, int virtualNodes) {
+        if (nodeCount <= 0 || virtualNodes <= 0) {
+            throw new IllegalArgumentException("Anneau invalide : " + nodeCount + " nœuds, " + virtualNodes + " nœuds virtuels");
+        }
+        this.nodeCount = nodeCount;
+        long[] entries = new long[nodeCount * virtualNodes];
+        int[] owners = new int[entries.length];
+        int count = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int virtualNode = 0; virtualNode < virtualNodes; virtualNode++) {
+                entries[count] = hash(((long) node << 32) | virtualNode);
+                owners[count++] = node;
+            }
+        }
+        // Tri des points par empreinte, en gardant le nœud de chacun
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(entries[a], entries[b]));
+        points = new long[count];
+        nodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = entries[order[i]];
+            nodes[i] = owners[order[i]];
+        }
+    }
+
+    /**
+     * @return Nombre de nœuds de l'anneau
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param id id de la tâche
+     * @return Numéro du nœud qui stocke la tâche
+     */
+    public int nodeFor(long id) {
+        int index = Arrays.binarySearch(points, hash(id));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // Après le dernier point, l'anneau reprend au premier
+        return nodes[index == points.length ? 0 : index];
+    }
+
+    /**
+     * Mélange des bits (finaliseur de SplitMix64) : des ids consécutifs ont des empreintes dispersées
+     */
+    private static long hash(long value) {
+        long h = value + 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
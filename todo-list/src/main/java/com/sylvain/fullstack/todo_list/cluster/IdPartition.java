@@ -0,0 +1,44 @@
+package com.sylvain.fullstack.todo_list.cluster;
+
+/**
+ * Part des ids attribuée à un nœud : un nœud ne crée que des tâches dont il est le propriétaire sur l'anneau,
+ * ce qui garantit des ids uniques dans tout le cluster sans coordination entre les nœuds.
+ */
+public final class IdPartition {
+
+    private static final IdPartition ALL = new IdPartition(null, 0);
+
+    private final ConsistentHashRing ring;
+    private final int node;
+
+    /**
+     * @param ring Anneau du cluster
+     * @param node Numéro du nœud courant
+     */
+    public IdPartition(ConsistentHashRing ring, int node) {
+        this.ring = ring;
+        this.node = node;
+    }
+
+    /**
+     * @return Partition d'un nœud seul, propriétaire de tous les ids
+     */
+    public static IdPartition all() {
+        return ALL;
+    }
+
+    /**
+     * @return true si le nœud est propriétaire de tous les ids
+     */
+    public boolean ownsAll() {
+        return ring == null || ring.nodeCount() == 1;
+    }
+
+    /**
+     * @param id id de tâche
+     * @return true si la tâche appartient au nœud courant
+     */
+    public boolean owns(long id) {
+        return ownsAll() || ring.nodeFor(id) == node;
+    }
+}
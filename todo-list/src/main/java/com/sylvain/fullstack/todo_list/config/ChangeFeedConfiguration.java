@@ -0,0 +1,20 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ChangeFeedConfiguration {
+
+    /**
+     * Journal des dernières modifications, partagé par le service et la diffusion SSE
+     * @param capacity Nombre de modifications conservées (todo-list.changes.capacity)
+     * @return Journal des modifications
+     */
+    @Bean
+    public TaskChangeFeed taskChangeFeed(@Value("${todo-list.changes.capacity:" + TaskChangeFeed.DEFAULT_CAPACITY + "}") int capacity) {
+        return new TaskChangeFeed(capacity);
+    }
+}
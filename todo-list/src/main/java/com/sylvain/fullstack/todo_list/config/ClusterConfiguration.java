@@ -0,0 +1,35 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
+import com.sylvain.fullstack.todo_list.cluster.IdPartition;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+@Configuration
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfiguration {
+
+    /**
+     * Routage entre les nœuds listés par la propriété todo-list.cluster.nodes
+     * @param properties Configuration du cluster
+     * @param builder Client HTTP configuré par Spring
+     * @return Routeur des requêtes
+     */
+    @Bean
+    public ClusterRouter clusterRouter(ClusterProperties properties, RestClient.Builder builder) {
+        return new ClusterRouter(properties.getNodes(), properties.getNodeIndex(), properties.getVirtualNodes(),
+                builder, properties.getTimeout(), properties.getSecret());
+    }
+
+    /**
+     * Part des ids que le nœud courant attribue aux tâches qu'il crée
+     * @param router Routeur des requêtes
+     * @return Partition des ids
+     */
+    @Bean
+    public IdPartition idPartition(ClusterRouter router) {
+        return router.idPartition();
+    }
+}
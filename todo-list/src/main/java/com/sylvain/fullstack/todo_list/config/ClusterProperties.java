@@ -0,0 +1,25 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data // Génère getters et setters
+@ConfigurationProperties(prefix = "todo-list.cluster") // Propriétés todo-list.cluster.* de application.properties
+public class ClusterProperties {
+
+    /** Adresse de chaque nœud (http://hôte:port), dans le même ordre sur tous les nœuds ; vide pour un nœud seul */
+    private List<URI> nodes = new ArrayList<>();
+    /** Numéro du nœud courant dans la liste, à partir de 0 */
+    private int nodeIndex = 0;
+    /** Nombre de points de chaque nœud sur l'anneau de hachage */
+    private int virtualNodes = 128;
+    /** Durée maximum d'un appel à un autre nœud */
+    private Duration timeout = Duration.ofSeconds(5);
+    /** Secret partagé par tous les nœuds, qui authentifie les requêtes entre nœuds ; obligatoire pour un cluster */
+    private String secret;
+}
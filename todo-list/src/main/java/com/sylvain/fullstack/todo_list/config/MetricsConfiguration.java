@@ -0,0 +1,23 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.controller.ResponseSizeMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    /**
+     * Mesure de la taille des réponses de l'API, sans les endpoints de l'actuator
+     * @param registry Registre des métriques
+     * @return Filtre enregistré sur /api/*
+     */
+    @Bean
+    public FilterRegistrationBean<ResponseSizeMetricsFilter> responseSizeMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<ResponseSizeMetricsFilter> registration = new FilterRegistrationBean<>(new ResponseSizeMetricsFilter(registry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,28 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.persistence.TaskPersistence;
+import com.sylvain.fullstack.todo_list.persistence.WalTaskPersistence;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class PersistenceConfiguration {
+
+    /**
+     * Moteur de persistance choisi par la propriété todo-list.persistence.type.
+     * Il est fermé par Spring à l'arrêt de l'application, ce qui écrit les dernières modifications.
+     * @param properties Configuration de la persistance
+     * @return Moteur de persistance
+     */
+    @Bean
+    public TaskPersistence taskPersistence(PersistenceProperties properties) {
+        return switch (properties.getType()) {
+            case MEMORY -> new InMemoryTaskPersistence();
+            case WAL -> new WalTaskPersistence(properties.getDirectory(), properties.isSyncWrites(),
+                    properties.getFlushInterval(), properties.getSnapshotEvery());
+        };
+    }
+}
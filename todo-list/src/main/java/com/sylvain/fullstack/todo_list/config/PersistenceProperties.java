@@ -0,0 +1,25 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data // Génère getters et setters
+@ConfigurationProperties(prefix = "todo-list.persistence") // Propriétés todo-list.persistence.* de application.properties
+public class PersistenceProperties {
+
+    /** Moteur de persistance : memory (aucune persistance) ou wal (journal sur disque) */
+    private Type type = Type.MEMORY;
+    /** Répertoire du journal et des snapshots */
+    private Path directory = Path.of("data");
+    /** true pour ne répondre qu'une fois la modification écrite sur disque */
+    private boolean syncWrites = true;
+    /** Délai maximum entre deux écritures du journal quand syncWrites vaut false */
+    private Duration flushInterval = Duration.ofMillis(10);
+    /** Nombre de modifications journalisées déclenchant l'écriture d'un snapshot */
+    private long snapshotEvery = 100_000;
+
+    public enum Type { MEMORY, WAL }
+}
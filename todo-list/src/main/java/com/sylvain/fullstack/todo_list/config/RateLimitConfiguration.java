@@ -0,0 +1,40 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
+import com.sylvain.fullstack.todo_list.ratelimit.RateLimitInterceptor;
+import com.sylvain.fullstack.todo_list.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(prefix = "todo-list.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfiguration implements WebMvcConfigurer {
+
+    private final RateLimitProperties properties;
+    private final ClusterRouter router;
+    private final MeterRegistry registry;
+
+    public RateLimitConfiguration(RateLimitProperties properties, ClusterRouter router, MeterRegistry registry) {
+        this.properties = properties;
+        this.router = router;
+        this.registry = registry;
+    }
+
+    /**
+     * Limitation du débit des clients sur les endpoints de l'API, sans l'actuator
+     * @param interceptors Intercepteurs configurés par Spring
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(properties.getTokensPerSecond(),
+                properties.getCapacity(), properties.getMaxClients());
+        interceptors.addInterceptor(new RateLimitInterceptor(limiter, properties.getApiKeyHeader(),
+                        properties.getApiKeys(), router, registry))
+                .addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,25 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Data // Génère getters et setters
+@ConfigurationProperties(prefix = "todo-list.rate-limit") // Propriétés todo-list.rate-limit.* de application.properties
+public class RateLimitProperties {
+
+    /** true pour limiter le débit de chaque client de l'API */
+    private boolean enabled = true;
+    /** Jetons rendus à chaque client par seconde : une requête simple coûte 1 jeton */
+    private double tokensPerSecond = 100;
+    /** Jetons d'un seau plein, que le client peut dépenser en rafale */
+    private int capacity = 200;
+    /** En-tête de la clé d'API, qui identifie le client à la place de son adresse IP */
+    private String apiKeyHeader = "X-Api-Key";
+    /** Clés d'API reconnues, chacune avec son seau ; une autre clé est ignorée et le client identifié par son adresse IP */
+    private Set<String> apiKeys = new HashSet<>();
+    /** Nombre maximum de clients suivis en mémoire */
+    private int maxClients = 100_000;
+}
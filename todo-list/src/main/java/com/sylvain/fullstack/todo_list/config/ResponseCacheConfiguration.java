@@ -0,0 +1,27 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sylvain.fullstack.todo_list.controller.TaskResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfiguration {
+
+    /**
+     * Cache des réponses des listes et pages, créé sauf si todo-list.response-cache.enabled vaut false
+     * @param objectMapper Sérialisation JSON configurée par Spring
+     * @param properties Configuration du cache
+     * @param registry Registre des métriques
+     * @return Cache des réponses
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "todo-list.response-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public TaskResponseCache taskResponseCache(ObjectMapper objectMapper, ResponseCacheProperties properties, MeterRegistry registry) {
+        return new TaskResponseCache(objectMapper, properties.getMaxSize().toBytes(), properties.getMaxEntries(), registry);
+    }
+}
@@ -0,0 +1,17 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data // Génère getters et setters
+@ConfigurationProperties(prefix = "todo-list.response-cache") // Propriétés todo-list.response-cache.* de application.properties
+public class ResponseCacheProperties {
+
+    /** true pour garder les réponses sérialisées des listes et pages jusqu'à la prochaine modification */
+    private boolean enabled = true;
+    /** Taille maximum des réponses gardées */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+    /** Nombre maximum de réponses gardées */
+    private int maxEntries = 10_000;
+}
@@ -0,0 +1,47 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.persistence.TaskArchive;
+import com.sylvain.fullstack.todo_list.service.TaskRetentionSweeper;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(RetentionProperties.class)
+@ConditionalOnProperty(prefix = "todo-list.retention", name = "enabled", havingValue = "true")
+public class RetentionConfiguration {
+
+    /**
+     * Archive des tâches expirées, créée si todo-list.retention.action vaut archive.
+     * Elle est fermée par Spring après la rétention, qui l'utilise
+     * @param properties Configuration de la rétention
+     * @return Archive
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "todo-list.retention", name = "action", havingValue = "archive", matchIfMissing = true)
+    public TaskArchive taskArchive(RetentionProperties properties) {
+        return new TaskArchive(properties.getArchiveDirectory(), properties.getArchiveSegmentSize().toBytes());
+    }
+
+    /**
+     * Rétention des tâches terminées, créée seulement si todo-list.retention.enabled vaut true.
+     * Elle est fermée par Spring avant le service et l'archive : la tranche en cours se termine
+     * @param service Service dont les tâches sont retirées
+     * @param properties Configuration de la rétention
+     * @param archive Archive des tâches expirées, absente pour les supprimer seulement
+     * @param registry Registre des métriques
+     * @return Rétention
+     */
+    @Bean
+    public TaskRetentionSweeper taskRetentionSweeper(TodoListService service, RetentionProperties properties,
+                                                     ObjectProvider<TaskArchive> archive, MeterRegistry registry) {
+        return new TaskRetentionSweeper(service, properties.getMaxAge(), archive.getIfAvailable(),
+                properties.getSliceSize(), properties.getSliceInterval(), Clock.systemUTC(), registry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data // Génère getters et setters
+@ConfigurationProperties(prefix = "todo-list.retention") // Propriétés todo-list.retention.* de application.properties
+public class RetentionProperties {
+
+    /** true pour retirer les tâches terminées depuis plus de max-age */
+    private boolean enabled = false;
+    /** Durée pendant laquelle une tâche terminée est gardée */
+    private Duration maxAge = Duration.ofDays(30);
+    /** Action sur les tâches expirées : archive (archivées puis supprimées) ou delete (supprimées) */
+    private Action action = Action.ARCHIVE;
+    /** Nombre maximum de tâches retirées par tranche */
+    private int sliceSize = 500;
+    /** Délai entre deux tranches */
+    private Duration sliceInterval = Duration.ofMillis(100);
+    /** Répertoire des segments de l'archive */
+    private Path archiveDirectory = Path.of("archive");
+    /** Taille au-delà de laquelle un segment de l'archive est clos */
+    private DataSize archiveSegmentSize = DataSize.ofMegabytes(64);
+
+    public enum Action { ARCHIVE, DELETE }
+}
@@ -0,0 +1,26 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.store.CompactTaskStore;
+import com.sylvain.fullstack.todo_list.store.MapTaskStore;
+import com.sylvain.fullstack.todo_list.store.TaskStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StoreProperties.class)
+public class StoreConfiguration {
+
+    /**
+     * Stockage en mémoire choisi par la propriété todo-list.store.type
+     * @param properties Configuration du stockage
+     * @return Stockage des tâches
+     */
+    @Bean
+    public TaskStore taskStore(StoreProperties properties) {
+        return switch (properties.getType()) {
+            case MAP -> new MapTaskStore();
+            case COMPACT -> new CompactTaskStore();
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data // Génère getters et setters
+@ConfigurationProperties(prefix = "todo-list.store") // Propriétés todo-list.store.* de application.properties
+public class StoreProperties {
+
+    /** Stockage en mémoire : map (un objet par tâche) ou compact (tableaux de types primitifs) */
+    private Type type = Type.MAP;
+
+    public enum Type { MAP, COMPACT }
+}
@@ -0,0 +1,30 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.model.TaskChanges;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.model.TaskSearchPage;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Accès par réflexion aux classes échangées en JSON et en CBOR, pour l'image native GraalVM.
+ * Jackson lit et écrit les tâches par leurs constructeurs, getters et setters, générés par Lombok à la compilation :
+ * sans ces indications, l'image native ne les garde pas. Le traitement AOT de Spring ne les déduit que des
+ * signatures des contrôleurs ; les pages renvoyées en ResponseEntity&lt;?&gt;, sérialisées par le cache des réponses
+ * ou lues sur les autres nœuds du cluster, n'y apparaissent pas.
+ */
+public class TaskRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Task.class, TaskPage.class, TaskRange.class, TaskSearchPage.class, TaskOperation.class,
+                TaskOperationResult.class, TaskChange.class, TaskChanges.class);
+    }
+}
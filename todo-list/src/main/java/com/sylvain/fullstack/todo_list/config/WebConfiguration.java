@@ -0,0 +1,31 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sylvain.fullstack.todo_list.controller.TaskColumnsHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@ImportRuntimeHints(TaskRuntimeHints.class)
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    public WebConfiguration(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Ajout du format en colonnes après les convertisseurs de Spring (JSON, puis CBOR si le client le demande) :
+     * JSON reste le format des clients qui acceptent tous les types
+     * @param converters Convertisseurs configurés par Spring
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new TaskColumnsHttpMessageConverter(objectMapper));
+    }
+}
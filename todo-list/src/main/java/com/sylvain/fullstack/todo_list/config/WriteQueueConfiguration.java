@@ -0,0 +1,28 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.service.TaskWriteQueue;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WriteQueueProperties.class)
+public class WriteQueueConfiguration {
+
+    /**
+     * File d'écriture différée, créée seulement si todo-list.write-queue.enabled vaut true.
+     * Elle est fermée par Spring avant le service, ce qui applique les modifications encore en file.
+     * @param service Service auquel les lots sont appliqués
+     * @param properties Configuration de la file
+     * @param registry Registre des métriques
+     * @return File d'écriture
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "todo-list.write-queue", name = "enabled", havingValue = "true")
+    public TaskWriteQueue taskWriteQueue(TodoListService service, WriteQueueProperties properties, MeterRegistry registry) {
+        return new TaskWriteQueue(service, properties.getCapacity(), properties.getMaxBatchSize(), registry);
+    }
+}
@@ -0,0 +1,16 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data // Génère getters et setters
+@ConfigurationProperties(prefix = "todo-list.write-queue") // Propriétés todo-list.write-queue.* de application.properties
+public class WriteQueueProperties {
+
+    /** true pour appliquer les ajouts et mises à jour par lots, depuis une file d'écriture différée */
+    private boolean enabled = false;
+    /** Nombre maximum de modifications en attente : au-delà, les requêtes reçoivent 429 Too Many Requests */
+    private int capacity = 10_000;
+    /** Nombre maximum de modifications appliquées en un lot */
+    private int maxBatchSize = 1000;
+}
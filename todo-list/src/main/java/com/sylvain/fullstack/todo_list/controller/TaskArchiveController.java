@@ -0,0 +1,105 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.persistence.TaskArchive;
+import com.sylvain.fullstack.todo_list.ratelimit.RateLimitCost;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture des tâches archivées par la rétention (todo-list.retention.action=archive).
+ * Sans archive, toutes les lectures renvoient 404 Not Found.
+ */
+@RestController
+@CrossOrigin(origins = "http://localhost:4200") // Permet les tests Angular en DEV
+@RequestMapping("/api/v1/tasks/archive")
+public class TaskArchiveController {
+
+    private static final ParameterizedTypeReference<TaskPage> TASK_PAGE = new ParameterizedTypeReference<>() {};
+    /** Page de tâches archivées : décompression d'un ou plusieurs blocs */
+    private static final int PAGE_COST = 5;
+
+    // Routage vers les autres nœuds : chaque nœud archive les tâches dont il est propriétaire
+    private final ClusterRouter router;
+    // Archive des tâches expirées, null si elle n'est pas activée
+    private final TaskArchive archive;
+
+    @Autowired
+    public TaskArchiveController(ClusterRouter router, @Nullable TaskArchive archive) {
+        this.router = router;
+        this.archive = archive;
+    }
+
+    /**
+     * Endpoint pour récupérer une page de tâches archivées, triées par id
+     * @param after Curseur renvoyé par la page précédente, absent pour la première page
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Réponse REST : 404 Not Found si l'archive n'est pas activée
+     */
+    @GetMapping
+    @RateLimitCost(PAGE_COST)
+    public ResponseEntity<TaskPage> getArchivedPage(@RequestParam(required = false) Long after,
+                                                    @RequestParam(defaultValue = "50") int limit,
+                                                    WebRequest request) {
+        if (archive == null) {
+            return ResponseEntity.notFound().build();
+        }
+        int pageSize = Math.max(1, Math.min(limit, TodoListService.MAX_PAGE_SIZE));
+        TaskPage local = archive.page(after, pageSize);
+        if (!routed(request)) {
+            return ResponseEntity.ok(local);
+        }
+        // Chaque nœud lit sa page après le même curseur, les premières tâches des pages fusionnées forment la page
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("limit", pageSize);
+        if (after != null) {
+            params.put("after", after);
+        }
+        List<Task> tasks = new ArrayList<>(local.getTasks());
+        boolean more = local.getNextCursor() != null;
+        for (TaskPage page : router.gather("/archive", params, TASK_PAGE)) {
+            tasks.addAll(page.getTasks());
+            more |= page.getNextCursor() != null;
+        }
+        tasks.sort(Comparator.comparing(Task::getId));
+        more |= tasks.size() > pageSize;
+        List<Task> pageTasks = new ArrayList<>(tasks.subList(0, Math.min(pageSize, tasks.size())));
+        return ResponseEntity.ok(new TaskPage(pageTasks, more ? pageTasks.get(pageTasks.size() - 1).getId() : null));
+    }
+
+    /**
+     * Endpoint pour récupérer une tâche archivée par ID
+     * @param id Identifiant de la tâche
+     * @return Réponse REST : la tâche dans l'état où elle a été archivée, 404 Not Found si elle n'est pas archivée
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Task> getArchivedTask(@PathVariable Long id, WebRequest request) {
+        if (routed(request) && !router.isLocal(id)) {
+            return router.forward(id, HttpMethod.GET, "/archive/" + id, null, Task.class);
+        }
+        Task task = archive == null ? null : archive.get(id);
+        return task != null ? ResponseEntity.ok(task) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * @param request Requête reçue
+     * @return true si les tâches sont réparties sur un cluster et que la requête vient d'un client
+     */
+    private boolean routed(WebRequest request) {
+        return router.isClustered() && !router.isPeerRequest(request.getHeader(ClusterRouter.LOCAL_HEADER));
+    }
+}
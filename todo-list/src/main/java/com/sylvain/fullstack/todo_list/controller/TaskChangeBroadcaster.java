@@ -0,0 +1,177 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Diffusion des modifications aux clients abonnés en Server-Sent Events.
+ * <p>
+ * Une modification ne fait que réveiller le thread de diffusion : l'écriture ne dépend pas du nombre d'abonnés.
+ * Le thread de diffusion planifie ensuite l'envoi pour chaque abonné sur un thread virtuel ; un abonné lent
+ * ne retarde pas les autres, et s'il prend trop de retard il reçoit un événement resync au lieu des modifications.
+ */
+@Component
+public class TaskChangeBroadcaster {
+
+    /** Nombre maximum de modifications envoyées par passage, avant de laisser la place aux autres abonnés */
+    static final int MAX_CHANGES_PER_DRAIN = 1000;
+    /** Intervalle des commentaires envoyés pour garder ouvertes les connexions sans modification */
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private final TaskChangeFeed feed;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    @Autowired
+    public TaskChangeBroadcaster(TaskChangeFeed feed) {
+        this.feed = feed;
+        this.dispatcher = Thread.ofPlatform().name("todo-change-dispatcher").daemon().unstarted(this::dispatch);
+        feed.addListener(() -> LockSupport.unpark(dispatcher));
+        dispatcher.start();
+    }
+
+    /**
+     * Abonnement d'un client aux modifications
+     * @param emitter Connexion SSE du client
+     * @param since Numéro de la dernière modification connue du client
+     */
+    public void subscribe(SseEmitter emitter, long since) {
+        Subscriber subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // Envoie sans attendre les modifications manquées depuis since
+        subscriber.schedule(false);
+    }
+
+    /**
+     * @return Nombre de clients abonnés
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void dispatch() {
+        long nextHeartbeat = System.nanoTime() + HEARTBEAT_INTERVAL.toNanos();
+        while (running) {
+            // Les réveils reçus pendant le passage précédent ne sont pas perdus : park revient immédiatement
+            LockSupport.parkNanos(this, nextHeartbeat - System.nanoTime());
+            boolean heartbeat = System.nanoTime() - nextHeartbeat >= 0;
+            if (heartbeat) {
+                nextHeartbeat = System.nanoTime() + HEARTBEAT_INTERVAL.toNanos();
+            }
+            long current = feed.currentSequence();
+            for (Subscriber subscriber : subscribers) {
+                if (heartbeat || subscriber.sent < current) {
+                    subscriber.schedule(heartbeat);
+                }
+            }
+        }
+    }
+
+    /**
+     * Client abonné. Un seul envoi à la fois par client : SseEmitter n'accepte pas les envois concurrents.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        // Numéro de la dernière modification envoyée, modifié seulement par l'envoi en cours
+        private volatile long sent;
+
+        private Subscriber(SseEmitter emitter, long since) {
+            this.emitter = emitter;
+            this.sent = since;
+        }
+
+        private void schedule(boolean heartbeat) {
+            if (heartbeat) {
+                heartbeatDue = true;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Diffusion arrêtée
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                boolean more;
+                do {
+                    more = send();
+                    scheduled.set(false);
+                    // Une modification publiée pendant l'envoi a pu trouver scheduled à true : vérifie à nouveau
+                } while ((more || heartbeatDue || pending()) && scheduled.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // Connexion fermée par le client
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * Une modification numérotée mais pas encore rangée n'est pas en attente : son auteur réveillera
+         * le thread de diffusion une fois qu'elle le sera.
+         * @return true si des modifications lisibles n'ont pas été envoyées
+         */
+        private boolean pending() {
+            List<TaskChange> changes = feed.readSince(sent, 1);
+            return changes == null || !changes.isEmpty();
+        }
+
+        /**
+         * @return true s'il reste des modifications à envoyer
+         */
+        private boolean send() throws IOException {
+            if (heartbeatDue) {
+                heartbeatDue = false;
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            List<TaskChange> changes = feed.readSince(sent, MAX_CHANGES_PER_DRAIN);
+            if (changes == null) {
+                // Modifications plus disponibles : le client doit relire la liste complète, puis reprendre d'ici
+                long current = feed.currentSequence();
+                emitter.send(SseEmitter.event().name("resync").id(feed.eventId(current)).data(current));
+                sent = current;
+                return false;
+            }
+            for (TaskChange change : changes) {
+                emitter.send(SseEmitter.event().name("change").id(feed.eventId(change.getSequence())).data(change));
+                sent = change.getSequence();
+            }
+            return changes.size() == MAX_CHANGES_PER_DRAIN;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.sylvain.fullstack.todo_list.model.TaskChanges;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:4200") // Permet les tests Angular en DEV
+@RequestMapping("/api/v1/tasks/changes")
+public class TaskChangeController {
+
+    private final TodoListService todoService;
+    private final TaskChangeBroadcaster broadcaster;
+
+    @Autowired
+    public TaskChangeController(TodoListService todoService, TaskChangeBroadcaster broadcaster) {
+        this.todoService = todoService;
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Endpoint pour récupérer les modifications postérieures à une version déjà lue
+     * @param since Version de la liste du client (ETag ou version d'un appel précédent)
+     * @param epoch Identifiant de l'instance qui a fourni cette version
+     * @return Réponse REST ; si resyncRequired est vrai, la liste complète doit être relue
+     */
+    @GetMapping
+    public ResponseEntity<TaskChanges> getChanges(@RequestParam long since,
+                                                  @RequestParam(required = false) Long epoch) {
+        return ResponseEntity.ok(todoService.getChangesSince(since, epoch));
+    }
+
+    /**
+     * Endpoint pour recevoir les modifications au fil de l'eau, en Server-Sent Events.
+     * Chaque événement change porte comme id l'epoch de l'instance et le numéro de la modification : à la reconnexion,
+     * le navigateur le renvoie dans Last-Event-ID et le flux reprend sans perte. Un id d'une autre instance,
+     * après un redémarrage par exemple, ne correspond à aucun numéro de celle-ci : le flux commence par resync.
+     * @param since Version de la liste du client, version courante si absent
+     * @param epoch Identifiant de l'instance qui a fourni cette version
+     * @param lastEventId Id du dernier événement reçu, envoyé par le navigateur à la reconnexion
+     * @return Flux d'événements change, et resync si la liste complète doit être relue
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestParam(required = false) Long epoch,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        // Pas de timeout : la connexion reste ouverte jusqu'à sa fermeture par le client
+        SseEmitter emitter = new SseEmitter(0L);
+        long from = lastEventId != null ? TaskChangeFeed.sequenceOf(lastEventId, todoService.getEpoch()) : since != null ? since : todoService.getVersion();
+        if (epoch != null && epoch != todoService.getEpoch()) {
+            // Version d'une autre instance : le premier événement sera resync
+            from = -1;
+        }
+        broadcaster.subscribe(emitter, from);
+        return emitter;
+    }
+}
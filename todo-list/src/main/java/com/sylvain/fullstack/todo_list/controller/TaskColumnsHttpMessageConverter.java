@@ -0,0 +1,190 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Écriture des listes et pages de tâches en colonnes : un tableau JSON par champ plutôt qu'un objet par tâche,
+ * pour ne pas répéter les noms des champs à chaque tâche.
+ * <pre>{"id":[1,2],"label":["A","B"],"description":["a","b"],"completed":[false,true],"version":[1,3],
+ * "completedAt":[null,1760000000000]}</pre>
+ * Une page est écrite {"tasks":{...colonnes...},"nextCursor":2}, une plage {"offset":0,"total":2,"tasks":{...colonnes...}}.
+ * Ce format n'est utilisé que si le client le demande dans Accept : enregistré après le convertisseur JSON,
+ * il n'est jamais choisi pour Accept: *&#47;*.
+ */
+public class TaskColumnsHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    /**
+     * Type de contenu des tâches en colonnes. Le contenu est du JSON, mais sans le suffixe +json :
+     * le convertisseur JSON de Spring, qui accepte application/*+json, le produirait sinon avec sa propre mise en forme
+     */
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.todo-list.columns";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private final JsonFactory jsonFactory;
+
+    public TaskColumnsHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MEDIA_TYPE);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || TaskPage.class == clazz || TaskRange.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (clazz == TaskPage.class || clazz == TaskRange.class) {
+            return true;
+        }
+        // Seules les listes de tâches sont écrites en colonnes. Une méthode qui renvoie ResponseEntity<?> ne donne
+        // pas le type des éléments : la liste est alors acceptée, seules les listes de tâches sont renvoyées ainsi
+        return List.class.isAssignableFrom(clazz) && (!(type instanceof ParameterizedType parameterized)
+                || parameterized.getActualTypeArguments()[0] == Task.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (value instanceof TaskPage page) {
+            writePage(page, outputMessage.getBody());
+        } else if (value instanceof TaskRange range) {
+            writeRange(range, outputMessage.getBody());
+        } else {
+            writeTasks((List<Task>) value, outputMessage.getBody());
+        }
+    }
+
+    /**
+     * Écriture d'une liste de tâches en colonnes
+     * @param tasks Tâches
+     * @param out Flux de destination, laissé ouvert
+     */
+    public void writeTasks(List<Task> tasks, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            writeColumns(generator, tasks);
+        }
+    }
+
+    /**
+     * Écriture d'une page de tâches en colonnes
+     * @param page Page de tâches
+     * @param out Flux de destination, laissé ouvert
+     */
+    public void writePage(TaskPage page, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName("tasks");
+            writeColumns(generator, page.getTasks());
+            if (page.getNextCursor() == null) {
+                generator.writeNullField("nextCursor");
+            } else {
+                generator.writeNumberField("nextCursor", page.getNextCursor());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Écriture d'une plage de tâches en colonnes
+     * @param range Plage de tâches
+     * @param out Flux de destination, laissé ouvert
+     */
+    public void writeRange(TaskRange range, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("offset", range.getOffset());
+            generator.writeNumberField("total", range.getTotal());
+            generator.writeFieldName("tasks");
+            writeColumns(generator, range.getTasks());
+            generator.writeEndObject();
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        // Le flux de la réponse est fermé par Spring, pas par le générateur
+        return jsonFactory.createGenerator(out, JsonEncoding.UTF8).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Une passe sur les tâches par colonne : les valeurs d'un même champ sont écrites à la suite
+     */
+    private static void writeColumns(JsonGenerator generator, List<Task> tasks) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("id");
+        for (Task task : tasks) {
+            writeLong(generator, task.getId());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("label");
+        for (Task task : tasks) {
+            generator.writeString(task.getLabel());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("description");
+        for (Task task : tasks) {
+            generator.writeString(task.getDescription());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("completed");
+        for (Task task : tasks) {
+            generator.writeBoolean(task.isCompleted());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("version");
+        for (Task task : tasks) {
+            writeLong(generator, task.getVersion());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("completedAt");
+        for (Task task : tasks) {
+            writeLong(generator, task.getCompletedAt());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Les tâches en colonnes ne sont acceptées qu'en réponse", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Les tâches en colonnes ne sont acceptées qu'en réponse", inputMessage);
+    }
+}
@@ -0,0 +1,84 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formats de réponse des listes et pages de tâches, choisis selon l'en-tête Accept
+ */
+public enum TaskRepresentation {
+
+    JSON(MediaType.APPLICATION_JSON, ""),
+    COLUMNS(TaskColumnsHttpMessageConverter.MEDIA_TYPE, "-columns"),
+    CBOR(MediaType.APPLICATION_CBOR, "-cbor");
+
+    /** Type de contenu de la réponse */
+    private final MediaType mediaType;
+    /** Suffixe de l'ETag : chaque format a son propre ETag */
+    private final String eTagSuffix;
+
+    TaskRepresentation(MediaType mediaType, String eTagSuffix) {
+        this.mediaType = mediaType;
+        this.eTagSuffix = eTagSuffix;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getETagSuffix() {
+        return eTagSuffix;
+    }
+
+    /**
+     * Format demandé par le client : le type accepté de plus haute qualité, puis le plus précis, parmi les trois ;
+     * JSON pour un type générique ({@code *}{@code /*}, {@code application/*}). Un type de qualité q=0 est refusé
+     * par le client et n'est jamais choisi
+     * @param accept En-tête Accept, null s'il est absent
+     * @return Format de la réponse, null si le client n'accepte aucun des trois
+     */
+    public static TaskRepresentation of(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            // Tri par qualité décroissante, puis du type le plus précis au plus générique
+            MimeTypeUtils.sortBySpecificity(mediaTypes);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            // En-tête invalide : Spring répond lui-même avec l'erreur
+            return null;
+        }
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (TaskRepresentation representation : values()) {
+                if (mediaType.includes(representation.mediaType) && !refused(mediaTypes, representation)) {
+                    return representation;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param mediaTypes Types de l'en-tête Accept
+     * @param representation Format candidat
+     * @return true si le client refuse le format par un type de qualité q=0
+     */
+    private static boolean refused(List<MediaType> mediaTypes, TaskRepresentation representation) {
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0 && mediaType.includes(representation.mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,220 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des réponses sérialisées des listes et pages de tâches, par requête et par format.
+ * <p>
+ * Chaque réponse est gardée avec la version du stockage lue avant ses données. Elle n'est servie que tant que
+ * la version n'a pas changé : toute modification du service incrémente la version, ce qui invalide toutes
+ * les réponses d'un coup, sans parcourir le cache. Une réponse servie depuis le cache est le même tableau d'octets,
+ * écrit tel quel : ni liste ni sérialisation.
+ * <p>
+ * Une réponse gardée à une nouvelle version retire aussitôt celles des versions antérieures, qui ne seront plus
+ * servies ; une réponse lue à une version déjà dépassée n'est pas gardée. Le cache est en plus borné en octets
+ * et en nombre de réponses : au-delà, la moins récemment servie parmi quelques réponses est retirée, sans copier
+ * ni trier le cache. Une réponse plus grande que le cache entier n'est pas gardée.
+ * Métriques : {@value #REQUESTS} par résultat (hit, miss), {@value #SIZE} et {@value #EVICTIONS}.
+ */
+public class TaskResponseCache {
+
+    public static final String REQUESTS = "todo.response-cache.requests";
+    public static final String SIZE = "todo.response-cache.size";
+    public static final String EVICTIONS = "todo.response-cache.evictions";
+
+    /** Nombre de réponses comparées pour choisir la moins récemment servie, au-delà des limites */
+    static final int EVICTION_SAMPLE = 8;
+
+    private final long maxBytes;
+    private final int maxEntries;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final TaskColumnsHttpMessageConverter columns;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    // Version la plus récente des réponses gardées
+    private final AtomicLong latestVersion = new AtomicLong(Long.MIN_VALUE);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * @param objectMapper Sérialisation JSON de Spring, utilisée aussi pour le format en colonnes
+     * @param maxBytes Taille maximum des réponses gardées, en octets
+     * @param maxEntries Nombre maximum de réponses gardées
+     * @param registry Registre des métriques
+     */
+    public TaskResponseCache(ObjectMapper objectMapper, long maxBytes, int maxEntries, MeterRegistry registry) {
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+        this.jsonMapper = objectMapper;
+        // Même configuration que le convertisseur CBOR de Spring
+        this.cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        this.columns = new TaskColumnsHttpMessageConverter(objectMapper);
+        this.hits = requests(registry, "hit");
+        this.misses = requests(registry, "miss");
+        this.evictions = Counter.builder(EVICTIONS)
+                .description("Nombre de réponses retirées du cache pour respecter sa taille")
+                .register(registry);
+        Gauge.builder(SIZE, bytes, AtomicLong::get)
+                .description("Taille des réponses gardées dans le cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder(REQUESTS)
+                .description("Lectures du cache des réponses, servies depuis le cache (hit) ou non (miss)")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Réponse sérialisée d'une lecture, depuis le cache si elle a été sérialisée à la même version du stockage
+     * @param query Requête (chemin et paramètres), qui identifie la réponse avec le format
+     * @param representation Format de la réponse
+     * @param version Version du stockage, lue avant l'appel
+     * @param reader Lecture des données, appelée seulement si la réponse n'est pas dans le cache
+     * @return Réponse sérialisée, null si les données n'existent pas
+     */
+    public byte[] get(String query, TaskRepresentation representation, long version, Supplier<?> reader) {
+        Key key = new Key(query, representation);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            entry.lastAccess = System.nanoTime();
+            hits.increment();
+            return entry.body;
+        }
+        misses.increment();
+        Object value = reader.get();
+        if (value == null) {
+            return null;
+        }
+        byte[] body = serialize(value, representation);
+        if (body.length <= maxBytes) {
+            put(key, new Entry(version, body));
+        }
+        return body;
+    }
+
+    /**
+     * @return Taille des réponses gardées, en octets
+     */
+    public long size() {
+        return bytes.get();
+    }
+
+    private void put(Key key, Entry entry) {
+        long latest;
+        while ((latest = latestVersion.get()) < entry.version) {
+            if (latestVersion.compareAndSet(latest, entry.version)) {
+                dropBefore(entry.version);
+            }
+        }
+        if (entry.version < latest) {
+            // Le stockage a été modifié pendant la lecture : la réponse ne serait jamais servie
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        bytes.addAndGet(entry.body.length - (previous == null ? 0 : previous.body.length));
+        while ((bytes.get() > maxBytes || entries.size() > maxEntries) && evictOne()) {
+            // Retrait jusqu'à respecter les limites
+        }
+    }
+
+    /**
+     * Retrait des réponses d'une version antérieure. Après chaque retrait, le cache ne contient que des réponses
+     * de la version courante : le parcours est court
+     * @param version Nouvelle version la plus récente
+     */
+    private void dropBefore(long version) {
+        for (Map.Entry<Key, Entry> candidate : entries.entrySet()) {
+            // Retrait conditionnel : une réponse remplacée entre-temps reste dans le cache
+            if (candidate.getValue().version < version && entries.remove(candidate.getKey(), candidate.getValue())) {
+                bytes.addAndGet(-candidate.getValue().body.length);
+            }
+        }
+    }
+
+    /**
+     * Retrait de la moins récemment servie parmi les {@value #EVICTION_SAMPLE} premières réponses du cache :
+     * une approximation de l'ordre LRU, sans verrou, qui ne dépend pas du nombre de réponses
+     * @return false si le cache est vide
+     */
+    private boolean evictOne() {
+        Map.Entry<Key, Entry> oldest = null;
+        Iterator<Map.Entry<Key, Entry>> candidates = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE && candidates.hasNext(); i++) {
+            Map.Entry<Key, Entry> candidate = candidates.next();
+            if (oldest == null || candidate.getValue().lastAccess - oldest.getValue().lastAccess < 0) {
+                oldest = candidate;
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        if (entries.remove(oldest.getKey(), oldest.getValue())) {
+            bytes.addAndGet(-oldest.getValue().body.length);
+            evictions.increment();
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] serialize(Object value, TaskRepresentation representation) {
+        try {
+            return switch (representation) {
+                case JSON -> jsonMapper.writeValueAsBytes(value);
+                case CBOR -> cborMapper.writeValueAsBytes(value);
+                case COLUMNS -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+                    if (value instanceof TaskPage page) {
+                        columns.writePage(page, out);
+                    } else if (value instanceof TaskRange range) {
+                        columns.writeRange(range, out);
+                    } else {
+                        columns.writeTasks((List<Task>) value, out);
+                    }
+                    yield out.toByteArray();
+                }
+            };
+        } catch (IOException e) {
+            // Écriture dans un tableau en mémoire : seule une erreur de sérialisation est possible
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Key(String query, TaskRepresentation representation) {
+    }
+
+    /**
+     * Réponse gardée, avec la version du stockage à laquelle elle a été lue
+     */
+    private static final class Entry {
+        final long version;
+        final byte[] body;
+        volatile long lastAccess = System.nanoTime();
+
+        Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+}
@@ -1,25 +1,88 @@
 package com.sylvain.fullstack.todo_list.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
 import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.model.TaskSearchPage;
+import com.sylvain.fullstack.todo_list.ratelimit.RateLimitCost;
+import com.sylvain.fullstack.todo_list.service.TaskQuery;
+import com.sylvain.fullstack.todo_list.service.TaskVersionConflictException;
+import com.sylvain.fullstack.todo_list.service.TaskWriteQueue;
+import com.sylvain.fullstack.todo_list.service.TaskWriteQueueFullException;
 import com.sylvain.fullstack.todo_list.service.TodoListService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @RestController // Indique que cette classe est un contrôleur REST
 @CrossOrigin(origins = "http://localhost:4200") // Permet les tests Angular en DEV
 @RequestMapping("/api/v1/tasks") // Définit le chemin de base pour tous les points de terminaison de ce contrôleur
 public class TodoListController {
 
+    private static final ParameterizedTypeReference<List<Task>> TASK_LIST = new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<TaskPage> TASK_PAGE = new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<TaskOperationResult>> OPERATION_RESULTS = new ParameterizedTypeReference<>() {};
+
+    // Coûts des endpoints en jetons de la limitation de débit : une lecture ou modification d'une tâche coûte 1
+    /** Liste complète : copie de toutes les tâches */
+    private static final int LIST_COST = 20;
+    /** Export : parcours et sérialisation de toutes les tâches */
+    private static final int EXPORT_COST = 50;
+    /** Page de tâches, lot d'opérations : jusqu'à {@value TodoListService#MAX_PAGE_SIZE} tâches */
+    private static final int PAGE_COST = 5;
+
     private final TodoListService todoService;
+    // Sérialisation des tâches de l'export, une valeur JSON par ligne
+    private final ObjectWriter ndjsonWriter;
+    // Routage vers les autres nœuds quand les tâches sont réparties sur un cluster
+    private final ClusterRouter router;
+    // File d'écriture différée des ajouts et mises à jour, null si elle n'est pas activée
+    private final TaskWriteQueue writeQueue;
+    // Réponses sérialisées des listes et pages, null si le cache n'est pas activé
+    private final TaskResponseCache responseCache;
+
+    public TodoListController(TodoListService todoService, ObjectMapper objectMapper, ClusterRouter router) {
+        this(todoService, objectMapper, router, null, null);
+    }
 
-    // Injection de dépendance du TodoService
+    // Injection de dépendance du TodoService, de l'ObjectMapper configuré par Spring, du routeur du cluster,
+    // de la file d'écriture si todo-list.write-queue.enabled vaut true et du cache des réponses
     @Autowired
-    public TodoListController(TodoListService todoService) {
+    public TodoListController(TodoListService todoService, ObjectMapper objectMapper, ClusterRouter router,
+                              @Nullable TaskWriteQueue writeQueue, @Nullable TaskResponseCache responseCache) {
         this.todoService = todoService;
+        this.ndjsonWriter = objectMapper.writerFor(Task.class).withRootValueSeparator("\n");
+        this.router = router;
+        this.writeQueue = writeQueue;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -27,8 +90,12 @@ public class TodoListController {
      * @return Réponse REST
      */
     @GetMapping("/all")
-    public List<Task> getAllTasks() {
-        return todoService.getAllTasks();
+    @RateLimitCost(LIST_COST)
+    public ResponseEntity<?> getAllTasks(WebRequest request) {
+        if (routed(request)) {
+            return ResponseEntity.ok(gatherTasks(todoService.getAllTasks(), "/all"));
+        }
+        return cached(request, "/all", todoService::getAllTasks);
     }
 
     /**
@@ -36,8 +103,159 @@ public class TodoListController {
      * @return Réponse REST
      */
     @GetMapping("/todo")
-    public List<Task> getTodoTasks() {
-        return todoService.getTodoTasks();
+    @RateLimitCost(LIST_COST)
+    public ResponseEntity<?> getTodoTasks(WebRequest request) {
+        if (routed(request)) {
+            return ResponseEntity.ok(gatherTasks(todoService.getTodoTasks(), "/todo"));
+        }
+        return cached(request, "/todo", todoService::getTodoTasks);
+    }
+
+    /**
+     * Endpoint pour exporter les tâches au format NDJSON, une tâche par ligne.
+     * Les tâches sont écrites au fil du parcours du stockage : la mémoire utilisée ne dépend pas du nombre de tâches.
+     * @param todo true pour n'exporter que les tâches à faire
+     * @return Réponse REST, écrite de manière asynchrone
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RateLimitCost(EXPORT_COST)
+    public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(defaultValue = "false") boolean todo) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+            try (SequenceWriter writer = ndjsonWriter.writeValues(out)) {
+                Iterator<Task> tasks = todoService.iterateTasks(todo);
+                if (tasks.hasNext()) {
+                    while (tasks.hasNext()) {
+                        writer.write(tasks.next());
+                    }
+                    // Le séparateur n'est écrit qu'entre deux tâches : la dernière ligne est terminée ici
+                    writer.flush();
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Endpoint pour récupérer une page de tâches, triées par id par défaut, éventuellement filtrées.
+     * Les filtres se combinent ; le tri par libellé ne tient compte ni des accents ni des majuscules.
+     * @param after Curseur renvoyé par la page précédente, absent pour la première page
+     * @param afterLabel Pour le tri par libellé, libellé de la tâche du curseur ; absent, il est lu dans la tâche
+     * @param limit Nombre maximum de tâches dans la page
+     * @param completed Statut des tâches, absent pour toutes
+     * @param minId Plus petit id, inclus
+     * @param maxId Plus grand id, inclus
+     * @param label Début du libellé, sans tenir compte des accents ni des majuscules
+     * @param sort Tri : {@code id} ou {@code label}, suivi de {@code ,asc} ou {@code ,desc}
+     * @return Réponse REST : 400 Bad Request si le tri n'est pas reconnu, 404 Not Found si la tâche du curseur
+     * d'un tri par libellé n'existe plus et que son libellé n'est pas fourni
+     */
+    @GetMapping("/all/page")
+    @RateLimitCost(PAGE_COST)
+    public ResponseEntity<?> getTasksPage(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) String afterLabel,
+                                          @RequestParam(defaultValue = "50") int limit,
+                                          @RequestParam(required = false) Boolean completed,
+                                          @RequestParam(required = false) Long minId,
+                                          @RequestParam(required = false) Long maxId,
+                                          @RequestParam(required = false) String label,
+                                          @RequestParam(required = false) String sort,
+                                          WebRequest request) {
+        TaskQuery query;
+        try {
+            query = TaskQuery.of(completed, minId, maxId, label, sort);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (query.equals(TaskQuery.ALL)) {
+            if (routed(request)) {
+                return ResponseEntity.ok(gatherPage(todoService.getTasksPage(after, limit), "/all/page", after, limit));
+            }
+            return cached(request, "/all/page?after=" + after + "&limit=" + limit, () -> todoService.getTasksPage(after, limit));
+        }
+        if (routed(request)) {
+            String cursorLabel = after != null && afterLabel == null && query.sort() == TaskQuery.Sort.LABEL
+                    ? labelOf(after) : afterLabel;
+            if (after != null && cursorLabel == null && query.sort() == TaskQuery.Sort.LABEL) {
+                return ResponseEntity.notFound().build();
+            }
+            TaskPage local = todoService.queryTasks(query, after, cursorLabel, limit);
+            return ResponseEntity.ok(gatherPage(local, query, after, cursorLabel, limit));
+        }
+        return cached(request, cacheKey("/all/page", pageParams(query, after, afterLabel, limit)),
+                () -> todoService.queryTasks(query, after, afterLabel, limit));
+    }
+
+    /**
+     * Endpoint pour récupérer une page de tâches à faire, triées par id
+     * @param after Curseur renvoyé par la page précédente, absent pour la première page
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Réponse REST
+     */
+    @GetMapping("/todo/page")
+    @RateLimitCost(PAGE_COST)
+    public ResponseEntity<?> getTodoTasksPage(@RequestParam(required = false) Long after,
+                                                     @RequestParam(defaultValue = "50") int limit,
+                                                     WebRequest request) {
+        if (routed(request)) {
+            return ResponseEntity.ok(gatherPage(todoService.getTodoTasksPage(after, limit), "/todo/page", after, limit));
+        }
+        return cached(request, "/todo/page?after=" + after + "&limit=" + limit, () -> todoService.getTodoTasksPage(after, limit));
+    }
+
+    /**
+     * Endpoint pour récupérer une plage de tâches par rang, triées par id, avec le nombre total de tâches :
+     * un affichage à défilement virtuel ne lit que les plages visibles.
+     * @param offset Rang de la première tâche, à partir de 0
+     * @param limit Nombre maximum de tâches dans la plage
+     * @return Réponse REST
+     */
+    @GetMapping("/all/range")
+    @RateLimitCost(PAGE_COST)
+    public ResponseEntity<?> getTasksRange(@RequestParam(defaultValue = "0") int offset,
+                                           @RequestParam(defaultValue = "50") int limit,
+                                           WebRequest request) {
+        if (routed(request)) {
+            return ResponseEntity.ok(gatherRange(todoService.getAllTasks(), "/all", offset, limit));
+        }
+        return cached(request, "/all/range?offset=" + offset + "&limit=" + limit,
+                () -> todoService.getTasksRange(offset, limit, false));
+    }
+
+    /**
+     * Endpoint pour récupérer une plage de tâches à faire par rang, triées par id, avec le nombre total
+     * de tâches à faire
+     * @param offset Rang de la première tâche, à partir de 0
+     * @param limit Nombre maximum de tâches dans la plage
+     * @return Réponse REST
+     */
+    @GetMapping("/todo/range")
+    @RateLimitCost(PAGE_COST)
+    public ResponseEntity<?> getTodoTasksRange(@RequestParam(defaultValue = "0") int offset,
+                                               @RequestParam(defaultValue = "50") int limit,
+                                               WebRequest request) {
+        if (routed(request)) {
+            return ResponseEntity.ok(gatherRange(todoService.getTodoTasks(), "/todo", offset, limit));
+        }
+        return cached(request, "/todo/range?offset=" + offset + "&limit=" + limit,
+                () -> todoService.getTasksRange(offset, limit, true));
+    }
+
+    /**
+     * Endpoint pour rechercher des tâches par les mots de leur libellé ou de leur description
+     * @param q Mots recherchés, sans tenir compte des accents ni des majuscules ; le début d'un mot suffit
+     * @param offset Nombre de résultats à ignorer, pour la pagination
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Réponse REST, avec les tâches les plus pertinentes en premier
+     */
+    @GetMapping("/search")
+    @RateLimitCost(PAGE_COST)
+    public ResponseEntity<TaskSearchPage> searchTasks(@RequestParam String q,
+                                                      @RequestParam(defaultValue = "0") int offset,
+                                                      @RequestParam(defaultValue = "50") int limit,
+                                                      WebRequest request) {
+        return conditional(request, () -> todoService.searchTasks(q, offset, limit));
     }
 
     /**
@@ -46,15 +264,18 @@ public class TodoListController {
      * @return Réponse REST
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
+    public ResponseEntity<Task> getTaskById(@PathVariable Long id, WebRequest request) {
+        if (routed(request) && !router.isLocal(id)) {
+            return router.forward(id, HttpMethod.GET, "/" + id, null, Task.class);
+        }
         // @PathVariable lie la variable {id} du chemin à l'argument de la méthode
-        Task task = todoService.getTaskById(id);
-        // Utilise ResponseEntity pour contrôler la réponse HTTP (statut 200 OK ou 404 Not Found)
-        return task != null ? ResponseEntity.ok(task) : ResponseEntity.notFound().build();
+        // Utilise ResponseEntity pour contrôler la réponse HTTP (statut 200 OK, 304 Not Modified ou 404 Not Found)
+        return conditional(request, () -> todoService.getTaskById(id));
     }
 
     /**
-     * Endpoint pour créer une nouvelle tâche
+     * Endpoint pour créer une nouvelle tâche.
+     * Dans un cluster, la tâche est créée sur le nœud qui reçoit la requête, avec un id dont il est propriétaire
      * @param newTask Données de la tâche à créer
      * @return Réponse REST
      */
@@ -62,18 +283,36 @@ public class TodoListController {
     @ResponseStatus(HttpStatus.CREATED) // Retourne un statut 201 Created en cas de succès
     public Task addTask(@RequestBody Task newTask) {
         // Le corps de la requête JSON est automatiquement converti en objet Task
+        if (writeQueue != null) {
+            return await(writeQueue.addTask(newTask));
+        }
         return todoService.addTask(newTask);
     }
 
     /**
      * Endpoint pour mettre à jour le statut d'une tâche
-     * @param task Données de la tâche à sauvegarder, avec le nouveau statut de la tâche
-     * @return Réponse REST
+     * @param task Données de la tâche à sauvegarder, avec le nouveau statut de la tâche et la version lue
+     *             par le client. Sans version, la tâche est modifiée quelle que soit sa version
+     * @return Réponse REST : 400 Bad Request si la tâche n'a pas d'id, avec ou sans file d'écriture
      */
     @PutMapping("/update")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Task> updateTask(@RequestBody Task task) {
-        Task updatedTask = todoService.updateTask(task.getId(), task.isCompleted());
+    public ResponseEntity<Task> updateTask(@RequestBody Task task, WebRequest request) {
+        if (task.getId() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (routed(request) && !router.isLocal(task.getId())) {
+            return router.forward(task.getId(), HttpMethod.PUT, "/update", task, Task.class);
+        }
+        Task updatedTask;
+        try {
+            updatedTask = writeQueue != null
+                    ? await(writeQueue.updateTask(task.getId(), task.isCompleted(), task.getVersion()))
+                    : todoService.updateTask(task.getId(), task.isCompleted(), task.getVersion());
+        } catch (TaskVersionConflictException e) {
+            // Retourne 409 Conflict avec la version courante de la tâche, à relire avant de réessayer
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getCurrent());
+        }
         // Retourne 200 OK avec la tâche mise à jour ou 404 Not Found
         return updatedTask != null ? ResponseEntity.ok(updatedTask) : ResponseEntity.notFound().build();
     }
@@ -85,9 +324,299 @@ public class TodoListController {
      */
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteTask(@PathVariable Long id, WebRequest request) {
+        if (routed(request) && !router.isLocal(id)) {
+            return router.forward(id, HttpMethod.DELETE, "/" + id, null, Void.class);
+        }
         boolean deleted = todoService.deleteTask(id);
         // Retourne 204 No Content si la suppression a réussi ou 404 Not Found si la tâche n'existait pas
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
+
+    /**
+     * Endpoint pour appliquer un lot d'ajouts, de mises à jour et de suppressions en un seul appel.
+     * Dans un cluster, les mises à jour et suppressions sont transmises par sous-lots au nœud propriétaire
+     * de chaque tâche ; les ajouts sont faits sur le nœud qui reçoit la requête, avec des ids dont il est propriétaire
+     * @param operations Opérations à appliquer, dans l'ordre
+     * @return Réponse REST, avec le résultat de chaque opération
+     */
+    @PostMapping("/batch")
+    @RateLimitCost(PAGE_COST)
+    public ResponseEntity<List<TaskOperationResult>> applyBatch(@RequestBody List<TaskOperation> operations, WebRequest request) {
+        // Retourne 400 Bad Request si le lot est trop gros, 200 OK avec un statut par opération sinon
+        if (operations.size() > TodoListService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (routed(request)) {
+            return ResponseEntity.ok(routeBatch(operations));
+        }
+        return ResponseEntity.ok(todoService.applyBatch(operations));
+    }
+
+    /**
+     * Réponse à une modification refusée par la file d'écriture différée, pleine
+     * @return Réponse REST 429 Too Many Requests, à réessayer après une seconde
+     */
+    @ExceptionHandler(TaskWriteQueueFullException.class)
+    public ResponseEntity<Void> writeQueueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    /**
+     * Attente d'une modification mise en file : le thread de requête, virtuel, ne bloque pas de thread système
+     * @param result Résultat de la modification
+     * @return Tâche ajoutée ou modifiée
+     */
+    private static Task await(CompletableFuture<Task> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            // Erreur levée par le lot, dont un conflit de version, transmise telle quelle
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param request Requête reçue
+     * @return true si les tâches sont réparties sur un cluster et que la requête vient d'un client :
+     * elle doit être transmise au nœud propriétaire ou à tous les nœuds. Une requête d'un autre nœud, authentifiée
+     * par le secret du cluster, est locale
+     */
+    private boolean routed(WebRequest request) {
+        return router.isClustered() && !router.isPeerRequest(request.getHeader(ClusterRouter.LOCAL_HEADER));
+    }
+
+    /**
+     * Lot d'opérations du cluster : les opérations sont réparties par nœud propriétaire, en gardant leur ordre
+     * dans chaque sous-lot. Les opérations sur une même tâche vont au même nœud, l'ordre entre nœuds n'a pas d'effet
+     * @param operations Opérations à appliquer, dans l'ordre
+     * @return Résultat de chaque opération, dans l'ordre du lot
+     */
+    private List<TaskOperationResult> routeBatch(List<TaskOperation> operations) {
+        // Indices des opérations de chaque nœud ; les ajouts et les opérations invalides restent sur le nœud courant
+        Map<Integer, List<Integer>> indices = new LinkedHashMap<>();
+        List<Integer> local = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            TaskOperation operation = operations.get(i);
+            Long id = operation == null || operation.getTask() == null || operation.getType() == TaskOperation.Type.ADD
+                    ? null : operation.getTask().getId();
+            if (id == null || router.isLocal(id)) {
+                local.add(i);
+            } else {
+                indices.computeIfAbsent(router.ownerOf(id), owner -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<Integer, List<TaskOperation>> remote = new LinkedHashMap<>();
+        indices.forEach((owner, list) -> remote.put(owner, list.stream().map(operations::get).toList()));
+        // Sous-lots des autres nœuds envoyés en parallèle
+        Map<Integer, List<TaskOperationResult>> remoteResults = remote.isEmpty() ? Map.of()
+                : router.scatter("/batch", remote, OPERATION_RESULTS);
+        List<TaskOperationResult> localResults = todoService.applyBatch(local.stream().map(operations::get).toList());
+
+        TaskOperationResult[] results = new TaskOperationResult[operations.size()];
+        for (int i = 0; i < local.size(); i++) {
+            results[local.get(i)] = localResults.get(i);
+        }
+        remoteResults.forEach((owner, ownerResults) -> {
+            List<Integer> ownerIndices = indices.get(owner);
+            for (int i = 0; i < ownerIndices.size(); i++) {
+                results[ownerIndices.get(i)] = ownerResults.get(i);
+            }
+        });
+        return List.of(results);
+    }
+
+    /**
+     * Liste de toutes les tâches du cluster : chaque nœud renvoie les siennes, triées par id.
+     * Pas d'ETag : la version du nœud courant ne change pas quand un autre nœud est modifié
+     * @param local Tâches du nœud courant
+     * @param path Chemin de la même lecture sur les autres nœuds
+     * @return Tâches de tous les nœuds, triées par id
+     */
+    private List<Task> gatherTasks(List<Task> local, String path) {
+        List<Task> tasks = new ArrayList<>(local);
+        router.gather(path, TASK_LIST).forEach(tasks::addAll);
+        // Le tri par fusion de List.sort repère les suites déjà triées de chaque nœud et ne fait que les fusionner
+        tasks.sort(Comparator.comparing(Task::getId));
+        return tasks;
+    }
+
+    /**
+     * Page de tâches du cluster : chaque nœud renvoie sa page après le même curseur, les premières tâches
+     * des pages fusionnées forment la page du cluster
+     * @param local Page du nœud courant
+     * @param path Chemin de la même lecture sur les autres nœuds, sans paramètres
+     * @param after Curseur de la page demandée
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches, avec le curseur vers la page suivante
+     */
+    private TaskPage gatherPage(TaskPage local, String path, Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, TodoListService.MAX_PAGE_SIZE));
+        return mergePages(local, router.gather(path + "?limit=" + pageSize + (after != null ? "&after=" + after : ""), TASK_PAGE),
+                Comparator.comparing(Task::getId), pageSize);
+    }
+
+    /**
+     * Page filtrée et triée du cluster : chaque nœud lit sa page avec les mêmes filtres, après le même curseur.
+     * Pour le tri par libellé, le libellé du curseur est transmis : la tâche du curseur n'est que sur un nœud
+     * @param local Page du nœud courant
+     * @param query Filtres et tri
+     * @param after Curseur de la page demandée
+     * @param afterLabel Libellé de la tâche du curseur
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches, avec le curseur vers la page suivante
+     */
+    private TaskPage gatherPage(TaskPage local, TaskQuery query, Long after, String afterLabel, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, TodoListService.MAX_PAGE_SIZE));
+        return mergePages(local, router.gather("/all/page", pageParams(query, after, afterLabel, pageSize), TASK_PAGE),
+                query.comparator(), pageSize);
+    }
+
+    /**
+     * Paramètres d'une page filtrée et triée, non encodés
+     * @param query Filtres et tri
+     * @param after Curseur de la page demandée, null pour la première page
+     * @param afterLabel Libellé de la tâche du curseur, null s'il n'est pas fourni
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Paramètres de la requête, dans un ordre fixe
+     */
+    private static Map<String, String> pageParams(TaskQuery query, Long after, String afterLabel, int limit) {
+        Map<String, String> params = new LinkedHashMap<>(query.toQueryParams());
+        params.put("limit", Integer.toString(limit));
+        if (after != null) {
+            params.put("after", after.toString());
+        }
+        if (afterLabel != null) {
+            params.put("afterLabel", afterLabel);
+        }
+        return params;
+    }
+
+    /**
+     * Clé d'une réponse dans le cache : les valeurs sont encodées entièrement, comme pour les autres nœuds,
+     * un libellé qui contient {@code ,} {@code &} ou {@code =} ne peut donc pas imiter un autre paramètre
+     * @param path Chemin sous /api/v1/tasks
+     * @param params Paramètres de la requête, non encodés
+     * @return Chemin et paramètres encodés
+     */
+    private static String cacheKey(String path, Map<String, String> params) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath(path);
+        params.keySet().forEach(name -> builder.queryParam(name, "{" + name + "}"));
+        return builder.encode().buildAndExpand(params).toUriString();
+    }
+
+    /**
+     * Plage de tâches du cluster : le rang d'une tâche dépend des tâches de tous les nœuds, la plage est donc
+     * prise dans la liste complète du cluster, au coût de la lecture de /all ou /todo
+     * @param local Tâches du nœud courant
+     * @param path Chemin de la liste complète sur les autres nœuds
+     * @param offset Rang de la première tâche
+     * @param limit Nombre maximum de tâches dans la plage
+     * @return Plage de tâches, avec le nombre total de tâches du cluster
+     */
+    private TaskRange gatherRange(List<Task> local, String path, int offset, int limit) {
+        List<Task> tasks = gatherTasks(local, path);
+        int from = Math.min(Math.max(0, offset), tasks.size());
+        int to = Math.min(tasks.size(), from + Math.max(1, Math.min(limit, TodoListService.MAX_PAGE_SIZE)));
+        return new TaskRange(Math.max(0, offset), tasks.size(), new ArrayList<>(tasks.subList(from, to)));
+    }
+
+    /**
+     * Fusion de la page du nœud courant et des pages des autres nœuds
+     * @param local Page du nœud courant
+     * @param remote Pages des autres nœuds, lues avec le même curseur
+     * @param order Ordre des tâches de chaque page
+     * @param pageSize Nombre maximum de tâches dans la page
+     * @return Page de tâches, avec le curseur vers la page suivante
+     */
+    private TaskPage mergePages(TaskPage local, List<TaskPage> remote, Comparator<Task> order, int pageSize) {
+        List<TaskPage> pages = new ArrayList<>(remote);
+        pages.add(local);
+        List<Task> tasks = new ArrayList<>();
+        boolean more = false;
+        for (TaskPage page : pages) {
+            tasks.addAll(page.getTasks());
+            more |= page.getNextCursor() != null;
+        }
+        tasks.sort(order);
+        more |= tasks.size() > pageSize;
+        List<Task> pageTasks = new ArrayList<>(tasks.subList(0, Math.min(pageSize, tasks.size())));
+        return new TaskPage(pageTasks, more ? pageTasks.get(pageTasks.size() - 1).getId() : null);
+    }
+
+    /**
+     * Libellé d'une tâche du cluster, lu sur le nœud qui en est propriétaire
+     * @param id id de la tâche
+     * @return Libellé, vide s'il est null ; null si la tâche n'existe pas
+     */
+    private String labelOf(long id) {
+        Task task = router.isLocal(id)
+                ? todoService.getTaskById(id)
+                : router.forward(id, HttpMethod.GET, "/" + id, null, Task.class).getBody();
+        return task == null ? null : task.getLabel() == null ? "" : task.getLabel();
+    }
+
+    /**
+     * Réponse conditionnelle d'une lecture : l'ETag est la version du stockage, lue avant les données.
+     * Si le client envoie cet ETag dans If-None-Match, checkNotModified positionne la réponse 304 Not Modified
+     * et les données ne sont ni relues ni sérialisées.
+     * Cache-Control: no-cache laisse le navigateur garder la réponse, en la revalidant à chaque appel.
+     * Chaque format de réponse (JSON, colonnes, CBOR) a son propre ETag, et Vary: Accept l'indique aux caches.
+     * L'ETag est faible (W/) : il identifie le contenu et non les octets, ce qui permet à Tomcat de compresser
+     * la réponse. If-None-Match est comparé sans tenir compte de W/.
+     * @param request Requête, pour lire If-None-Match
+     * @param reader Lecture des données, null si elles n'existent pas
+     * @return Réponse REST : 200 OK, 404 Not Found, ou null si la réponse 304 est déjà positionnée
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> reader) {
+        String eTag = eTag(todoService.getVersion(), TaskRepresentation.of(request.getHeader(HttpHeaders.ACCEPT)));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        T body = reader.get();
+        if (body == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    /**
+     * Réponse conditionnelle d'une lecture de liste ou de page, servie depuis le cache des réponses sérialisées
+     * tant que la version du stockage n'a pas changé. Le format est choisi ici plutôt que par les convertisseurs
+     * de Spring, pour réutiliser les octets ; un client qui n'accepte aucun des formats suit la lecture habituelle.
+     * @param request Requête, pour lire If-None-Match et Accept
+     * @param query Chemin et paramètres de la lecture, qui identifient la réponse dans le cache
+     * @param reader Lecture des données
+     * @return Réponse REST : 200 OK, ou null si la réponse 304 est déjà positionnée
+     */
+    private ResponseEntity<?> cached(WebRequest request, String query, Supplier<?> reader) {
+        TaskRepresentation representation = TaskRepresentation.of(request.getHeader(HttpHeaders.ACCEPT));
+        if (responseCache == null || representation == null) {
+            return conditional(request, reader);
+        }
+        long version = todoService.getVersion();
+        String eTag = eTag(version, representation);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        byte[] body = responseCache.get(query, representation, version, reader);
+        if (body == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .contentType(representation.getMediaType()).body(body);
+    }
+
+    /**
+     * @param version Version du stockage, lue avant les données
+     * @param representation Format de la réponse, null si le client n'en accepte aucun
+     * @return ETag faible de la version et du format
+     */
+    private String eTag(long version, TaskRepresentation representation) {
+        String suffix = representation == null ? "" : representation.getETagSuffix();
+        return "W/\"" + Long.toHexString(todoService.getEpoch()) + "-" + version + suffix + "\"";
+    }
 }
\ No newline at end of file
@@ -7,6 +7,11 @@ import lombok.AllArgsConstructor;
 
 import java.io.Serializable;
 
+/**
+ * Tâche, telle qu'elle est échangée avec les clients.
+ * Les tâches renvoyées par le service sont des instantanés qui ne sont plus jamais modifiés :
+ * une modification crée une nouvelle instance, de version supérieure.
+ */
 @Data // Génère getters et setters
 @NoArgsConstructor  // Génère un constructeur sans argument
 @AllArgsConstructor // Génère un constructeur avec tous les arguments
@@ -17,6 +22,30 @@ public class Task implements Serializable {
     private String label;
     private String description;
     private boolean completed;
+    // Version de la tâche : 1 à la création, incrémentée à chaque modification. Null si le client ne la connaît pas
+    private Long version;
+    // Date à laquelle la tâche a été terminée, en millisecondes depuis le 01/01/1970 UTC. Null si elle est à effectuer,
+    // ou si elle a été terminée avant l'enregistrement de cette date
+    private Long completedAt;
+
+    public Task(Long id, String label, String description, boolean completed) {
+        this(id, label, description, completed, null, null);
+    }
+
+    public Task(Long id, String label, String description, boolean completed, Long version) {
+        this(id, label, description, completed, version, null);
+    }
+
+    /**
+     * Nouvelle version de la tâche avec un autre statut, la tâche courante n'est pas modifiée.
+     * Une tâche terminée garde sa date de fin si elle l'était déjà, une tâche à effectuer n'en a pas
+     * @param completed Nouveau statut
+     * @return Copie de la tâche, de version incrémentée
+     */
+    public Task withCompleted(boolean completed) {
+        Long newCompletedAt = !completed ? null : this.completed ? completedAt : Long.valueOf(System.currentTimeMillis());
+        return new Task(id, label, description, completed, version == null ? 1L : version + 1, newCompletedAt);
+    }
 
     @Override
     public String toString() {
@@ -24,6 +53,8 @@ public class Task implements Serializable {
                 "id=" + id +
                 ", description='" + description + "'" +
                 ", completed=" + completed +
+                ", version=" + version +
+                ", completedAt=" + completedAt +
                 "}";
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.sylvain.fullstack.todo_list.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data // Génère getters et setters
+@NoArgsConstructor  // Génère un constructeur sans argument
+@AllArgsConstructor // Génère un constructeur avec tous les arguments
+public class TaskChange implements Serializable {
+
+    /** Type de modification */
+    public enum Type { ADD, UPDATE, DELETE }
+
+    /** Numéro de la modification : version du stockage après la modification */
+    private long sequence;
+    /** Type de modification */
+    private Type type;
+    /** id de la tâche modifiée */
+    private Long id;
+    /** Tâche après modification, null pour une suppression */
+    private Task task;
+}
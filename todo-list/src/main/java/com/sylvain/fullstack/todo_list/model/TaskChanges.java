@@ -0,0 +1,23 @@
+package com.sylvain.fullstack.todo_list.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data // Génère getters et setters
+@NoArgsConstructor  // Génère un constructeur sans argument
+@AllArgsConstructor // Génère un constructeur avec tous les arguments
+public class TaskChanges implements Serializable {
+
+    /** Identifiant de l'instance du stockage : les versions d'une autre instance ne sont pas comparables */
+    private long epoch;
+    /** Version atteinte après application des modifications, à fournir comme since à l'appel suivant */
+    private long version;
+    /** true si les modifications demandées ne sont plus disponibles : la liste complète doit être relue */
+    private boolean resyncRequired;
+    /** Modifications postérieures à la version demandée, dans l'ordre */
+    private List<TaskChange> changes;
+}
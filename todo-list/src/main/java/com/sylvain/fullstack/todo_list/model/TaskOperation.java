@@ -0,0 +1,21 @@
+package com.sylvain.fullstack.todo_list.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data // Génère getters et setters
+@NoArgsConstructor  // Génère un constructeur sans argument
+@AllArgsConstructor // Génère un constructeur avec tous les arguments
+public class TaskOperation implements Serializable {
+
+    /** Type d'opération d'un lot */
+    public enum Type { ADD, UPDATE, DELETE }
+
+    /** Opération à effectuer */
+    private Type type;
+    /** Tâche à ajouter (ADD), id et nouveau statut (UPDATE) ou id de la tâche à supprimer (DELETE) */
+    private Task task;
+}
@@ -0,0 +1,18 @@
+package com.sylvain.fullstack.todo_list.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data // Génère getters et setters
+@NoArgsConstructor  // Génère un constructeur sans argument
+@AllArgsConstructor // Génère un constructeur avec tous les arguments
+public class TaskOperationResult implements Serializable {
+
+    /** Statut HTTP qu'aurait renvoyé l'opération seule : 201, 200, 204, 400 ou 404 */
+    private int status;
+    /** Tâche créée ou mise à jour, null pour une suppression ou une erreur */
+    private Task task;
+}
@@ -0,0 +1,19 @@
+package com.sylvain.fullstack.todo_list.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data // Génère getters et setters
+@NoArgsConstructor  // Génère un constructeur sans argument
+@AllArgsConstructor // Génère un constructeur avec tous les arguments
+public class TaskPage implements Serializable {
+
+    /** Tâches de la page, triées par id croissant sauf tri demandé */
+    private List<Task> tasks;
+    /** Curseur à fournir pour lire la page suivante, null s'il n'y a plus de tâches */
+    private Long nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.sylvain.fullstack.todo_list.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data // Génère getters et setters
+@NoArgsConstructor  // Génère un constructeur sans argument
+@AllArgsConstructor // Génère un constructeur avec tous les arguments
+public class TaskRange implements Serializable {
+
+    /** Rang de la première tâche de la plage dans la liste triée par id */
+    private int offset;
+    /** Nombre de tâches de la liste, pour dimensionner l'affichage sans la lire en entier */
+    private int total;
+    /** Tâches de la plage, triées par id croissant */
+    private List<Task> tasks;
+}
@@ -0,0 +1,19 @@
+package com.sylvain.fullstack.todo_list.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data // Génère getters et setters
+@NoArgsConstructor  // Génère un constructeur sans argument
+@AllArgsConstructor // Génère un constructeur avec tous les arguments
+public class TaskSearchPage implements Serializable {
+
+    /** Tâches trouvées, des plus pertinentes aux moins pertinentes */
+    private List<Task> tasks;
+    /** Rang du premier résultat de la page suivante, null s'il n'y a plus de résultats */
+    private Integer nextOffset;
+}
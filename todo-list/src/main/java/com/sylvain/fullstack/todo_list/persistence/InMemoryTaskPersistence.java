@@ -0,0 +1,39 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import java.util.function.Consumer;
+
+/**
+ * Pas de persistance : les tâches ne sont conservées qu'en mémoire, et perdues à l'arrêt
+ */
+public class InMemoryTaskPersistence implements TaskPersistence {
+
+    @Override
+    public long recover(Consumer<TaskMutation> replay) {
+        return 0;
+    }
+
+    @Override
+    public void start(TaskSnapshotSource source) {
+        // Rien à écrire
+    }
+
+    @Override
+    public void ensureWritable() {
+        // Toujours disponible
+    }
+
+    @Override
+    public long append(TaskMutation mutation) {
+        return 0;
+    }
+
+    @Override
+    public void sync(long ticket) {
+        // Rien à attendre
+    }
+
+    @Override
+    public void close() {
+        // Rien à fermer
+    }
+}
@@ -0,0 +1,363 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Archive des tâches retirées du stockage par la rétention, dans des segments compressés sur disque local.
+ * <p>
+ * Chaque appel à {@link #append(List)} écrit un bloc : les tâches triées par id, encodées comme dans le journal puis
+ * compressées (deflate), précédées d'un en-tête non compressé [taille][CRC32][nombre de tâches][plus petit id]
+ * [plus grand id]. Le bloc est sur disque (fsync) au retour, avant que le service ne supprime les tâches.
+ * Un segment {@code archive-N.seg} est clos quand il dépasse la taille maximum, les blocs suivants vont dans le suivant.
+ * <p>
+ * Seuls les en-têtes des blocs sont gardés en mémoire, relus au démarrage sans décompresser les tâches.
+ * Une lecture par id ne décompresse que les blocs dont l'intervalle d'ids contient l'id ; une page triée par id lit
+ * les blocs par plus petit id croissant et s'arrête dès qu'un bloc ne peut plus contenir de tâche de la page.
+ * Une tâche archivée deux fois (arrêt entre l'archivage et sa suppression) est lue dans le bloc le plus récent.
+ * Un bloc incomplet en fin de segment, après un arrêt brutal, est tronqué : ses tâches n'ont pas été supprimées
+ * du stockage, elles seront archivées de nouveau.
+ */
+public class TaskArchive implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskArchive.class);
+
+    private static final String PREFIX = "archive-";
+    private static final String SUFFIX = ".seg";
+    /** Signature des segments : "TDA" + version du format */
+    private static final int MAGIC = 0x54444101;
+    /** Taille de l'en-tête d'un bloc : taille, CRC32, nombre de tâches, plus petit et plus grand id */
+    private static final int BLOCK_HEADER_SIZE = 3 * Integer.BYTES + 2 * Long.BYTES;
+
+    private final Path directory;
+    private final long segmentSize;
+    // Blocs dans l'ordre d'écriture ; une copie par bloc écrit, une tranche de la rétention en écrivant un seul
+    private final List<Block> blocks = new CopyOnWriteArrayList<>();
+    // Segments ouverts en lecture et écriture : les lectures à une position donnée se font en parallèle
+    private final Map<Long, FileChannel> segments = new ConcurrentHashMap<>();
+    // État de l'écriture, protégé par le moniteur de l'archive
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final CRC32 crc = new CRC32();
+    private long writeSegment;
+    private long writePosition;
+
+    /**
+     * Ouverture de l'archive et lecture des en-têtes de ses blocs
+     * @param directory Répertoire des segments, créé s'il n'existe pas
+     * @param segmentSize Taille au-delà de laquelle un segment est clos, en octets
+     */
+    public TaskArchive(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            for (long number : numbers()) {
+                openSegment(number);
+            }
+            if (segments.isEmpty()) {
+                createSegment(1);
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Ouverture de l'archive impossible dans " + directory, e);
+        }
+    }
+
+    /**
+     * Archivage de tâches, écrites sur disque au retour
+     * @param tasks Tâches à archiver
+     * @throws UncheckedIOException si l'écriture échoue : les tâches ne doivent pas être supprimées
+     */
+    public synchronized void append(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<Task> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparing(Task::getId));
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(sorted.size() * 64);
+            deflater.reset();
+            TaskMutationCodec codec = new TaskMutationCodec();
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(compressed, deflater, 8192))) {
+                for (Task task : sorted) {
+                    codec.write(TaskMutation.add(task), out);
+                }
+            }
+            byte[] bytes = compressed.toByteArray();
+            crc.reset();
+            crc.update(bytes);
+
+            if (writePosition >= segmentSize) {
+                createSegment(writeSegment + 1);
+            }
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + bytes.length)
+                    .putInt(bytes.length)
+                    .putInt((int) crc.getValue())
+                    .putInt(sorted.size())
+                    .putLong(sorted.get(0).getId())
+                    .putLong(sorted.get(sorted.size() - 1).getId())
+                    .put(bytes)
+                    .flip();
+            FileChannel channel = segments.get(writeSegment);
+            long position = writePosition;
+            while (block.hasRemaining()) {
+                position += channel.write(block, position);
+            }
+            channel.force(false);
+            blocks.add(new Block(writeSegment, writePosition + BLOCK_HEADER_SIZE, bytes.length, (int) crc.getValue(),
+                    sorted.size(), sorted.get(0).getId(), sorted.get(sorted.size() - 1).getId()));
+            writePosition = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture de l'archive impossible dans " + directory, e);
+        }
+    }
+
+    /**
+     * Lecture d'une tâche archivée
+     * @param id id de la tâche
+     * @return Tâche dans l'état où elle a été archivée, null si elle n'est pas dans l'archive
+     */
+    public Task get(long id) {
+        // Du plus récent au plus ancien : une tâche archivée deux fois est lue dans le dernier bloc
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            Block block = blocks.get(i);
+            if (block.minId() <= id && id <= block.maxId()) {
+                for (Task task : read(block)) {
+                    if (task.getId() == id) {
+                        return task;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lecture d'une page de tâches archivées, triées par id
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches, avec le curseur vers la page suivante
+     */
+    public TaskPage page(Long after, int limit) {
+        long from = after == null ? Long.MIN_VALUE : after;
+        int pageSize = Math.max(1, limit);
+        List<Integer> candidates = new ArrayList<>();
+        List<Block> snapshot = List.copyOf(blocks);
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.get(i).maxId() > from) {
+                candidates.add(i);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(i -> snapshot.get(i).minId()));
+        // Une tâche de plus que la page, pour savoir s'il y a une page suivante ; numéro du bloc lu pour chaque tâche
+        TreeMap<Long, Archived> found = new TreeMap<>();
+        for (int index : candidates) {
+            Block block = snapshot.get(index);
+            if (found.size() > pageSize && block.minId() > found.lastKey()) {
+                // Ce bloc et les suivants ne contiennent que des ids au-delà de la page
+                break;
+            }
+            for (Task task : read(block)) {
+                if (task.getId() > from) {
+                    found.merge(task.getId(), new Archived(task, index), (a, b) -> a.block() > b.block() ? a : b);
+                }
+            }
+            while (found.size() > pageSize + 1) {
+                found.pollLastEntry();
+            }
+        }
+        List<Task> tasks = new ArrayList<>(Math.min(found.size(), pageSize));
+        for (Archived archived : found.values()) {
+            if (tasks.size() == pageSize) {
+                break;
+            }
+            tasks.add(archived.task());
+        }
+        Long nextCursor = found.size() > pageSize ? tasks.get(tasks.size() - 1).getId() : null;
+        return new TaskPage(tasks, nextCursor);
+    }
+
+    /**
+     * @return Nombre de tâches archivées, une tâche archivée deux fois comptant deux fois
+     */
+    public long count() {
+        long count = 0;
+        for (Block block : blocks) {
+            count += block.count();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel channel : segments.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Fermeture d'un segment de l'archive impossible dans {}", directory, e);
+            }
+        }
+        segments.clear();
+        deflater.end();
+    }
+
+    /**
+     * Décompression des tâches d'un bloc
+     * @return Tâches du bloc, triées par id
+     */
+    private List<Task> read(Block block) {
+        FileChannel channel = segments.get(block.segment());
+        if (channel == null) {
+            throw new IllegalStateException("L'archive est fermée");
+        }
+        try {
+            ByteBuffer bytes = ByteBuffer.allocate(block.length());
+            readFully(channel, bytes, block.position());
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes.array());
+            if ((int) checksum.getValue() != block.crc()) {
+                throw new IOException("Bloc de l'archive corrompu dans le segment " + block.segment());
+            }
+            List<Task> tasks = new ArrayList<>(block.count());
+            TaskMutationCodec codec = new TaskMutationCodec();
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes.array())))) {
+                for (TaskMutation mutation = codec.read(in); mutation != null; mutation = codec.read(in)) {
+                    tasks.add(mutation.toTask());
+                }
+            }
+            return tasks;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture de l'archive impossible dans " + directory, e);
+        }
+    }
+
+    /**
+     * Ouverture d'un segment existant : lecture des en-têtes de ses blocs, sans les décompresser,
+     * et troncature d'un bloc incomplet en fin de segment
+     */
+    private void openSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(file(number), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(number, channel);
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        if (size < Integer.BYTES) {
+            // Segment créé juste avant un arrêt brutal
+            channel.truncate(0);
+            channel.write(header.putInt(MAGIC).flip(), 0);
+            size = Integer.BYTES;
+        } else {
+            readFully(channel, header.limit(Integer.BYTES), 0);
+            if (header.flip().getInt() != MAGIC) {
+                throw new IOException("Format d'archive inconnu : " + file(number));
+            }
+        }
+        long position = Integer.BYTES;
+        while (position + BLOCK_HEADER_SIZE <= size) {
+            readFully(channel, header.clear(), position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            int count = header.getInt();
+            long minId = header.getLong();
+            long maxId = header.getLong();
+            if (length <= 0 || count <= 0 || position + BLOCK_HEADER_SIZE + length > size) {
+                break;
+            }
+            blocks.add(new Block(number, position + BLOCK_HEADER_SIZE, length, checksum, count, minId, maxId));
+            position += BLOCK_HEADER_SIZE + length;
+        }
+        if (position < size) {
+            LOGGER.warn("Fin du segment {} de l'archive incomplète, tronquée à {} octets", file(number), position);
+            channel.truncate(position);
+        }
+        writeSegment = number;
+        writePosition = position;
+    }
+
+    private void createSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(file(number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(number, channel);
+        channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(MAGIC).flip(), 0);
+        channel.force(true);
+        writeSegment = number;
+        writePosition = Integer.BYTES;
+    }
+
+    /**
+     * Lecture à une position du segment, jusqu'à remplir le tampon
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Fin du segment de l'archive atteinte à la position " + position);
+            }
+        }
+    }
+
+    private Path file(long number) {
+        return directory.resolve(PREFIX + number + SUFFIX);
+    }
+
+    /**
+     * @return Numéros des segments du répertoire, triés
+     */
+    private List<Long> numbers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> name.substring(PREFIX.length(), name.length() - SUFFIX.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * En-tête d'un bloc, gardé en mémoire
+     * @param segment Numéro du segment
+     * @param position Position des données compressées dans le segment
+     * @param length Taille des données compressées
+     * @param crc CRC32 des données compressées
+     * @param count Nombre de tâches
+     * @param minId Plus petit id du bloc
+     * @param maxId Plus grand id du bloc
+     */
+    private record Block(long segment, long position, int length, int crc, int count, long minId, long maxId) {
+    }
+
+    /**
+     * Tâche lue dans un bloc, avec le numéro du bloc pour garder la copie la plus récente
+     */
+    private record Archived(Task task, int block) {
+    }
+}
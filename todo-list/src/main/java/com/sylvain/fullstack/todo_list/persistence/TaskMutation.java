@@ -0,0 +1,52 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+/**
+ * Modification d'une tâche, telle qu'elle est écrite dans le journal.
+ * Les ajouts et mises à jour portent l'état complet de la tâche : rejouer plusieurs fois la même
+ * modification donne le même résultat.
+ * @param type Type de modification
+ * @param id id de la tâche
+ * @param label Label de la tâche, null pour une suppression
+ * @param description Description de la tâche, null pour une suppression
+ * @param completed Statut de la tâche
+ * @param version Version de la tâche, 0 pour une suppression
+ * @param completedAt Date de fin de la tâche en millisecondes, 0 si elle n'est pas terminée ou si la date n'est pas connue
+ */
+public record TaskMutation(Type type, long id, String label, String description, boolean completed, long version,
+                           long completedAt) {
+
+    /** Types de modification journalisés */
+    public enum Type { ADD, UPDATE, DELETE }
+
+    public static TaskMutation add(Task task) {
+        return new TaskMutation(Type.ADD, task.getId(), task.getLabel(), task.getDescription(), task.isCompleted(),
+                versionOf(task), completedAtOf(task));
+    }
+
+    public static TaskMutation update(Task task) {
+        return new TaskMutation(Type.UPDATE, task.getId(), task.getLabel(), task.getDescription(), task.isCompleted(),
+                versionOf(task), completedAtOf(task));
+    }
+
+    public static TaskMutation delete(long id) {
+        return new TaskMutation(Type.DELETE, id, null, null, false, 0, 0);
+    }
+
+    private static long versionOf(Task task) {
+        return task.getVersion() == null ? 1 : task.getVersion();
+    }
+
+    private static long completedAtOf(Task task) {
+        return task.getCompletedAt() == null ? 0 : task.getCompletedAt();
+    }
+
+    /**
+     * Reconstruit la tâche portée par un ajout ou une mise à jour
+     * @return Tâche
+     */
+    public Task toTask() {
+        return new Task(id, label, description, completed, version, completedAt == 0 ? null : completedAt);
+    }
+}
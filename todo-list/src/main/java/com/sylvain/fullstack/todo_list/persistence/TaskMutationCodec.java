@@ -0,0 +1,128 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Encodage binaire des modifications, commun au journal et aux snapshots.
+ * Chaque enregistrement est précédé de sa taille et de son CRC32, ce qui permet de détecter
+ * un enregistrement incomplet en fin de journal après un arrêt brutal.
+ * La version de la tâche est écrite en fin d'enregistrement : un enregistrement écrit avant l'ajout des versions
+ * se relit avec la version 1. La date de fin la suit, pour la même raison : absente, elle se relit comme inconnue.
+ * Une instance n'est pas thread-safe : son tampon est réutilisé d'un enregistrement à l'autre.
+ */
+final class TaskMutationCodec {
+
+    /** Taille de l'en-tête d'un enregistrement : taille + CRC32 */
+    static final int HEADER_SIZE = 8;
+    /** Taille maximum acceptée pour un enregistrement, au-delà le fichier est considéré corrompu */
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    private static final TaskMutation.Type[] TYPES = TaskMutation.Type.values();
+
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+    private final DataOutputStream payloadOut = new DataOutputStream(new CheckedOutputStream(payload, crc));
+    private ByteBuffer readBuffer = ByteBuffer.allocate(256);
+    private int lastReadSize;
+
+    /**
+     * Écriture d'un enregistrement
+     * @param mutation Modification à écrire
+     * @param out Flux de destination
+     * @return Nombre d'octets écrits
+     */
+    int write(TaskMutation mutation, DataOutputStream out) throws IOException {
+        payload.reset();
+        crc.reset();
+        payloadOut.writeByte(mutation.type().ordinal());
+        payloadOut.writeLong(mutation.id());
+        payloadOut.writeBoolean(mutation.completed());
+        writeString(mutation.label());
+        writeString(mutation.description());
+        payloadOut.writeLong(mutation.version());
+        payloadOut.writeLong(mutation.completedAt());
+        payloadOut.flush();
+
+        int size = payload.size();
+        out.writeInt(size);
+        out.writeInt((int) crc.getValue());
+        payload.writeTo(out);
+        return HEADER_SIZE + size;
+    }
+
+    /**
+     * Lecture d'un enregistrement
+     * @param in Flux source
+     * @return Modification lue, null en fin de flux ou si l'enregistrement est incomplet ou corrompu
+     */
+    TaskMutation read(DataInputStream in) throws IOException {
+        try {
+            int size = in.readInt();
+            int checksum = in.readInt();
+            if (size <= 0 || size > MAX_RECORD_SIZE) {
+                return null;
+            }
+            if (readBuffer.capacity() < size) {
+                readBuffer = ByteBuffer.allocate(Math.max(size, readBuffer.capacity() * 2));
+            }
+            byte[] bytes = readBuffer.array();
+            in.readFully(bytes, 0, size);
+            crc.reset();
+            crc.update(bytes, 0, size);
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            lastReadSize = HEADER_SIZE + size;
+            // Décodage direct depuis le tampon réutilisé, sans flux intermédiaire
+            ByteBuffer record = readBuffer.clear().limit(size);
+            int type = record.get() & 0xFF;
+            if (type >= TYPES.length) {
+                return null;
+            }
+            long id = record.getLong();
+            boolean completed = record.get() != 0;
+            String label = readString(record);
+            String description = readString(record);
+            long version = record.remaining() >= Long.BYTES ? record.getLong() : 1;
+            long completedAt = record.remaining() >= Long.BYTES ? record.getLong() : 0;
+            return new TaskMutation(TYPES[type], id, label, description, completed, version, completedAt);
+        } catch (EOFException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Nombre d'octets occupés par le dernier enregistrement lu, en-tête compris
+     */
+    int lastReadSize() {
+        return lastReadSize;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            payloadOut.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            payloadOut.writeInt(bytes.length);
+            payloadOut.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+}
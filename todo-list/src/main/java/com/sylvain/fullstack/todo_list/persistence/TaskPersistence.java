@@ -0,0 +1,50 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * Moteur de persistance des tâches.
+ * Le service vérifie que le moteur accepte les modifications avec {@link #ensureWritable()}, applique chaque
+ * modification en mémoire puis la transmet au moteur avec {@link #append(TaskMutation)},
+ * et attend sa durabilité avec {@link #sync(long)} une fois ses verrous relâchés.
+ */
+public interface TaskPersistence extends Closeable {
+
+    /**
+     * Rechargement des tâches persistées, au démarrage
+     * @param replay Reçoit les modifications à rejouer, dans l'ordre
+     * @return Dernier id de tâche attribué avant l'arrêt
+     */
+    long recover(Consumer<TaskMutation> replay);
+
+    /**
+     * Démarrage de l'écriture, une fois le rechargement terminé
+     * @param source État du stockage, pour l'écriture des snapshots
+     */
+    void start(TaskSnapshotSource source);
+
+    /**
+     * Vérification, avant d'appliquer une modification en mémoire, que le journal pourra l'enregistrer :
+     * une modification refusée ensuite par {@link #append(TaskMutation)} serait visible mais perdue au redémarrage
+     * @throws IllegalStateException si le journal est fermé
+     * @throws java.io.UncheckedIOException si une écriture du journal a échoué
+     */
+    void ensureWritable();
+
+    /**
+     * Ajout d'une modification au journal
+     * @param mutation Modification déjà appliquée en mémoire
+     * @return Ticket à fournir à {@link #sync(long)}
+     */
+    long append(TaskMutation mutation);
+
+    /**
+     * Attente de l'écriture sur disque d'une modification
+     * @param ticket Ticket renvoyé par {@link #append(TaskMutation)}
+     */
+    void sync(long ticket);
+
+    @Override
+    void close();
+}
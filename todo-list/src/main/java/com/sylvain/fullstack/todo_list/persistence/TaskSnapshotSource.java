@@ -0,0 +1,21 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.util.Iterator;
+
+/**
+ * Accès à l'état courant du stockage, utilisé pour écrire les snapshots
+ */
+public interface TaskSnapshotSource {
+
+    /**
+     * @return Dernier id de tâche attribué
+     */
+    long lastId();
+
+    /**
+     * @return Parcours de toutes les tâches, sans bloquer les écritures
+     */
+    Iterator<Task> tasks();
+}
@@ -0,0 +1,438 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Persistance des tâches dans un journal d'écriture anticipée (write-ahead log) sur disque local.
+ * <p>
+ * Les modifications sont accumulées en mémoire puis écrites par un unique thread d'écriture :
+ * un seul fsync couvre toutes les modifications arrivées pendant l'écriture précédente (group commit).
+ * Le journal est découpé en segments {@code wal-N.log}. Régulièrement, le segment courant est clos et
+ * un snapshot compacté {@code snapshot-N.dat} est écrit en tâche de fond ; les segments antérieurs deviennent inutiles.
+ * Au démarrage, le dernier snapshot est chargé puis les segments suivants sont rejoués.
+ * <p>
+ * Le snapshot est écrit pendant que les modifications continuent : il peut contenir une partie des modifications
+ * journalisées dans les segments suivants, ce qui est sans conséquence car les rejouer est idempotent.
+ */
+public class WalTaskPersistence implements TaskPersistence {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalTaskPersistence.class);
+
+    private static final String WAL_PREFIX = "wal-";
+    private static final String WAL_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+    /** Signature des fichiers de snapshot : "TDL" + version du format */
+    private static final int SNAPSHOT_MAGIC = 0x54444C01;
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private final Duration flushInterval;
+    private final long snapshotEvery;
+
+    // Modifications en attente d'écriture, protégées par le verrou
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingWrites = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final TaskMutationCodec codec = new TaskMutationCodec();
+    private WriteBuffer pending = new WriteBuffer();
+    private DataOutputStream pendingOut = new DataOutputStream(pending);
+    private long appendedTicket;
+    private long durableTicket;
+    private IOException failure;
+    private boolean closed;
+
+    // État manipulé uniquement par le thread d'écriture, après le démarrage
+    private WriteBuffer spare = new WriteBuffer();
+    private FileChannel segment;
+    private long segmentNumber;
+    private long recordsSinceSnapshot;
+    private volatile Thread snapshotThread;
+    private TaskSnapshotSource source;
+    private Thread writerThread;
+
+    /**
+     * @param directory Répertoire des fichiers de journal et de snapshot
+     * @param syncWrites true pour attendre le fsync avant de répondre, false pour écrire en différé
+     * @param flushInterval Délai maximum entre deux écritures quand syncWrites vaut false
+     * @param snapshotEvery Nombre de modifications journalisées déclenchant un nouveau snapshot
+     */
+    public WalTaskPersistence(Path directory, boolean syncWrites, Duration flushInterval, long snapshotEvery) {
+        this.directory = directory;
+        this.syncWrites = syncWrites;
+        this.flushInterval = flushInterval;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    @Override
+    public long recover(Consumer<TaskMutation> replay) {
+        try {
+            Files.createDirectories(directory);
+            long snapshot = latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            long lastId = 0;
+            if (snapshot > 0) {
+                lastId = readSnapshot(file(SNAPSHOT_PREFIX, snapshot, SNAPSHOT_SUFFIX), replay);
+            }
+            // Rejeu des segments écrits depuis le snapshot
+            Consumer<TaskMutation> counting = mutation -> {
+                recordsSinceSnapshot++;
+                replay.accept(mutation);
+            };
+            for (long number : numbers(WAL_PREFIX, WAL_SUFFIX)) {
+                if (number >= snapshot) {
+                    lastId = Math.max(lastId, replaySegment(file(WAL_PREFIX, number, WAL_SUFFIX), counting));
+                }
+                segmentNumber = Math.max(segmentNumber, number);
+            }
+            segmentNumber = Math.max(segmentNumber, snapshot);
+            return lastId;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Rechargement impossible depuis " + directory, e);
+        }
+    }
+
+    @Override
+    public void start(TaskSnapshotSource source) {
+        this.source = source;
+        try {
+            // Les nouvelles modifications vont dans un nouveau segment, le précédent a pu être tronqué
+            openSegment(segmentNumber + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ouverture du journal impossible dans " + directory, e);
+        }
+        writerThread = Thread.ofPlatform().name("todo-wal-writer").daemon().start(this::writeLoop);
+    }
+
+    @Override
+    public void ensureWritable() {
+        lock.lock();
+        try {
+            checkWritable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long append(TaskMutation mutation) {
+        lock.lock();
+        try {
+            checkWritable();
+            codec.write(mutation, pendingOut);
+            appendedTicket++;
+            if (syncWrites) {
+                pendingWrites.signal();
+            }
+            return appendedTicket;
+        } catch (IOException e) {
+            // Écriture dans un tampon mémoire, ne se produit pas
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sync(long ticket) {
+        if (!syncWrites) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableTicket < ticket && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (durableTicket < ticket) {
+                throw new UncheckedIOException("Écriture du journal impossible", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pendingWrites.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (writerThread != null) {
+                writerThread.join();
+            }
+            Thread snapshot = snapshotThread;
+            if (snapshot != null) {
+                snapshot.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Boucle du thread d'écriture : récupère les modifications en attente, les écrit et fait un seul fsync
+     */
+    private void writeLoop() {
+        while (true) {
+            WriteBuffer batch;
+            long ticket;
+            boolean last;
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    pendingWrites.await(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                // Échange des tampons : les appels à append() continuent pendant l'écriture
+                batch = pending;
+                ticket = appendedTicket;
+                last = closed;
+                pending = spare;
+                pendingOut = new DataOutputStream(pending);
+                spare = batch;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (batch.size() > 0) {
+                    ByteBuffer bytes = batch.toByteBuffer();
+                    while (bytes.hasRemaining()) {
+                        segment.write(bytes);
+                    }
+                    segment.force(false);
+                    recordsSinceSnapshot += ticket - durableTicket;
+                }
+                batch.reset();
+                markDurable(ticket);
+                if (last) {
+                    segment.close();
+                    return;
+                }
+                if (recordsSinceSnapshot >= snapshotEvery && snapshotThread == null) {
+                    startSnapshot();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Écriture du journal impossible dans {}", directory, e);
+                fail(e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Refus des modifications une fois le journal fermé, ou après l'échec d'une écriture. Sous le verrou
+     */
+    private void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Écriture du journal impossible", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Le journal est fermé");
+        }
+    }
+
+    private void markDurable(long ticket) {
+        lock.lock();
+        try {
+            durableTicket = ticket;
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            closed = true;
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clôture du segment courant et écriture d'un snapshot en tâche de fond.
+     * Toutes les modifications des segments clos ont été appliquées en mémoire avant l'ouverture du nouveau segment :
+     * le snapshot, lu ensuite, les contient.
+     */
+    private void startSnapshot() throws IOException {
+        long snapshot = segmentNumber + 1;
+        segment.close();
+        openSegment(snapshot);
+        recordsSinceSnapshot = 0;
+        snapshotThread = Thread.ofPlatform().name("todo-wal-snapshot").daemon().start(() -> {
+            try {
+                writeSnapshot(snapshot);
+                deleteBefore(snapshot);
+            } catch (IOException e) {
+                LOGGER.error("Écriture du snapshot {} impossible dans {}", snapshot, directory, e);
+            } finally {
+                snapshotThread = null;
+            }
+        });
+    }
+
+    private void openSegment(long number) throws IOException {
+        segmentNumber = number;
+        segment = FileChannel.open(file(WAL_PREFIX, number, WAL_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Écriture d'un snapshot dans un fichier temporaire, renommé une fois complet
+     * @param number Numéro du snapshot : premier segment à rejouer après son chargement
+     */
+    private void writeSnapshot(long number) throws IOException {
+        Path target = file(SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        TaskMutationCodec snapshotCodec = new TaskMutationCodec();
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_SIZE));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(source.lastId());
+            for (Iterator<Task> tasks = source.tasks(); tasks.hasNext(); count++) {
+                snapshotCodec.write(TaskMutation.add(tasks.next()), out);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info("Snapshot {} écrit : {} tâches", number, count);
+    }
+
+    /**
+     * Suppression des segments et snapshots rendus inutiles par un nouveau snapshot
+     * @param number Numéro du nouveau snapshot
+     */
+    private void deleteBefore(long number) throws IOException {
+        for (long old : numbers(WAL_PREFIX, WAL_SUFFIX)) {
+            if (old < number) {
+                Files.deleteIfExists(file(WAL_PREFIX, old, WAL_SUFFIX));
+            }
+        }
+        for (long old : numbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (old < number) {
+                Files.deleteIfExists(file(SNAPSHOT_PREFIX, old, SNAPSHOT_SUFFIX));
+            }
+        }
+    }
+
+    /**
+     * Chargement d'un snapshot
+     * @return Dernier id attribué au moment du snapshot
+     */
+    private long readSnapshot(Path file, Consumer<TaskMutation> replay) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_SIZE))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Format de snapshot inconnu : " + file);
+            }
+            long lastId = in.readLong();
+            TaskMutationCodec snapshotCodec = new TaskMutationCodec();
+            for (TaskMutation mutation = snapshotCodec.read(in); mutation != null; mutation = snapshotCodec.read(in)) {
+                replay.accept(mutation);
+            }
+            return lastId;
+        }
+    }
+
+    /**
+     * Rejeu d'un segment du journal. Un enregistrement incomplet ou corrompu marque la fin du segment :
+     * c'est la dernière écriture avant un arrêt brutal, elle n'a jamais été confirmée.
+     * @return Plus grand id de tâche ajouté dans le segment
+     */
+    private long replaySegment(Path file, Consumer<TaskMutation> replay) throws IOException {
+        long lastId = 0;
+        long validBytes = 0;
+        TaskMutationCodec segmentCodec = new TaskMutationCodec();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_SIZE))) {
+            for (TaskMutation mutation = segmentCodec.read(in); mutation != null; mutation = segmentCodec.read(in)) {
+                replay.accept(mutation);
+                if (mutation.type() == TaskMutation.Type.ADD) {
+                    lastId = Math.max(lastId, mutation.id());
+                }
+                validBytes += segmentCodec.lastReadSize();
+            }
+        }
+        if (validBytes < Files.size(file)) {
+            LOGGER.warn("Fin du segment {} incomplète, tronquée à {} octets", file, validBytes);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+            }
+        }
+        return lastId;
+    }
+
+    private Path file(String prefix, long number, String suffix) {
+        return directory.resolve(prefix + number + suffix);
+    }
+
+    private long latest(String prefix, String suffix) throws IOException {
+        List<Long> numbers = numbers(prefix, suffix);
+        return numbers.isEmpty() ? 0 : numbers.get(numbers.size() - 1);
+    }
+
+    /**
+     * @return Numéros des fichiers du répertoire ayant ce préfixe et ce suffixe, triés
+     */
+    private List<Long> numbers(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> name.substring(prefix.length(), name.length() - suffix.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Tampon d'écriture donnant accès à son contenu sans copie
+     */
+    private static final class WriteBuffer extends ByteArrayOutputStream {
+
+        WriteBuffer() {
+            super(64 * 1024);
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
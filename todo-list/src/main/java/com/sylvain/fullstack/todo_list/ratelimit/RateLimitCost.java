@@ -0,0 +1,22 @@
+package com.sylvain.fullstack.todo_list.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Nombre de jetons consommés par un appel à un endpoint, 1 pour un endpoint sans cette annotation.
+ * Un endpoint dont le coût croît avec le nombre de tâches (liste complète, export) coûte plus cher.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimitCost {
+
+    /**
+     * @return Nombre de jetons d'un appel
+     */
+    int value();
+}
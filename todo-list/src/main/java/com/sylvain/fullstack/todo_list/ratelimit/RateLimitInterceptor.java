@@ -0,0 +1,89 @@
+package com.sylvain.fullstack.todo_list.ratelimit;
+
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission des requêtes de l'API : chaque client, identifié par sa clé d'API si elle fait partie des clés
+ * reconnues, à défaut par son adresse IP, dispose d'un seau de jetons ({@link TokenBucketRateLimiter}).
+ * Une clé inconnue est ignorée : changer de clé à chaque requête ne donne pas un nouveau seau.
+ * Un appel consomme le coût de l'endpoint ({@link RateLimitCost}) ; sans jetons suffisants, la réponse est
+ * 429 Too Many Requests, avec le délai avant de réessayer dans l'en-tête Retry-After.
+ * <p>
+ * Les requêtes entre nœuds d'un cluster, authentifiées par le secret du cluster dans l'en-tête
+ * {@value ClusterRouter#LOCAL_HEADER}, ne sont pas limitées : la requête du client a déjà été comptée
+ * par le nœud qui l'a reçue.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String REJECTED = "todo.rate-limit.rejected";
+
+    private final TokenBucketRateLimiter limiter;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final ClusterRouter router;
+    private final Counter rejected;
+    // Coût de chaque méthode de contrôleur, lu une fois dans son annotation
+    private final ConcurrentHashMap<Method, Integer> costs = new ConcurrentHashMap<>();
+
+    /**
+     * @param limiter Seaux de jetons des clients
+     * @param apiKeyHeader En-tête de la clé d'API, qui identifie le client à la place de son adresse IP
+     * @param apiKeys Clés d'API reconnues
+     * @param router Routeur du cluster, qui reconnaît les requêtes des autres nœuds
+     * @param registry Registre des métriques
+     */
+    public RateLimitInterceptor(TokenBucketRateLimiter limiter, String apiKeyHeader, Set<String> apiKeys,
+                                ClusterRouter router, MeterRegistry registry) {
+        this.limiter = limiter;
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = Set.copyOf(apiKeys);
+        this.router = router;
+        this.rejected = Counter.builder(REJECTED)
+                .description("Nombre de requêtes refusées par la limitation de débit")
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || router.isPeerRequest(request.getHeader(ClusterRouter.LOCAL_HEADER))) {
+            return true;
+        }
+        long wait = limiter.tryAcquire(client(request), cost(method.getMethod()));
+        if (wait == 0) {
+            return true;
+        }
+        rejected.increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999))));
+        return false;
+    }
+
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        // Préfixes distincts : une clé d'API ne peut pas prendre le seau d'une adresse IP
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private int cost(Method method) {
+        Integer cost = costs.get(method);
+        if (cost == null) {
+            RateLimitCost annotation = method.getAnnotation(RateLimitCost.class);
+            cost = annotation == null ? 1 : annotation.value();
+            costs.put(method, cost);
+        }
+        return cost;
+    }
+}
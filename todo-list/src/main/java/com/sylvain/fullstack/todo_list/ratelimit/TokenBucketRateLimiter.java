@@ -0,0 +1,108 @@
+package com.sylvain.fullstack.todo_list.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitation du débit par client, par seau à jetons.
+ * <p>
+ * Chaque client a un seau de {@code capacity} jetons, rempli de {@code tokensPerSecond} jetons par seconde ;
+ * une requête consomme son coût en jetons, ou est refusée si le seau n'en contient pas assez.
+ * Le seau d'un client tient dans un seul AtomicLong : l'instant auquel il serait de nouveau plein (algorithme GCRA,
+ * équivalent au seau à jetons). Une requête fait une lecture et un compareAndSet, sans verrou ; deux clients ne se
+ * gênent pas, et les seaux sont répartis dans une ConcurrentHashMap dont les lectures ne verrouillent pas.
+ * <p>
+ * Un seau plein n'a pas besoin d'être gardé : quand le nombre de clients atteint {@code maxClients}, les seaux pleins
+ * sont retirés. S'il reste trop de clients actifs, les nouveaux partagent un même seau.
+ */
+public class TokenBucketRateLimiter {
+
+    /** Délai minimum entre deux nettoyages des seaux pleins */
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    // Durée de remplissage d'un jeton et du seau entier
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final int maxClients;
+    private final LongSupplier clock;
+    // Instant auquel le seau de chaque client sera plein ; un instant passé signifie un seau plein
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // Seau partagé par les nouveaux clients quand la table est pleine de clients actifs
+    private final AtomicLong overflow = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong lastSweep = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param tokensPerSecond Débit autorisé par client, en jetons par seconde
+     * @param capacity Nombre de jetons d'un seau plein : coût maximum d'une rafale
+     * @param maxClients Nombre maximum de seaux gardés en mémoire
+     */
+    public TokenBucketRateLimiter(double tokensPerSecond, int capacity, int maxClients) {
+        this(tokensPerSecond, capacity, maxClients, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double tokensPerSecond, int capacity, int maxClients, LongSupplier clock) {
+        if (tokensPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Débit et capacité doivent être positifs");
+        }
+        this.nanosPerToken = Math.max(1, Math.round(1e9 / tokensPerSecond));
+        this.capacityNanos = nanosPerToken * capacity;
+        this.maxClients = maxClients;
+        this.clock = clock;
+    }
+
+    /**
+     * Consommation des jetons d'une requête
+     * @param client Clé du client (adresse IP ou clé d'API)
+     * @param cost Nombre de jetons de la requête ; un coût supérieur à la capacité demande un seau plein
+     * @return 0 si la requête est acceptée, sinon le délai en nanosecondes avant qu'elle puisse l'être
+     */
+    public long tryAcquire(String client, int cost) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = newBucket(client, now);
+        }
+        long increment = Math.min((long) cost * nanosPerToken, capacityNanos);
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + increment;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return Nombre de seaux gardés en mémoire
+     */
+    public int clientCount() {
+        return buckets.size();
+    }
+
+    private AtomicLong newBucket(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            sweep(now);
+            if (buckets.size() >= maxClients) {
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    /**
+     * Retrait des seaux pleins, au plus une fois par seconde : un client qui revient repart d'un seau plein
+     * @param now Instant courant
+     */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (last != Long.MIN_VALUE && now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+}
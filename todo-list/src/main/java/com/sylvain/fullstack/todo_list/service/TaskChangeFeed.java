@@ -0,0 +1,147 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Journal en mémoire des dernières modifications, dans un tampon circulaire de taille fixe.
+ * <p>
+ * Le numéro de chaque modification est la version du stockage. Une modification est rangée dans la case
+ * {@code numéro % capacité} : les écritures ne prennent aucun verrou, et une lecture détecte qu'une case a été
+ * réécrite par une modification plus récente, auquel cas le client doit relire la liste complète.
+ * <p>
+ * Les numéros repartent de 0 à chaque démarrage : l'epoch, tiré au hasard, identifie l'instance qui les a attribués.
+ */
+public class TaskChangeFeed {
+
+    /** Nombre de modifications conservées par défaut */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final AtomicReferenceArray<TaskChange> ring;
+    private final AtomicLong sequence = new AtomicLong();
+    private final long epoch = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+    // Notifiés après chaque modification, ils ne doivent pas bloquer
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    public TaskChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Nombre de modifications conservées
+     */
+    public TaskChangeFeed(int capacity) {
+        ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Enregistrement d'une modification, déjà appliquée au stockage
+     * @param type Type de modification
+     * @param id id de la tâche modifiée
+     * @param task Copie de la tâche après modification, null pour une suppression
+     * @return Numéro attribué à la modification
+     */
+    public long publish(TaskChange.Type type, Long id, Task task) {
+        long number = sequence.incrementAndGet();
+        ring.set(slot(number), new TaskChange(number, type, id, task));
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+        return number;
+    }
+
+    /**
+     * @return Numéro de la dernière modification, c'est-à-dire la version du stockage
+     */
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * @return Identifiant de cette instance du journal, à combiner avec les numéros qui repartent de 0 à chaque démarrage
+     */
+    public long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Identifiant d'événement Server-Sent Events d'un numéro de modification, renvoyé par le navigateur
+     * dans Last-Event-ID à la reconnexion, éventuellement vers une autre instance
+     * @param number Numéro de la modification
+     * @return {@code <epoch>-<numéro>}
+     */
+    public String eventId(long number) {
+        return epoch + "-" + number;
+    }
+
+    /**
+     * Numéro de modification d'un identifiant d'événement reçu dans Last-Event-ID
+     * @param eventId Identifiant construit par {@link #eventId(long)}
+     * @param epoch Identifiant de l'instance courante
+     * @return Numéro de la modification, -1 si l'identifiant vient d'une autre instance ou n'est pas reconnu :
+     * le flux commence alors par un événement resync
+     */
+    public static long sequenceOf(String eventId, long epoch) {
+        int separator = eventId.indexOf('-');
+        try {
+            if (separator > 0 && Long.parseLong(eventId.substring(0, separator)) == epoch) {
+                return Long.parseLong(eventId.substring(separator + 1));
+            }
+        } catch (NumberFormatException e) {
+            // Identifiant forgé ou d'un autre format : relecture complète
+        }
+        return -1;
+    }
+
+    /**
+     * Lecture des modifications postérieures à un numéro.
+     * Une modification dont le numéro est attribué mais qui n'est pas encore rangée arrête la lecture :
+     * elle sera renvoyée à l'appel suivant, avec celles qui la suivent.
+     * @param since Numéro de la dernière modification connue du client
+     * @param limit Nombre maximum de modifications renvoyées
+     * @return Modifications dans l'ordre, null si certaines ne sont plus disponibles
+     */
+    public List<TaskChange> readSince(long since, int limit) {
+        long current = sequence.get();
+        if (since > current || since < 0 || current - since > ring.length()) {
+            return null;
+        }
+        if (since == current) {
+            return Collections.emptyList();
+        }
+        List<TaskChange> changes = new ArrayList<>((int) Math.min(current - since, limit));
+        for (long number = since + 1; number <= current && changes.size() < limit; number++) {
+            TaskChange change = ring.get(slot(number));
+            if (change == null || change.getSequence() < number) {
+                // Pas encore rangée par son auteur
+                break;
+            }
+            if (change.getSequence() > number) {
+                // Déjà remplacée par une modification plus récente
+                return null;
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    /**
+     * Abonnement aux nouvelles modifications
+     * @param listener Appelé par le thread auteur de chaque modification, ne doit pas bloquer
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private int slot(long number) {
+        return (int) (number % ring.length());
+    }
+}
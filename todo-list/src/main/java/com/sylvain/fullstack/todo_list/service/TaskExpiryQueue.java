@@ -0,0 +1,131 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * File de priorité des tâches terminées par date de fin, la plus ancienne en tête, pour la rétention.
+ * <p>
+ * Tas binaire rangé dans deux tableaux de types primitifs (date de fin, id) : 16 octets par tâche terminée,
+ * sans objet par entrée. Un ajout et un retrait coûtent O(log n), la lecture de la tête O(1) : la rétention
+ * ne parcourt jamais les tâches pour trouver celles à retirer.
+ * <p>
+ * Une entrée n'est pas retirée quand sa tâche est remise à effectuer, terminée de nouveau ou supprimée : le service
+ * l'écarte quand elle arrive en tête, la tâche n'existant plus ou n'ayant plus cette date de fin.
+ * Un verrou protège le tas ; il n'est pris que le temps d'un ajout ou d'un retrait.
+ */
+public class TaskExpiryQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] times = new long[64];
+    private long[] ids = new long[64];
+    private int size;
+
+    /**
+     * Ajout d'une tâche terminée
+     * @param completedAt Date de fin de la tâche, en millisecondes
+     * @param id id de la tâche
+     */
+    public void add(long completedAt, long id) {
+        lock.lock();
+        try {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            // Remontée de la nouvelle entrée tant qu'elle est plus ancienne que son parent
+            int position = size++;
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (times[parent] <= completedAt) {
+                    break;
+                }
+                times[position] = times[parent];
+                ids[position] = ids[parent];
+                position = parent;
+            }
+            times[position] = completedAt;
+            ids[position] = id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrait des tâches les plus anciennes, terminées au plus tard à une date
+     * @param until Date limite, en millisecondes, incluse
+     * @param completedAt Reçoit les dates de fin des tâches retirées ; sa taille est le nombre maximum de tâches retirées
+     * @param taskIds Reçoit les ids des tâches retirées, de même taille
+     * @return Nombre de tâches retirées, de la plus ancienne à la plus récente
+     */
+    public int poll(long until, long[] completedAt, long[] taskIds) {
+        lock.lock();
+        try {
+            int count = 0;
+            while (count < completedAt.length && size > 0 && times[0] <= until) {
+                completedAt[count] = times[0];
+                taskIds[count++] = ids[0];
+                removeHead();
+            }
+            if (size == 0 && times.length > 64) {
+                // Tableaux rendus après un grand nombre de retraits
+                times = new long[64];
+                ids = new long[64];
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Date de fin la plus ancienne, null si la file est vide
+     */
+    public Long peek() {
+        lock.lock();
+        try {
+            return size == 0 ? null : times[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Nombre d'entrées, périmées comprises
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrait de la tête : la dernière entrée prend sa place et descend tant qu'un de ses enfants est plus ancien
+     */
+    private void removeHead() {
+        size--;
+        long time = times[size];
+        long id = ids[size];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && times[child + 1] < times[child]) {
+                child++;
+            }
+            if (time <= times[child]) {
+                break;
+            }
+            times[position] = times[child];
+            ids[position] = ids[child];
+            position = child;
+        }
+        times[position] = time;
+        ids[position] = id;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.store.TaskStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques des opérations du service, exposées par Micrometer.
+ * <ul>
+ *     <li>{@value #OPERATIONS} : durée de chaque opération, par opération (add, all, todo, update, delete)
+ *     et résultat (success, not_found, conflict). Le nombre d'appels est le compteur du timer</li>
+ *     <li>{@value #LISTED} : nombre de tâches renvoyées par les lectures de listes complètes</li>
+ *     <li>{@value #STORED} et {@value #OPEN} : nombre de tâches et de tâches à effectuer, lus dans le stockage
+ *     à chaque collecte</li>
+ *     <li>{@value #VERSIONS} : nombre d'états remplacés gardés pour les lectures de listes en cours</li>
+ * </ul>
+ * Les timers et compteurs sont enregistrés une fois pour toutes à la création : une opération n'en cherche
+ * aucun dans le registre, elle ne fait que lire l'horloge deux fois et incrémenter des compteurs sans verrou.
+ */
+public class TaskMetrics {
+
+    public static final String OPERATIONS = "todo.tasks.operations";
+    public static final String LISTED = "todo.tasks.listed";
+    public static final String STORED = "todo.tasks.stored";
+    public static final String OPEN = "todo.tasks.open";
+    public static final String VERSIONS = "todo.tasks.versions";
+
+    final Timer add;
+    final Timer all;
+    final Timer todo;
+    final Timer updated;
+    final Timer updateNotFound;
+    final Timer updateConflict;
+    final Timer deleted;
+    final Timer deleteNotFound;
+    final Counter listedAll;
+    final Counter listedTodo;
+
+    /**
+     * Enregistrement des métriques d'un service
+     * @param registry Registre Micrometer ; un registre composite sans registre fils ne mesure rien
+     * @param store Stockage dont la taille est publiée
+     * @param versions États remplacés dont le nombre est publié
+     */
+    public TaskMetrics(MeterRegistry registry, TaskStore store, TaskVersions versions) {
+        add = timer(registry, "add", "success");
+        all = timer(registry, "all", "success");
+        todo = timer(registry, "todo", "success");
+        updated = timer(registry, "update", "success");
+        updateNotFound = timer(registry, "update", "not_found");
+        updateConflict = timer(registry, "update", "conflict");
+        deleted = timer(registry, "delete", "success");
+        deleteNotFound = timer(registry, "delete", "not_found");
+        listedAll = counter(registry, "all");
+        listedTodo = counter(registry, "todo");
+        Gauge.builder(STORED, store, TaskStore::size)
+                .description("Nombre de tâches en mémoire")
+                .register(registry);
+        Gauge.builder(OPEN, store, TaskStore::todoCount)
+                .description("Nombre de tâches à effectuer")
+                .register(registry);
+        Gauge.builder(VERSIONS, versions, TaskVersions::retainedCount)
+                .description("Nombre d'états de tâches gardés pour les lectures en cours")
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation, String outcome) {
+        return Timer.builder(OPERATIONS)
+                .description("Durée des opérations sur les tâches")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter counter(MeterRegistry registry, String operation) {
+        return Counter.builder(LISTED)
+                .description("Nombre de tâches renvoyées par les lectures de listes")
+                .baseUnit("tasks")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * Enregistrement de la durée d'une opération
+     * @param timer Timer de l'opération et de son résultat
+     * @param start Début de l'opération, lu avec {@link System#nanoTime()}
+     */
+    static void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,127 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Filtres et tri d'une lecture de tâches par pages.
+ * Le libellé est comparé sans tenir compte des accents ni des majuscules : le début de libellé est gardé sous cette
+ * forme, et deux libellés égaux sous cette forme sont départagés par l'id.
+ * @param completed Statut des tâches lues, null pour toutes
+ * @param minId Plus petit id lu, null pour ne pas borner
+ * @param maxId Plus grand id lu, null pour ne pas borner
+ * @param labelPrefix Début du libellé des tâches lues, sans accents ni majuscules, null pour toutes
+ * @param sort Ordre des tâches
+ * @param descending true pour l'ordre décroissant
+ */
+public record TaskQuery(Boolean completed, Long minId, Long maxId, String labelPrefix, Sort sort, boolean descending) {
+
+    /** Clés de tri des tâches */
+    public enum Sort { ID, LABEL }
+
+    /** Toutes les tâches, triées par id croissant */
+    public static final TaskQuery ALL = new TaskQuery(null, null, null, null, Sort.ID, false);
+
+    private static final Comparator<Task> BY_ID = Comparator.comparing(Task::getId);
+    private static final Comparator<Task> BY_LABEL = Comparator.comparing((Task task) -> label(task)).thenComparing(BY_ID);
+
+    public TaskQuery {
+        labelPrefix = labelPrefix == null || labelPrefix.isEmpty() ? null : TaskSearchIndex.fold(labelPrefix);
+        sort = sort == null ? Sort.ID : sort;
+    }
+
+    /**
+     * Lecture des paramètres d'une requête
+     * @param completed Statut des tâches lues, null pour toutes
+     * @param minId Plus petit id lu, null pour ne pas borner
+     * @param maxId Plus grand id lu, null pour ne pas borner
+     * @param labelPrefix Début du libellé, null pour tous
+     * @param sort Clé de tri ({@code id} ou {@code label}), suivie de {@code ,asc} ou {@code ,desc}, null pour l'id croissant
+     * @return Filtres et tri
+     * @throws IllegalArgumentException si le tri n'est pas reconnu
+     */
+    public static TaskQuery of(Boolean completed, Long minId, Long maxId, String labelPrefix, String sort) {
+        if (sort == null || sort.isBlank()) {
+            return new TaskQuery(completed, minId, maxId, labelPrefix, Sort.ID, false);
+        }
+        String[] parts = sort.split(",", -1);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Tri invalide : " + sort);
+        }
+        Sort key = switch (parts[0].trim().toLowerCase(Locale.ROOT)) {
+            case "id" -> Sort.ID;
+            case "label" -> Sort.LABEL;
+            default -> throw new IllegalArgumentException("Clé de tri invalide : " + parts[0]);
+        };
+        String direction = parts.length == 2 ? parts[1].trim().toLowerCase(Locale.ROOT) : "asc";
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new IllegalArgumentException("Sens de tri invalide : " + parts[1]);
+        }
+        return new TaskQuery(completed, minId, maxId, labelPrefix, key, direction.equals("desc"));
+    }
+
+    /**
+     * @return true si la lecture est celle de toutes les tâches, ou des tâches à effectuer, par id croissant :
+     * le stockage la sert directement, sans passer par les index de tri
+     */
+    public boolean isPlain() {
+        return !Boolean.TRUE.equals(completed) && minId == null && maxId == null && labelPrefix == null
+                && sort == Sort.ID && !descending;
+    }
+
+    /**
+     * @param task Tâche lue
+     * @return true si la tâche passe tous les filtres
+     */
+    public boolean matches(Task task) {
+        return (completed == null || completed == task.isCompleted())
+                && (minId == null || task.getId() >= minId)
+                && (maxId == null || task.getId() <= maxId)
+                && (labelPrefix == null || label(task).startsWith(labelPrefix));
+    }
+
+    /**
+     * @return Ordre des tâches de la lecture
+     */
+    public Comparator<Task> comparator() {
+        Comparator<Task> comparator = sort == Sort.LABEL ? BY_LABEL : BY_ID;
+        return descending ? comparator.reversed() : comparator;
+    }
+
+    /**
+     * Paramètres de la requête qui redonnent ces filtres et ce tri, pour les transmettre aux autres nœuds
+     * et identifier la réponse dans le cache
+     * @return Paramètres, non encodés, dans un ordre fixe ; aucun pour {@link #ALL}
+     */
+    public Map<String, String> toQueryParams() {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (completed != null) {
+            params.put("completed", completed.toString());
+        }
+        if (minId != null) {
+            params.put("minId", minId.toString());
+        }
+        if (maxId != null) {
+            params.put("maxId", maxId.toString());
+        }
+        if (labelPrefix != null) {
+            params.put("label", labelPrefix);
+        }
+        if (sort != Sort.ID || descending) {
+            params.put("sort", sort.name().toLowerCase(Locale.ROOT) + (descending ? ",desc" : ",asc"));
+        }
+        return params;
+    }
+
+    /**
+     * @param task Tâche
+     * @return Libellé de la tâche sans accents ni majuscules, vide s'il est null
+     */
+    static String label(Task task) {
+        return task.getLabel() == null ? "" : TaskSearchIndex.fold(task.getLabel());
+    }
+}
@@ -0,0 +1,122 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.persistence.TaskArchive;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rétention des tâches terminées : les tâches terminées depuis plus longtemps que la durée de rétention sont
+ * archivées puis supprimées, ou seulement supprimées sans archive.
+ * <p>
+ * Un thread de fond retire une tranche de tâches à intervalle régulier, avec
+ * {@link TodoListService#expireTasks(long, int, java.util.function.Consumer)} : les tâches sont prises par date de fin
+ * dans la file de priorité du service, sans parcourir le stockage, et chacune n'est verrouillée que le temps de
+ * sa suppression. Une tranche est bornée en nombre de tâches : un grand nombre de tâches expirées d'un coup
+ * (première activation, reprise après un arrêt) est retiré en plusieurs tranches, sans retarder les requêtes.
+ * Une tranche dont l'archivage échoue est gardée et réessayée à la tranche suivante.
+ * <p>
+ * Métriques : {@value #EXPIRED} (tâches retirées, par action), {@value #SLICE} (durée des tranches)
+ * et {@value #TRACKED} (tâches terminées suivies).
+ */
+public class TaskRetentionSweeper implements AutoCloseable {
+
+    public static final String EXPIRED = "todo.retention.expired";
+    public static final String SLICE = "todo.retention.slice";
+    public static final String TRACKED = "todo.retention.tracked";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskRetentionSweeper.class);
+
+    private final TodoListService service;
+    private final Duration retention;
+    private final TaskArchive archive;
+    private final int sliceSize;
+    private final Clock clock;
+    private final Counter expired;
+    private final Timer slices;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final Thread sweeper;
+
+    /**
+     * Activation du suivi des tâches terminées et démarrage du thread de fond
+     * @param service Service dont les tâches sont retirées
+     * @param retention Durée pendant laquelle une tâche terminée est gardée
+     * @param archive Archive des tâches retirées, null pour les supprimer sans les archiver
+     * @param sliceSize Nombre maximum de tâches retirées par tranche
+     * @param interval Délai entre deux tranches
+     * @param clock Horloge, comparée aux dates de fin des tâches
+     * @param registry Registre des métriques
+     */
+    public TaskRetentionSweeper(TodoListService service, Duration retention, TaskArchive archive, int sliceSize,
+                                Duration interval, Clock clock, MeterRegistry registry) {
+        this.service = service;
+        this.retention = retention;
+        this.archive = archive;
+        this.sliceSize = Math.max(1, sliceSize);
+        this.clock = clock;
+        this.expired = Counter.builder(EXPIRED)
+                .description("Nombre de tâches terminées retirées par la rétention")
+                .baseUnit("tasks")
+                .tag("action", archive != null ? "archive" : "delete")
+                .register(registry);
+        this.slices = Timer.builder(SLICE)
+                .description("Durée des tranches de la rétention")
+                .register(registry);
+        Gauge.builder(TRACKED, service, TodoListService::getTrackedCompletedCount)
+                .description("Nombre de tâches terminées suivies par la rétention")
+                .register(registry);
+        service.trackCompletedTasks();
+        this.sweeper = Thread.ofPlatform().name("todo-retention-sweeper").daemon().start(() -> sweepLoop(interval));
+    }
+
+    /**
+     * Retrait d'une tranche de tâches expirées
+     * @return Nombre de tâches retirées
+     */
+    public int sweep() {
+        long start = System.nanoTime();
+        List<Task> removed = service.expireTasks(clock.millis() - retention.toMillis(), sliceSize,
+                archive != null ? archive::append : null);
+        slices.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        expired.increment(removed.size());
+        return removed.size();
+    }
+
+    private void sweepLoop(Duration interval) {
+        try {
+            // Pas d'interruption du thread : elle fermerait le segment de l'archive en cours d'écriture
+            while (!stopped.await(interval.toNanos(), TimeUnit.NANOSECONDS)) {
+                try {
+                    sweep();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Tranche de la rétention impossible, réessayée dans {}", interval, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Arrêt du thread de fond, après la tranche en cours
+     */
+    @Override
+    public void close() {
+        stopped.countDown();
+        try {
+            sweeper.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
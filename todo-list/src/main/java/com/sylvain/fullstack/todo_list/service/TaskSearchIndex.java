@@ -0,0 +1,434 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé des mots des libellés et descriptions, pour la recherche plein texte.
+ * <p>
+ * Les textes sont découpés en mots de 2 caractères ou plus, en minuscules et sans accents ("Tâche" et "tache" sont
+ * le même mot). Pour chaque mot, l'index garde les ids des tâches qui le contiennent, triés, avec le champ
+ * où il apparaît. Une recherche renvoie les tâches contenant tous les mots de la requête, chacun pouvant être
+ * le début d'un mot indexé ("boul" trouve "boulangerie").
+ * <p>
+ * Classement : chaque mot de la requête rapporte idf = ln(1 + nombre de tâches / nombre de tâches contenant le mot),
+ * doublé s'il est dans le libellé et divisé par deux s'il n'est que le début du mot trouvé. À score égal,
+ * les tâches les plus récentes sont en premier. Pour borner le temps de réponse, seules les
+ * {@value #MAX_CANDIDATES} tâches les plus récentes contenant le mot le plus rare de la requête sont classées,
+ * et un début de mot n'est complété que par ses {@value #MAX_EXPANSIONS} premiers mots indexés dans l'ordre alphabétique.
+ */
+public class TaskSearchIndex {
+
+    /** Nombre maximum de tâches classées par recherche */
+    static final int MAX_CANDIDATES = 10_000;
+    /** Nombre maximum de mots indexés essayés pour compléter un début de mot */
+    static final int MAX_EXPANSIONS = 32;
+    /** Nombre maximum de mots pris en compte dans une requête */
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final byte LABEL = 1;
+    private static final byte DESCRIPTION = 2;
+    private static final double LABEL_WEIGHT = 2;
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    // Les recherches se font en parallèle, les modifications de l'index l'une après l'autre
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Mots triés, pour trouver les mots commençant par un préfixe
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private long taskCount;
+
+    /**
+     * Ajout des mots d'une tâche
+     * @param task Tâche, avec son id
+     */
+    public void add(Task task) {
+        Map<String, Byte> fields = fields(task);
+        lock.writeLock().lock();
+        try {
+            fields.forEach((term, field) -> terms.computeIfAbsent(term, key -> new Postings()).add(task.getId(), field));
+            taskCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrait des mots d'une tâche
+     * @param task Tâche, dans l'état où elle a été ajoutée
+     */
+    public void remove(Task task) {
+        Map<String, Byte> fields = fields(task);
+        lock.writeLock().lock();
+        try {
+            boolean found = false;
+            for (String term : fields.keySet()) {
+                Postings postings = terms.get(term);
+                if (postings != null && postings.remove(task.getId())) {
+                    found = true;
+                    if (postings.live() == 0) {
+                        terms.remove(term);
+                    }
+                }
+            }
+            if (found) {
+                taskCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche des tâches contenant tous les mots d'une requête
+     * @param query Texte saisi
+     * @param offset Nombre de résultats à ignorer, pour la pagination
+     * @param limit Nombre maximum de résultats
+     * @return ids des tâches trouvées, des plus pertinentes aux moins pertinentes
+     */
+    public long[] search(String query, int offset, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || limit <= 0 || offset < 0 || offset >= MAX_CANDIDATES) {
+            return new long[0];
+        }
+        queryTerms = queryTerms.subList(0, Math.min(queryTerms.size(), MAX_QUERY_TERMS));
+        int wanted = Math.min(offset + limit, MAX_CANDIDATES);
+        lock.readLock().lock();
+        try {
+            // Mots indexés correspondant à chaque mot de la requête
+            List<Expansion[]> expansions = new ArrayList<>(queryTerms.size());
+            int rarest = 0;
+            long rarestCount = Long.MAX_VALUE;
+            for (String queryTerm : queryTerms) {
+                Expansion[] expansion = expand(queryTerm);
+                if (expansion.length == 0) {
+                    return new long[0];
+                }
+                long count = Arrays.stream(expansion).mapToLong(e -> e.postings.live()).sum();
+                if (count < rarestCount) {
+                    rarest = expansions.size();
+                    rarestCount = count;
+                }
+                expansions.add(expansion);
+            }
+
+            // Candidats : tâches contenant le mot le plus rare, avec le poids de ce mot
+            Candidates candidates = candidates(expansions.get(rarest));
+            // Score : somme des poids de chaque mot, la tâche est écartée s'il lui en manque un
+            for (int i = 0; i < expansions.size(); i++) {
+                if (i != rarest) {
+                    candidates.addWeights(expansions.get(i));
+                }
+            }
+            return candidates.top(offset, wanted);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Mots indexés égaux au mot de la requête ou commençant par lui, avec leur poids
+     */
+    private Expansion[] expand(String queryTerm) {
+        List<Expansion> expansion = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : terms.tailMap(queryTerm, true).entrySet()) {
+            String term = entry.getKey();
+            if (!term.startsWith(queryTerm) || expansion.size() == MAX_EXPANSIONS) {
+                break;
+            }
+            Postings postings = entry.getValue();
+            double idf = Math.log(1 + (double) taskCount / Math.max(1, postings.live()));
+            expansion.add(new Expansion(postings, term.length() == queryTerm.length() ? idf : idf * PREFIX_WEIGHT));
+        }
+        return expansion.toArray(new Expansion[0]);
+    }
+
+    private static Candidates candidates(Expansion[] expansion) {
+        // Les MAX_CANDIDATES ids les plus grands de chaque mot, fusionnés
+        long[] ids = new long[0];
+        double[] weights = new double[0];
+        for (Expansion term : expansion) {
+            Postings postings = term.postings;
+            int count = Math.min(postings.size, MAX_CANDIDATES);
+            long[] mergedIds = new long[ids.length + count];
+            double[] mergedWeights = new double[ids.length + count];
+            int merged = 0;
+            int i = 0;
+            int j = postings.size - count;
+            while (i < ids.length || j < postings.size) {
+                if (j < postings.size && postings.fields[j] == 0) {
+                    j++;
+                } else if (j == postings.size || (i < ids.length && ids[i] < postings.ids[j])) {
+                    mergedIds[merged] = ids[i];
+                    mergedWeights[merged++] = weights[i++];
+                } else {
+                    double weight = term.weight(postings.fields[j]);
+                    if (i < ids.length && ids[i] == postings.ids[j]) {
+                        weight = Math.max(weight, weights[i++]);
+                    }
+                    mergedIds[merged] = postings.ids[j++];
+                    mergedWeights[merged++] = weight;
+                }
+            }
+            int from = Math.max(0, merged - MAX_CANDIDATES);
+            ids = Arrays.copyOfRange(mergedIds, from, merged);
+            weights = Arrays.copyOfRange(mergedWeights, from, merged);
+        }
+        return new Candidates(ids, weights);
+    }
+
+    /**
+     * Découpage d'un texte en mots sans accents, en minuscules
+     * @param text Texte à découper, éventuellement null
+     * @return Mots de 2 caractères ou plus, dans l'ordre du texte
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            if (i < folded.length() && Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                // Les mots d'un caractère sont surtout des élisions (l', d') : ils ne sont pas indexés
+                if (i - start > 1) {
+                    tokens.add(folded.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Suppression des accents et passage en minuscules : "Élève" devient "eleve", "cœur" devient "coeur"
+     */
+    static String fold(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            switch (c) {
+                case 'œ' -> folded.append("oe");
+                case 'Œ' -> folded.append("OE");
+                case 'æ' -> folded.append("ae");
+                case 'Æ' -> folded.append("AE");
+                default -> {
+                    if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                        folded.append(c);
+                    }
+                }
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, Byte> fields(Task task) {
+        Map<String, Byte> fields = new HashMap<>();
+        for (String term : tokenize(task.getLabel())) {
+            fields.put(term, LABEL);
+        }
+        for (String term : tokenize(task.getDescription())) {
+            fields.merge(term, DESCRIPTION, (a, b) -> (byte) (a | b));
+        }
+        return fields;
+    }
+
+    /**
+     * Mot indexé correspondant à un mot de la requête
+     * @param postings Tâches contenant le mot
+     * @param weight Poids du mot dans la description, doublé dans le libellé
+     */
+    private record Expansion(Postings postings, double weight) {
+        double weight(byte fields) {
+            if (fields == 0) {
+                return 0;
+            }
+            return (fields & LABEL) != 0 ? weight * LABEL_WEIGHT : weight;
+        }
+    }
+
+    /**
+     * Tâches candidates triées par id, avec leur score
+     */
+    private static final class Candidates {
+        private long[] ids;
+        private double[] scores;
+
+        private Candidates(long[] ids, double[] scores) {
+            this.ids = ids;
+            this.scores = scores;
+        }
+
+        /**
+         * Ajout du poids d'un autre mot de la requête, et retrait des tâches qui ne le contiennent pas
+         */
+        void addWeights(Expansion[] expansion) {
+            int kept = 0;
+            for (int i = 0; i < ids.length; i++) {
+                double best = 0;
+                for (Expansion term : expansion) {
+                    best = Math.max(best, term.weight(term.postings.fieldsOf(ids[i])));
+                }
+                if (best > 0) {
+                    ids[kept] = ids[i];
+                    scores[kept++] = scores[i] + best;
+                }
+            }
+            ids = Arrays.copyOf(ids, kept);
+            scores = Arrays.copyOf(scores, kept);
+        }
+
+        /**
+         * @return ids des résultats de rang offset à wanted (exclu), par score décroissant puis id décroissant
+         */
+        long[] top(int offset, int wanted) {
+            // Tas des wanted meilleurs résultats, le moins bon à la racine
+            int[] heap = new int[Math.min(wanted, ids.length)];
+            int size = 0;
+            for (int i = ids.length - 1; i >= 0; i--) {
+                if (size < heap.length) {
+                    heap[size] = i;
+                    siftUp(heap, size++);
+                } else if (better(i, heap[0])) {
+                    heap[0] = i;
+                    siftDown(heap, size);
+                }
+            }
+            // Vidage du tas : du moins bon au meilleur
+            long[] ranked = new long[size];
+            for (int n = size - 1; n >= 0; n--) {
+                ranked[n] = ids[heap[0]];
+                heap[0] = heap[--size];
+                siftDown(heap, size);
+            }
+            return offset >= ranked.length ? new long[0] : Arrays.copyOfRange(ranked, offset, ranked.length);
+        }
+
+        private boolean better(int a, int b) {
+            return scores[a] != scores[b] ? scores[a] > scores[b] : ids[a] > ids[b];
+        }
+
+        private void siftUp(int[] heap, int child) {
+            while (child > 0) {
+                int parent = (child - 1) / 2;
+                if (!better(heap[parent], heap[child])) {
+                    return;
+                }
+                swap(heap, parent, child);
+                child = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int size) {
+            int parent = 0;
+            while (true) {
+                int worst = parent;
+                for (int child = 2 * parent + 1; child <= 2 * parent + 2 && child < size; child++) {
+                    if (better(heap[worst], heap[child])) {
+                        worst = child;
+                    }
+                }
+                if (worst == parent) {
+                    return;
+                }
+                swap(heap, parent, worst);
+                parent = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+
+    /**
+     * Tâches contenant un mot : ids triés et champs où le mot apparaît, 0 pour une tâche retirée.
+     * Les ids étant attribués dans l'ordre, un ajout se fait presque toujours à la fin des tableaux ;
+     * les tâches retirées sont effacées des tableaux en une passe quand elles en occupent la moitié.
+     */
+    private static final class Postings {
+        private long[] ids = new long[1];
+        private byte[] fields = new byte[1];
+        private int size;
+        private int removed;
+
+        void add(long id, byte field) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            if (size == 0 || ids[size - 1] < id) {
+                ids[size] = id;
+                fields[size++] = field;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                if (fields[position] == 0) {
+                    removed--;
+                }
+                fields[position] = field;
+                return;
+            }
+            position = -position - 1;
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(fields, position, fields, position + 1, size - position);
+            ids[position] = id;
+            fields[position] = field;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0 || fields[position] == 0) {
+                return false;
+            }
+            fields[position] = 0;
+            removed++;
+            if (removed * 2 > size) {
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    if (fields[i] != 0) {
+                        ids[kept] = ids[i];
+                        fields[kept++] = fields[i];
+                    }
+                }
+                size = kept;
+                removed = 0;
+            }
+            return true;
+        }
+
+        byte fieldsOf(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            return position < 0 ? 0 : fields[position];
+        }
+
+        int live() {
+            return size - removed;
+        }
+    }
+}
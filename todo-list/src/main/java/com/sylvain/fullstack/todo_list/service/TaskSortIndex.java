@@ -0,0 +1,276 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Index de tri des tâches, pour les lectures filtrées et triées par pages.
+ * <p>
+ * Deux index composites par statut : (statut, id) et (statut, libellé, id), le libellé sans accents ni majuscules.
+ * Une lecture d'un statut parcourt son index à partir de la borne du filtre ou du curseur, dans un sens ou dans
+ * l'autre ; une lecture de tous les statuts fusionne les index des deux statuts. Le filtre sur la clé de tri
+ * (intervalle d'ids, début de libellé) ne parcourt que les clés de l'intervalle ; l'autre filtre est appliqué
+ * aux tâches parcourues, jusqu'à remplir la page. Exception : une lecture par id avec un début de libellé lit
+ * d'abord les ids de l'intervalle de libellés et les trie, s'il n'y en a pas plus de {@value #MAX_PREFIX_IDS} ;
+ * au-delà, le début de libellé est assez courant pour que le parcours par id remplisse vite la page.
+ * <p>
+ * Les index sont des ConcurrentSkipListSet : les lectures ne prennent pas de verrou, et le service les modifie
+ * sous le verrou de la tâche, comme le stockage. Une tâche qui change de statut est ajoutée à l'index de son
+ * nouveau statut avant d'être retirée de l'ancien : un parcours des deux statuts la trouve toujours au moins une
+ * fois, et la fusion ne renvoie qu'une fois une clé présente dans les deux. Les index ne gardent que les clés,
+ * les tâches sont lues dans le stockage.
+ */
+public class TaskSortIndex {
+
+    /** Nombre maximum d'ids d'un début de libellé triés pour une lecture par id */
+    static final int MAX_PREFIX_IDS = 10_000;
+    private static final int TODO = 0;
+    private static final int DONE = 1;
+
+    // Index (statut, id) et (statut, libellé, id) : [0] tâches à effectuer, [1] tâches terminées
+    @SuppressWarnings("unchecked")
+    private final ConcurrentSkipListSet<Long>[] ids = new ConcurrentSkipListSet[] {
+            new ConcurrentSkipListSet<Long>(), new ConcurrentSkipListSet<Long>()};
+    @SuppressWarnings("unchecked")
+    private final ConcurrentSkipListSet<LabelKey>[] labels = new ConcurrentSkipListSet[] {
+            new ConcurrentSkipListSet<LabelKey>(), new ConcurrentSkipListSet<LabelKey>()};
+
+    /**
+     * Ajout d'une tâche
+     * @param task Tâche, avec son id
+     */
+    public void add(Task task) {
+        int status = status(task.isCompleted());
+        ids[status].add(task.getId());
+        labels[status].add(new LabelKey(TaskQuery.label(task), task.getId()));
+    }
+
+    /**
+     * Passage d'une tâche dans l'index de son statut courant : ajout au nouveau statut, puis retrait de l'ancien
+     * @param task Tâche modifiée ; son libellé ne change jamais
+     */
+    public void update(Task task) {
+        LabelKey key = new LabelKey(TaskQuery.label(task), task.getId());
+        int status = status(task.isCompleted());
+        ids[status].add(task.getId());
+        labels[status].add(key);
+        ids[1 - status].remove(task.getId());
+        labels[1 - status].remove(key);
+    }
+
+    /**
+     * Retrait d'une tâche
+     * @param task Tâche, dans l'état où elle a été ajoutée
+     */
+    public void remove(Task task) {
+        LabelKey key = new LabelKey(TaskQuery.label(task), task.getId());
+        for (int status = TODO; status <= DONE; status++) {
+            ids[status].remove(task.getId());
+            labels[status].remove(key);
+        }
+    }
+
+    /**
+     * Parcours des ids des tâches dans l'ordre d'une lecture, à partir d'un curseur
+     * @param query Filtres et tri ; seul le filtre sur la clé de tri est appliqué ici
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param afterLabel Libellé de cette tâche, nécessaire pour le tri par libellé
+     * @return ids des tâches, dans l'ordre de la lecture
+     */
+    public Iterator<Long> ids(TaskQuery query, Long after, String afterLabel) {
+        LabelKey from = null;
+        LabelKey to = null;
+        if (query.labelPrefix() != null) {
+            // Aucune tâche n'a l'id Long.MIN_VALUE : les deux bornes encadrent les libellés qui commencent par le préfixe
+            from = new LabelKey(query.labelPrefix(), Long.MIN_VALUE);
+            to = new LabelKey(query.labelPrefix() + Character.MAX_VALUE, Long.MIN_VALUE);
+        }
+        if (query.sort() == TaskQuery.Sort.LABEL) {
+            LabelKey cursor = after == null ? null : new LabelKey(TaskSearchIndex.fold(afterLabel), after);
+            Iterator<LabelKey> keys = scan(labels, query.completed(), from, to, cursor, query.descending());
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return keys.hasNext();
+                }
+
+                @Override
+                public Long next() {
+                    return keys.next().id();
+                }
+            };
+        }
+        if (from != null) {
+            long[] prefixIds = prefixIds(query, from, to, after);
+            if (prefixIds != null) {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < prefixIds.length;
+                    }
+
+                    @Override
+                    public Long next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int position = next++;
+                        return prefixIds[query.descending() ? prefixIds.length - 1 - position : position];
+                    }
+                };
+            }
+        }
+        return scan(ids, query.completed(), query.minId(), query.maxId(), after, query.descending());
+    }
+
+    /**
+     * ids des tâches d'un intervalle de libellés, dans l'intervalle d'ids de la lecture et après le curseur
+     * @return ids triés par ordre croissant, null s'il y a plus de {@value #MAX_PREFIX_IDS} libellés dans l'intervalle
+     */
+    private long[] prefixIds(TaskQuery query, LabelKey from, LabelKey to, Long after) {
+        long lower = query.minId() == null ? Long.MIN_VALUE : query.minId();
+        long upper = query.maxId() == null ? Long.MAX_VALUE : query.maxId();
+        if (after != null && query.descending()) {
+            upper = Math.min(upper, after - 1);
+        } else if (after != null) {
+            lower = Math.max(lower, after + 1);
+        }
+        long[] found = new long[64];
+        int count = 0;
+        int visited = 0;
+        for (int status = TODO; status <= DONE; status++) {
+            if (query.completed() != null && status != status(query.completed())) {
+                continue;
+            }
+            for (LabelKey key : labels[status].subSet(from, true, to, true)) {
+                if (++visited > MAX_PREFIX_IDS) {
+                    return null;
+                }
+                if (key.id() >= lower && key.id() <= upper) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = key.id();
+                }
+            }
+        }
+        // Une tâche qui change de statut pendant la lecture peut être dans les deux index
+        return Arrays.stream(found, 0, count).sorted().distinct().toArray();
+    }
+
+    /**
+     * Parcours des clés d'un index composite
+     * @param index Index de chaque statut
+     * @param completed Statut parcouru, null pour fusionner les deux
+     * @param from Plus petite clé, incluse, null pour ne pas borner
+     * @param to Plus grande clé, incluse, null pour ne pas borner
+     * @param after Curseur, exclu : les clés qui le précèdent dans l'ordre du parcours sont ignorées
+     * @param descending true pour parcourir les clés de la plus grande à la plus petite
+     * @return Clés dans l'ordre du parcours
+     */
+    private static <K extends Comparable<K>> Iterator<K> scan(NavigableSet<K>[] index, Boolean completed,
+                                                               K from, K to, K after, boolean descending) {
+        boolean fromInclusive = true;
+        boolean toInclusive = true;
+        if (after != null && !descending && (from == null || after.compareTo(from) >= 0)) {
+            from = after;
+            fromInclusive = false;
+        }
+        if (after != null && descending && (to == null || after.compareTo(to) <= 0)) {
+            to = after;
+            toInclusive = false;
+        }
+        if (from != null && to != null) {
+            int order = from.compareTo(to);
+            if (order > 0 || order == 0 && !(fromInclusive && toInclusive)) {
+                return Collections.emptyIterator();
+            }
+        }
+        if (completed != null) {
+            return range(index[status(completed)], from, fromInclusive, to, toInclusive, descending);
+        }
+        return new MergeIterator<>(
+                range(index[TODO], from, fromInclusive, to, toInclusive, descending),
+                range(index[DONE], from, fromInclusive, to, toInclusive, descending),
+                descending ? Comparator.<K>reverseOrder() : Comparator.<K>naturalOrder());
+    }
+
+    private static <K> Iterator<K> range(NavigableSet<K> set, K from, boolean fromInclusive,
+                                         K to, boolean toInclusive, boolean descending) {
+        NavigableSet<K> view;
+        if (from != null && to != null) {
+            view = set.subSet(from, fromInclusive, to, toInclusive);
+        } else if (from != null) {
+            view = set.tailSet(from, fromInclusive);
+        } else if (to != null) {
+            view = set.headSet(to, toInclusive);
+        } else {
+            view = set;
+        }
+        return descending ? view.descendingIterator() : view.iterator();
+    }
+
+    private static int status(boolean completed) {
+        return completed ? DONE : TODO;
+    }
+
+    /**
+     * Clé de l'index par libellé : libellé sans accents ni majuscules, puis id
+     */
+    private record LabelKey(String label, long id) implements Comparable<LabelKey> {
+        @Override
+        public int compareTo(LabelKey other) {
+            int order = label.compareTo(other.label);
+            return order != 0 ? order : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Fusion de deux parcours triés dans le même ordre ; une clé présente dans les deux n'est renvoyée qu'une fois
+     */
+    private static final class MergeIterator<K> implements Iterator<K> {
+        private final Iterator<K> left;
+        private final Iterator<K> right;
+        private final Comparator<K> order;
+        private K nextLeft;
+        private K nextRight;
+
+        MergeIterator(Iterator<K> left, Iterator<K> right, Comparator<K> order) {
+            this.left = left;
+            this.right = right;
+            this.order = order;
+            this.nextLeft = left.hasNext() ? left.next() : null;
+            this.nextRight = right.hasNext() ? right.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLeft != null || nextRight != null;
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int comparison = nextLeft == null ? 1 : nextRight == null ? -1 : order.compare(nextLeft, nextRight);
+            K key = comparison <= 0 ? nextLeft : nextRight;
+            if (comparison <= 0) {
+                nextLeft = left.hasNext() ? left.next() : null;
+            }
+            if (comparison >= 0) {
+                nextRight = right.hasNext() ? right.next() : null;
+            }
+            return key;
+        }
+    }
+}
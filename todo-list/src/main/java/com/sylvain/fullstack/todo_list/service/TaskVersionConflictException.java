@@ -0,0 +1,20 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import lombok.Getter;
+
+/**
+ * Modification refusée : la tâche a changé de version depuis sa lecture par le client
+ */
+@Getter
+public class TaskVersionConflictException extends RuntimeException {
+
+    // Version courante de la tâche, que le client peut relire avant de réessayer
+    private final transient Task current;
+
+    public TaskVersionConflictException(Task current) {
+        // Sans pile d'appels : un conflit est un cas attendu, que le client règle en relisant la tâche
+        super("La tâche " + current.getId() + " a été modifiée, version courante : " + current.getVersion(), null, false, false);
+        this.current = current;
+    }
+}
@@ -0,0 +1,347 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Versions antérieures des tâches modifiées, pour lire toutes les tâches telles qu'elles étaient à une version
+ * du stockage (MVCC), sans verrou et sans bloquer les modifications.
+ * <p>
+ * Le stockage ne garde que le dernier état de chaque tâche. Avant de modifier une tâche, sous son verrou,
+ * le service range ici l'état qu'elle remplace (null si elle n'existait pas), puis lui attribue le numéro
+ * de la modification une fois celle-ci publiée. Les états d'une tâche forment une chaîne, du plus récent
+ * au plus ancien. Une lecture retient la version courante V : pour chaque tâche, elle remonte la chaîne tant que
+ * les modifications sont postérieures à V, et renvoie l'état qui précédait la plus ancienne d'entre elles.
+ * Une tâche ajoutée après V est ainsi ignorée, une tâche supprimée après V est relue ici.
+ * <p>
+ * Une modification en cours n'a pas encore de numéro. Tant que sa publication n'a pas commencé, son numéro sera
+ * supérieur à toute version déjà lue : la lecture l'ignore sans attendre. Une lecture qui la rencontre pendant
+ * sa publication attend que le numéro soit attribué, pour savoir s'il est antérieur à V.
+ * <p>
+ * Un état n'est utile qu'aux lectures qui ont retenu une version antérieure à sa modification. Après chaque
+ * modification, les états dont la modification n'est pas postérieure à la plus ancienne version retenue
+ * (la version courante s'il n'y en a aucune) sont libérés, dans l'ordre où ils ont été rangés.
+ */
+public class TaskVersions {
+
+    // Modification rangée, pas encore publiée
+    private static final long PENDING = Long.MAX_VALUE;
+    // Modification en cours de publication, numéro pas encore attribué
+    private static final long PUBLISHING = Long.MAX_VALUE - 1;
+    // Modification abandonnée avant sa publication
+    private static final long ABORTED = -1;
+
+    // Version courante du stockage
+    private final LongSupplier currentVersion;
+    // Dernier état rangé de chaque tâche modifiée, triées par id pour être fusionnées avec le parcours du stockage
+    private final ConcurrentSkipListMap<Long, Version> chains = new ConcurrentSkipListMap<>();
+    // États dans l'ordre où ils ont été rangés, pour les libérer
+    private final ConcurrentLinkedQueue<Version> log = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger retained = new AtomicInteger();
+    // Nombre d'états rangés depuis la création, incrémenté après le rangement et avant la modification du stockage
+    private final AtomicLong recorded = new AtomicLong();
+    // Versions retenues par les lectures en cours, la plus ancienne en tête
+    private final ConcurrentSkipListSet<Snapshot> snapshots = new ConcurrentSkipListSet<>();
+    private final AtomicLong snapshotSerial = new AtomicLong();
+    // Une seule libération à la fois ; une modification ne l'attend pas si une autre s'en charge
+    private final ReentrantLock reclaiming = new ReentrantLock();
+    // Version jusqu'à laquelle les états peuvent être libérés, annoncée avant de les libérer
+    private volatile long horizon;
+
+    /**
+     * @param currentVersion Version courante du stockage : numéro de la dernière modification publiée
+     */
+    public TaskVersions(LongSupplier currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * Rangement de l'état d'une tâche avant sa modification, sous le verrou de la tâche et avant de modifier
+     * le stockage
+     * @param id id de la tâche
+     * @param previous État remplacé, null si la tâche n'existait pas
+     * @return État rangé, à passer à {@link #commit(Version, LongSupplier)} une fois le stockage modifié
+     */
+    Version record(long id, Task previous) {
+        Version version = new Version(id, previous, chains.get(id));
+        chains.put(id, version);
+        log.add(version);
+        retained.incrementAndGet();
+        recorded.incrementAndGet();
+        return version;
+    }
+
+    /**
+     * Publication de la modification et attribution de son numéro, toujours sous le verrou de la tâche,
+     * puis libération des états qui ne sont plus utiles
+     * @param version État rangé avant la modification
+     * @param publish Publication de la modification, qui renvoie son numéro
+     * @return Numéro de la modification
+     */
+    long commit(Version version, LongSupplier publish) {
+        version.sequence = PUBLISHING;
+        long sequence = publish.getAsLong();
+        version.sequence = sequence;
+        reclaim();
+        return sequence;
+    }
+
+    /**
+     * Abandon d'une modification qui a échoué avant d'être publiée, sous le verrou de la tâche :
+     * l'état rangé est retiré de la chaîne, le stockage n'ayant pas été modifié. Sans effet si elle a été publiée
+     * @param version État rangé avant la modification
+     */
+    void abort(Version version) {
+        if (version.sequence < PUBLISHING) {
+            return;
+        }
+        // L'état abandonné est la tête de la chaîne : le verrou de la tâche empêche d'en ranger un autre
+        if (version.next == null) {
+            chains.remove(version.id, version);
+        } else {
+            chains.replace(version.id, version, version.next);
+        }
+        // Une lecture qui le rencontre encore passe à l'état suivant
+        version.sequence = ABORTED;
+        reclaim();
+    }
+
+    /**
+     * Retenue de la version courante par une lecture : les états qui la précèdent restent disponibles
+     * jusqu'à {@link Snapshot#close()}
+     * @return Version retenue, à fermer à la fin de la lecture
+     */
+    public Snapshot open() {
+        long version = currentVersion.getAsLong();
+        while (true) {
+            Snapshot snapshot = new Snapshot(version, snapshotSerial.incrementAndGet());
+            snapshots.add(snapshot);
+            // Une libération qui n'a pas vu cette lecture a annoncé sa limite avant de relire les lectures :
+            // si elle dépasse la version retenue, des états utiles ont pu être libérés
+            if (horizon <= version) {
+                return snapshot;
+            }
+            snapshots.remove(snapshot);
+            version = currentVersion.getAsLong();
+        }
+    }
+
+    /**
+     * État d'une tâche à une version
+     * @param snapshot Version retenue
+     * @param id id de la tâche
+     * @param current État lu dans le stockage, null si la tâche n'y était pas
+     * @return État à cette version, null si la tâche n'existait pas
+     */
+    public Task read(Snapshot snapshot, long id, Task current) {
+        Task task = current;
+        for (Version version = chains.get(id); version != null; version = version.next) {
+            long sequence = version.awaitSequence();
+            if (sequence == ABORTED) {
+                continue;
+            }
+            if (sequence <= snapshot.version) {
+                break;
+            }
+            task = version.previous;
+        }
+        return task;
+    }
+
+    /**
+     * Parcours des tâches telles qu'elles étaient à une version, triées par id
+     * @param snapshot Version retenue, ouverte jusqu'à la fin du parcours
+     * @param current Parcours du stockage à partir du même id, dans le même ordre
+     * @param after id à partir duquel lire, exclu
+     * @param todoOnly true pour ne garder que les tâches à effectuer à cette version
+     * @return Itérateur sur les tâches
+     */
+    public Iterator<Task> iterator(Snapshot snapshot, Iterator<Task> current, long after, boolean todoOnly) {
+        return new Iterator<>() {
+            private Task stored = current.hasNext() ? current.next() : null;
+            private long last = after;
+            // Prochain id modifié après last, et nombre d'états rangés avant de le chercher
+            private Long changed;
+            private long checked = -1;
+            private Task next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    // Chaînes relues après le stockage, si un état a été rangé depuis la dernière lecture :
+                    // une tâche modifiée ou supprimée avant d'être atteinte par le parcours du stockage y est déjà
+                    long count = recorded.get();
+                    if (count != checked || (changed != null && changed <= last)) {
+                        checked = count;
+                        changed = chains.higherKey(last);
+                    }
+                    long id;
+                    Task task;
+                    if (stored != null && (changed == null || stored.getId() < changed)) {
+                        // Aucune chaîne pour cette tâche : l'état lu dans le stockage est antérieur à la version
+                        task = stored;
+                        id = task.getId();
+                        stored = current.hasNext() ? current.next() : null;
+                    } else if (changed != null) {
+                        id = changed;
+                        task = null;
+                        if (stored != null && stored.getId() == id) {
+                            task = stored;
+                            stored = current.hasNext() ? current.next() : null;
+                        }
+                        task = read(snapshot, id, task);
+                    } else {
+                        return false;
+                    }
+                    last = id;
+                    if (task != null && (!todoOnly || !task.isCompleted())) {
+                        next = task;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task task = next;
+                next = null;
+                return task;
+            }
+        };
+    }
+
+    /**
+     * @return Nombre d'états rangés et pas encore libérés
+     */
+    public int retainedCount() {
+        return retained.get();
+    }
+
+    /**
+     * Libération des états dont la modification n'est pas postérieure à la plus ancienne version retenue
+     */
+    private void reclaim() {
+        if (!reclaiming.tryLock()) {
+            return;
+        }
+        try {
+            long limit = oldestVersion();
+            if (limit > horizon) {
+                horizon = limit;
+            }
+            // Lectures relues après l'annonce : une lecture qu'elles ne contiennent pas verra la nouvelle limite
+            limit = Math.min(limit, oldestVersion());
+            Version version;
+            while ((version = log.peek()) != null && version.sequence <= limit) {
+                log.poll();
+                retained.decrementAndGet();
+                unlink(version);
+            }
+        } finally {
+            reclaiming.unlock();
+        }
+    }
+
+    /**
+     * @return Plus ancienne version retenue par une lecture, version courante s'il n'y en a aucune
+     */
+    private long oldestVersion() {
+        long version = currentVersion.getAsLong();
+        Iterator<Snapshot> oldest = snapshots.iterator();
+        return oldest.hasNext() ? Math.min(version, oldest.next().version) : version;
+    }
+
+    /**
+     * Retrait d'un état et des états plus anciens de sa chaîne, qu'aucune lecture ne remonte plus
+     * @param version État à retirer
+     */
+    private void unlink(Version version) {
+        if (chains.remove(version.id, version)) {
+            return;
+        }
+        for (Version newer = chains.get(version.id); newer != null; newer = newer.next) {
+            if (newer.next == version) {
+                newer.next = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * État d'une tâche avant une modification
+     */
+    static final class Version {
+        private final long id;
+        private final Task previous;
+        private volatile Version next;
+        private volatile long sequence = PENDING;
+
+        private Version(long id, Task previous, Version next) {
+            this.id = id;
+            this.previous = previous;
+            this.next = next;
+        }
+
+        /**
+         * @return Numéro de la modification, attendu si elle est en cours de publication ;
+         * {@link #PENDING} si sa publication n'a pas commencé
+         */
+        private long awaitSequence() {
+            long value;
+            for (int spins = 0; (value = sequence) == PUBLISHING; spins++) {
+                if (spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Version retenue par une lecture
+     */
+    public final class Snapshot implements AutoCloseable, Comparable<Snapshot> {
+        private final long version;
+        private final long serial;
+
+        private Snapshot(long version, long serial) {
+            this.version = version;
+            this.serial = serial;
+        }
+
+        /**
+         * @return Version du stockage lue
+         */
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public int compareTo(Snapshot other) {
+            int order = Long.compare(version, other.version);
+            return order != 0 ? order : Long.compare(serial, other.serial);
+        }
+
+        /**
+         * Fin de la lecture : les états qu'elle retenait pourront être libérés
+         */
+        @Override
+        public void close() {
+            snapshots.remove(this);
+        }
+    }
+}
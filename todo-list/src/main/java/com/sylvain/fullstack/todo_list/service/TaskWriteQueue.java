@@ -0,0 +1,189 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File d'écriture différée devant le service : les ajouts et mises à jour sont mis en file par les threads de requête,
+ * et un seul thread les applique par lots avec {@link TodoListService#applyBatch(List)}. Un lot ne prend chaque verrou
+ * qu'une fois par opération et n'attend l'écriture sur disque qu'une fois, après sa dernière opération.
+ * <p>
+ * La file est bornée : quand elle est pleine, la modification est refusée tout de suite
+ * ({@link TaskWriteQueueFullException}) plutôt que d'attendre, pour que le client réessaie plus tard.
+ * Métriques : {@value #DEPTH} (modifications en attente), {@value #BATCH_SIZE} (taille des lots appliqués)
+ * et {@value #REJECTED} (modifications refusées).
+ */
+public class TaskWriteQueue implements AutoCloseable {
+
+    public static final String DEPTH = "todo.write-queue.depth";
+    public static final String BATCH_SIZE = "todo.write-queue.batch.size";
+    public static final String REJECTED = "todo.write-queue.rejected";
+
+    /** Délai d'attente du thread d'application entre deux vérifications de la fermeture */
+    private static final long POLL_MILLIS = 100;
+
+    private final TodoListService service;
+    private final int maxBatchSize;
+    // File bornée, plusieurs producteurs et un seul consommateur
+    private final BlockingQueue<Pending> queue;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private final Thread applier;
+    private volatile boolean closed;
+
+    /**
+     * Création de la file et démarrage du thread d'application
+     * @param service Service auquel les lots sont appliqués
+     * @param capacity Nombre maximum de modifications en attente
+     * @param maxBatchSize Nombre maximum de modifications appliquées en un lot
+     * @param registry Registre des métriques de la file
+     */
+    public TaskWriteQueue(TodoListService service, int capacity, int maxBatchSize, MeterRegistry registry) {
+        this.service = service;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, TodoListService.MAX_BATCH_SIZE));
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Gauge.builder(DEPTH, queue, BlockingQueue::size)
+                .description("Nombre de modifications en attente d'application")
+                .register(registry);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE)
+                .description("Nombre de modifications appliquées par lot")
+                .baseUnit("operations")
+                .register(registry);
+        this.rejected = Counter.builder(REJECTED)
+                .description("Nombre de modifications refusées, la file étant pleine")
+                .register(registry);
+        this.applier = Thread.ofPlatform().name("todo-write-applier").daemon().start(this::applyLoop);
+    }
+
+    /**
+     * Mise en file de l'ajout d'une tâche
+     * @param newTask Données de la tâche à ajouter
+     * @return Tâche créée, une fois le lot appliqué et durable
+     * @throws TaskWriteQueueFullException si la file est pleine
+     */
+    public CompletableFuture<Task> addTask(Task newTask) {
+        return submit(new TaskOperation(TaskOperation.Type.ADD, newTask)).thenApply(TaskOperationResult::getTask);
+    }
+
+    /**
+     * Mise en file de la modification du statut d'une tâche
+     * @param id id de la tâche à modifier
+     * @param completed Nouveau statut de la tâche
+     * @param expectedVersion Version lue par le client, null pour modifier la tâche quelle que soit sa version
+     * @return Nouvelle version de la tâche, null si elle n'existe pas, ou {@link TaskVersionConflictException}
+     * si la tâche a changé de version entre-temps
+     * @throws TaskWriteQueueFullException si la file est pleine
+     */
+    public CompletableFuture<Task> updateTask(Long id, boolean completed, Long expectedVersion) {
+        Task update = new Task(id, null, null, completed, expectedVersion);
+        return submit(new TaskOperation(TaskOperation.Type.UPDATE, update)).thenApply(result -> {
+            if (result.getStatus() == 409) {
+                throw new TaskVersionConflictException(result.getTask());
+            }
+            return result.getTask();
+        });
+    }
+
+    /**
+     * @return Nombre de modifications en attente
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    private CompletableFuture<TaskOperationResult> submit(TaskOperation operation) {
+        if (closed) {
+            throw new IllegalStateException("La file d'écriture est fermée");
+        }
+        Pending pending = new Pending(operation, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            rejected.increment();
+            throw new TaskWriteQueueFullException();
+        }
+        return pending.result();
+    }
+
+    /**
+     * Boucle du thread d'application : attend une modification, prend celles arrivées entre-temps et applique le lot
+     */
+    private void applyLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        List<TaskOperation> operations = new ArrayList<>(maxBatchSize);
+        while (true) {
+            Pending first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+            for (Pending pending : batch) {
+                operations.add(pending.operation());
+            }
+            apply(batch, operations);
+            batch.clear();
+            operations.clear();
+        }
+    }
+
+    private void apply(List<Pending> batch, List<TaskOperation> operations) {
+        batchSizes.record(batch.size());
+        List<TaskOperationResult> results;
+        try {
+            results = service.applyBatch(operations);
+        } catch (RuntimeException e) {
+            // Journal inaccessible par exemple : chaque appelant reçoit l'erreur, le thread continue
+            for (Pending pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+    }
+
+    /**
+     * Arrêt de la file : les modifications déjà en file sont appliquées, les suivantes sont refusées
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            applier.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Modification mise en file pendant la fermeture, après la fin du thread d'application
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("La file d'écriture est fermée"));
+        }
+    }
+
+    /**
+     * Modification en attente et résultat à transmettre à l'appelant
+     */
+    private record Pending(TaskOperation operation, CompletableFuture<TaskOperationResult> result) {
+    }
+}
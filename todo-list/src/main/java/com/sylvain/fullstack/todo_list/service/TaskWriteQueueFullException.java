@@ -0,0 +1,12 @@
+package com.sylvain.fullstack.todo_list.service;
+
+/**
+ * Modification refusée : la file d'écriture différée est pleine
+ */
+public class TaskWriteQueueFullException extends RuntimeException {
+
+    public TaskWriteQueueFullException() {
+        // Sans pile d'appels : sous forte charge, un refus est un cas attendu, que le client règle en réessayant
+        super("La file d'écriture est pleine", null, false, false);
+    }
+}
@@ -1,56 +1,490 @@
 package com.sylvain.fullstack.todo_list.service;
 
+import com.sylvain.fullstack.todo_list.cluster.IdPartition;
 import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.model.TaskChanges;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.model.TaskSearchPage;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.persistence.TaskMutation;
+import com.sylvain.fullstack.todo_list.persistence.TaskPersistence;
+import com.sylvain.fullstack.todo_list.persistence.TaskSnapshotSource;
+import com.sylvain.fullstack.todo_list.store.MapTaskStore;
+import com.sylvain.fullstack.todo_list.store.TaskStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 @Service
 public class TodoListService {
 
-    // Stockage en mémoire des tâches. ConcurrentHashMap est thread-safe.
-    private final Map<Long, Task> tasksList = new ConcurrentHashMap<>();
+    /** Nombre maximum de tâches renvoyées dans une page */
+    public static final int MAX_PAGE_SIZE = 1000;
+    /** Nombre maximum d'opérations dans un lot */
+    public static final int MAX_BATCH_SIZE = 10_000;
+    /** Nombre de verrous utilisés pour sérialiser les modifications d'une même tâche (puissance de 2) */
+    private static final int LOCK_STRIPES = 64;
+
+    // Stockage en mémoire des tâches, triées par id, avec l'index des tâches à effectuer
+    private final TaskStore store;
+    // Index plein texte des libellés et descriptions
+    private final TaskSearchIndex searchIndex = new TaskSearchIndex();
+    // Index de tri par statut et id, par statut et libellé, pour les lectures filtrées et triées
+    private final TaskSortIndex sortIndex = new TaskSortIndex();
+    // Verrous par tranche d'ids : le stockage, le journal des modifications et la persistance reçoivent
+    // les modifications d'une même tâche dans le même ordre, sans bloquer les lectures.
+    // ReentrantLock plutôt que synchronized : un thread virtuel qui attend le verrou libère son thread porteur.
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
     // Compteur atomique pour générer des IDs uniques
     private final AtomicLong idCounter = new AtomicLong();
+    // Ids que ce nœud peut attribuer : tous pour un nœud seul, ceux dont il est propriétaire dans un cluster
+    private final IdPartition idPartition;
+    // Dernières modifications, numérotées : le numéro de la dernière est la version du stockage
+    private final TaskChangeFeed changes;
+    // Moteur de persistance des modifications
+    private final TaskPersistence persistence;
+    // Durée et nombre des opérations, taille du stockage
+    private final TaskMetrics metrics;
+    // Tâches terminées par date de fin, pour la rétention ; null tant qu'elle n'est pas activée
+    private volatile TaskExpiryQueue expiries;
+    // États remplacés des tâches, pour les lectures de listes à une version du stockage
+    private final TaskVersions versions;
 
     public TodoListService(){
+        this(new InMemoryTaskPersistence(), new TaskChangeFeed());
         // Ajout d'une tâche pour test
         // addTask(new Task(0L, "Acheter du pain", "Aller à la boulangerie", false));
     }
 
+    public TodoListService(TaskPersistence persistence) {
+        this(persistence, new TaskChangeFeed());
+    }
+
+    public TodoListService(TaskPersistence persistence, TaskChangeFeed changes) {
+        this(persistence, changes, new MapTaskStore());
+    }
+
+    public TodoListService(TaskPersistence persistence, TaskChangeFeed changes, TaskStore store) {
+        this(persistence, changes, store, IdPartition.all());
+    }
+
+    public TodoListService(TaskPersistence persistence, TaskChangeFeed changes, TaskStore store, IdPartition idPartition) {
+        // Registre composite vide : les métriques ne sont pas mesurées
+        this(persistence, changes, store, idPartition, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Création du service et rechargement des tâches persistées
+     * @param persistence Moteur de persistance des modifications
+     * @param changes Journal des dernières modifications
+     * @param store Stockage en mémoire des tâches
+     * @param idPartition Ids que ce nœud peut attribuer aux nouvelles tâches
+     * @param meterRegistry Registre des métriques des opérations
+     */
+    @Autowired
+    public TodoListService(TaskPersistence persistence, TaskChangeFeed changes, TaskStore store, IdPartition idPartition,
+                           MeterRegistry meterRegistry) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.persistence = persistence;
+        this.changes = changes;
+        this.store = store;
+        this.idPartition = idPartition;
+        this.versions = new TaskVersions(changes::currentSequence);
+        this.metrics = new TaskMetrics(meterRegistry, store, versions);
+        idCounter.set(persistence.recover(this::replay));
+        persistence.start(new TaskSnapshotSource() {
+            @Override
+            public long lastId() {
+                return idCounter.get();
+            }
+
+            @Override
+            public Iterator<Task> tasks() {
+                return store.iterator(0, false);
+            }
+        });
+    }
+
+    /**
+     * Activation du suivi des tâches terminées par date de fin, pour {@link #expireTasks(long, int, Consumer)}.
+     * Les tâches déjà terminées sont lues une fois ; celles terminées avant l'enregistrement des dates de fin
+     * sont datées de l'activation. Le suivi commence avant cette lecture : une tâche terminée pendant la lecture
+     * est suivie au moins une fois.
+     */
+    public synchronized void trackCompletedTasks() {
+        if (expiries != null) {
+            return;
+        }
+        TaskExpiryQueue queue = new TaskExpiryQueue();
+        expiries = queue;
+        long now = System.currentTimeMillis();
+        store.iterator(0, false).forEachRemaining(task -> {
+            if (task.isCompleted()) {
+                queue.add(task.getCompletedAt() == null ? now : task.getCompletedAt(), task.getId());
+            }
+        });
+    }
+
+    /**
+     * @return Nombre de tâches suivies pour la rétention, entrées périmées comprises ; 0 si elle n'est pas activée
+     */
+    public int getTrackedCompletedCount() {
+        TaskExpiryQueue queue = expiries;
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Retrait d'une tranche de tâches terminées avant une date, pour la rétention.
+     * Les tâches sont prises par date de fin dans la file des tâches terminées, sans parcourir le stockage ;
+     * une tâche remise à effectuer, terminée de nouveau ou supprimée depuis est ignorée. Chaque tâche est supprimée
+     * sous son verrou, comme une suppression par un client, et l'écriture sur disque n'est attendue qu'une fois.
+     * @param completedBefore Date limite en millisecondes : les tâches terminées à cette date ou avant sont retirées
+     * @param limit Nombre maximum de tâches examinées
+     * @param archiver Reçoit les tâches avant leur suppression, null pour les supprimer sans les archiver.
+     * Une tâche modifiée pendant l'archivage n'est pas supprimée
+     * @return Tâches supprimées, de la plus anciennement terminée à la plus récente
+     * @throws IllegalStateException si le suivi des tâches terminées n'est pas activé
+     */
+    public List<Task> expireTasks(long completedBefore, int limit, Consumer<List<Task>> archiver) {
+        TaskExpiryQueue queue = expiries;
+        if (queue == null) {
+            throw new IllegalStateException("Suivi des tâches terminées non activé");
+        }
+        long[] completedAt = new long[Math.max(1, limit)];
+        long[] ids = new long[completedAt.length];
+        int count = queue.poll(completedBefore, completedAt, ids);
+        List<Task> expired = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task task = store.get(ids[i]);
+            // Une tâche sans date de fin a été datée de l'activation du suivi
+            if (task != null && task.isCompleted()
+                    && (task.getCompletedAt() == null || task.getCompletedAt() == completedAt[i])) {
+                expired.add(task);
+            }
+        }
+        if (expired.isEmpty()) {
+            return expired;
+        }
+        if (archiver != null) {
+            try {
+                archiver.accept(expired);
+            } catch (RuntimeException e) {
+                // Tâches gardées, et de nouveau en file pour la tranche suivante
+                for (int i = 0; i < count; i++) {
+                    queue.add(completedAt[i], ids[i]);
+                }
+                throw e;
+            }
+        }
+        List<Task> removed = new ArrayList<>(expired.size());
+        long lastTicket = 0;
+        for (Task task : expired) {
+            Applied applied = remove(task.getId(), task.getVersion());
+            if (applied != Applied.NOT_FOUND && !applied.conflict()) {
+                removed.add(task);
+                lastTicket = Math.max(lastTicket, applied.ticket());
+            }
+        }
+        persistence.sync(lastTicket);
+        return removed;
+    }
+
+    /**
+     * Application d'une modification rechargée depuis la persistance
+     * @param mutation Modification à rejouer
+     */
+    private void replay(TaskMutation mutation) {
+        Task previous = store.get(mutation.id());
+        if (mutation.type() == TaskMutation.Type.DELETE) {
+            if (previous != null) {
+                store.remove(mutation.id());
+                searchIndex.remove(previous);
+                sortIndex.remove(previous);
+            }
+            return;
+        }
+        Task task = mutation.toTask();
+        store.put(task);
+        if (previous != null) {
+            sortIndex.update(task);
+        } else {
+            sortIndex.add(task);
+        }
+        // Une mise à jour du statut ne change pas les mots de la tâche
+        if (previous == null || !Objects.equals(previous.getLabel(), task.getLabel())
+                || !Objects.equals(previous.getDescription(), task.getDescription())) {
+            if (previous != null) {
+                searchIndex.remove(previous);
+            }
+            searchIndex.add(task);
+        }
+    }
+
+    /**
+     * Version du stockage, incrémentée après chaque modification.
+     * Elle est lue avant les données : des données lues ensuite sont au moins aussi récentes que cette version.
+     * @return Version courante
+     */
+    public long getVersion() {
+        return changes.currentSequence();
+    }
+
+    /**
+     * Identifiant de cette instance du stockage, à combiner avec la version qui repart de 0 à chaque démarrage
+     * @return Identifiant tiré au hasard au démarrage
+     */
+    public long getEpoch() {
+        return changes.epoch();
+    }
+
+    /**
+     * Récupération des modifications postérieures à une version, pour mettre à jour une liste déjà lue
+     * @param since Version de la liste du client
+     * @param epoch Identifiant de l'instance qui a fourni cette version, null s'il n'est pas connu
+     * @return Modifications, ou demande de relecture complète si elles ne sont plus disponibles
+     */
+    public TaskChanges getChangesSince(long since, Long epoch) {
+        long current = changes.epoch();
+        List<TaskChange> changesSince = epoch == null || epoch == current ? changes.readSince(since, MAX_PAGE_SIZE) : null;
+        if (changesSince == null) {
+            return new TaskChanges(current, getVersion(), true, List.of());
+        }
+        long reached = changesSince.isEmpty() ? since : changesSince.get(changesSince.size() - 1).getSequence();
+        return new TaskChanges(current, reached, false, changesSince);
+    }
+
     /**
      * Ajout d'une nouvelle tâche
      * @param newTask Données de la tâche à ajouter
      * @return Tâche créée
      */
     public Task addTask(Task newTask) {
-        Long id = idCounter.incrementAndGet();
-        newTask.setId(id);
-        tasksList.put(id, newTask);
-        return newTask;
+        long start = System.nanoTime();
+        Applied applied = insert(nextId(), newTask);
+        // Attente de l'écriture sur disque sans garder le verrou
+        persistence.sync(applied.ticket());
+        TaskMetrics.record(metrics.add, start);
+        return applied.task();
     }
 
     /**
-     * Récupération de toutes les tâches
+     * Récupération de toutes les tâches, telles qu'elles étaient à la version du stockage lue au début :
+     * la liste ne mélange pas des états d'avant et d'après une modification faite pendant la lecture
      * @return Liste des tâches en mémoire
      */
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasksList.values());
+        long start = System.nanoTime();
+        List<Task> tasks = new ArrayList<>(store.size());
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            versions.iterator(snapshot, store.iterator(0, false), 0, false).forEachRemaining(tasks::add);
+        }
+        TaskMetrics.record(metrics.all, start);
+        metrics.listedAll.increment(tasks.size());
+        return tasks;
     }
 
     /**
-     * Récupération des tâches à effectuer
+     * Récupération des tâches à effectuer, à partir de l'index : le coût dépend du nombre de tâches à effectuer
+     * et de tâches modifiées pendant la lecture. Comme {@link #getAllTasks()}, à la version lue au début
      * @return Liste des tâches dont le statut completed est à false
      */
     public List<Task> getTodoTasks() {
-        return tasksList.values().stream()
-                .filter(task -> !task.isCompleted())
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<Task> tasks = new ArrayList<>();
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            versions.iterator(snapshot, store.iterator(0, true), 0, true).forEachRemaining(tasks::add);
+        }
+        TaskMetrics.record(metrics.todo, start);
+        metrics.listedTodo.increment(tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Parcours paresseux des tâches, triées par id, sans copie du stockage.
+     * Le parcours ne bloque pas les modifications : une tâche modifiée pendant le parcours peut apparaître
+     * dans son état avant ou après modification. Il ne retient pas de version du stockage : un parcours
+     * interrompu ou abandonné par un client lent empêcherait de libérer les états remplacés depuis.
+     * @param todoOnly true pour ne parcourir que les tâches à effectuer
+     * @return Itérateur sur les tâches
+     */
+    public Iterator<Task> iterateTasks(boolean todoOnly) {
+        return store.iterator(0, todoOnly);
+    }
+
+    /**
+     * Récupération d'une page de tâches, triées par id, à la version du stockage lue au début de la page
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param limit Nombre maximum de tâches dans la page, borné à {@link #MAX_PAGE_SIZE}
+     * @return Page de tâches, avec le curseur vers la page suivante
+     */
+    public TaskPage getTasksPage(Long after, int limit) {
+        return readPage(after, false, limit);
+    }
+
+    /**
+     * Récupération d'une page de tâches à effectuer, triées par id, à la version du stockage lue au début de la page
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param limit Nombre maximum de tâches dans la page, borné à {@link #MAX_PAGE_SIZE}
+     * @return Page de tâches dont le statut completed est à false, avec le curseur vers la page suivante
+     */
+    public TaskPage getTodoTasksPage(Long after, int limit) {
+        return readPage(after, true, limit);
+    }
+
+    /**
+     * Récupération d'une plage de tâches par rang, triées par id, pour afficher une partie de la liste sans la lire
+     * en entier (défilement virtuel). Le stockage donne la position de la tranche d'ids qui contient le rang :
+     * seules les tâches de cette tranche qui précèdent le rang sont parcourues. Les tâches sont lues à la version
+     * du stockage lue au début de la plage ; le rang, compté sur le stockage courant, peut varier des tâches
+     * modifiées pendant la lecture. Le nombre total est celui du stockage à la fin de la lecture ; quand la plage
+     * atteint la fin de la liste, c'est le rang de sa dernière tâche plus un, cohérent avec la plage.
+     * @param offset Rang de la première tâche, à partir de 0
+     * @param limit Nombre maximum de tâches dans la plage, borné à {@link #MAX_PAGE_SIZE}
+     * @param todoOnly true pour ne lire que les tâches à effectuer
+     * @return Plage de tâches, avec le nombre total de tâches de la liste
+     */
+    public TaskRange getTasksRange(int offset, int limit, boolean todoOnly) {
+        int from = Math.max(0, offset);
+        int rangeSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Task> tasks = new ArrayList<>(Math.min(rangeSize, 64));
+        TaskStore.RankCursor cursor = store.seek(from, todoOnly);
+        int rank = Math.min(cursor.rank(), from);
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            Iterator<Task> iterator = versions.iterator(snapshot, store.iterator(cursor.after(), todoOnly), cursor.after(), todoOnly);
+            for (; rank < from && iterator.hasNext(); rank++) {
+                iterator.next();
+            }
+            while (iterator.hasNext() && tasks.size() < rangeSize) {
+                tasks.add(iterator.next());
+            }
+        }
+        if (tasks.size() < rangeSize) {
+            // Fin de la liste atteinte à la version lue, éventuellement avant le rang demandé
+            return new TaskRange(from, rank + tasks.size(), tasks);
+        }
+        int total = todoOnly ? store.todoCount() : store.size();
+        return new TaskRange(from, Math.max(total, from + tasks.size()), tasks);
+    }
+
+    /**
+     * Récupération d'une page de tâches filtrées et triées, à partir des index de tri : le coût dépend de la taille
+     * de la page et des tâches écartées par le filtre qui ne porte pas sur la clé de tri, pas du nombre de tâches.
+     * Une lecture de toutes les tâches ou des tâches à effectuer par id croissant est servie par le stockage.
+     * @param query Filtres et tri
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param afterLabel Libellé de cette tâche pour le tri par libellé, null pour le lire dans le stockage
+     * @param limit Nombre maximum de tâches dans la page, borné à {@link #MAX_PAGE_SIZE}
+     * @return Page de tâches, avec le curseur vers la page suivante ; null si le tri est par libellé et que
+     * la tâche du curseur, sans libellé fourni, n'existe plus
+     */
+    public TaskPage queryTasks(TaskQuery query, Long after, String afterLabel, int limit) {
+        if (query.isPlain()) {
+            return query.completed() == null ? getTasksPage(after, limit) : getTodoTasksPage(after, limit);
+        }
+        if (after != null && query.sort() == TaskQuery.Sort.LABEL && afterLabel == null) {
+            Task cursor = store.get(after);
+            if (cursor == null) {
+                return null;
+            }
+            afterLabel = cursor.getLabel() == null ? "" : cursor.getLabel();
+        }
+        Iterator<Long> ids = sortIndex.ids(query, after, afterLabel);
+        return readPage(new Iterator<>() {
+            private Task next;
+
+            @Override
+            public boolean hasNext() {
+                // Une tâche supprimée, ou dont le statut a changé depuis la lecture de l'index, est ignorée
+                while (next == null && ids.hasNext()) {
+                    Task task = store.get(ids.next());
+                    if (task != null && query.matches(task)) {
+                        next = task;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task task = next;
+                next = null;
+                return task;
+            }
+        }, limit);
+    }
+
+    /**
+     * Lecture d'une page du stockage à une version
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param todoOnly true pour ne lire que les tâches à effectuer
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches
+     */
+    private TaskPage readPage(Long after, boolean todoOnly, int limit) {
+        long from = after == null ? 0 : after;
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            return readPage(versions.iterator(snapshot, store.iterator(from, todoOnly), from, todoOnly), limit);
+        }
+    }
+
+    /**
+     * Lecture d'une page à partir d'un itérateur déjà positionné sur le curseur
+     * @param iterator Tâches suivant le curseur, dans l'ordre de la lecture
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches
+     */
+    private static TaskPage readPage(Iterator<Task> iterator, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Task> tasks = new ArrayList<>(Math.min(pageSize, 64));
+        while (iterator.hasNext() && tasks.size() < pageSize) {
+            tasks.add(iterator.next());
+        }
+        // Le curseur n'est renvoyé que s'il reste des tâches à lire après la page
+        Long nextCursor = tasks.size() == pageSize && iterator.hasNext()
+                ? tasks.get(tasks.size() - 1).getId()
+                : null;
+        return new TaskPage(tasks, nextCursor);
+    }
+
+    /**
+     * Recherche plein texte dans les libellés et descriptions, sans tenir compte des accents ni des majuscules
+     * @param query Mots recherchés : une tâche doit contenir chacun d'eux, ou un mot qui commence par lui
+     * @param offset Nombre de résultats à ignorer, pour la pagination
+     * @param limit Nombre maximum de tâches dans la page, borné à {@link #MAX_PAGE_SIZE}
+     * @return Page de tâches, des plus pertinentes aux moins pertinentes
+     */
+    public TaskSearchPage searchTasks(String query, int offset, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Un résultat de plus pour savoir s'il y a une page suivante
+        long[] ids = searchIndex.search(query, offset, pageSize + 1);
+        List<Task> tasks = new ArrayList<>(Math.min(ids.length, pageSize));
+        for (int i = 0; i < ids.length && i < pageSize; i++) {
+            // Une tâche supprimée depuis la recherche est ignorée
+            Task task = store.get(ids[i]);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return new TaskSearchPage(tasks, ids.length > pageSize ? offset + pageSize : null);
     }
 
     /**
@@ -59,24 +493,37 @@ public class TodoListService {
      * @return Tâche trouvée, null si non trouvée
      */
     public Task getTaskById(Long id) {
-        return tasksList.get(id);
+        return store.get(id);
     }
 
     /**
-     * Modification du statut d'une tâche
+     * Modification du statut d'une tâche, quelle que soit sa version
      * @param id id de la tâche à modifier
      * @param completed Nouveau statut de la tâche
      * @return Tâche mise à jour
      */
     public Task updateTask(Long id, boolean completed) {
-        // Vérifie si la tâche avec cet ID existe
-        Task task = tasksList.get(id);
-        if (task != null) {
-            task.setCompleted(completed);
-            return task;
-        } else{
-            return null;
+        return updateTask(id, completed, null);
+    }
+
+    /**
+     * Modification du statut d'une tâche, si elle n'a pas été modifiée depuis la version lue par le client
+     * @param id id de la tâche à modifier
+     * @param completed Nouveau statut de la tâche
+     * @param expectedVersion Version lue par le client, null pour modifier la tâche quelle que soit sa version
+     * @return Nouvelle version de la tâche, null si elle n'existe pas
+     * @throws TaskVersionConflictException si la tâche a changé de version entre-temps
+     */
+    public Task updateTask(Long id, boolean completed, Long expectedVersion) {
+        long start = System.nanoTime();
+        Applied applied = update(id, completed, expectedVersion);
+        if (applied.conflict()) {
+            TaskMetrics.record(metrics.updateConflict, start);
+            throw new TaskVersionConflictException(applied.task());
         }
+        persistence.sync(applied.ticket());
+        TaskMetrics.record(applied == Applied.NOT_FOUND ? metrics.updateNotFound : metrics.updated, start);
+        return applied.task();
     }
 
     /**
@@ -85,6 +532,242 @@ public class TodoListService {
      * @return true si la tâche a été trouvée et supprimée, false sinon
      */
     public boolean deleteTask(Long id) {
-        return tasksList.remove(id) != null;
+        long start = System.nanoTime();
+        Applied applied = remove(id);
+        persistence.sync(applied.ticket());
+        boolean deleted = applied != Applied.NOT_FOUND;
+        TaskMetrics.record(deleted ? metrics.deleted : metrics.deleteNotFound, start);
+        return deleted;
+    }
+
+    /**
+     * Application d'un lot d'opérations en une seule passe.
+     * Les ids des tâches ajoutées sont réservés avant d'appliquer le lot (en un seul bloc pour un nœud seul), et l'écriture sur disque n'est attendue
+     * qu'une fois, après la dernière opération. Une mise à jour qui porte une version est refusée (409)
+     * si la tâche a changé de version, les autres opérations du lot sont appliquées.
+     * @param operations Opérations à appliquer, dans l'ordre
+     * @return Résultat de chaque opération, dans le même ordre
+     */
+    public List<TaskOperationResult> applyBatch(List<TaskOperation> operations) {
+        int adds = (int) operations.stream()
+                .filter(operation -> operation != null && operation.getType() == TaskOperation.Type.ADD && operation.getTask() != null)
+                .count();
+        long[] ids = reserveIds(adds);
+        int nextId = 0;
+
+        List<TaskOperationResult> results = new ArrayList<>(operations.size());
+        long lastTicket = 0;
+        for (TaskOperation operation : operations) {
+            Task task = operation == null ? null : operation.getTask();
+            if (task == null || operation.getType() == null
+                    || (operation.getType() != TaskOperation.Type.ADD && task.getId() == null)) {
+                results.add(new TaskOperationResult(400, null));
+                continue;
+            }
+            Applied applied = switch (operation.getType()) {
+                case ADD -> insert(ids[nextId++], task);
+                case UPDATE -> update(task.getId(), task.isCompleted(), task.getVersion());
+                case DELETE -> remove(task.getId());
+            };
+            lastTicket = Math.max(lastTicket, applied.ticket());
+            results.add(new TaskOperationResult(status(operation.getType(), applied), applied.task()));
+        }
+        persistence.sync(lastTicket);
+        return results;
+    }
+
+    private static int status(TaskOperation.Type type, Applied applied) {
+        if (applied == Applied.NOT_FOUND) {
+            return 404;
+        }
+        if (applied.conflict()) {
+            return 409;
+        }
+        return switch (type) {
+            case ADD -> 201;
+            case UPDATE -> 200;
+            case DELETE -> 204;
+        };
+    }
+
+    /**
+     * Attribution d'un nouvel id : dans un cluster, les ids dont un autre nœud est propriétaire sont sautés
+     * @return id unique dans tout le cluster
+     */
+    private long nextId() {
+        long id;
+        do {
+            id = idCounter.incrementAndGet();
+        } while (!idPartition.owns(id));
+        return id;
+    }
+
+    /**
+     * Réservation des ids d'un lot d'ajouts
+     * @param count Nombre d'ids
+     * @return ids croissants
+     */
+    private long[] reserveIds(int count) {
+        long[] ids = new long[count];
+        if (idPartition.ownsAll()) {
+            long first = idCounter.getAndAdd(count) + 1;
+            for (int i = 0; i < count; i++) {
+                ids[i] = first + i;
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                ids[i] = nextId();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ajout d'une tâche en mémoire et dans le journal, sans attendre l'écriture sur disque
+     * @param id id attribué à la tâche
+     * @param newTask Tâche à ajouter
+     * @return Tâche ajoutée et ticket de persistance
+     */
+    private Applied insert(long id, Task newTask) {
+        // Instantané de la tâche, en version 1 : l'objet reçu reste au client. Une tâche terminée est datée de son ajout
+        Task task = new Task(id, newTask.getLabel(), newTask.getDescription(), newTask.isCompleted(), 1L,
+                newTask.isCompleted() ? System.currentTimeMillis() : null);
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        TaskVersions.Version version = null;
+        try {
+            // Journal vérifié avant la modification : une modification qu'il refuserait ne doit pas être visible
+            persistence.ensureWritable();
+            version = versions.record(id, null);
+            store.put(task);
+            searchIndex.add(task);
+            sortIndex.add(task);
+            trackCompletion(task);
+            versions.commit(version, () -> changes.publish(TaskChange.Type.ADD, id, task));
+            return new Applied(task, persistence.append(TaskMutation.add(task)));
+        } finally {
+            abort(version);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Modification du statut d'une tâche en mémoire et dans le journal, sans attendre l'écriture sur disque.
+     * La version est comparée sous le verrou de la tâche : entre la comparaison et le remplacement,
+     * aucune autre modification de la tâche ne peut s'intercaler.
+     * @param id id de la tâche à modifier
+     * @param completed Nouveau statut de la tâche
+     * @param expectedVersion Version attendue, null pour ne pas la vérifier
+     * @return Tâche mise à jour et ticket de persistance, {@link Applied#NOT_FOUND} si la tâche n'existe pas,
+     * ou la tâche courante marquée en conflit si sa version n'est pas celle attendue
+     */
+    private Applied update(Long id, boolean completed, Long expectedVersion) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        TaskVersions.Version version = null;
+        try {
+            // Vérifie si la tâche avec cet ID existe ; l'état lu est rangé pour les lectures en cours
+            Task current = store.get(id);
+            if (current == null) {
+                return Applied.NOT_FOUND;
+            }
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                return new Applied(current, 0, true);
+            }
+            persistence.ensureWritable();
+            version = versions.record(id, current);
+            Task task = store.setCompleted(id, completed);
+            sortIndex.update(task);
+            // Une tâche n'est suivie qu'une fois quand elle est terminée de nouveau
+            if (!Objects.equals(current.getCompletedAt(), task.getCompletedAt())) {
+                trackCompletion(task);
+            }
+            versions.commit(version, () -> changes.publish(TaskChange.Type.UPDATE, id, task));
+            return new Applied(task, persistence.append(TaskMutation.update(task)));
+        } finally {
+            abort(version);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Suivi d'une tâche qui vient d'être terminée, si la rétention est activée
+     * @param task Tâche ajoutée ou modifiée
+     */
+    private void trackCompletion(Task task) {
+        TaskExpiryQueue queue = expiries;
+        if (queue != null && task.isCompleted() && task.getCompletedAt() != null) {
+            queue.add(task.getCompletedAt(), task.getId());
+        }
+    }
+
+    private Applied remove(Long id) {
+        return remove(id, null);
+    }
+
+    /**
+     * Suppression d'une tâche en mémoire et dans le journal, sans attendre l'écriture sur disque
+     * @param id id de la tâche à supprimer
+     * @param expectedVersion Version attendue, null pour ne pas la vérifier
+     * @return Ticket de persistance, {@link Applied#NOT_FOUND} si la tâche n'existe pas,
+     * ou la tâche courante marquée en conflit si sa version n'est pas celle attendue
+     */
+    private Applied remove(Long id, Long expectedVersion) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        TaskVersions.Version version = null;
+        try {
+            Task task = store.get(id);
+            if (task == null) {
+                return Applied.NOT_FOUND;
+            }
+            if (expectedVersion != null && !expectedVersion.equals(task.getVersion())) {
+                return new Applied(task, 0, true);
+            }
+            persistence.ensureWritable();
+            version = versions.record(id, task);
+            store.remove(id);
+            searchIndex.remove(task);
+            sortIndex.remove(task);
+            versions.commit(version, () -> changes.publish(TaskChange.Type.DELETE, id, null));
+            return new Applied(null, persistence.append(TaskMutation.delete(id)));
+        } finally {
+            abort(version);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Abandon de l'état rangé d'une modification qui a échoué avant d'être publiée, sous le verrou de la tâche
+     * @param version État rangé, null si la modification n'a pas commencé
+     */
+    private void abort(TaskVersions.Version version) {
+        if (version != null) {
+            versions.abort(version);
+        }
+    }
+
+    /**
+     * Modification appliquée en mémoire
+     * @param task Tâche après modification, null pour une suppression, tâche courante en cas de conflit
+     * @param ticket Ticket à attendre pour que la modification soit durable
+     * @param conflict true si la modification n'a pas été appliquée, la tâche ayant changé de version
+     */
+    private record Applied(Task task, long ticket, boolean conflict) {
+        static final Applied NOT_FOUND = new Applied(null, 0, false);
+
+        Applied(Task task, long ticket) {
+            this(task, ticket, false);
+        }
+    }
+
+    /**
+     * Verrou de la tranche à laquelle appartient un id
+     * @param id id de la tâche
+     * @return Verrou à utiliser pour modifier la tâche
+     */
+    private ReentrantLock lockFor(Long id) {
+        long hash = id ^ (id >>> 32);
+        return locks[(int) hash & (LOCK_STRIPES - 1)];
     }
 }
\ No newline at end of file
@@ -0,0 +1,534 @@
+package com.sylvain.fullstack.todo_list.store;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Stockage compact des tâches, dans des tableaux de types primitifs plutôt qu'un objet par tâche.
+ * <ul>
+ *     <li>Chaque tâche occupe une case : son id, sa version, sa date de fin, la position de ses textes et son statut
+ *     (bit de l'index des tâches à effectuer) sont rangés dans des tableaux indexés par la case</li>
+ *     <li>Une table à adressage ouvert (sondage linéaire, clés long) donne la case d'un id</li>
+ *     <li>Un tableau des ids triés, avec la case de chacun, sert aux parcours et à la pagination par curseur.
+ *     Les ids étant attribués dans l'ordre, un ajout se fait presque toujours à la fin du tableau</li>
+ *     <li>Libellés et descriptions sont encodés en UTF-8 dans des blocs de 1 Mio, compactés quand plus de
+ *     la moitié de leur contenu appartient à des tâches supprimées ou remplacées</li>
+ * </ul>
+ * Le ramasse-miettes ne voit que quelques dizaines de grands tableaux, quel que soit le nombre de tâches.
+ * Les objets Task sont créés à la lecture. Un verrou unique protège les tableaux : les lectures se font en parallèle,
+ * les modifications l'une après l'autre, et un parcours relâche le verrou tous les {@value #CHUNK_SIZE} tâches.
+ */
+public class CompactTaskStore implements TaskStore {
+
+    /** Taille d'un bloc de textes ; une tâche dont les textes sont plus grands a son propre bloc */
+    static final int SLAB_SIZE = 1 << 20;
+    /** Nombre maximum de tâches lues par un parcours à chaque prise du verrou */
+    private static final int CHUNK_SIZE = 256;
+    /** Nombre de tâches lues à la première prise du verrou, doublé ensuite : une page courte n'en lit pas plus */
+    private static final int FIRST_CHUNK_SIZE = 16;
+    /** Longueur enregistrée pour un texte null */
+    private static final int NULL_LENGTH = -1;
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final StampedLock lock = new StampedLock();
+
+    // Table id -> case à adressage ouvert ; 0 marque une entrée vide, les ids étant strictement positifs
+    private long[] keys = new long[16];
+    private int[] values = new int[16];
+    private int size;
+
+    // Colonnes indexées par la case de la tâche
+    private long[] slotIds = new long[16];
+    // Position des textes : numéro de bloc sur les 32 bits de poids fort, position dans le bloc sur les autres
+    private long[] slotTexts = new long[16];
+    // Versions : un int suffit, une tâche n'étant pas modifiée deux milliards de fois
+    private int[] slotVersions = new int[16];
+    // Dates de fin en millisecondes, 0 pour une tâche à effectuer ou une date inconnue
+    private long[] slotCompletedAt = new long[16];
+    // Cases des tâches à effectuer
+    private final BitSet todo = new BitSet();
+    // Nombre de bits à 1 de l'index, tenu à jour : BitSet.cardinality() parcourt tout l'index
+    private int todoCount;
+    // Nombre de tâches par tranche d'ids, pour trouver un rang sans parcourir les tâches qui le précèdent
+    private final TaskRankIndex ranks = new TaskRankIndex();
+    private int usedSlots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // Ids triés et case de chacun, -1 pour une tâche supprimée pas encore retirée du tableau
+    private long[] sortedIds = new long[16];
+    private int[] sortedSlots = new int[16];
+    private int sortedCount;
+    private int removedCount;
+
+    // Blocs de textes : [longueur du libellé][libellé][longueur de la description][description]
+    private byte[][] slabs = new byte[4][];
+    private int slabCount;
+    private int writeSlab = -1;
+    private int writePosition;
+    private long liveBytes;
+    private long garbageBytes;
+
+    @Override
+    public void put(Task task) {
+        long id = task.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("id de tâche invalide : " + id);
+        }
+        byte[] label = encode(task.getLabel());
+        byte[] description = encode(task.getDescription());
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(id);
+            if (slot >= 0) {
+                release(slotTexts[slot]);
+            } else {
+                slot = allocateSlot();
+                slotIds[slot] = id;
+                insertKey(id, slot);
+                insertSorted(id, slot);
+                ranks.add(id, 1, 0);
+            }
+            slotTexts[slot] = write(label, description);
+            slotVersions[slot] = task.getVersion() == null ? 1 : task.getVersion().intValue();
+            slotCompletedAt[slot] = task.getCompletedAt() == null ? 0 : task.getCompletedAt();
+            setTodo(slot, !task.isCompleted());
+            compactSlabsIfNeeded();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Task get(long id) {
+        long stamp = lock.readLock();
+        try {
+            int slot = find(id);
+            return slot < 0 ? null : read(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Task setCompleted(long id, boolean completed) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return null;
+            }
+            // Une tâche déjà terminée garde sa date de fin, comme Task.withCompleted
+            if (!completed) {
+                slotCompletedAt[slot] = 0;
+            } else if (todo.get(slot)) {
+                slotCompletedAt[slot] = System.currentTimeMillis();
+            }
+            setTodo(slot, !completed);
+            slotVersions[slot]++;
+            return read(slot);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return false;
+            }
+            removeKey(id);
+            removeSorted(id);
+            release(slotTexts[slot]);
+            setTodo(slot, false);
+            ranks.add(id, -1, 0);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            compactSlabsIfNeeded();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int todoCount() {
+        long stamp = lock.readLock();
+        try {
+            return todoCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Modification du bit d'une case dans l'index des tâches à effectuer, sous le verrou en écriture
+     * @param slot Case de la tâche
+     * @param todo true si la tâche est à effectuer
+     */
+    private void setTodo(int slot, boolean todo) {
+        if (this.todo.get(slot) != todo) {
+            this.todo.set(slot, todo);
+            todoCount += todo ? 1 : -1;
+            ranks.add(slotIds[slot], 0, todo ? 1 : -1);
+        }
+    }
+
+    @Override
+    public RankCursor seek(int offset, boolean todoOnly) {
+        // Compteurs tenus sous le verrou en écriture, lus sans verrou : le rang est exact sans modification en cours
+        return ranks.seek(offset, todoOnly);
+    }
+
+    @Override
+    public Iterator<Task> iterator(long after, boolean todoOnly) {
+        return new Iterator<>() {
+            private Task[] chunk = new Task[FIRST_CHUNK_SIZE];
+            private int index;
+            private int count;
+            // Dernier id examiné : le parcours reprend après lui, même si le tableau trié a été modifié entre-temps
+            private long cursor = after;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (index == count && !exhausted) {
+                    readChunk();
+                }
+                return index < count;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task task = chunk[index];
+                chunk[index++] = null;
+                return task;
+            }
+
+            private void readChunk() {
+                if (count == chunk.length && chunk.length < CHUNK_SIZE) {
+                    chunk = new Task[chunk.length * 2];
+                }
+                index = 0;
+                count = 0;
+                long stamp = lock.readLock();
+                try {
+                    int position = upperBound(cursor);
+                    // Borne le temps passé sous verrou quand les tâches à effectuer sont rares
+                    int end = Math.min(sortedCount, position + CHUNK_SIZE * 16);
+                    while (position < end && count < chunk.length) {
+                        int slot = sortedSlots[position];
+                        cursor = sortedIds[position++];
+                        if (slot >= 0 && (!todoOnly || todo.get(slot))) {
+                            chunk[count++] = read(slot);
+                        }
+                    }
+                    exhausted = position >= sortedCount;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+        };
+    }
+
+    /**
+     * Création d'une tâche à partir de sa case, sous verrou
+     */
+    private Task read(int slot) {
+        long reference = slotTexts[slot];
+        byte[] slab = slabs[(int) (reference >>> 32)];
+        int position = (int) reference;
+        int labelLength = (int) INT.get(slab, position);
+        String label = decode(slab, position + Integer.BYTES, labelLength);
+        position += Integer.BYTES + Math.max(labelLength, 0);
+        String description = decode(slab, position + Integer.BYTES, (int) INT.get(slab, position));
+        long completedAt = slotCompletedAt[slot];
+        return new Task(slotIds[slot], label, description, !todo.get(slot), (long) slotVersions[slot],
+                completedAt == 0 ? null : completedAt);
+    }
+
+    private static byte[] encode(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(byte[] slab, int position, int length) {
+        return length == NULL_LENGTH ? null : new String(slab, position, length, StandardCharsets.UTF_8);
+    }
+
+    private static int recordSize(byte[] label, byte[] description) {
+        return 2 * Integer.BYTES + (label == null ? 0 : label.length) + (description == null ? 0 : description.length);
+    }
+
+    private int recordSize(long reference) {
+        byte[] slab = slabs[(int) (reference >>> 32)];
+        int position = (int) reference;
+        int labelLength = Math.max((int) INT.get(slab, position), 0);
+        int descriptionLength = Math.max((int) INT.get(slab, position + Integer.BYTES + labelLength), 0);
+        return 2 * Integer.BYTES + labelLength + descriptionLength;
+    }
+
+    /**
+     * Écriture des textes d'une tâche à la suite du bloc courant
+     * @return Position des textes
+     */
+    private long write(byte[] label, byte[] description) {
+        int recordSize = recordSize(label, description);
+        int slab;
+        int position;
+        if (recordSize > SLAB_SIZE) {
+            slab = addSlab(new byte[recordSize]);
+            position = 0;
+        } else {
+            if (writeSlab < 0 || writePosition + recordSize > SLAB_SIZE) {
+                if (writeSlab >= 0) {
+                    // La fin du bloc précédent reste inutilisée
+                    garbageBytes += SLAB_SIZE - writePosition;
+                }
+                writeSlab = addSlab(new byte[SLAB_SIZE]);
+                writePosition = 0;
+            }
+            slab = writeSlab;
+            position = writePosition;
+            writePosition += recordSize;
+        }
+        byte[] bytes = slabs[slab];
+        int offset = writeText(bytes, position, label);
+        writeText(bytes, offset, description);
+        liveBytes += recordSize;
+        return (long) slab << 32 | position;
+    }
+
+    private static int writeText(byte[] slab, int position, byte[] text) {
+        INT.set(slab, position, text == null ? NULL_LENGTH : text.length);
+        position += Integer.BYTES;
+        if (text != null) {
+            System.arraycopy(text, 0, slab, position, text.length);
+            position += text.length;
+        }
+        return position;
+    }
+
+    private int addSlab(byte[] slab) {
+        if (slabCount == slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabCount * 2);
+        }
+        slabs[slabCount] = slab;
+        return slabCount++;
+    }
+
+    /**
+     * Textes d'une tâche supprimée ou remplacée : ils restent dans leur bloc jusqu'au prochain compactage
+     */
+    private void release(long reference) {
+        int recordSize = recordSize(reference);
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+    }
+
+    /**
+     * Recopie des textes des tâches existantes dans de nouveaux blocs, quand les anciens sont à moitié vides.
+     * Le coût est proportionnel aux textes conservés, donc au plus à ceux libérés depuis le compactage précédent.
+     */
+    private void compactSlabsIfNeeded() {
+        if (garbageBytes < SLAB_SIZE || garbageBytes < liveBytes) {
+            return;
+        }
+        byte[][] oldSlabs = slabs;
+        slabs = new byte[Math.max(4, slabCount)][];
+        slabCount = 0;
+        writeSlab = -1;
+        liveBytes = 0;
+        garbageBytes = 0;
+        for (int i = 0; i < sortedCount; i++) {
+            int slot = sortedSlots[i];
+            if (slot < 0) {
+                continue;
+            }
+            long reference = slotTexts[slot];
+            byte[] slab = oldSlabs[(int) (reference >>> 32)];
+            int position = (int) reference;
+            int labelLength = (int) INT.get(slab, position);
+            byte[] label = labelLength == NULL_LENGTH ? null
+                    : Arrays.copyOfRange(slab, position + Integer.BYTES, position + Integer.BYTES + labelLength);
+            position += Integer.BYTES + Math.max(labelLength, 0);
+            int descriptionLength = (int) INT.get(slab, position);
+            byte[] description = descriptionLength == NULL_LENGTH ? null
+                    : Arrays.copyOfRange(slab, position + Integer.BYTES, position + Integer.BYTES + descriptionLength);
+            slotTexts[slot] = write(label, description);
+        }
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (usedSlots == slotIds.length) {
+            slotIds = Arrays.copyOf(slotIds, usedSlots * 2);
+            slotTexts = Arrays.copyOf(slotTexts, usedSlots * 2);
+            slotVersions = Arrays.copyOf(slotVersions, usedSlots * 2);
+            slotCompletedAt = Arrays.copyOf(slotCompletedAt, usedSlots * 2);
+        }
+        return usedSlots++;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return Case de la tâche, -1 si elle n'existe pas
+     */
+    private int find(long id) {
+        if (id <= 0) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+            long key = keys[i];
+            if (key == id) {
+                return values[i];
+            }
+            if (key == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void insertKey(long id, int slot) {
+        // Taux de remplissage maximum de 3/4
+        if ((size + 1) * 4L > keys.length * 3L) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    place(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        place(id, slot);
+        size++;
+    }
+
+    private void place(long id, int slot) {
+        int mask = keys.length - 1;
+        int i = hash(id) & mask;
+        while (keys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = id;
+        values[i] = slot;
+    }
+
+    /**
+     * Suppression par décalage arrière : les entrées suivantes sont rapprochées de leur position idéale,
+     * sans marqueur de suppression qui ralentirait les recherches
+     */
+    private void removeKey(long id) {
+        int mask = keys.length - 1;
+        int hole = hash(id) & mask;
+        while (keys[hole] != id) {
+            hole = (hole + 1) & mask;
+        }
+        keys[hole] = 0;
+        for (int i = (hole + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            // L'entrée peut occuper le trou si sa position idéale n'est pas entre le trou (exclu) et elle
+            boolean between = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!between) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                keys[i] = 0;
+                hole = i;
+            }
+        }
+        size--;
+    }
+
+    private void insertSorted(long id, int slot) {
+        if (sortedCount == sortedIds.length) {
+            sortedIds = Arrays.copyOf(sortedIds, sortedCount * 2);
+            sortedSlots = Arrays.copyOf(sortedSlots, sortedCount * 2);
+        }
+        if (sortedCount == 0 || sortedIds[sortedCount - 1] < id) {
+            sortedIds[sortedCount] = id;
+            sortedSlots[sortedCount++] = slot;
+            return;
+        }
+        int position = upperBound(id - 1);
+        if (sortedIds[position] == id) {
+            // Id d'une tâche supprimée pas encore retirée du tableau
+            sortedSlots[position] = slot;
+            removedCount--;
+            return;
+        }
+        System.arraycopy(sortedIds, position, sortedIds, position + 1, sortedCount - position);
+        System.arraycopy(sortedSlots, position, sortedSlots, position + 1, sortedCount - position);
+        sortedIds[position] = id;
+        sortedSlots[position] = slot;
+        sortedCount++;
+    }
+
+    private void removeSorted(long id) {
+        sortedSlots[upperBound(id - 1)] = -1;
+        removedCount++;
+        // Les ids supprimés sont retirés du tableau en une passe quand ils en occupent le quart
+        if (removedCount > CHUNK_SIZE && removedCount * 4L > sortedCount) {
+            int kept = 0;
+            for (int i = 0; i < sortedCount; i++) {
+                if (sortedSlots[i] >= 0) {
+                    sortedIds[kept] = sortedIds[i];
+                    sortedSlots[kept++] = sortedSlots[i];
+                }
+            }
+            sortedCount = kept;
+            removedCount = 0;
+        }
+    }
+
+    /**
+     * @return Position du premier id strictement supérieur à after dans le tableau trié
+     */
+    private int upperBound(long after) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedIds[middle] <= after) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
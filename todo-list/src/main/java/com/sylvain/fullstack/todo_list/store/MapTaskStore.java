@@ -0,0 +1,122 @@
+package com.sylvain.fullstack.todo_list.store;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stockage des tâches dans une ConcurrentSkipListMap : lectures sans verrou, mais un objet Task, deux String,
+ * une clé Long et des nœuds de liste à enjambements par tâche.
+ */
+public class MapTaskStore implements TaskStore {
+
+    // Tâches triées par id : ConcurrentSkipListMap permet de se positionner sur un id en O(log n)
+    private final ConcurrentSkipListMap<Long, Task> tasks = new ConcurrentSkipListMap<>();
+    // Index des ids des tâches à effectuer, pour ne pas parcourir les tâches terminées
+    private final ConcurrentSkipListSet<Long> todoIds = new ConcurrentSkipListSet<>();
+    // Taille de l'index, tenue à jour : ConcurrentSkipListSet.size() parcourt tout l'ensemble
+    private final AtomicInteger todoCount = new AtomicInteger();
+    // Nombre de tâches par tranche d'ids, pour trouver un rang sans parcourir les tâches qui le précèdent
+    private final TaskRankIndex ranks = new TaskRankIndex();
+
+    @Override
+    public void put(Task task) {
+        if (task.getVersion() == null) {
+            task = new Task(task.getId(), task.getLabel(), task.getDescription(), task.isCompleted(), 1L, task.getCompletedAt());
+        }
+        if (tasks.put(task.getId(), task) == null) {
+            ranks.add(task.getId(), 1, 0);
+        }
+        setTodo(task.getId(), !task.isCompleted());
+    }
+
+    @Override
+    public Task get(long id) {
+        return tasks.get(id);
+    }
+
+    @Override
+    public Task setCompleted(long id, boolean completed) {
+        // Remplacement atomique par une nouvelle version : la tâche déjà lue par d'autres threads n'est pas modifiée
+        Task task = tasks.computeIfPresent(id, (key, current) -> current.withCompleted(completed));
+        if (task == null) {
+            return null;
+        }
+        setTodo(id, !completed);
+        return task;
+    }
+
+    @Override
+    public boolean remove(long id) {
+        setTodo(id, false);
+        if (tasks.remove(id) == null) {
+            return false;
+        }
+        ranks.add(id, -1, 0);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public int todoCount() {
+        return todoCount.get();
+    }
+
+    /**
+     * Ajout ou retrait d'un id de l'index des tâches à effectuer, en tenant son compte à jour
+     * @param id id de la tâche
+     * @param todo true si la tâche est à effectuer
+     */
+    private void setTodo(long id, boolean todo) {
+        if (todo ? todoIds.add(id) : todoIds.remove(id)) {
+            todoCount.addAndGet(todo ? 1 : -1);
+            ranks.add(id, 0, todo ? 1 : -1);
+        }
+    }
+
+    @Override
+    public RankCursor seek(int offset, boolean todoOnly) {
+        return ranks.seek(offset, todoOnly);
+    }
+
+    @Override
+    public Iterator<Task> iterator(long after, boolean todoOnly) {
+        if (!todoOnly) {
+            return tasks.tailMap(after, false).values().iterator();
+        }
+        // Parcours de l'index : une tâche supprimée ou terminée pendant le parcours est ignorée
+        Iterator<Long> ids = todoIds.tailSet(after, false).iterator();
+        return new Iterator<>() {
+            private Task next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && ids.hasNext()) {
+                    Task task = tasks.get(ids.next());
+                    if (task != null && !task.isCompleted()) {
+                        next = task;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task task = next;
+                next = null;
+                return task;
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.sylvain.fullstack.todo_list.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nombre de tâches et de tâches à effectuer par tranche de {@value #BUCKET_SIZE} ids consécutifs, pour trouver
+ * un rang dans la liste triée par id sans parcourir les tâches qui le précèdent : le rang de la première tâche
+ * d'une tranche est la somme des tranches précédentes, soit une addition par tranche (100 pour 100 000 tâches),
+ * puis le parcours reprend au début de la tranche.
+ * Les compteurs sont tenus à jour par le stockage à chaque ajout, suppression et changement de statut.
+ */
+final class TaskRankIndex {
+
+    private static final int BUCKET_BITS = 10;
+    /** Nombre d'ids d'une tranche */
+    static final int BUCKET_SIZE = 1 << BUCKET_BITS;
+
+    // Tranches triées par numéro ; une tranche vidée reste, sans effet sur les rangs
+    private final ConcurrentSkipListMap<Long, Counts> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * Mise à jour des compteurs de la tranche d'un id
+     * @param id id de la tâche
+     * @param tasks Variation du nombre de tâches : 1 pour un ajout, -1 pour une suppression, 0 sinon
+     * @param todo Variation du nombre de tâches à effectuer
+     */
+    void add(long id, int tasks, int todo) {
+        Counts counts = buckets.computeIfAbsent(id >> BUCKET_BITS, bucket -> new Counts());
+        counts.tasks.addAndGet(tasks);
+        counts.todo.addAndGet(todo);
+    }
+
+    /**
+     * @param offset Rang recherché, à partir de 0
+     * @param todoOnly true pour les rangs parmi les tâches à effectuer
+     * @return Curseur juste avant la tranche qui contient ce rang, avec le rang de sa première tâche ;
+     * après la dernière tranche si le rang dépasse le nombre de tâches
+     */
+    TaskStore.RankCursor seek(int offset, boolean todoOnly) {
+        int rank = 0;
+        long after = 0;
+        for (Map.Entry<Long, Counts> bucket : buckets.entrySet()) {
+            Counts counts = bucket.getValue();
+            int count = todoOnly ? counts.todo.get() : counts.tasks.get();
+            if (rank + count > offset) {
+                return new TaskStore.RankCursor(Math.max(0, (bucket.getKey() << BUCKET_BITS) - 1), rank);
+            }
+            rank += count;
+            after = ((bucket.getKey() + 1) << BUCKET_BITS) - 1;
+        }
+        return new TaskStore.RankCursor(after, rank);
+    }
+
+    private static final class Counts {
+        final AtomicInteger tasks = new AtomicInteger();
+        final AtomicInteger todo = new AtomicInteger();
+    }
+}
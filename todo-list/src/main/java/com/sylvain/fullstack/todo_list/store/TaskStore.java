@@ -0,0 +1,76 @@
+package com.sylvain.fullstack.todo_list.store;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+
+import java.util.Iterator;
+
+/**
+ * Stockage en mémoire des tâches, triées par id, avec l'index des tâches à effectuer.
+ * Chaque opération est atomique ; le service sérialise les modifications d'une même tâche avec ses verrous.
+ * Les parcours ne bloquent pas les modifications : une tâche modifiée pendant un parcours peut apparaître
+ * dans son état avant ou après modification.
+ */
+public interface TaskStore {
+
+    /**
+     * Ajout ou remplacement d'une tâche
+     * @param task Tâche, avec son id et sa version (1 si elle est nulle). Elle ne doit plus être modifiée ensuite
+     */
+    void put(Task task);
+
+    /**
+     * @param id id de la tâche
+     * @return Tâche, null si elle n'existe pas
+     */
+    Task get(long id);
+
+    /**
+     * Modification du statut d'une tâche : elle est remplacée par une nouvelle version, de numéro incrémenté
+     * @param id id de la tâche
+     * @param completed Nouveau statut
+     * @return Nouvelle version de la tâche, null si elle n'existe pas
+     */
+    Task setCompleted(long id, boolean completed);
+
+    /**
+     * @param id id de la tâche à supprimer
+     * @return true si la tâche existait
+     */
+    boolean remove(long id);
+
+    /**
+     * @return Nombre de tâches
+     */
+    int size();
+
+    /**
+     * @return Nombre de tâches à effectuer, sans parcourir le stockage
+     */
+    int todoCount();
+
+    /**
+     * Parcours des tâches triées par id, à partir d'un curseur
+     * @param after Les tâches d'id inférieur ou égal sont ignorées
+     * @param todoOnly true pour ne parcourir que les tâches à effectuer
+     * @return Itérateur sur les tâches
+     */
+    Iterator<Task> iterator(long after, boolean todoOnly);
+
+    /**
+     * Position proche d'un rang dans le parcours des tâches triées par id, sans parcourir les tâches qui le précèdent.
+     * Sans modification en cours, le rang est exact ; sinon il peut varier des tâches modifiées pendant la recherche
+     * @param offset Rang recherché, à partir de 0
+     * @param todoOnly true pour les rangs parmi les tâches à effectuer
+     * @return Curseur à passer à {@link #iterator(long, boolean)}, et rang de la première tâche qui le suit,
+     * inférieur ou égal à offset
+     */
+    RankCursor seek(int offset, boolean todoOnly);
+
+    /**
+     * Position dans le parcours des tâches triées par id
+     * @param after Curseur : les tâches d'id inférieur ou égal le précèdent
+     * @param rank Rang de la première tâche après le curseur
+     */
+    record RankCursor(long after, int rank) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.sylvain.fullstack.todo_list.reactive;
+
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Diffusion des modifications en Server-Sent Events pour l'API réactive.
+ * <p>
+ * Une modification ne fait que réveiller le thread de diffusion, qui publie le numéro de la dernière modification
+ * à tous les abonnés : l'écriture ne dépend pas du nombre d'abonnés. Chaque abonné ne garde que le dernier numéro
+ * reçu et lit lui-même dans le journal les modifications qu'il n'a pas envoyées, à la demande de sa connexion :
+ * un abonné lent saute des numéros sans retarder les autres, et reçoit un événement resync s'il prend trop de retard.
+ * Une connexion ouverte n'occupe aucun thread entre deux envois.
+ */
+public class ReactiveTaskChangeStream implements AutoCloseable {
+
+    /** Nombre maximum de modifications lues à la fois dans le journal */
+    static final int MAX_CHANGES_PER_DRAIN = 1000;
+    /** Intervalle des commentaires envoyés pour garder ouvertes les connexions sans modification */
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private final TaskChangeFeed feed;
+    // Numéro de la dernière modification, rejoué à chaque nouvel abonné ; publié par le seul thread de diffusion
+    private final Sinks.Many<Long> sequences = Sinks.many().replay().latest();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public ReactiveTaskChangeStream(TaskChangeFeed feed) {
+        this.feed = feed;
+        sequences.tryEmitNext(feed.currentSequence());
+        this.dispatcher = Thread.ofPlatform().name("todo-reactive-change-dispatcher").daemon().unstarted(this::dispatch);
+        feed.addListener(() -> LockSupport.unpark(dispatcher));
+        dispatcher.start();
+    }
+
+    /**
+     * Flux des modifications d'un client
+     * @param since Numéro de la dernière modification connue du client, -1 pour commencer par un événement resync
+     * @return Événements change, resync si la liste complète doit être relue, et commentaires heartbeat
+     */
+    public Flux<ServerSentEvent<Object>> subscribe(long since) {
+        return Flux.defer(() -> {
+            long[] sent = {since};
+            Flux<ServerSentEvent<Object>> changes = sequences.asFlux()
+                    // Un seul numéro en attente par abonné : le dernier
+                    .onBackpressureLatest()
+                    .publishOn(Schedulers.parallel(), 1)
+                    .concatMapIterable(current -> drain(sent), 1);
+            Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+                    .onBackpressureDrop()
+                    .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
+            return Flux.merge(changes, heartbeats);
+        });
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        sequences.tryEmitComplete();
+    }
+
+    /**
+     * Lecture des modifications non envoyées à un abonné
+     * @param sent Numéro de la dernière modification envoyée, mis à jour
+     * @return Événements à envoyer
+     */
+    private List<ServerSentEvent<Object>> drain(long[] sent) {
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+        while (true) {
+            List<TaskChange> changes = feed.readSince(sent[0], MAX_CHANGES_PER_DRAIN);
+            if (changes == null) {
+                // Modifications plus disponibles : le client doit relire la liste complète, puis reprendre d'ici
+                long current = feed.currentSequence();
+                events.add(ServerSentEvent.builder((Object) current).event("resync").id(feed.eventId(current)).build());
+                sent[0] = current;
+                return events;
+            }
+            for (TaskChange change : changes) {
+                events.add(ServerSentEvent.builder((Object) change).event("change").id(feed.eventId(change.getSequence())).build());
+                sent[0] = change.getSequence();
+            }
+            if (changes.size() < MAX_CHANGES_PER_DRAIN) {
+                return events;
+            }
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            // Les réveils reçus pendant la publication précédente ne sont pas perdus : park revient immédiatement
+            LockSupport.park(this);
+            // Publié même sans nouveau numéro : une modification numérotée mais pas encore rangée lors de la
+            // publication précédente l'est maintenant, son auteur vient de réveiller ce thread
+            sequences.tryEmitNext(feed.currentSequence());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.sylvain.fullstack.todo_list.reactive;
+
+import com.sylvain.fullstack.todo_list.cluster.IdPartition;
+import com.sylvain.fullstack.todo_list.config.ChangeFeedConfiguration;
+import com.sylvain.fullstack.todo_list.config.PersistenceConfiguration;
+import com.sylvain.fullstack.todo_list.config.StoreConfiguration;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Variante réactive de l'API, sur WebFlux et Netty (profil Maven reactive).
+ * <p>
+ * Elle reprend le service, la persistance, le stockage et le journal des modifications de l'application Spring MVC,
+ * avec leurs propriétés. Un nœud seul : ni cluster, ni file d'écriture, ni cache des réponses, ni limitation de débit.
+ * Les beans de ce package ne sont créés que dans une application réactive : l'application Spring MVC, qui analyse
+ * aussi ce package quand le profil est actif, les ignore.
+ */
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import({PersistenceConfiguration.class, StoreConfiguration.class, ChangeFeedConfiguration.class, TodoListService.class})
+public class ReactiveTodoListApplication {
+
+	public static void main(String[] args) {
+		// spring-boot-starter-web est aussi présent : sans ce choix explicite, Spring Boot démarrerait Tomcat
+		new SpringApplicationBuilder(ReactiveTodoListApplication.class)
+				.web(WebApplicationType.REACTIVE)
+				.run(args);
+	}
+
+	/**
+	 * @return Tous les ids : le nœud est seul
+	 */
+	@Bean
+	public IdPartition idPartition() {
+		return IdPartition.all();
+	}
+
+	/**
+	 * Façade non bloquante du service
+	 * @param service Service des tâches
+	 * @return Façade
+	 */
+	@Bean
+	public ReactiveTodoListService reactiveTodoListService(TodoListService service) {
+		return new ReactiveTodoListService(service);
+	}
+
+	/**
+	 * Diffusion des modifications en Server-Sent Events
+	 * @param feed Journal des modifications
+	 * @return Diffusion
+	 */
+	@Bean
+	public ReactiveTaskChangeStream reactiveTaskChangeStream(TaskChangeFeed feed) {
+		return new ReactiveTaskChangeStream(feed);
+	}
+}
@@ -0,0 +1,181 @@
+package com.sylvain.fullstack.todo_list.reactive;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TaskVersionConflictException;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * API des tâches sur WebFlux : mêmes chemins et mêmes réponses que {@link com.sylvain.fullstack.todo_list.controller.TodoListController}
+ * pour les lectures et modifications d'une tâche, les listes, les pages par id et les plages par rang.
+ * <p>
+ * Les listes complètes sont écrites au fil de la lecture du stockage, en tableau JSON ou en NDJSON
+ * (Accept: application/x-ndjson), au rythme du client.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@CrossOrigin(origins = "http://localhost:4200") // Permet les tests Angular en DEV
+@RequestMapping("/api/v1/tasks")
+public class ReactiveTodoListController {
+
+    private final ReactiveTodoListService todoService;
+    private final ReactiveTaskChangeStream changes;
+    private final TodoListService versions;
+
+    @Autowired
+    public ReactiveTodoListController(ReactiveTodoListService todoService, ReactiveTaskChangeStream changes,
+                                      TodoListService versions) {
+        this.todoService = todoService;
+        this.changes = changes;
+        this.versions = versions;
+    }
+
+    /**
+     * Endpoint pour récupérer toutes les tâches
+     * @return Tâches triées par id, écrites au fil de la lecture
+     */
+    @GetMapping(value = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Task> getAllTasks() {
+        return todoService.getAllTasks();
+    }
+
+    /**
+     * Endpoint pour récupérer les tâches à effectuer
+     * @return Tâches triées par id, écrites au fil de la lecture
+     */
+    @GetMapping(value = "/todo", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Task> getTodoTasks() {
+        return todoService.getTodoTasks();
+    }
+
+    /**
+     * Endpoint pour récupérer une page de tâches, triées par id
+     * @param after Curseur renvoyé par la page précédente, absent pour la première page
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches
+     */
+    @GetMapping("/all/page")
+    public Mono<TaskPage> getTasksPage(@RequestParam(required = false) Long after,
+                                       @RequestParam(defaultValue = "50") int limit) {
+        return todoService.getTasksPage(after, limit);
+    }
+
+    /**
+     * Endpoint pour récupérer une page de tâches à effectuer, triées par id
+     * @param after Curseur renvoyé par la page précédente, absent pour la première page
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches
+     */
+    @GetMapping("/todo/page")
+    public Mono<TaskPage> getTodoTasksPage(@RequestParam(required = false) Long after,
+                                           @RequestParam(defaultValue = "50") int limit) {
+        return todoService.getTodoTasksPage(after, limit);
+    }
+
+    /**
+     * Endpoint pour récupérer une plage de tâches par rang, triées par id, avec le nombre total de tâches
+     * @param offset Rang de la première tâche, à partir de 0
+     * @param limit Nombre maximum de tâches dans la plage
+     * @return Plage de tâches
+     */
+    @GetMapping("/all/range")
+    public Mono<TaskRange> getTasksRange(@RequestParam(defaultValue = "0") int offset,
+                                         @RequestParam(defaultValue = "50") int limit) {
+        return todoService.getTasksRange(offset, limit, false);
+    }
+
+    /**
+     * Endpoint pour récupérer une plage de tâches à effectuer par rang, triées par id, avec leur nombre total
+     * @param offset Rang de la première tâche, à partir de 0
+     * @param limit Nombre maximum de tâches dans la plage
+     * @return Plage de tâches
+     */
+    @GetMapping("/todo/range")
+    public Mono<TaskRange> getTodoTasksRange(@RequestParam(defaultValue = "0") int offset,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        return todoService.getTasksRange(offset, limit, true);
+    }
+
+    /**
+     * Endpoint pour récupérer une tâche par ID
+     * @param id Identifiant de la tâche à récupérer
+     * @return Réponse REST : 200 OK ou 404 Not Found
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Task>> getTaskById(@PathVariable Long id) {
+        return todoService.getTaskById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint pour créer une nouvelle tâche
+     * @param newTask Données de la tâche à créer
+     * @return Tâche créée, avec le statut 201 Created
+     */
+    @PostMapping("/add")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Task> addTask(@RequestBody Task newTask) {
+        return todoService.addTask(newTask);
+    }
+
+    /**
+     * Endpoint pour mettre à jour le statut d'une tâche
+     * @param task Données de la tâche, avec le nouveau statut et la version lue par le client
+     * @return Réponse REST : 200 OK, 400 Bad Request sans id, 404 Not Found, ou 409 Conflict avec la version
+     * courante de la tâche
+     */
+    @PutMapping("/update")
+    public Mono<ResponseEntity<Task>> updateTask(@RequestBody Task task) {
+        if (task.getId() == null) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return todoService.updateTask(task.getId(), task.isCompleted(), task.getVersion())
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(TaskVersionConflictException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(e.getCurrent())));
+    }
+
+    /**
+     * Endpoint pour supprimer une tâche
+     * @param id Identifiant de la tâche à supprimer
+     * @return Réponse REST : 204 No Content ou 404 Not Found
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteTask(@PathVariable Long id) {
+        return todoService.deleteTask(id)
+                .map(deleted -> deleted ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * Endpoint pour recevoir les modifications au fil de l'eau, en Server-Sent Events, comme
+     * {@link com.sylvain.fullstack.todo_list.controller.TaskChangeController#streamChanges(Long, Long, String)}
+     * @param since Version de la liste du client, version courante si absent
+     * @param epoch Identifiant de l'instance qui a fourni cette version
+     * @param lastEventId Id du dernier événement reçu, envoyé par le navigateur à la reconnexion
+     * @return Flux d'événements change, et resync si la liste complète doit être relue
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges(@RequestParam(required = false) Long since,
+                                                       @RequestParam(required = false) Long epoch,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        long from = lastEventId != null ? TaskChangeFeed.sequenceOf(lastEventId, versions.getEpoch()) : since != null ? since : versions.getVersion();
+        if (epoch != null && epoch != versions.getEpoch()) {
+            // Version d'une autre instance : le premier événement sera resync
+            from = -1;
+        }
+        return changes.subscribe(from);
+    }
+}
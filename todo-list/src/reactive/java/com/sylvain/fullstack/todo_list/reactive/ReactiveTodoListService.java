@@ -0,0 +1,147 @@
+package com.sylvain.fullstack.todo_list.reactive;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * Façade non bloquante de {@link TodoListService} pour l'API réactive.
+ * <p>
+ * Les lectures ne font que parcourir le stockage en mémoire : elles s'exécutent sur le thread de Netty qui les
+ * demande. Les modifications peuvent attendre l'écriture du journal sur disque (fsync) : elles s'exécutent sur
+ * des threads virtuels, sans bloquer les threads de Netty, peu nombreux.
+ * <p>
+ * Les listes complètes sont lues par pages de {@value #STREAM_PAGE_SIZE} tâches, une page n'étant lue que quand
+ * le client a consommé la précédente : la mémoire d'une réponse ne dépend pas du nombre de tâches, et un client
+ * lent ne fait pas lire le stockage plus vite qu'il ne reçoit les tâches.
+ */
+public class ReactiveTodoListService implements AutoCloseable {
+
+    /** Nombre de tâches lues à la fois par les listes complètes */
+    static final int STREAM_PAGE_SIZE = 256;
+
+    private final TodoListService service;
+    // Threads virtuels des modifications, qui peuvent attendre le journal
+    private final Scheduler writes;
+
+    public ReactiveTodoListService(TodoListService service) {
+        this.service = service;
+        this.writes = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "todo-reactive-writes");
+    }
+
+    /**
+     * @return Toutes les tâches, triées par id, lues au rythme du client
+     */
+    public Flux<Task> getAllTasks() {
+        return stream(service::getTasksPage);
+    }
+
+    /**
+     * @return Tâches à effectuer, triées par id, lues au rythme du client
+     */
+    public Flux<Task> getTodoTasks() {
+        return stream(service::getTodoTasksPage);
+    }
+
+    /**
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches, triées par id
+     */
+    public Mono<TaskPage> getTasksPage(Long after, int limit) {
+        return Mono.fromSupplier(() -> service.getTasksPage(after, limit));
+    }
+
+    /**
+     * @param after id de la dernière tâche de la page précédente, null pour la première page
+     * @param limit Nombre maximum de tâches dans la page
+     * @return Page de tâches à effectuer, triées par id
+     */
+    public Mono<TaskPage> getTodoTasksPage(Long after, int limit) {
+        return Mono.fromSupplier(() -> service.getTodoTasksPage(after, limit));
+    }
+
+    /**
+     * @param offset Rang de la première tâche, à partir de 0
+     * @param limit Nombre maximum de tâches dans la plage
+     * @param todoOnly true pour ne lire que les tâches à effectuer
+     * @return Plage de tâches, triées par id, avec le nombre total de tâches de la liste
+     */
+    public Mono<TaskRange> getTasksRange(int offset, int limit, boolean todoOnly) {
+        return Mono.fromSupplier(() -> service.getTasksRange(offset, limit, todoOnly));
+    }
+
+    /**
+     * @param id id de la tâche
+     * @return Tâche, vide si elle n'existe pas
+     */
+    public Mono<Task> getTaskById(Long id) {
+        return Mono.fromSupplier(() -> service.getTaskById(id));
+    }
+
+    /**
+     * @param newTask Données de la tâche à créer
+     * @return Tâche créée, une fois la modification persistée
+     */
+    public Mono<Task> addTask(Task newTask) {
+        return Mono.fromCallable(() -> service.addTask(newTask)).subscribeOn(writes);
+    }
+
+    /**
+     * @param id id de la tâche
+     * @param completed Nouveau statut
+     * @param expectedVersion Version lue par le client, null pour modifier la tâche quelle que soit sa version
+     * @return Tâche modifiée, vide si elle n'existe pas ; en erreur
+     * {@link com.sylvain.fullstack.todo_list.service.TaskVersionConflictException} si la version a changé
+     */
+    public Mono<Task> updateTask(Long id, boolean completed, Long expectedVersion) {
+        return Mono.fromCallable(() -> service.updateTask(id, completed, expectedVersion)).subscribeOn(writes);
+    }
+
+    /**
+     * @param id id de la tâche
+     * @return true si la tâche existait
+     */
+    public Mono<Boolean> deleteTask(Long id) {
+        return Mono.fromCallable(() -> service.deleteTask(id)).subscribeOn(writes);
+    }
+
+    @Override
+    public void close() {
+        writes.dispose();
+    }
+
+    /**
+     * Lecture d'une liste page par page, à la demande : generate ne lit une page que quand la précédente
+     * a été consommée (prefetch de 1)
+     * @param reader Lecture d'une page après un curseur
+     * @return Tâches de toutes les pages
+     */
+    private static Flux<Task> stream(BiFunction<Long, Integer, TaskPage> reader) {
+        return Flux.<List<Task>, Cursor>generate(() -> new Cursor(null), (cursor, sink) -> {
+                    TaskPage page = reader.apply(cursor.after(), STREAM_PAGE_SIZE);
+                    sink.next(page.getTasks());
+                    if (page.getNextCursor() == null) {
+                        sink.complete();
+                    }
+                    return new Cursor(page.getNextCursor());
+                })
+                .concatMapIterable(tasks -> tasks, 1);
+    }
+
+    /**
+     * Position de la lecture page par page
+     * @param after id de la dernière tâche lue, null avant la première page
+     */
+    private record Cursor(Long after) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.sylvain.fullstack.todo_list.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = ReactiveTodoListApplication.class, properties = "spring.main.web-application-type=reactive")
+class ReactiveTodoListApplicationTests {
+
+	@Test
+	void contextLoads(ApplicationContext context) {
+		assertThat(context).isInstanceOf(ReactiveWebApplicationContext.class);
+		assertThat(context.getBean(ReactiveTodoListController.class)).isNotNull();
+	}
+}
@@ -0,0 +1,185 @@
+package com.sylvain.fullstack.todo_list.reactive;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveTodoListControllerTest {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<TaskChange>> CHANGE_EVENT = new ParameterizedTypeReference<>() {};
+
+    private TodoListService todoListService;
+    private ReactiveTodoListService reactiveService;
+    private ReactiveTaskChangeStream changeStream;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        TaskChangeFeed feed = new TaskChangeFeed();
+        todoListService = new TodoListService(new InMemoryTaskPersistence(), feed);
+        reactiveService = new ReactiveTodoListService(todoListService);
+        changeStream = new ReactiveTaskChangeStream(feed);
+        client = WebTestClient.bindToController(new ReactiveTodoListController(reactiveService, changeStream, todoListService))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeStream.close();
+        reactiveService.close();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait retourner toutes les tâches, lues sur plusieurs pages, en tableau JSON")
+    void getAllTasks_shouldStreamAllPages() {
+        int count = ReactiveTodoListService.STREAM_PAGE_SIZE * 2 + 10;
+        for (int i = 1; i <= count; i++) {
+            todoListService.addTask(new Task(null, "Task " + i, "Desc " + i, i % 2 == 0));
+        }
+
+        List<Task> tasks = client.get().uri("/api/v1/tasks/all").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBodyList(Task.class).returnResult().getResponseBody();
+
+        assertEquals(LongStream.rangeClosed(1, count).boxed().toList(), tasks.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/todo - Devrait retourner les tâches à faire en NDJSON")
+    void getTodoTasks_whenNdjsonAccepted_shouldStreamLines() {
+        todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        todoListService.addTask(new Task(null, "Task 2", "Desc 2", true));
+        todoListService.addTask(new Task(null, "Task 3", "Desc 3", false));
+
+        Flux<Task> tasks = client.get().uri("/api/v1/tasks/todo").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Task.class).getResponseBody();
+
+        StepVerifier.create(tasks.map(Task::getLabel))
+                .expectNext("Task 1", "Task 3")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Ne devrait lire une nouvelle page que quand le client a consommé la précédente")
+    void getAllTasks_shouldReadPagesOnDemand() {
+        for (int i = 1; i <= ReactiveTodoListService.STREAM_PAGE_SIZE * 3; i++) {
+            todoListService.addTask(new Task(null, "Task " + i, "Desc " + i, false));
+        }
+
+        StepVerifier.create(reactiveService.getAllTasks(), 1)
+                .expectNextMatches(task -> task.getId() == 1L)
+                .then(() -> todoListService.deleteTask((long) ReactiveTodoListService.STREAM_PAGE_SIZE * 2))
+                .thenRequest(ReactiveTodoListService.STREAM_PAGE_SIZE * 3)
+                .expectNextCount(ReactiveTodoListService.STREAM_PAGE_SIZE * 3L - 2)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Devrait créer, lire, modifier et supprimer une tâche")
+    void crud_shouldMatchMvcResponses() {
+        Task created = client.post().uri("/api/v1/tasks/add")
+                .bodyValue(new Task(null, "Task 1", "Desc 1", false))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Task.class).returnResult().getResponseBody();
+        assertEquals(1L, created.getVersion());
+
+        client.get().uri("/api/v1/tasks/{id}", created.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.label").isEqualTo("Task 1");
+
+        client.put().uri("/api/v1/tasks/update")
+                .bodyValue(new Task(created.getId(), "Task 1", "Desc 1", true, 1L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.version").isEqualTo(2);
+
+        client.put().uri("/api/v1/tasks/update")
+                .bodyValue(new Task(created.getId(), "Task 1", "Desc 1", false, 1L))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody().jsonPath("$.version").isEqualTo(2);
+
+        client.delete().uri("/api/v1/tasks/{id}", created.getId()).exchange().expectStatus().isNoContent();
+        client.delete().uri("/api/v1/tasks/{id}", created.getId()).exchange().expectStatus().isNotFound();
+        client.get().uri("/api/v1/tasks/{id}", created.getId()).exchange().expectStatus().isNotFound();
+        client.put().uri("/api/v1/tasks/update")
+                .bodyValue(new Task(created.getId(), "Task 1", "Desc 1", true))
+                .exchange()
+                .expectStatus().isNotFound();
+        client.put().uri("/api/v1/tasks/update")
+                .bodyValue(new Task(null, "Task 1", "Desc 1", true))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/changes/stream - Devrait envoyer les modifications manquées puis les nouvelles")
+    void streamChanges_shouldSendMissedThenNewChanges() {
+        todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+
+        Flux<ServerSentEvent<TaskChange>> events = client.get().uri("/api/v1/tasks/changes/stream?since=0")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(CHANGE_EVENT).getResponseBody();
+
+        StepVerifier.create(events)
+                .assertNext(event -> {
+                    assertEquals("change", event.event());
+                    assertEquals(todoListService.getEpoch() + "-1", event.id());
+                    assertEquals(TaskChange.Type.ADD, event.data().getType());
+                })
+                .then(() -> todoListService.updateTask(1L, true))
+                .assertNext(event -> {
+                    assertEquals(todoListService.getEpoch() + "-2", event.id());
+                    assertTrue(event.data().getTask().isCompleted());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/changes/stream - Devrait commencer par resync pour une version d'une autre instance")
+    void streamChanges_whenOtherEpoch_shouldResync() {
+        todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+
+        Flux<ServerSentEvent<String>> events = client.get()
+                .uri("/api/v1/tasks/changes/stream?since=1&epoch={epoch}", todoListService.getEpoch() + 1)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {}).getResponseBody();
+
+        StepVerifier.create(events)
+                .assertNext(event -> {
+                    assertEquals("resync", event.event());
+                    assertEquals("1", event.data());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+}
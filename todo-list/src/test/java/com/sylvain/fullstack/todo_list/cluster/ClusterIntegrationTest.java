@@ -0,0 +1,223 @@
+package com.sylvain.fullstack.todo_list.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sylvain.fullstack.todo_list.TodoListApplication;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cluster de trois nœuds démarrés dans la même JVM, chacun sur son port local
+ */
+class ClusterIntegrationTest {
+
+    private static final int NODES = 3;
+    private static final String SECRET = "secret-du-cluster";
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private static final List<URI> urls = new ArrayList<>();
+    private static final HttpClient http = HttpClient.newHttpClient();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        for (int i = 0; i < NODES; i++) {
+            urls.add(URI.create("http://localhost:" + freePort()));
+        }
+        String nodes = urls.stream().map(URI::toString).collect(Collectors.joining(","));
+        for (int i = 0; i < NODES; i++) {
+            contexts.add(new SpringApplicationBuilder(TodoListApplication.class)
+                    .properties(
+                            "server.port=" + urls.get(i).getPort(),
+                            "todo-list.cluster.nodes=" + nodes,
+                            "todo-list.cluster.node-index=" + i,
+                            "todo-list.cluster.secret=" + SECRET,
+                            "logging.level.root=WARN")
+                    .run());
+        }
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    @DisplayName("Devrait créer les tâches sur chaque nœud et les retrouver depuis n'importe quel nœud")
+    void cluster_shouldRouteAndGatherTasks() throws Exception {
+        // Tâches laissées par les autres tests du cluster
+        List<Task> existing = read(0, "/all", new TypeReference<>() {});
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            added.add(post(i % NODES, new Task(null, "Tâche " + i, "Desc", i % 3 == 0)));
+        }
+        Set<Long> ids = added.stream().map(Task::getId).collect(Collectors.toSet());
+        assertEquals(30, ids.size(), "Les ids créés par les différents nœuds devraient être uniques");
+
+        // Lecture d'une tâche d'un autre nœud, puis modification et suppression depuis un nœud quelconque
+        Task remote = added.get(1);
+        assertEquals("Tâche 1", read(2, "/" + remote.getId(), Task.class).getLabel());
+        Task updated = put(0, new Task(remote.getId(), null, null, true, remote.getVersion()));
+        assertTrue(updated.isCompleted());
+        assertEquals(409, send(2, HttpRequest.newBuilder().PUT(json(new Task(remote.getId(), null, null, false, remote.getVersion()))), "/update").statusCode(),
+                "Une version périmée devrait être refusée par le nœud propriétaire");
+        Task deleted = added.get(2);
+        assertEquals(204, send(1, HttpRequest.newBuilder().DELETE(), "/" + deleted.getId()).statusCode());
+        assertEquals(404, send(0, HttpRequest.newBuilder().GET(), "/" + deleted.getId()).statusCode());
+
+        // Listes fusionnées, triées par id
+        List<Task> all = read(1, "/all", new TypeReference<>() {});
+        List<Long> expectedIds = Stream.concat(existing.stream().map(Task::getId), ids.stream())
+                .filter(id -> !id.equals(deleted.getId())).sorted().toList();
+        assertEquals(expectedIds, all.stream().map(Task::getId).toList());
+        List<Task> todo = read(2, "/todo", new TypeReference<>() {});
+        assertTrue(todo.stream().noneMatch(Task::isCompleted));
+        assertEquals(all.stream().filter(task -> !task.isCompleted()).map(Task::getId).toList(),
+                todo.stream().map(Task::getId).toList());
+
+        // Pagination par curseur sur l'ensemble du cluster
+        List<Long> paged = new ArrayList<>();
+        Long cursor = null;
+        do {
+            TaskPage page = read(0, "/all/page?limit=7" + (cursor != null ? "&after=" + cursor : ""), TaskPage.class);
+            page.getTasks().forEach(task -> paged.add(task.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expectedIds, paged);
+        assertEquals(new HashSet<>(expectedIds).size(), paged.size());
+
+        // Plage par rang dans la liste fusionnée du cluster
+        TaskRange range = read(2, "/todo/range?offset=3&limit=5", TaskRange.class);
+        assertEquals(todo.size(), range.getTotal());
+        assertEquals(todo.subList(3, 8).stream().map(Task::getId).toList(), range.getTasks().stream().map(Task::getId).toList());
+
+        // Pagination par libellé décroissant des tâches à faire : le libellé du curseur est transmis aux autres nœuds
+        List<Long> expectedTodo = todo.stream()
+                .sorted(Comparator.comparing(Task::getLabel).thenComparing(Task::getId).reversed())
+                .map(Task::getId).toList();
+        List<Long> pagedTodo = new ArrayList<>();
+        cursor = null;
+        do {
+            TaskPage page = read(1, "/all/page?completed=false&sort=label,desc&limit=4"
+                    + (cursor != null ? "&after=" + cursor : ""), TaskPage.class);
+            page.getTasks().forEach(task -> pagedTodo.add(task.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expectedTodo, pagedTodo);
+    }
+
+    @Test
+    @DisplayName("Devrait appliquer chaque opération d'un lot sur le nœud propriétaire de sa tâche")
+    void cluster_shouldRouteBatchOperationsToOwners() throws Exception {
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            added.add(post(i % NODES, new Task(null, "Lot " + i, "Desc", false)));
+        }
+        List<TaskOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            operations.add(new TaskOperation(TaskOperation.Type.UPDATE, new Task(added.get(i).getId(), null, null, true)));
+        }
+        operations.add(new TaskOperation(TaskOperation.Type.DELETE, new Task(added.get(5).getId(), null, null, false)));
+        operations.add(new TaskOperation(TaskOperation.Type.ADD, new Task(null, "Lot ajout", "Desc", false)));
+        operations.add(new TaskOperation(TaskOperation.Type.DELETE, new Task(Long.MAX_VALUE, null, null, false)));
+
+        HttpResponse<String> response = send(1, HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(operations))), "/batch");
+        assertEquals(200, response.statusCode());
+        List<TaskOperationResult> results = objectMapper.readValue(response.body(), new TypeReference<>() {});
+        assertEquals(operations.size(), results.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, results.get(i).getStatus(), "La mise à jour de la tâche " + i + " devrait être faite par son nœud");
+            assertEquals(added.get(i).getId(), results.get(i).getTask().getId());
+            assertTrue(read(0, "/" + added.get(i).getId(), Task.class).isCompleted());
+        }
+        assertEquals(204, results.get(5).getStatus());
+        assertEquals(404, send(2, HttpRequest.newBuilder().GET(), "/" + added.get(5).getId()).statusCode());
+        assertEquals(201, results.get(6).getStatus());
+        assertEquals("Lot ajout", read(0, "/" + results.get(6).getTask().getId(), Task.class).getLabel(),
+                "La tâche ajoutée devrait avoir un id dont le nœud qui l'a créée est propriétaire");
+        assertEquals(404, results.get(7).getStatus());
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer l'en-tête des requêtes entre nœuds sans le secret du cluster")
+    void cluster_shouldIgnoreLocalHeaderWithoutSecret() throws Exception {
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            added.add(post(i % NODES, new Task(null, "Entête " + i, "Desc", false)));
+        }
+        List<Task> all = read(0, "/all", new TypeReference<>() {});
+        HttpResponse<String> spoofed = send(0, HttpRequest.newBuilder().GET().header(ClusterRouter.LOCAL_HEADER, "true"), "/all");
+        assertEquals(all.stream().map(Task::getId).toList(),
+                objectMapper.<List<Task>>readValue(spoofed.body(), new TypeReference<>() {}).stream().map(Task::getId).toList(),
+                "Sans le secret, la liste devrait être celle de tout le cluster");
+        // Tâche d'un autre nœud : absente du nœud 0 pour une requête qui porte le secret
+        Task remote = added.stream().filter(task -> send(0, task.getId(), SECRET).statusCode() == 404).findFirst().orElseThrow();
+        assertEquals(200, send(0, remote.getId(), "true").statusCode(),
+                "Sans le secret, la tâche d'un autre nœud devrait être lue sur son nœud");
+    }
+
+    private static HttpResponse<String> send(int node, long id, String localHeader) {
+        try {
+            return send(node, HttpRequest.newBuilder().GET().header(ClusterRouter.LOCAL_HEADER, localHeader), "/" + id);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Task post(int node, Task task) throws Exception {
+        return objectMapper.readValue(send(node, HttpRequest.newBuilder().POST(json(task)), "/add").body(), Task.class);
+    }
+
+    private static Task put(int node, Task task) throws Exception {
+        return objectMapper.readValue(send(node, HttpRequest.newBuilder().PUT(json(task)), "/update").body(), Task.class);
+    }
+
+    private static <T> T read(int node, String path, Class<T> type) throws Exception {
+        return objectMapper.readValue(send(node, HttpRequest.newBuilder().GET(), path).body(), type);
+    }
+
+    private static <T> T read(int node, String path, TypeReference<T> type) throws Exception {
+        return objectMapper.readValue(send(node, HttpRequest.newBuilder().GET(), path).body(), type);
+    }
+
+    private static HttpRequest.BodyPublisher json(Task task) throws IOException {
+        return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(task));
+    }
+
+    private static HttpResponse<String> send(int node, HttpRequest.Builder request, String path) throws Exception {
+        return http.send(request.uri(urls.get(node).resolve("/api/v1/tasks" + path))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,52 @@
+package com.sylvain.fullstack.todo_list.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    @Test
+    @DisplayName("Devrait répartir des ids consécutifs de manière homogène entre les nœuds")
+    void nodeFor_shouldSpreadIdsEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        int[] counts = new int[4];
+        for (long id = 1; id <= 100_000; id++) {
+            counts[ring.nodeFor(id)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 20_000 && count < 30_000, "Chaque nœud devrait recevoir environ un quart des ids : " + count);
+        }
+    }
+
+    @Test
+    @DisplayName("Ne devrait déplacer vers un nouveau nœud que la part des ids qu'il reprend")
+    void nodeFor_whenNodeAdded_shouldMoveOnlyItsShare() {
+        ConsistentHashRing before = new ConsistentHashRing(3, 128);
+        ConsistentHashRing after = new ConsistentHashRing(4, 128);
+        int moved = 0;
+        for (long id = 1; id <= 100_000; id++) {
+            int owner = after.nodeFor(id);
+            if (owner != before.nodeFor(id)) {
+                moved++;
+                assertEquals(3, owner, "Un id ne devrait changer de nœud que pour aller sur le nouveau nœud");
+            }
+        }
+        assertTrue(moved > 15_000 && moved < 35_000, "Environ un quart des ids devrait changer de nœud : " + moved);
+    }
+
+    @Test
+    @DisplayName("Devrait attribuer chaque id à un seul nœud, chacun ne créant que les siens")
+    void idPartition_shouldSplitIdsBetweenNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(3, 128);
+        for (long id = 1; id <= 10_000; id++) {
+            int owners = 0;
+            for (int node = 0; node < 3; node++) {
+                owners += new IdPartition(ring, node).owns(id) ? 1 : 0;
+            }
+            assertEquals(1, owners);
+        }
+        assertTrue(IdPartition.all().owns(42L));
+    }
+}
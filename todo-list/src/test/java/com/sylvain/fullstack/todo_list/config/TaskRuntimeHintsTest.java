@@ -0,0 +1,30 @@
+package com.sylvain.fullstack.todo_list.config;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChanges;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskRuntimeHintsTest {
+
+    @Test
+    @DisplayName("Devrait permettre à Jackson de lire et écrire les tâches et les pages dans l'image native")
+    void registerHints_shouldRegisterBindingOfModelClasses() {
+        RuntimeHints hints = new RuntimeHints();
+        new TaskRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Task.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Task.class, "getLabel").invoke().test(hints),
+                "Les getters générés par Lombok devraient être accessibles");
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Task.class, "setCompleted").invoke().test(hints),
+                "Les setters générés par Lombok devraient être accessibles");
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TaskPage.class, "getNextCursor").invoke().test(hints),
+                "Les pages, renvoyées en ResponseEntity<?>, devraient être enregistrées");
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TaskChanges.class).test(hints));
+    }
+}
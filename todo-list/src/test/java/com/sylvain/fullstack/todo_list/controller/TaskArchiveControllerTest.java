@@ -0,0 +1,72 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.persistence.TaskArchive;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskArchiveControllerTest {
+
+    @Mock
+    private TaskArchive archive;
+
+    private MockMvc mockMvc(TaskArchive archive) {
+        return MockMvcBuilders.standaloneSetup(new TaskArchiveController(ClusterRouter.standalone(), archive)).build();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/archive/{id} - Devrait retourner la tâche archivée avec sa date de fin")
+    void getArchivedTask_shouldReturnTask() throws Exception {
+        when(archive.get(3L)).thenReturn(new Task(3L, "Task 3", "Desc 3", true, 2L, 1_700_000_000_000L));
+
+        mockMvc(archive).perform(get("/api/v1/tasks/archive/3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.label", is("Task 3")))
+                .andExpect(jsonPath("$.completedAt", is(1_700_000_000_000L)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/archive/{id} - Devrait retourner 404 si la tâche n'est pas archivée")
+    void getArchivedTask_whenMissing_shouldReturnNotFound() throws Exception {
+        mockMvc(archive).perform(get("/api/v1/tasks/archive/3"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/archive - Devrait retourner une page bornée à la taille maximum")
+    void getArchivedPage_shouldBoundLimit() throws Exception {
+        when(archive.page(10L, TodoListService.MAX_PAGE_SIZE)).thenReturn(new TaskPage(
+                List.of(new Task(11L, "Task 11", "Desc 11", true, 1L, 5L)), 11L));
+
+        mockMvc(archive).perform(get("/api/v1/tasks/archive").param("after", "10").param("limit", "1000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor", is(11)));
+        verify(archive).page(10L, TodoListService.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/archive - Devrait retourner 404 si l'archive n'est pas activée")
+    void getArchivedPage_whenNoArchive_shouldReturnNotFound() throws Exception {
+        MockMvc mockMvc = mockMvc(null);
+        mockMvc.perform(get("/api/v1/tasks/archive")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/tasks/archive/1")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,89 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.service.TaskChangeFeed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskChangeBroadcasterTest {
+
+    private final TaskChangeFeed feed = new TaskChangeFeed(4);
+    private final TaskChangeBroadcaster broadcaster = new TaskChangeBroadcaster(feed);
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.close();
+    }
+
+    @Test
+    @DisplayName("Devrait envoyer à chaque abonné les modifications manquées puis les nouvelles, dans l'ordre")
+    void subscribe_shouldSendMissedAndNewChangesInOrder() throws InterruptedException {
+        feed.publish(TaskChange.Type.DELETE, 1L, null);
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        broadcaster.subscribe(first, 0);
+        broadcaster.subscribe(second, 1);
+        feed.publish(TaskChange.Type.DELETE, 2L, null);
+        feed.publish(TaskChange.Type.DELETE, 3L, null);
+
+        assertEquals(List.of("change:1", "change:2", "change:3"), first.take(3));
+        assertEquals(List.of("change:2", "change:3"), second.take(2));
+        assertEquals(2, broadcaster.subscriberCount());
+    }
+
+    @Test
+    @DisplayName("Devrait envoyer un événement resync à un abonné dont les modifications ne sont plus disponibles")
+    void subscribe_whenChangesAreLost_shouldSendResync() throws InterruptedException {
+        for (long id = 1; id <= 6; id++) {
+            feed.publish(TaskChange.Type.DELETE, id, null);
+        }
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter, 0);
+        assertEquals(List.of("resync:6"), emitter.take(1));
+
+        // Le flux reprend à la version envoyée avec resync
+        feed.publish(TaskChange.Type.DELETE, 7L, null);
+        assertEquals(List.of("change:7"), emitter.take(1));
+    }
+
+    /**
+     * Connexion SSE qui enregistre le nom des événements envoyés et le numéro relu dans leur id,
+     * -1 pour un id qui ne vient pas du journal
+     */
+    private class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String text = builder.build().stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .reduce("", String::concat);
+            if (text.startsWith(":")) {
+                // Commentaire heartbeat
+                return;
+            }
+            String id = text.replaceAll("(?s).*id:([^\\n]*)\\n.*", "$1");
+            String name = text.replaceAll("(?s).*event:([^\\n]*)\\n.*", "$1");
+            events.add(name + ":" + TaskChangeFeed.sequenceOf(id, feed.epoch()));
+        }
+
+        private List<String> take(int count) throws InterruptedException {
+            String[] taken = new String[count];
+            for (int i = 0; i < count; i++) {
+                taken[i] = events.poll(5, TimeUnit.SECONDS);
+                assertNotNull(taken[i], "Événement attendu non reçu");
+            }
+            return List.of(taken);
+        }
+    }
+}
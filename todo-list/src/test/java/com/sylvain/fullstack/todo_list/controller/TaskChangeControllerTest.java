@@ -0,0 +1,99 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.model.TaskChanges;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskChangeControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private TodoListService todoListService;
+
+    @Mock
+    private TaskChangeBroadcaster broadcaster;
+
+    @InjectMocks
+    private TaskChangeController taskChangeController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(taskChangeController).build();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/changes - Devrait retourner les modifications postérieures à la version demandée")
+    void getChanges_shouldReturnChangesSinceVersion() throws Exception {
+        TaskChanges changes = new TaskChanges(42L, 7L, false, List.of(
+                new TaskChange(6L, TaskChange.Type.UPDATE, 1L, new Task(1L, "Task 1", "Desc 1", true)),
+                new TaskChange(7L, TaskChange.Type.DELETE, 2L, null)));
+        when(todoListService.getChangesSince(5L, 42L)).thenReturn(changes);
+
+        mockMvc.perform(get("/api/v1/tasks/changes").param("since", "5").param("epoch", "42"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.version", is(7)))
+                .andExpect(jsonPath("$.resyncRequired", is(false)))
+                .andExpect(jsonPath("$.changes", hasSize(2)))
+                .andExpect(jsonPath("$.changes[0].type", is("UPDATE")))
+                .andExpect(jsonPath("$.changes[0].task.completed", is(true)))
+                .andExpect(jsonPath("$.changes[1].type", is("DELETE")));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/changes/stream - Devrait reprendre le flux au dernier événement reçu")
+    void streamChanges_shouldResumeFromLastEventId() throws Exception {
+        when(todoListService.getEpoch()).thenReturn(42L);
+
+        mockMvc.perform(get("/api/v1/tasks/changes/stream").param("since", "3").header("Last-Event-ID", "42-12"))
+                .andExpect(request().asyncStarted());
+
+        verify(broadcaster).subscribe(any(), eq(12L));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/changes/stream - Devrait forcer une relecture pour un dernier événement d'une autre instance")
+    void streamChanges_whenLastEventIdComesFromAnotherEpoch_shouldStartWithResync() throws Exception {
+        when(todoListService.getEpoch()).thenReturn(42L);
+
+        // Après un redémarrage, le numéro 12 de l'ancienne instance ne désigne pas la même modification
+        mockMvc.perform(get("/api/v1/tasks/changes/stream").header("Last-Event-ID", "41-12"))
+                .andExpect(request().asyncStarted());
+
+        verify(broadcaster).subscribe(any(), eq(-1L));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/changes/stream - Devrait forcer une relecture pour une version d'une autre instance")
+    void streamChanges_whenEpochDiffers_shouldStartWithResync() throws Exception {
+        when(todoListService.getEpoch()).thenReturn(42L);
+
+        mockMvc.perform(get("/api/v1/tasks/changes/stream").param("since", "3").param("epoch", "41"))
+                .andExpect(request().asyncStarted());
+
+        verify(broadcaster).subscribe(any(), eq(-1L));
+    }
+}
@@ -0,0 +1,120 @@
+package com.sylvain.fullstack.todo_list.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Task> tasks = List.of(new Task(1L, "Task 1", "Desc 1", false, 1L), new Task(2L, "Task 2", "Desc 2", true, 3L));
+
+    @Test
+    @DisplayName("Devrait servir les mêmes octets tant que la version ne change pas, puis relire les données")
+    void get_shouldServeCachedBytesUntilVersionChanges() throws Exception {
+        TaskResponseCache cache = new TaskResponseCache(objectMapper, 1 << 20, 100, registry);
+        AtomicInteger reads = new AtomicInteger();
+
+        byte[] first = cache.get("/all", TaskRepresentation.JSON, 5, () -> { reads.incrementAndGet(); return tasks; });
+        byte[] second = cache.get("/all", TaskRepresentation.JSON, 5, () -> { reads.incrementAndGet(); return tasks; });
+        assertSame(first, second);
+        assertEquals(1, reads.get());
+        assertArrayEquals(objectMapper.writeValueAsBytes(tasks), first);
+
+        // Nouvelle version : la réponse est relue, les autres requêtes et formats ont leur propre entrée
+        assertNotSame(first, cache.get("/all", TaskRepresentation.JSON, 6, () -> { reads.incrementAndGet(); return tasks; }));
+        cache.get("/todo", TaskRepresentation.JSON, 6, () -> { reads.incrementAndGet(); return tasks; });
+        cache.get("/all", TaskRepresentation.CBOR, 6, () -> { reads.incrementAndGet(); return tasks; });
+        assertEquals(4, reads.get());
+
+        assertEquals(1.0, registry.get(TaskResponseCache.REQUESTS).tag("result", "hit").counter().count());
+        assertEquals(4.0, registry.get(TaskResponseCache.REQUESTS).tag("result", "miss").counter().count());
+    }
+
+    @Test
+    @DisplayName("Devrait sérialiser chaque format comme les convertisseurs de Spring")
+    void get_shouldSerializeEachRepresentation() throws Exception {
+        TaskResponseCache cache = new TaskResponseCache(objectMapper, 1 << 20, 100, registry);
+        TaskPage page = new TaskPage(tasks, 2L);
+
+        ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        new TaskColumnsHttpMessageConverter(objectMapper).writePage(page, columns);
+        assertArrayEquals(columns.toByteArray(), cache.get("/all/page", TaskRepresentation.COLUMNS, 1, () -> page));
+        byte[] cbor = cache.get("/all/page", TaskRepresentation.CBOR, 1, () -> page);
+        assertEquals(page, new CBORMapper().readValue(cbor, TaskPage.class));
+        assertNull(cache.get("/missing", TaskRepresentation.JSON, 1, () -> null));
+    }
+
+    @Test
+    @DisplayName("Devrait retirer les réponses d'une ancienne version dès qu'une réponse plus récente est gardée")
+    void get_whenVersionChanges_shouldDropStaleResponses() {
+        byte[] body = cacheBody();
+        TaskResponseCache cache = new TaskResponseCache(objectMapper, 1 << 20, 100, registry);
+
+        cache.get("/a", TaskRepresentation.JSON, 1, () -> tasks);
+        cache.get("/b", TaskRepresentation.JSON, 1, () -> tasks);
+        assertEquals(2L * body.length, cache.size());
+        cache.get("/c", TaskRepresentation.JSON, 2, () -> tasks);
+        assertEquals(body.length, cache.size());
+
+        // Réponse lue avant la dernière modification : elle n'est pas gardée
+        cache.get("/a", TaskRepresentation.JSON, 1, () -> tasks);
+        assertEquals(body.length, cache.size());
+        assertEquals(0.0, registry.get(TaskResponseCache.EVICTIONS).counter().count());
+    }
+
+    @Test
+    @DisplayName("Devrait retirer les réponses les moins récemment servies au-delà de la taille maximum")
+    void get_whenFull_shouldEvictLeastRecentlyUsed() {
+        byte[] body = cacheBody();
+        // Place pour trois réponses
+        TaskResponseCache cache = new TaskResponseCache(objectMapper, 3L * body.length, 100, registry);
+
+        cache.get("/b", TaskRepresentation.JSON, 2, () -> tasks);
+        cache.get("/c", TaskRepresentation.JSON, 2, () -> tasks);
+        cache.get("/d", TaskRepresentation.JSON, 2, () -> tasks);
+        // /b est servie : /c devient la moins récemment servie, retirée pour /e
+        cache.get("/b", TaskRepresentation.JSON, 2, () -> fail("/b devrait être dans le cache"));
+        cache.get("/e", TaskRepresentation.JSON, 2, () -> tasks);
+        assertEquals(3L * body.length, cache.size());
+
+        AtomicInteger reads = new AtomicInteger();
+        cache.get("/b", TaskRepresentation.JSON, 2, () -> { reads.incrementAndGet(); return tasks; });
+        cache.get("/d", TaskRepresentation.JSON, 2, () -> { reads.incrementAndGet(); return tasks; });
+        assertEquals(0, reads.get());
+        assertEquals(1.0, registry.get(TaskResponseCache.EVICTIONS).counter().count());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas garder une réponse plus grande que le cache, ni plus de réponses que le maximum")
+    void get_shouldRespectLimits() {
+        TaskResponseCache tiny = new TaskResponseCache(objectMapper, 10, 100, registry);
+        tiny.get("/all", TaskRepresentation.JSON, 1, () -> tasks);
+        assertEquals(0, tiny.size());
+
+        TaskResponseCache two = new TaskResponseCache(objectMapper, 1 << 20, 2, new SimpleMeterRegistry());
+        two.get("/a", TaskRepresentation.JSON, 1, () -> tasks);
+        two.get("/b", TaskRepresentation.JSON, 1, () -> tasks);
+        two.get("/c", TaskRepresentation.JSON, 1, () -> tasks);
+        assertEquals(2L * cacheBody().length, two.size());
+    }
+
+    private byte[] cacheBody() {
+        try {
+            return objectMapper.writeValueAsBytes(tasks);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
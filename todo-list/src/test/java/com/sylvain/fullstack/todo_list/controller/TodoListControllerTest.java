@@ -1,26 +1,50 @@
 package com.sylvain.fullstack.todo_list.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
 import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.model.TaskSearchPage;
+import com.sylvain.fullstack.todo_list.ratelimit.RateLimitInterceptor;
+import com.sylvain.fullstack.todo_list.ratelimit.TokenBucketRateLimiter;
+import com.sylvain.fullstack.todo_list.service.TaskQuery;
+import com.sylvain.fullstack.todo_list.service.TaskVersionConflictException;
+import com.sylvain.fullstack.todo_list.service.TaskWriteQueue;
+import com.sylvain.fullstack.todo_list.service.TaskWriteQueueFullException;
 import com.sylvain.fullstack.todo_list.service.TodoListService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -37,13 +61,27 @@ class TodoListControllerTest {
     @InjectMocks // Injecte les mocks (todoListService) dans TodoListController
     private TodoListController todoListController;
 
-    private ObjectMapper objectMapper; // Pour la sérialisation/désérialisation JSON
+    @Spy // Pour la sérialisation/désérialisation JSON, également injecté dans le contrôleur
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock // Routeur d'un nœud seul : isClustered() renvoie false, toutes les requêtes sont locales
+    private ClusterRouter clusterRouter;
 
     @BeforeEach
     void setUp() {
         // Configure MockMvc pour tester le contrôleur de manière isolée
         mockMvc = MockMvcBuilders.standaloneSetup(todoListController).build();
-        objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * MockMvc avec les convertisseurs de l'application, dans le même ordre : JSON, CBOR, puis colonnes
+     */
+    private MockMvc negotiatingMockMvc() {
+        return MockMvcBuilders.standaloneSetup(todoListController)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper),
+                        new MappingJackson2CborHttpMessageConverter(),
+                        new TaskColumnsHttpMessageConverter(objectMapper))
+                .build();
     }
 
 
@@ -70,6 +108,80 @@ class TodoListControllerTest {
         verify(todoListService).getAllTasks();
     }
 
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait mesurer la taille de la réponse, par route et statut")
+    void getAllTasks_shouldRecordResponseSize() throws Exception {
+        when(todoListService.getAllTasks()).thenReturn(List.of(new Task(1L, "Task 1", "Desc 1", false)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MockMvc measured = MockMvcBuilders.standaloneSetup(todoListController)
+                .addFilters(new ResponseSizeMetricsFilter(registry))
+                .build();
+
+        MvcResult result = measured.perform(get("/api/v1/tasks/all"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        DistributionSummary summary = registry.get(ResponseSizeMetricsFilter.RESPONSE_SIZE)
+                .tag("uri", "/api/v1/tasks/all")
+                .tag("status", "200")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(result.getResponse().getContentAsByteArray().length, (long) summary.totalAmount());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait servir la réponse du cache tant que la version ne change pas")
+    void getAllTasks_withResponseCache_shouldServeCachedBytes() throws Exception {
+        when(todoListService.getAllTasks()).thenReturn(List.of(new Task(1L, "Task 1", "Desc 1", false, 1L)));
+        when(todoListService.getVersion()).thenReturn(3L, 3L, 3L, 4L);
+        TaskResponseCache cache = new TaskResponseCache(objectMapper, 1 << 20, 100, new SimpleMeterRegistry());
+        MockMvc cached = MockMvcBuilders.standaloneSetup(new TodoListController(todoListService, objectMapper, clusterRouter, null, cache)).build();
+
+        cached.perform(get("/api/v1/tasks/all"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "W/\"0-3\""))
+                .andExpect(jsonPath("$[0].label", is("Task 1")));
+        cached.perform(get("/api/v1/tasks/all").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].label", is("Task 1")));
+        verify(todoListService, times(1)).getAllTasks();
+
+        // Les colonnes ont leur propre entrée, une nouvelle version relit les tâches
+        cached.perform(get("/api/v1/tasks/all").accept(TaskColumnsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TaskColumnsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(jsonPath("$.id[0]", is(1)));
+        cached.perform(get("/api/v1/tasks/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"0-4\""));
+        verify(todoListService, times(3)).getAllTasks();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait retourner 429 Too Many Requests quand le client a dépensé ses jetons")
+    void getAllTasks_whenRateLimited_shouldReturnTooManyRequests() throws Exception {
+        when(todoListService.getAllTasks()).thenReturn(List.of());
+        when(todoListService.getTaskById(1L)).thenReturn(new Task(1L, "Task 1", "Desc 1", false));
+        // Seau de 30 jetons, rempli d'un jeton par seconde : une liste complète en coûte 20
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MockMvc limited = MockMvcBuilders.standaloneSetup(todoListController)
+                .addInterceptors(new RateLimitInterceptor(new TokenBucketRateLimiter(1, 30, 100), "X-Api-Key", Set.of("other"),
+                        ClusterRouter.standalone(), registry))
+                .build();
+
+        limited.perform(get("/api/v1/tasks/all")).andExpect(status().isOk());
+        limited.perform(get("/api/v1/tasks/all"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"));
+        // Une lecture simple coûte 1 jeton, une clé d'API reconnue a son propre seau
+        limited.perform(get("/api/v1/tasks/1")).andExpect(status().isOk());
+        limited.perform(get("/api/v1/tasks/all").header("X-Api-Key", "other")).andExpect(status().isOk());
+
+        verify(todoListService, times(2)).getAllTasks();
+        assertEquals(1.0, registry.get(RateLimitInterceptor.REJECTED).counter().count());
+    }
+
     @Test
     @DisplayName("GET /api/v1/tasks/todo - Devrait retourner les tâches à faire et le statut 200 OK")
     void getTodoTasks_shouldReturnListOfTodoTasks() throws Exception {
@@ -106,6 +218,305 @@ class TodoListControllerTest {
         verify(todoListService).getTodoTasks();
     }
 
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait retourner l'ETag de la version du stockage")
+    void getAllTasks_shouldReturnVersionETag() throws Exception {
+        when(todoListService.getEpoch()).thenReturn(255L);
+        when(todoListService.getVersion()).thenReturn(7L);
+        when(todoListService.getAllTasks()).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/v1/tasks/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"ff-7\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait retourner les tâches en colonnes si le client le demande, avec un ETag propre à ce format")
+    void getAllTasks_whenColumnsAccepted_shouldReturnColumns() throws Exception {
+        when(todoListService.getEpoch()).thenReturn(255L);
+        when(todoListService.getVersion()).thenReturn(7L);
+        when(todoListService.getAllTasks()).thenReturn(List.of(
+                new Task(1L, "Task 1", "Desc 1", false, 1L),
+                new Task(2L, "Task 2", null, true, 3L, 1_700_000_000_000L)));
+
+        negotiatingMockMvc().perform(get("/api/v1/tasks/all").accept(TaskColumnsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TaskColumnsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(header().string("ETag", "W/\"ff-7-columns\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andExpect(content().json("{\"id\":[1,2],\"label\":[\"Task 1\",\"Task 2\"],\"description\":[\"Desc 1\",null],"
+                        + "\"completed\":[false,true],\"version\":[1,3],\"completedAt\":[null,1700000000000]}", true));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all/page - Devrait retourner la page en colonnes avec son curseur")
+    void getTasksPage_whenColumnsAccepted_shouldReturnColumns() throws Exception {
+        when(todoListService.getTasksPage(null, 1)).thenReturn(new TaskPage(List.of(new Task(1L, "Task 1", "Desc 1", false, 1L)), 1L));
+
+        negotiatingMockMvc().perform(get("/api/v1/tasks/all/page").param("limit", "1").accept(TaskColumnsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks.id[0]", is(1)))
+                .andExpect(jsonPath("$.tasks.label[0]", is("Task 1")))
+                .andExpect(jsonPath("$.nextCursor", is(1)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/todo/range - Devrait retourner la plage en colonnes avec son rang et le total")
+    void getTodoTasksRange_whenColumnsAccepted_shouldReturnColumns() throws Exception {
+        when(todoListService.getTasksRange(100, 1, true))
+                .thenReturn(new TaskRange(100, 250, List.of(new Task(301L, "Task 301", "Desc 301", false, 1L))));
+
+        negotiatingMockMvc().perform(get("/api/v1/tasks/todo/range").param("offset", "100").param("limit", "1")
+                        .accept(TaskColumnsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset", is(100)))
+                .andExpect(jsonPath("$.total", is(250)))
+                .andExpect(jsonPath("$.tasks.id[0]", is(301)))
+                .andExpect(jsonPath("$.tasks.completed[0]", is(false)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait choisir le format selon la qualité des types de l'en-tête Accept")
+    void getAllTasks_withResponseCache_shouldHonourAcceptQuality() throws Exception {
+        when(todoListService.getAllTasks()).thenReturn(List.of(new Task(1L, "Task 1", "Desc 1", false, 1L)));
+        TaskResponseCache cache = new TaskResponseCache(objectMapper, 1 << 20, 100, new SimpleMeterRegistry());
+        MockMvc cached = MockMvcBuilders.standaloneSetup(new TodoListController(todoListService, objectMapper, clusterRouter, null, cache)).build();
+
+        // q=0 : le client refuse CBOR, même cité
+        cached.perform(get("/api/v1/tasks/all").header("Accept", "application/json, application/cbor;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].label", is("Task 1")));
+        // Le type de plus haute qualité l'emporte sur l'ordre de l'en-tête
+        cached.perform(get("/api/v1/tasks/all").header("Accept", "application/cbor;q=0.5, " + TaskColumnsHttpMessageConverter.MEDIA_TYPE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TaskColumnsHttpMessageConverter.MEDIA_TYPE));
+        cached.perform(get("/api/v1/tasks/all").header("Accept", "application/json;q=0.2, application/cbor;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        // Type générique : JSON, sauf s'il est refusé
+        cached.perform(get("/api/v1/tasks/all").header("Accept", "*/*, application/json;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TaskColumnsHttpMessageConverter.MEDIA_TYPE));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait retourner les tâches en CBOR si le client le demande, et en JSON par défaut")
+    void getAllTasks_whenCborAccepted_shouldReturnCbor() throws Exception {
+        List<Task> tasks = List.of(new Task(1L, "Task 1", "Desc 1", false, 1L));
+        when(todoListService.getAllTasks()).thenReturn(tasks);
+        MockMvc negotiating = negotiatingMockMvc();
+
+        byte[] cbor = negotiating.perform(get("/api/v1/tasks/all").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        Task[] decoded = new CBORMapper().readValue(cbor, Task[].class);
+        assertEquals("Task 1", decoded[0].getLabel());
+        assertEquals(1L, decoded[0].getVersion());
+
+        negotiating.perform(get("/api/v1/tasks/all"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].label", is("Task 1")));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all - Devrait retourner le statut 304 Not Modified sans relire les tâches si la version n'a pas changé")
+    void getAllTasks_whenETagMatches_shouldReturnNotModified() throws Exception {
+        when(todoListService.getEpoch()).thenReturn(255L);
+        when(todoListService.getVersion()).thenReturn(7L);
+
+        mockMvc.perform(get("/api/v1/tasks/all").header("If-None-Match", "\"ff-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(todoListService, never()).getAllTasks();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/{id} - Devrait retourner la tâche si l'ETag du client est périmé")
+    void getTaskById_whenETagIsStale_shouldReturnTask() throws Exception {
+        when(todoListService.getEpoch()).thenReturn(255L);
+        when(todoListService.getVersion()).thenReturn(8L);
+        when(todoListService.getTaskById(1L)).thenReturn(new Task(1L, "Test Task", "Desc", true));
+
+        mockMvc.perform(get("/api/v1/tasks/1").header("If-None-Match", "\"ff-7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"ff-8\""))
+                .andExpect(jsonPath("$.completed", is(true)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/export - Devrait écrire une tâche JSON par ligne au format NDJSON")
+    void exportTasks_shouldStreamOneTaskPerLine() throws Exception {
+        Task task1 = new Task(1L, "Task 1", "Desc 1", false);
+        Task task2 = new Task(2L, "Task 2", "Desc 2", true);
+        when(todoListService.iterateTasks(false)).thenReturn(List.of(task1, task2).iterator());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(task1) + "\n" + objectMapper.writeValueAsString(task2) + "\n"));
+
+        verify(todoListService).iterateTasks(false);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/export - Devrait retourner un contenu vide s'il n'y a aucune tâche à faire")
+    void exportTasks_whenNoTodoTasks_shouldReturnEmptyBody() throws Exception {
+        when(todoListService.iterateTasks(true)).thenReturn(Collections.emptyIterator());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks/export").param("todo", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+
+        verify(todoListService).iterateTasks(true);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all/page - Devrait retourner une page de tâches avec le curseur suivant")
+    void getTasksPage_shouldReturnPageWithCursor() throws Exception {
+        Task task3 = new Task(3L, "Task 3", "Desc 3", false);
+        Task task4 = new Task(4L, "Task 4", "Desc 4", true);
+
+        when(todoListService.getTasksPage(2L, 2)).thenReturn(new TaskPage(Arrays.asList(task3, task4), 4L));
+
+        mockMvc.perform(get("/api/v1/tasks/all/page").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.tasks", hasSize(2)))
+                .andExpect(jsonPath("$.tasks[0].id", is(3)))
+                .andExpect(jsonPath("$.tasks[1].id", is(4)))
+                .andExpect(jsonPath("$.nextCursor", is(4)));
+
+        verify(todoListService).getTasksPage(2L, 2);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all/page - Devrait transmettre les filtres et le tri au service")
+    void getTasksPage_withFiltersAndSort_shouldQueryService() throws Exception {
+        Task task = new Task(7L, "Appeler la banque", "Desc", true);
+        TaskQuery query = new TaskQuery(true, 5L, 9L, "app", TaskQuery.Sort.LABEL, true);
+
+        when(todoListService.queryTasks(query, 3L, "Banque", 10)).thenReturn(new TaskPage(List.of(task), 7L));
+
+        mockMvc.perform(get("/api/v1/tasks/all/page")
+                        .param("completed", "true").param("minId", "5").param("maxId", "9").param("label", "App")
+                        .param("sort", "label,desc").param("after", "3").param("afterLabel", "Banque").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[0].id", is(7)))
+                .andExpect(jsonPath("$.nextCursor", is(7)));
+
+        verify(todoListService).queryTasks(query, 3L, "Banque", 10);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all/page - Devrait garder dans le cache une entrée par requête, même si un libellé imite un tri")
+    void getTasksPage_withResponseCache_shouldNotMixQueries() throws Exception {
+        TaskQuery byLabel = TaskQuery.of(null, null, null, "a, sort=label,desc", null);
+        TaskQuery sorted = TaskQuery.of(null, null, null, "a", "label,desc");
+        when(todoListService.queryTasks(byLabel, null, null, 50))
+                .thenReturn(new TaskPage(List.of(new Task(1L, "A, sort=label,desc", "Desc", false)), null));
+        when(todoListService.queryTasks(sorted, null, null, 50))
+                .thenReturn(new TaskPage(List.of(new Task(2L, "Ab", "Desc", false)), null));
+        TaskResponseCache cache = new TaskResponseCache(objectMapper, 1 << 20, 100, new SimpleMeterRegistry());
+        MockMvc cached = MockMvcBuilders.standaloneSetup(new TodoListController(todoListService, objectMapper, clusterRouter, null, cache)).build();
+
+        cached.perform(get("/api/v1/tasks/all/page").param("label", "a, sort=label,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[0].id", is(1)));
+        cached.perform(get("/api/v1/tasks/all/page").param("label", "a").param("sort", "label,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[0].id", is(2)));
+
+        verify(todoListService).queryTasks(byLabel, null, null, 50);
+        verify(todoListService).queryTasks(sorted, null, null, 50);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all/page - Devrait retourner 400 pour un tri inconnu")
+    void getTasksPage_withInvalidSort_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/all/page").param("sort", "description"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/tasks/all/page").param("sort", "id,up"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(todoListService);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all/page - Devrait retourner 404 quand la tâche du curseur d'un tri par libellé n'existe plus")
+    void getTasksPage_whenLabelCursorIsUnknown_shouldReturnNotFound() throws Exception {
+        TaskQuery query = TaskQuery.of(null, null, null, null, "label");
+        when(todoListService.queryTasks(query, 3L, null, 50)).thenReturn(null);
+
+        mockMvc.perform(get("/api/v1/tasks/all/page").param("sort", "label").param("after", "3"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/todo/page - Devrait retourner la première page des tâches à faire par défaut")
+    void getTodoTasksPage_withoutCursor_shouldReturnFirstPage() throws Exception {
+        Task task1 = new Task(1L, "Task 1", "Desc 1", false);
+
+        when(todoListService.getTodoTasksPage(null, 50)).thenReturn(new TaskPage(List.of(task1), null));
+
+        mockMvc.perform(get("/api/v1/tasks/todo/page"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.tasks", hasSize(1)))
+                .andExpect(jsonPath("$.tasks[0].completed", is(false)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(todoListService).getTodoTasksPage(null, 50);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/all/range - Devrait retourner une plage de tâches par rang avec le nombre total")
+    void getTasksRange_shouldReturnRangeWithTotal() throws Exception {
+        Task task3 = new Task(3L, "Task 3", "Desc 3", false);
+        Task task4 = new Task(4L, "Task 4", "Desc 4", true);
+
+        when(todoListService.getTasksRange(2, 2, false)).thenReturn(new TaskRange(2, 10, Arrays.asList(task3, task4)));
+
+        mockMvc.perform(get("/api/v1/tasks/all/range").param("offset", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.offset", is(2)))
+                .andExpect(jsonPath("$.total", is(10)))
+                .andExpect(jsonPath("$.tasks", hasSize(2)))
+                .andExpect(jsonPath("$.tasks[0].id", is(3)))
+                .andExpect(jsonPath("$.tasks[1].id", is(4)));
+
+        verify(todoListService).getTasksRange(2, 2, false);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/tasks/search - Devrait retourner la page de résultats de la recherche")
+    void searchTasks_shouldReturnSearchPage() throws Exception {
+        TaskSearchPage page = new TaskSearchPage(List.of(new Task(2L, "Acheter du pain", "Boulangerie", false)), 1);
+        when(todoListService.searchTasks("pain boul", 0, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/tasks/search").param("q", "pain boul").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.tasks", hasSize(1)))
+                .andExpect(jsonPath("$.tasks[0].id", is(2)))
+                .andExpect(jsonPath("$.nextOffset", is(1)));
+
+        verify(todoListService).searchTasks("pain boul", 0, 1);
+    }
+
     @Test
     @DisplayName("GET /api/v1/tasks/{id} - Devrait retourner la tâche si elle existe et le statut 200 OK")
     void getTaskById_whenTaskExists_shouldReturnTask() throws Exception {
@@ -166,7 +577,7 @@ class TodoListControllerTest {
         Task taskToUpdatePayload = new Task(taskId, "Task 1", "Description", true);
         Task updatedTaskFromService = new Task(taskId, "Task 1", "Description", true);
 
-        when(todoListService.updateTask(eq(taskId), eq(true))).thenReturn(updatedTaskFromService);
+        when(todoListService.updateTask(eq(taskId), eq(true), isNull())).thenReturn(updatedTaskFromService);
 
         mockMvc.perform(put("/api/v1/tasks/update")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -178,7 +589,7 @@ class TodoListControllerTest {
                 .andExpect(jsonPath("$.description", is("Description")))
                 .andExpect(jsonPath("$.completed", is(true)));
 
-        verify(todoListService).updateTask(taskId, true);
+        verify(todoListService).updateTask(taskId, true, null);
     }
 
     @Test
@@ -187,14 +598,92 @@ class TodoListControllerTest {
         Long taskId = 99L;
         Task taskToUpdatePayload = new Task(taskId, "Task 1", "Tâche inconnue", true);
 
-        when(todoListService.updateTask(eq(taskId), eq(true))).thenReturn(null);
+        when(todoListService.updateTask(eq(taskId), eq(true), isNull())).thenReturn(null);
 
         mockMvc.perform(put("/api/v1/tasks/update")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(taskToUpdatePayload)))
                 .andExpect(status().isNotFound());
 
-        verify(todoListService).updateTask(taskId, true);
+        verify(todoListService).updateTask(taskId, true, null);
+    }
+
+    @Test
+    @DisplayName("PUT /api/v1/tasks/update - Devrait retourner le statut 409 Conflict et la tâche courante si la version a changé")
+    void updateTask_whenVersionChanged_shouldReturnConflict() throws Exception {
+        Long taskId = 1L;
+        Task taskToUpdatePayload = new Task(taskId, "Task 1", "Description", true, 2L);
+        Task currentTask = new Task(taskId, "Task 1", "Description", false, 3L);
+
+        when(todoListService.updateTask(taskId, true, 2L)).thenThrow(new TaskVersionConflictException(currentTask));
+
+        mockMvc.perform(put("/api/v1/tasks/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskToUpdatePayload)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.completed", is(false)))
+                .andExpect(jsonPath("$.version", is(3)));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/tasks/add - Avec la file d'écriture, devrait attendre l'application du lot et retourner 201 Created")
+    void addTask_withWriteQueue_shouldWaitForBatch() throws Exception {
+        TaskWriteQueue writeQueue = mock(TaskWriteQueue.class);
+        when(writeQueue.addTask(any(Task.class))).thenReturn(CompletableFuture.completedFuture(new Task(1L, "New Task", "Desc", false, 1L)));
+        MockMvc queued = MockMvcBuilders.standaloneSetup(new TodoListController(todoListService, objectMapper, clusterRouter, writeQueue, null)).build();
+
+        queued.perform(post("/api/v1/tasks/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Task(null, "New Task", "Desc", false))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(1)));
+
+        verify(todoListService, never()).addTask(any(Task.class));
+    }
+
+    @Test
+    @DisplayName("PUT /api/v1/tasks/update - Avec la file d'écriture, devrait retourner 409 Conflict si la version a changé")
+    void updateTask_withWriteQueue_whenVersionChanged_shouldReturnConflict() throws Exception {
+        TaskWriteQueue writeQueue = mock(TaskWriteQueue.class);
+        Task currentTask = new Task(1L, "Task 1", "Description", false, 3L);
+        when(writeQueue.updateTask(1L, true, 2L)).thenReturn(CompletableFuture.failedFuture(new TaskVersionConflictException(currentTask)));
+        MockMvc queued = MockMvcBuilders.standaloneSetup(new TodoListController(todoListService, objectMapper, clusterRouter, writeQueue, null)).build();
+
+        queued.perform(put("/api/v1/tasks/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Task(1L, "Task 1", "Description", true, 2L))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.version", is(3)));
+    }
+
+    @Test
+    @DisplayName("PUT /api/v1/tasks/update - Devrait retourner 400 Bad Request pour une tâche sans id, avec ou sans file d'écriture")
+    void updateTask_withoutId_shouldReturnBadRequest() throws Exception {
+        TaskWriteQueue writeQueue = mock(TaskWriteQueue.class);
+        MockMvc queued = MockMvcBuilders.standaloneSetup(new TodoListController(todoListService, objectMapper, clusterRouter, writeQueue, null)).build();
+        String body = objectMapper.writeValueAsString(new Task(null, "Task 1", "Description", true));
+
+        mockMvc.perform(put("/api/v1/tasks/update").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        queued.perform(put("/api/v1/tasks/update").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+
+        verify(todoListService, never()).updateTask(any(), anyBoolean(), any());
+        verify(writeQueue, never()).updateTask(any(), anyBoolean(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/tasks/add - Devrait retourner 429 Too Many Requests si la file d'écriture est pleine")
+    void addTask_whenWriteQueueIsFull_shouldReturnTooManyRequests() throws Exception {
+        TaskWriteQueue writeQueue = mock(TaskWriteQueue.class);
+        when(writeQueue.addTask(any(Task.class))).thenThrow(new TaskWriteQueueFullException());
+        MockMvc queued = MockMvcBuilders.standaloneSetup(new TodoListController(todoListService, objectMapper, clusterRouter, writeQueue, null)).build();
+
+        queued.perform(post("/api/v1/tasks/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Task(null, "New Task", "Desc", false))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
     }
 
     @Test
@@ -220,4 +709,45 @@ class TodoListControllerTest {
 
         verify(todoListService).deleteTask(taskId);
     }
+
+    @Test
+    @DisplayName("POST /api/v1/tasks/batch - Devrait appliquer le lot et retourner un résultat par opération avec le statut 200 OK")
+    void applyBatch_shouldReturnPerItemResults() throws Exception {
+        List<TaskOperation> operations = List.of(
+                new TaskOperation(TaskOperation.Type.ADD, new Task(null, "New Task", "Desc", false)),
+                new TaskOperation(TaskOperation.Type.DELETE, new Task(99L, null, null, false)));
+        List<TaskOperationResult> results = List.of(
+                new TaskOperationResult(201, new Task(1L, "New Task", "Desc", false)),
+                new TaskOperationResult(404, null));
+
+        when(todoListService.applyBatch(anyList())).thenReturn(results);
+
+        mockMvc.perform(post("/api/v1/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", is(201)))
+                .andExpect(jsonPath("$[0].task.id", is(1)))
+                .andExpect(jsonPath("$[1].status", is(404)));
+
+        verify(todoListService).applyBatch(argThat(batch -> batch.size() == 2
+                && batch.get(0).getType() == TaskOperation.Type.ADD
+                && batch.get(1).getTask().getId() == 99L));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/tasks/batch - Devrait retourner le statut 400 Bad Request si le lot est trop gros")
+    void applyBatch_whenBatchIsTooLarge_shouldReturnBadRequest() throws Exception {
+        List<TaskOperation> operations = Collections.nCopies(TodoListService.MAX_BATCH_SIZE + 1,
+                new TaskOperation(TaskOperation.Type.ADD, new Task(null, "Task", "Desc", false)));
+
+        mockMvc.perform(post("/api/v1/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(todoListService);
+    }
 }
\ No newline at end of file
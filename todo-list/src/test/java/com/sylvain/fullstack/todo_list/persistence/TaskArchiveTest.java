@@ -0,0 +1,131 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private static Task completed(long id) {
+        return new Task(id, "Task " + id, "Desc " + id, true, 3L, 1_000L * id);
+    }
+
+    private static List<Task> completed(long from, long to) {
+        return LongStream.rangeClosed(from, to).mapToObj(TaskArchiveTest::completed).toList();
+    }
+
+    @Test
+    @DisplayName("Devrait relire une tâche archivée par son id, avec sa version et sa date de fin")
+    void get_shouldReturnArchivedTask() {
+        try (TaskArchive archive = new TaskArchive(directory, 1 << 20)) {
+            archive.append(completed(1, 10));
+            archive.append(completed(20, 30));
+
+            assertEquals(completed(25), archive.get(25));
+            assertEquals(3L, archive.get(5).getVersion());
+            assertEquals(5_000L, archive.get(5).getCompletedAt());
+            assertNull(archive.get(15), "Un id entre deux blocs ne devrait pas être trouvé");
+            assertNull(archive.get(31));
+            assertEquals(21, archive.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait paginer les tâches archivées par id, quel que soit l'ordre des blocs")
+    void page_shouldMergeBlocksById() {
+        try (TaskArchive archive = new TaskArchive(directory, 1 << 20)) {
+            archive.append(completed(11, 20));
+            archive.append(completed(1, 10));
+            archive.append(List.of(completed(25), completed(21)));
+
+            List<Long> ids = new ArrayList<>();
+            Long cursor = null;
+            int pages = 0;
+            do {
+                TaskPage page = archive.page(cursor, 7);
+                page.getTasks().forEach(task -> ids.add(task.getId()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertEquals(LongStream.concat(LongStream.rangeClosed(1, 21), LongStream.of(25)).boxed().toList(), ids);
+            assertEquals(4, pages);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait lire la copie la plus récente d'une tâche archivée deux fois")
+    void get_shouldPreferNewestCopy() {
+        try (TaskArchive archive = new TaskArchive(directory, 1 << 20)) {
+            archive.append(completed(1, 3));
+            Task again = new Task(2L, "Task 2 bis", "Desc 2", true, 5L, 9_000L);
+            archive.append(List.of(again));
+
+            assertEquals(again, archive.get(2));
+            assertEquals(List.of(completed(1), again, completed(3)), archive.page(null, 10).getTasks());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait retrouver les blocs après réouverture, répartis sur plusieurs segments")
+    void reopen_shouldReadAllSegments() throws IOException {
+        try (TaskArchive archive = new TaskArchive(directory, 256)) {
+            for (long from = 1; from <= 100; from += 10) {
+                archive.append(completed(from, from + 9));
+            }
+        }
+        assertTrue(segments().size() > 1, "Les blocs devraient être répartis sur plusieurs segments");
+
+        try (TaskArchive reopened = new TaskArchive(directory, 256)) {
+            assertEquals(100, reopened.count());
+            assertEquals(completed(77), reopened.get(77));
+            assertEquals(completed(1, 100), reopened.page(null, 500).getTasks());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait tronquer un bloc incomplet en fin de segment et continuer à archiver")
+    void reopen_shouldTruncateIncompleteBlock() throws IOException {
+        try (TaskArchive archive = new TaskArchive(directory, 1 << 20)) {
+            archive.append(completed(1, 10));
+            archive.append(completed(11, 20));
+        }
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (TaskArchive reopened = new TaskArchive(directory, 1 << 20)) {
+            assertEquals(10, reopened.count(), "Le bloc incomplet devrait être ignoré");
+            assertNull(reopened.get(15));
+            reopened.append(completed(11, 20));
+            assertEquals(completed(15), reopened.get(15));
+        }
+        try (TaskArchive again = new TaskArchive(directory, 1 << 20)) {
+            assertEquals(completed(1, 20), again.page(null, 50).getTasks());
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("archive-")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.sylvain.fullstack.todo_list.persistence;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.service.TodoListService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalTaskPersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    private WalTaskPersistence openWal(long snapshotEvery) {
+        return new WalTaskPersistence(directory, true, Duration.ofMillis(5), snapshotEvery);
+    }
+
+    @Test
+    @DisplayName("Devrait retrouver les tâches et le compteur d'id après redémarrage")
+    void restart_shouldRecoverTasksAndIdCounter() {
+        WalTaskPersistence wal = openWal(100_000);
+        TodoListService service = new TodoListService(wal);
+        Task task1 = service.addTask(new Task(null, "Task 1", "Desc 1", false));
+        Task task2 = service.addTask(new Task(null, "Task 2", "Desc 2", false));
+        Task task3 = service.addTask(new Task(null, "Task 3", "Desc 3", false));
+        service.updateTask(task2.getId(), true);
+        service.deleteTask(task3.getId());
+        wal.close();
+
+        WalTaskPersistence reopened = openWal(100_000);
+        TodoListService restarted = new TodoListService(reopened);
+        try {
+            assertEquals(List.of(task1.getId(), task2.getId()),
+                    restarted.getAllTasks().stream().map(Task::getId).toList());
+            assertTrue(restarted.getTaskById(task2.getId()).isCompleted(), "La mise à jour devrait être rejouée");
+            assertEquals(2L, restarted.getTaskById(task2.getId()).getVersion(), "La version devrait être rejouée");
+            assertEquals(List.of(task1.getId()), restarted.getTodoTasks().stream().map(Task::getId).toList());
+            Task task4 = restarted.addTask(new Task(null, "Task 4", "Desc 4", false));
+            assertEquals(4L, task4.getId(), "L'id de la tâche supprimée ne devrait pas être réattribué");
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait écrire un snapshot et supprimer les anciens segments du journal")
+    void snapshot_shouldCompactJournal() throws Exception {
+        WalTaskPersistence wal = openWal(10);
+        TodoListService service = new TodoListService(wal);
+        for (int i = 1; i <= 50; i++) {
+            service.addTask(new Task(null, "Task " + i, "Desc " + i, false));
+        }
+        for (long id = 1; id <= 25; id++) {
+            service.deleteTask(id);
+        }
+        wal.close();
+
+        assertFalse(files("snapshot-").isEmpty(), "Au moins un snapshot devrait avoir été écrit");
+        assertTrue(files("wal-").size() < 10, "Les segments antérieurs au snapshot devraient être supprimés");
+
+        WalTaskPersistence reopened = openWal(10);
+        TodoListService restarted = new TodoListService(reopened);
+        try {
+            assertEquals(25, restarted.getAllTasks().size());
+            assertNull(restarted.getTaskById(25L));
+            assertEquals("Task 50", restarted.getTaskById(50L).getLabel());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer un enregistrement incomplet en fin de journal")
+    void recover_whenLastRecordIsTruncated_shouldIgnoreIt() throws IOException {
+        WalTaskPersistence wal = openWal(100_000);
+        TodoListService service = new TodoListService(wal);
+        service.addTask(new Task(null, "Task 1", "Desc 1", false));
+        service.addTask(new Task(null, "Task 2", "Desc 2", false));
+        wal.close();
+
+        // Simule un arrêt brutal au milieu de l'écriture du dernier enregistrement
+        Path segment = files("wal-").get(0);
+        long size = Files.size(segment);
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        WalTaskPersistence reopened = openWal(100_000);
+        TodoListService restarted = new TodoListService(reopened);
+        try {
+            assertEquals(List.of(1L), restarted.getAllTasks().stream().map(Task::getId).toList());
+            assertEquals(2L, restarted.addTask(new Task(null, "Task 2 bis", "Desc", false)).getId());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait refuser les modifications sans toucher aux tâches après l'échec d'une écriture du journal")
+    void write_whenJournalHasFailed_shouldLeaveTasksUnchanged() throws Exception {
+        Path walDirectory = directory.resolve("wal");
+        WalTaskPersistence wal = new WalTaskPersistence(walDirectory, true, Duration.ofMillis(5), 2);
+        TodoListService service = new TodoListService(wal);
+        try {
+            Task task1 = service.addTask(new Task(null, "Task 1", "Desc 1", false));
+            // Sans répertoire, le segment ouvert au prochain snapshot ne peut pas être créé : le thread d'écriture échoue
+            try (Stream<Path> files = Files.list(walDirectory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(walDirectory);
+            service.addTask(new Task(null, "Task 2", "Desc 2", false));
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (writable(wal)) {
+                assertTrue(System.nanoTime() < deadline, "Le journal devrait être en échec");
+                Thread.sleep(5);
+            }
+            long version = service.getVersion();
+
+            assertThrows(UncheckedIOException.class, () -> service.addTask(new Task(null, "Task 3", "Desc 3", false)));
+            assertThrows(UncheckedIOException.class, () -> service.updateTask(task1.getId(), true));
+            assertThrows(UncheckedIOException.class, () -> service.deleteTask(task1.getId()));
+
+            assertEquals(version, service.getVersion(), "Aucune modification ne devrait être publiée");
+            assertEquals(List.of(1L, 2L), service.getAllTasks().stream().map(Task::getId).toList());
+            assertFalse(service.getTaskById(task1.getId()).isCompleted());
+        } finally {
+            wal.close();
+        }
+    }
+
+    private static boolean writable(WalTaskPersistence wal) {
+        try {
+            wal.ensureWritable();
+            return true;
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.sylvain.fullstack.todo_list.ratelimit;
+
+import com.sylvain.fullstack.todo_list.cluster.ClusterRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.method.HandlerMethod;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+    private static final String SECRET = "secret-du-cluster";
+
+    // Horloge figée : les seaux ne se remplissent pas pendant le test
+    private final AtomicLong clock = new AtomicLong(1_000_000_000_000L);
+    private final HandlerMethod handler = handler();
+
+    @Test
+    @DisplayName("Devrait limiter une requête avec l'en-tête des nœuds sur un nœud seul")
+    void preHandle_shouldLimitLocalHeaderOnStandaloneNode() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(ClusterRouter.standalone());
+
+        assertTrue(interceptor.preHandle(request("10.0.0.1", ClusterRouter.LOCAL_HEADER, "true"), new MockHttpServletResponse(), handler));
+        assertTrue(interceptor.preHandle(request("10.0.0.1", ClusterRouter.LOCAL_HEADER, "true"), new MockHttpServletResponse(), handler));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("10.0.0.1", ClusterRouter.LOCAL_HEADER, "true"), response, handler));
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Devrait exempter les seules requêtes des nœuds qui portent le secret du cluster")
+    void preHandle_shouldExemptOnlyPeersWithClusterSecret() throws Exception {
+        ClusterRouter router = new ClusterRouter(List.of(URI.create("http://localhost:8081"), URI.create("http://localhost:8082")),
+                0, 16, RestClient.builder(), Duration.ofSeconds(1), SECRET);
+        RateLimitInterceptor interceptor = interceptor(router);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(interceptor.preHandle(request("10.0.0.2", ClusterRouter.LOCAL_HEADER, SECRET), new MockHttpServletResponse(), handler));
+        }
+        assertTrue(interceptor.preHandle(request("10.0.0.2", ClusterRouter.LOCAL_HEADER, "faux"), new MockHttpServletResponse(), handler));
+        assertTrue(interceptor.preHandle(request("10.0.0.2", ClusterRouter.LOCAL_HEADER, "faux"), new MockHttpServletResponse(), handler));
+        assertFalse(interceptor.preHandle(request("10.0.0.2", ClusterRouter.LOCAL_HEADER, "faux"), new MockHttpServletResponse(), handler),
+                "Un en-tête sans le secret ne devrait pas exempter la requête");
+    }
+
+    @Test
+    @DisplayName("Devrait identifier par son adresse IP un client dont la clé d'API n'est pas reconnue")
+    void preHandle_shouldIgnoreUnknownApiKeys() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(ClusterRouter.standalone());
+
+        // Une clé différente à chaque requête ne donne pas de nouveau seau
+        assertTrue(interceptor.preHandle(request("10.0.0.3", "X-Api-Key", "cle-1"), new MockHttpServletResponse(), handler));
+        assertTrue(interceptor.preHandle(request("10.0.0.3", "X-Api-Key", "cle-2"), new MockHttpServletResponse(), handler));
+        assertFalse(interceptor.preHandle(request("10.0.0.3", "X-Api-Key", "cle-3"), new MockHttpServletResponse(), handler));
+
+        // Une clé reconnue a son propre seau, quelle que soit l'adresse
+        assertTrue(interceptor.preHandle(request("10.0.0.3", "X-Api-Key", "cle-valide"), new MockHttpServletResponse(), handler));
+        assertTrue(interceptor.preHandle(request("10.0.0.4", "X-Api-Key", "cle-valide"), new MockHttpServletResponse(), handler));
+        assertFalse(interceptor.preHandle(request("10.0.0.5", "X-Api-Key", "cle-valide"), new MockHttpServletResponse(), handler));
+    }
+
+    /**
+     * Intercepteur avec des seaux de 2 jetons, sans remplissage
+     */
+    private RateLimitInterceptor interceptor(ClusterRouter router) {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 2, 100, clock::get);
+        return new RateLimitInterceptor(limiter, "X-Api-Key", Set.of("cle-valide"), router, new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletRequest request(String address, String header, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/tasks/1");
+        request.setRemoteAddr(address);
+        request.addHeader(header, value);
+        return request;
+    }
+
+    private static HandlerMethod handler() {
+        try {
+            return new HandlerMethod(new Object(), Object.class.getMethod("toString"));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sylvain.fullstack.todo_list.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000_000L);
+
+    @Test
+    @DisplayName("Devrait accepter une rafale jusqu'à la capacité, puis au débit de remplissage")
+    void tryAcquire_shouldAllowBurstThenRefillRate() {
+        // 10 jetons par seconde, soit un jeton toutes les 100 ms
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 5, 100, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("a", 1));
+        }
+        assertEquals(100_000_000L, limiter.tryAcquire("a", 1));
+        // Un autre client a son propre seau
+        assertEquals(0, limiter.tryAcquire("b", 5));
+
+        clock.addAndGet(100_000_000L);
+        assertEquals(0, limiter.tryAcquire("a", 1));
+        assertTrue(limiter.tryAcquire("a", 1) > 0);
+
+        // Un seau ne se remplit pas au-delà de sa capacité
+        clock.addAndGet(60_000_000_000L);
+        assertEquals(0, limiter.tryAcquire("a", 5));
+        assertTrue(limiter.tryAcquire("a", 1) > 0);
+    }
+
+    @Test
+    @DisplayName("Devrait accepter une requête plus chère que la capacité quand le seau est plein")
+    void tryAcquire_whenCostExceedsCapacity_shouldRequireFullBucket() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 5, 100, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("a", 50));
+        assertEquals(500_000_000L, limiter.tryAcquire("a", 50));
+        clock.addAndGet(500_000_000L);
+        assertEquals(0, limiter.tryAcquire("a", 50));
+    }
+
+    @Test
+    @DisplayName("Devrait retirer les seaux pleins quand le nombre de clients atteint le maximum")
+    void tryAcquire_whenTooManyClients_shouldEvictFullBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 5, 3, clock::get);
+        limiter.tryAcquire("a", 5);
+        limiter.tryAcquire("b", 5);
+        limiter.tryAcquire("c", 5);
+        assertEquals(3, limiter.clientCount());
+
+        // Clients actifs : le nouveau client partage le seau de débordement
+        assertEquals(0, limiter.tryAcquire("d", 5));
+        assertTrue(limiter.tryAcquire("e", 1) > 0);
+        assertEquals(3, limiter.clientCount());
+
+        // Une fois les seaux pleins, ils sont retirés et le nouveau client a son propre seau
+        clock.addAndGet(2_000_000_000L);
+        assertEquals(0, limiter.tryAcquire("e", 5));
+        assertEquals(1, limiter.clientCount());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas accepter plus de jetons que la capacité, même avec des appels concurrents")
+    void tryAcquire_concurrently_shouldNotOverspend() throws Exception {
+        // Horloge figée : aucun jeton n'est rendu pendant le test
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1000, 100, clock::get);
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    int accepted = 0;
+                    for (int i = 0; i < 10_000; i++) {
+                        if (limiter.tryAcquire("a", 1) == 0) {
+                            accepted++;
+                        }
+                    }
+                    return accepted;
+                }));
+            }
+        }
+        int accepted = 0;
+        for (Future<Integer> result : results) {
+            accepted += result.get();
+        }
+        assertEquals(1000, accepted);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskChangeFeedTest {
+
+    @Test
+    @DisplayName("Devrait numéroter les modifications et les relire par lots, dans l'ordre")
+    void readSince_shouldReturnChangesInOrderUpToLimit() {
+        TaskChangeFeed feed = new TaskChangeFeed(10);
+        AtomicInteger notified = new AtomicInteger();
+        feed.addListener(notified::incrementAndGet);
+        for (long id = 1; id <= 5; id++) {
+            assertEquals(id, feed.publish(TaskChange.Type.ADD, id, new Task(id, "Task " + id, "Desc", false)));
+        }
+
+        assertEquals(5, feed.currentSequence());
+        assertEquals(5, notified.get());
+        assertEquals(List.of(2L, 3L), feed.readSince(1, 2).stream().map(TaskChange::getSequence).toList());
+        assertEquals(List.of(4L, 5L), feed.readSince(3, 10).stream().map(TaskChange::getId).toList());
+        assertTrue(feed.readSince(5, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Devrait relire le numéro d'un id d'événement de cette instance, et -1 pour une autre instance")
+    void sequenceOf_shouldRejectOtherEpochs() {
+        TaskChangeFeed feed = new TaskChangeFeed(10);
+        TaskChangeFeed restarted = new TaskChangeFeed(10);
+
+        assertEquals(12, TaskChangeFeed.sequenceOf(feed.eventId(12), feed.epoch()));
+        assertEquals(-1, TaskChangeFeed.sequenceOf(restarted.eventId(12), feed.epoch()));
+        // Ancien format, sans epoch, ou id forgé
+        assertEquals(-1, TaskChangeFeed.sequenceOf("12", feed.epoch()));
+        assertEquals(-1, TaskChangeFeed.sequenceOf(feed.epoch() + "-x", feed.epoch()));
+    }
+
+    @Test
+    @DisplayName("Devrait renvoyer null si les modifications demandées ont été remplacées ou n'existent pas")
+    void readSince_whenChangesAreUnavailable_shouldReturnNull() {
+        TaskChangeFeed feed = new TaskChangeFeed(3);
+        for (long id = 1; id <= 5; id++) {
+            feed.publish(TaskChange.Type.DELETE, id, null);
+        }
+
+        assertNull(feed.readSince(1, 10), "Les modifications 2 à 5 ne tiennent pas dans 3 cases");
+        assertEquals(List.of(3L, 4L, 5L), feed.readSince(2, 10).stream().map(TaskChange::getSequence).toList());
+        assertNull(feed.readSince(6, 10), "Une version future ne devrait pas être acceptée");
+        assertNull(feed.readSince(-1, 10));
+    }
+
+    @Test
+    @DisplayName("Devrait conserver toutes les modifications publiées en parallèle, sans trou ni doublon")
+    void publish_concurrently_shouldKeepEverySequence() throws InterruptedException {
+        TaskChangeFeed feed = new TaskChangeFeed(10_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    feed.publish(TaskChange.Type.UPDATE, 1L, null);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Long> sequences = new ArrayList<>();
+        feed.readSince(0, 10_000).forEach(change -> sequences.add(change.getSequence()));
+        assertEquals(LongStream.rangeClosed(1, 4000).boxed().toList(), sequences);
+    }
+}
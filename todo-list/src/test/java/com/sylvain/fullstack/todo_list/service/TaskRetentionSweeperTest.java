@@ -0,0 +1,150 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.persistence.TaskArchive;
+import com.sylvain.fullstack.todo_list.store.CompactTaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskRetentionSweeperTest {
+
+    private static final Duration RETENTION = Duration.ofDays(30);
+    // Intervalle assez long pour que le thread de fond n'intervienne pas : les tranches sont appelées par les tests
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private TaskRetentionSweeper sweeper(TodoListService service, TaskArchive archive, int sliceSize, Duration elapsed) {
+        return new TaskRetentionSweeper(service, RETENTION, archive, sliceSize, NEVER,
+                Clock.offset(Clock.systemUTC(), elapsed), registry);
+    }
+
+    @Test
+    @DisplayName("Devrait archiver puis supprimer les tâches terminées depuis plus longtemps que la rétention")
+    void sweep_shouldArchiveExpiredTasks() {
+        TodoListService service = new TodoListService();
+        Task todo = service.addTask(new Task(null, "Task 1", "Desc 1", false));
+        Task done = service.updateTask(service.addTask(new Task(null, "Task 2", "Desc 2", false)).getId(), true);
+        Task created = service.addTask(new Task(null, "Task 3", "Desc 3", true));
+        assertNotNull(done.getCompletedAt(), "Une tâche terminée devrait avoir une date de fin");
+        assertNotNull(created.getCompletedAt(), "Une tâche créée terminée devrait avoir une date de fin");
+
+        try (TaskArchive archive = new TaskArchive(directory, 1 << 20);
+             TaskRetentionSweeper sweeper = sweeper(service, archive, 100, RETENTION.plusDays(1))) {
+            assertEquals(2, sweeper.sweep());
+
+            assertEquals(List.of(todo), service.getAllTasks());
+            assertEquals(done, archive.get(done.getId()));
+            assertEquals(created, archive.get(created.getId()));
+            assertEquals(0, sweeper.sweep(), "Les tâches retirées ne devraient plus être suivies");
+            assertEquals(2.0, registry.get(TaskRetentionSweeper.EXPIRED).tag("action", "archive").counter().count());
+        }
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas retirer les tâches terminées récemment")
+    void sweep_shouldKeepRecentTasks() {
+        TodoListService service = new TodoListService();
+        Task done = service.addTask(new Task(null, "Task 1", "Desc 1", true));
+
+        try (TaskRetentionSweeper sweeper = sweeper(service, null, 100, RETENTION.minusDays(1))) {
+            assertEquals(0, sweeper.sweep());
+            assertEquals(List.of(done), service.getAllTasks());
+            assertEquals(1, service.getTrackedCompletedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas retirer une tâche remise à effectuer, ni une tâche terminée de nouveau avant sa nouvelle date")
+    void sweep_shouldSkipReopenedTasks() throws InterruptedException {
+        TodoListService service = new TodoListService();
+        Task reopened = service.addTask(new Task(null, "Task 1", "Desc 1", true));
+        Task completedAgain = service.addTask(new Task(null, "Task 2", "Desc 2", true));
+        Clock clock = Clock.systemUTC();
+        try (TaskRetentionSweeper sweeper = new TaskRetentionSweeper(service, Duration.ofMillis(50), null, 100, NEVER,
+                clock, registry)) {
+            reopened = service.updateTask(reopened.getId(), false);
+            service.updateTask(completedAgain.getId(), false);
+            Thread.sleep(60);
+            completedAgain = service.updateTask(completedAgain.getId(), true);
+
+            assertEquals(0, sweeper.sweep(), "Les anciennes dates de fin ne devraient plus compter");
+            assertEquals(List.of(reopened, completedAgain), service.getAllTasks());
+            assertNull(reopened.getCompletedAt());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait retirer au plus une tranche de tâches, de la plus ancienne à la plus récente")
+    void sweep_shouldBoundSlices() throws InterruptedException {
+        TodoListService service = new TodoListService();
+        for (int i = 1; i <= 10; i++) {
+            service.addTask(new Task(null, "Task " + i, "Desc " + i, true));
+            Thread.sleep(2);
+        }
+
+        try (TaskRetentionSweeper sweeper = sweeper(service, null, 4, RETENTION.plusDays(1))) {
+            assertEquals(4, sweeper.sweep());
+            assertEquals(5L, service.getAllTasks().get(0).getId(), "Les tâches terminées en premier devraient être retirées");
+            assertEquals(4, sweeper.sweep());
+            assertEquals(2, sweeper.sweep());
+            assertTrue(service.getAllTasks().isEmpty());
+            assertEquals(10.0, registry.get(TaskRetentionSweeper.EXPIRED).tag("action", "delete").counter().count());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait suivre les tâches terminées déjà présentes dans le stockage compact")
+    void sweep_shouldTrackExistingTasksInCompactStore() {
+        TodoListService service = new TodoListService(new InMemoryTaskPersistence(), new TaskChangeFeed(), new CompactTaskStore());
+        Task todo = service.addTask(new Task(null, "Task 1", "Desc 1", false));
+        Task done = service.updateTask(service.addTask(new Task(null, "Task 2", "Desc 2", false)).getId(), true);
+        assertEquals(done.getCompletedAt(), service.getTaskById(done.getId()).getCompletedAt());
+
+        try (TaskArchive archive = new TaskArchive(directory, 1 << 20);
+             TaskRetentionSweeper sweeper = sweeper(service, archive, 100, RETENTION.plusDays(1))) {
+            assertEquals(1, sweeper.sweep());
+            assertEquals(List.of(todo), service.getAllTasks());
+            assertEquals(done, archive.get(done.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait garder les tâches et les réessayer quand l'archivage échoue")
+    void expireTasks_shouldKeepTasksWhenArchiveFails() {
+        TodoListService service = new TodoListService();
+        Task done = service.addTask(new Task(null, "Task 1", "Desc 1", true));
+        service.trackCompletedTasks();
+        long later = System.currentTimeMillis() + 1;
+
+        assertThrows(UncheckedIOException.class, () -> service.expireTasks(later, 10, tasks -> {
+            throw new UncheckedIOException(new java.io.IOException("Disque plein"));
+        }));
+        assertEquals(List.of(done), service.getAllTasks());
+        assertEquals(1, service.getTrackedCompletedCount());
+
+        assertEquals(List.of(done), service.expireTasks(later, 10, null));
+        assertTrue(service.getAllTasks().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser de retirer des tâches sans suivi des tâches terminées")
+    void expireTasks_shouldRequireTracking() {
+        TodoListService service = new TodoListService();
+        assertThrows(IllegalStateException.class, () -> service.expireTasks(Long.MAX_VALUE, 10, null));
+    }
+}
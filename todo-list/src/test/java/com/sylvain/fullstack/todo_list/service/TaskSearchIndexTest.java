@@ -0,0 +1,66 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSearchIndexTest {
+
+    private final TaskSearchIndex index = new TaskSearchIndex();
+
+    @Test
+    @DisplayName("Devrait découper les textes en mots sans accents ni majuscules, sans les élisions")
+    void tokenize_shouldFoldAccentsAndCase() {
+        assertEquals(List.of("eleve", "du", "coeur", "aller", "eglise", "10h30"),
+                TaskSearchIndex.tokenize("Élève du cœur : aller à l'église, 10h30"));
+        assertTrue(TaskSearchIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Devrait trouver les tâches contenant tous les mots, entiers ou par leur début")
+    void search_shouldMatchAllTermsAndPrefixes() {
+        index.add(new Task(1L, "Acheter du pain", "Aller à la boulangerie", false));
+        index.add(new Task(2L, "Acheter du lait", "Aller à l'épicerie", false));
+        index.add(new Task(3L, "Réviser", "Chapitre sur la boulangerie", false));
+
+        assertEquals(List.of(2L, 1L), ids(index.search("acheter", 0, 10)));
+        assertEquals(List.of(1L), ids(index.search("ACHETER boul", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("epicerie", 0, 10)));
+        assertEquals(List.of(3L), ids(index.search("revis", 0, 10)));
+        assertTrue(ids(index.search("acheter chapitre", 0, 10)).isEmpty());
+        assertTrue(ids(index.search("  ", 0, 10)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Devrait classer les mots du libellé avant ceux de la description, et les mots entiers avant les débuts de mot")
+    void search_shouldRankLabelAndExactMatchesFirst() {
+        index.add(new Task(1L, "Ranger", "Trier le courrier", false));
+        index.add(new Task(2L, "Courrier", "À poster", false));
+        index.add(new Task(3L, "Courriers en retard", "Relancer", false));
+
+        assertEquals(List.of(2L, 3L, 1L), ids(index.search("courrier", 0, 10)));
+        assertEquals(List.of(3L, 1L), ids(index.search("courrier", 1, 10)), "La page suivante commence au rang demandé");
+    }
+
+    @Test
+    @DisplayName("Ne devrait plus trouver une tâche retirée de l'index")
+    void remove_shouldRemoveTaskFromResults() {
+        Task task = new Task(1L, "Acheter du pain", "Boulangerie", false);
+        index.add(task);
+        index.add(new Task(2L, "Acheter du lait", "Épicerie", false));
+
+        index.remove(task);
+
+        assertEquals(List.of(2L), ids(index.search("acheter", 0, 10)));
+        assertTrue(ids(index.search("boulangerie", 0, 10)).isEmpty());
+    }
+
+    private static List<Long> ids(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+}
@@ -0,0 +1,156 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskVersionsTest {
+
+    // Stockage et version simulés : chaque modification est rangée, appliquée puis publiée, comme dans le service
+    private final ConcurrentSkipListMap<Long, Task> store = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final TaskVersions versions = new TaskVersions(sequence::get);
+
+    @Test
+    @DisplayName("Devrait relire les tâches telles qu'elles étaient à la version retenue")
+    void iterator_shouldReadTasksAtSnapshotVersion() {
+        put(task(1, false));
+        put(task(2, false));
+        put(task(3, true));
+
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            assertEquals(3, snapshot.version());
+            put(task(2, true));
+            remove(3);
+            put(task(4, false));
+
+            assertEquals(List.of("1:false", "2:false", "3:true"), read(snapshot, 0, false));
+            assertEquals(List.of("1:false", "2:false"), read(snapshot, 0, true));
+            assertEquals(List.of("3:true"), read(snapshot, 2, false));
+        }
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            assertEquals(List.of("1:false", "2:true", "4:false"), read(snapshot, 0, false));
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait libérer les états remplacés quand plus aucune lecture ne retient une version antérieure")
+    void commit_shouldReclaimVersionsNoLongerRetained() {
+        put(task(1, false));
+        assertEquals(0, versions.retainedCount(), "Sans lecture en cours, un état remplacé n'est pas gardé");
+
+        TaskVersions.Snapshot older = versions.open();
+        put(task(1, true));
+        TaskVersions.Snapshot newer = versions.open();
+        put(task(1, false));
+        put(task(2, false));
+        assertEquals(3, versions.retainedCount());
+
+        older.close();
+        put(task(2, true));
+        assertEquals(3, versions.retainedCount(), "Seuls les états postérieurs à la version retenue restent");
+        assertEquals(List.of("1:true"), read(newer, 0, false));
+
+        newer.close();
+        put(task(3, false));
+        assertEquals(0, versions.retainedCount());
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer sans attendre une modification dont la publication n'a pas commencé")
+    void read_whenModificationIsNotPublished_shouldReturnPreviousState() {
+        put(task(1, false));
+        versions.record(1, store.get(1L));
+        store.put(1L, task(1, true));
+
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            assertFalse(versions.read(snapshot, 1, store.get(1L)).isCompleted());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait attendre le numéro d'une modification en cours de publication pour savoir si elle est visible")
+    void read_whenModificationIsPublishing_shouldWaitForItsSequence() throws Exception {
+        put(task(1, false));
+        TaskVersions.Version publishing = versions.record(1, store.get(1L));
+        store.put(1L, task(1, true));
+        CountDownLatch numbered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> commit = CompletableFuture.supplyAsync(() -> versions.commit(publishing, () -> {
+            long published = sequence.incrementAndGet();
+            numbered.countDown();
+            awaitQuietly(release);
+            return published;
+        }));
+        assertTrue(numbered.await(5, TimeUnit.SECONDS));
+
+        // Version lue après le numéro mais avant son attribution à l'état rangé : la modification est visible
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            CompletableFuture<Task> read = CompletableFuture.supplyAsync(() -> versions.read(snapshot, 1, store.get(1L)));
+            Thread.sleep(50);
+            assertFalse(read.isDone(), "La lecture devrait attendre le numéro de la modification");
+            release.countDown();
+            assertEquals(2L, commit.get(5, TimeUnit.SECONDS));
+            assertTrue(read.get(5, TimeUnit.SECONDS).isCompleted());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait retirer l'état rangé d'une modification abandonnée avant sa publication")
+    void abort_shouldDropPendingVersion() {
+        put(task(1, false));
+        try (TaskVersions.Snapshot snapshot = versions.open()) {
+            put(task(1, true));
+            TaskVersions.Version aborted = versions.record(1, store.get(1L));
+            versions.abort(aborted);
+
+            assertEquals(List.of("1:false"), read(snapshot, 0, false));
+        }
+        put(task(2, false));
+        assertEquals(0, versions.retainedCount());
+    }
+
+    private void put(Task task) {
+        TaskVersions.Version version = versions.record(task.getId(), store.get(task.getId()));
+        store.put(task.getId(), task);
+        versions.commit(version, sequence::incrementAndGet);
+    }
+
+    private void remove(long id) {
+        TaskVersions.Version version = versions.record(id, store.get(id));
+        store.remove(id);
+        versions.commit(version, sequence::incrementAndGet);
+    }
+
+    private List<String> read(TaskVersions.Snapshot snapshot, long after, boolean todoOnly) {
+        List<String> tasks = new ArrayList<>();
+        var current = store.tailMap(after, false).values().stream()
+                .filter(task -> !todoOnly || !task.isCompleted())
+                .iterator();
+        versions.iterator(snapshot, current, after, todoOnly)
+                .forEachRemaining(task -> tasks.add(task.getId() + ":" + task.isCompleted()));
+        return tasks;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Task task(long id, boolean completed) {
+        return new Task(id, "Task " + id, "Desc " + id, completed);
+    }
+}
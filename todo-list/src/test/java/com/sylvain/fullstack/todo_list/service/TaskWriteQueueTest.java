@@ -0,0 +1,145 @@
+package com.sylvain.fullstack.todo_list.service;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskWriteQueueTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private TaskWriteQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    @DisplayName("Devrait appliquer les ajouts et mises à jour en file, avec le même résultat que le service")
+    void addAndUpdate_shouldApplyOperations() {
+        TodoListService service = new TodoListService();
+        queue = new TaskWriteQueue(service, 100, 10, registry);
+
+        Task added = queue.addTask(new Task(null, "Task 1", "Desc 1", false)).join();
+        assertEquals(1L, added.getId());
+        assertEquals(1L, added.getVersion());
+        assertEquals(added, service.getTaskById(1L));
+
+        Task updated = queue.updateTask(1L, true, 1L).join();
+        assertTrue(updated.isCompleted());
+        assertEquals(2L, updated.getVersion());
+        assertNull(queue.updateTask(99L, true, null).join());
+
+        CompletionException e = assertThrows(CompletionException.class, () -> queue.updateTask(1L, false, 1L).join());
+        TaskVersionConflictException conflict = assertInstanceOf(TaskVersionConflictException.class, e.getCause());
+        assertEquals(2L, conflict.getCurrent().getVersion());
+    }
+
+    @Test
+    @DisplayName("Devrait regrouper en lots les modifications arrivées pendant l'application d'un lot")
+    void submit_whileApplying_shouldBatchOperations() throws Exception {
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new ArrayList<>();
+        TodoListService service = new TodoListService() {
+            @Override
+            public List<TaskOperationResult> applyBatch(List<TaskOperation> operations) {
+                batchSizes.add(operations.size());
+                applying.countDown();
+                await(release);
+                return super.applyBatch(operations);
+            }
+        };
+        queue = new TaskWriteQueue(service, 100, 4, registry);
+
+        List<CompletableFuture<Task>> results = new ArrayList<>();
+        results.add(queue.addTask(new Task(null, "Task 0", "Desc", false)));
+        assertTrue(applying.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 6; i++) {
+            results.add(queue.addTask(new Task(null, "Task " + i, "Desc", false)));
+        }
+        assertEquals(6, queue.depth());
+        release.countDown();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("Task " + i, results.get(i).get(5, TimeUnit.SECONDS).getLabel());
+        }
+        // Un lot pendant lequel les 6 suivantes arrivent, puis des lots d'au plus 4 modifications
+        assertEquals(List.of(1, 4, 2), batchSizes);
+        assertEquals(7, service.getAllTasks().size());
+        assertEquals(3, registry.get(TaskWriteQueue.BATCH_SIZE).summary().count());
+        assertEquals(4.0, registry.get(TaskWriteQueue.BATCH_SIZE).summary().max());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une modification quand la file est pleine, sans attendre")
+    void submit_whenQueueIsFull_shouldReject() throws Exception {
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TodoListService service = new TodoListService() {
+            @Override
+            public List<TaskOperationResult> applyBatch(List<TaskOperation> operations) {
+                applying.countDown();
+                await(release);
+                return super.applyBatch(operations);
+            }
+        };
+        queue = new TaskWriteQueue(service, 2, 10, registry);
+
+        CompletableFuture<Task> first = queue.addTask(new Task(null, "Task 1", "Desc", false));
+        assertTrue(applying.await(5, TimeUnit.SECONDS));
+        queue.addTask(new Task(null, "Task 2", "Desc", false));
+        CompletableFuture<Task> third = queue.addTask(new Task(null, "Task 3", "Desc", false));
+        assertThrows(TaskWriteQueueFullException.class, () -> queue.addTask(new Task(null, "Task 4", "Desc", false)));
+        assertEquals(2.0, registry.get(TaskWriteQueue.DEPTH).gauge().value());
+        assertEquals(1.0, registry.get(TaskWriteQueue.REJECTED).counter().count());
+
+        release.countDown();
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertEquals(3L, third.get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    @DisplayName("Devrait transmettre l'erreur d'un lot à chaque appelant et continuer avec les lots suivants")
+    void apply_whenBatchFails_shouldCompleteExceptionally() throws Exception {
+        TodoListService service = new TodoListService() {
+            private boolean failed;
+
+            @Override
+            public List<TaskOperationResult> applyBatch(List<TaskOperation> operations) {
+                if (!failed) {
+                    failed = true;
+                    throw new IllegalStateException("Journal inaccessible");
+                }
+                return super.applyBatch(operations);
+            }
+        };
+        queue = new TaskWriteQueue(service, 10, 10, registry);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> queue.addTask(new Task(null, "Task 1", "Desc", false)).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals("Task 2", queue.addTask(new Task(null, "Task 2", "Desc", false)).get(5, TimeUnit.SECONDS).getLabel());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
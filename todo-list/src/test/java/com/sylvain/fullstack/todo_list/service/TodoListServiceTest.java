@@ -1,11 +1,29 @@
 package com.sylvain.fullstack.todo_list.service;
 
 import com.sylvain.fullstack.todo_list.model.Task;
+import com.sylvain.fullstack.todo_list.model.TaskChange;
+import com.sylvain.fullstack.todo_list.model.TaskChanges;
+import com.sylvain.fullstack.todo_list.model.TaskOperation;
+import com.sylvain.fullstack.todo_list.model.TaskOperationResult;
+import com.sylvain.fullstack.todo_list.model.TaskPage;
+import com.sylvain.fullstack.todo_list.model.TaskRange;
+import com.sylvain.fullstack.todo_list.model.TaskSearchPage;
+import com.sylvain.fullstack.todo_list.cluster.IdPartition;
+import com.sylvain.fullstack.todo_list.persistence.InMemoryTaskPersistence;
+import com.sylvain.fullstack.todo_list.store.MapTaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,6 +81,257 @@ class TodoListServiceTest {
         assertTrue(todoTasks.stream().noneMatch(Task::isCompleted), "Aucune tâche retournée ne devrait être complétée");
     }
 
+    @Test
+    @DisplayName("Devrait tenir à jour les tâches à faire après modification et suppression")
+    void getTodoTasks_shouldFollowUpdatesAndDeletes() {
+        Task task1 = todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        Task task2 = todoListService.addTask(new Task(null, "Task 2", "Desc 2", true));
+        Task task3 = todoListService.addTask(new Task(null, "Task 3", "Desc 3", false));
+
+        todoListService.updateTask(task1.getId(), true);
+        todoListService.updateTask(task2.getId(), false);
+        todoListService.deleteTask(task3.getId());
+
+        List<Task> todoTasks = todoListService.getTodoTasks();
+        assertEquals(List.of(task2.getId()), todoTasks.stream().map(Task::getId).toList(),
+                "Seule la tâche 2, repassée à faire, devrait rester");
+    }
+
+    @Test
+    @DisplayName("Devrait garder l'index des tâches à faire cohérent quand des modifications concurrentes portent sur la même tâche")
+    void updateTask_whenTogglesRace_shouldKeepTodoIndexConsistent() throws InterruptedException {
+        Task task = todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            boolean completed = t % 2 == 0;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10_000; i++) {
+                    todoListService.updateTask(task.getId(), completed);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        boolean completed = todoListService.getTaskById(task.getId()).isCompleted();
+        assertEquals(completed ? 0 : 1, todoListService.getTodoTasks().size(),
+                "L'index des tâches à faire devrait correspondre au statut final de la tâche");
+        assertEquals(completed ? 0 : 1, todoListService.getTodoTasksPage(null, 10).getTasks().size());
+    }
+
+    @Test
+    @DisplayName("Devrait lire une liste cohérente, à une seule version, pendant des modifications concurrentes")
+    void getAllTasks_whenConcurrentUpdates_shouldReadSingleVersion() throws Exception {
+        int count = 500;
+        for (int i = 1; i <= count; i++) {
+            todoListService.addTask(new Task(null, "Task " + i, "Desc " + i, false));
+        }
+        // Un seul écrivain modifie les tâches dans l'ordre des ids, tour après tour : à une version donnée,
+        // les premières tâches ont une version de plus que les suivantes
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int round = 0; running.get(); round++) {
+                for (long id = 1; id <= count && running.get(); id++) {
+                    todoListService.updateTask(id, round % 2 == 0);
+                }
+            }
+        });
+        try {
+            for (int read = 0; read < 200; read++) {
+                List<Task> tasks = todoListService.getAllTasks();
+                assertEquals(count, tasks.size());
+                long first = tasks.get(0).getVersion();
+                long previous = first;
+                for (Task task : tasks) {
+                    assertTrue(task.getVersion() <= previous && task.getVersion() >= first - 1,
+                            "Tâche " + task.getId() + " en version " + task.getVersion() + ", la première en version " + first);
+                    previous = task.getVersion();
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.get(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait parcourir toutes les tâches ou uniquement les tâches à faire, triées par id")
+    void iterateTasks_shouldWalkTasksInIdOrder() {
+        todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        todoListService.addTask(new Task(null, "Task 2", "Desc 2", true));
+        todoListService.addTask(new Task(null, "Task 3", "Desc 3", false));
+
+        List<Long> allIds = new ArrayList<>();
+        todoListService.iterateTasks(false).forEachRemaining(task -> allIds.add(task.getId()));
+        List<Long> todoIds = new ArrayList<>();
+        todoListService.iterateTasks(true).forEachRemaining(task -> todoIds.add(task.getId()));
+
+        assertEquals(List.of(1L, 2L, 3L), allIds);
+        assertEquals(List.of(1L, 3L), todoIds);
+    }
+
+    @Test
+    @DisplayName("Devrait paginer toutes les tâches par curseur sur l'id")
+    void getTasksPage_shouldReturnPagesWithCursor() {
+        for (int i = 1; i <= 5; i++) {
+            todoListService.addTask(new Task(null, "Task " + i, "Desc " + i, false));
+        }
+
+        TaskPage firstPage = todoListService.getTasksPage(null, 2);
+        assertEquals(List.of(1L, 2L), firstPage.getTasks().stream().map(Task::getId).toList());
+        assertEquals(2L, firstPage.getNextCursor(), "Le curseur devrait pointer sur la dernière tâche de la page");
+
+        TaskPage secondPage = todoListService.getTasksPage(firstPage.getNextCursor(), 2);
+        assertEquals(List.of(3L, 4L), secondPage.getTasks().stream().map(Task::getId).toList());
+
+        TaskPage lastPage = todoListService.getTasksPage(secondPage.getNextCursor(), 2);
+        assertEquals(List.of(5L), lastPage.getTasks().stream().map(Task::getId).toList());
+        assertNull(lastPage.getNextCursor(), "Il ne devrait pas y avoir de page suivante");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas renvoyer de curseur quand la dernière page est pleine")
+    void getTasksPage_whenLastPageIsFull_shouldReturnNullCursor() {
+        todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        todoListService.addTask(new Task(null, "Task 2", "Desc 2", false));
+
+        TaskPage page = todoListService.getTasksPage(null, 2);
+        assertEquals(2, page.getTasks().size());
+        assertNull(page.getNextCursor(), "Aucune tâche ne reste à lire après la page");
+    }
+
+    @Test
+    @DisplayName("Devrait paginer uniquement les tâches à faire")
+    void getTodoTasksPage_shouldSkipCompletedTasks() {
+        todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        todoListService.addTask(new Task(null, "Task 2", "Desc 2", true));
+        todoListService.addTask(new Task(null, "Task 3", "Desc 3", false));
+        todoListService.addTask(new Task(null, "Task 4", "Desc 4", true));
+
+        TaskPage firstPage = todoListService.getTodoTasksPage(null, 1);
+        assertEquals(List.of(1L), firstPage.getTasks().stream().map(Task::getId).toList());
+        assertEquals(1L, firstPage.getNextCursor());
+
+        TaskPage secondPage = todoListService.getTodoTasksPage(firstPage.getNextCursor(), 1);
+        assertEquals(List.of(3L), secondPage.getTasks().stream().map(Task::getId).toList());
+        assertNull(secondPage.getNextCursor(), "La tâche 4 est terminée, il n'y a pas de page suivante");
+    }
+
+    @Test
+    @DisplayName("Devrait lire une plage de tâches par rang, avec le nombre total de tâches de la liste")
+    void getTasksRange_shouldReturnTasksAtOffsetWithTotal() {
+        for (int i = 1; i <= 5; i++) {
+            todoListService.addTask(new Task(null, "Task " + i, "Desc " + i, i % 2 == 0));
+        }
+
+        TaskRange middle = todoListService.getTasksRange(1, 2, false);
+        assertEquals(1, middle.getOffset());
+        assertEquals(5, middle.getTotal());
+        assertEquals(List.of(2L, 3L), middle.getTasks().stream().map(Task::getId).toList());
+
+        TaskRange todo = todoListService.getTasksRange(1, 10, true);
+        assertEquals(3, todo.getTotal());
+        assertEquals(List.of(3L, 5L), todo.getTasks().stream().map(Task::getId).toList());
+
+        TaskRange beyond = todoListService.getTasksRange(8, 2, false);
+        assertTrue(beyond.getTasks().isEmpty());
+        assertEquals(5, beyond.getTotal(), "Le total reste celui de la liste quand le rang la dépasse");
+    }
+
+    @Test
+    @DisplayName("Devrait lire une plage au même rang que dans la liste complète, au-delà de la première tranche d'ids")
+    void getTasksRange_acrossIdBuckets_shouldMatchFullList() {
+        for (int i = 1; i <= 3000; i++) {
+            todoListService.addTask(new Task(null, "Task " + i, "Desc " + i, i % 3 == 0));
+        }
+        for (long id = 1; id <= 3000; id += 7) {
+            todoListService.deleteTask(id);
+        }
+        todoListService.updateTask(2000L, true);
+
+        for (boolean todoOnly : new boolean[]{false, true}) {
+            List<Long> all = (todoOnly ? todoListService.getTodoTasks() : todoListService.getAllTasks())
+                    .stream().map(Task::getId).toList();
+            for (int offset : new int[]{0, 1020, 1500, all.size() - 5}) {
+                TaskRange range = todoListService.getTasksRange(offset, 50, todoOnly);
+                assertEquals(all.size(), range.getTotal());
+                assertEquals(all.subList(offset, Math.min(all.size(), offset + 50)),
+                        range.getTasks().stream().map(Task::getId).toList());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait paginer les tâches triées par libellé, sans tenir compte des accents ni des majuscules")
+    void queryTasks_sortedByLabel_shouldPageInLabelOrder() {
+        todoListService.addTask(new Task(null, "pain", "Desc", false));
+        todoListService.addTask(new Task(null, "Épicerie", "Desc", true));
+        todoListService.addTask(new Task(null, "Banque", "Desc", false));
+        todoListService.addTask(new Task(null, "courrier", "Desc", false));
+        todoListService.addTask(new Task(null, "Pain", "Desc", true));
+
+        TaskQuery byLabel = TaskQuery.of(null, null, null, null, "label");
+        TaskPage firstPage = todoListService.queryTasks(byLabel, null, null, 3);
+        assertEquals(List.of(3L, 4L, 2L), firstPage.getTasks().stream().map(Task::getId).toList());
+        assertEquals(2L, firstPage.getNextCursor());
+        // Libellés égaux sans majuscules : départagés par l'id
+        TaskPage lastPage = todoListService.queryTasks(byLabel, firstPage.getNextCursor(), null, 3);
+        assertEquals(List.of(1L, 5L), lastPage.getTasks().stream().map(Task::getId).toList());
+        assertNull(lastPage.getNextCursor());
+
+        TaskPage descending = todoListService.queryTasks(TaskQuery.of(null, null, null, null, "label,desc"), null, null, 10);
+        assertEquals(List.of(5L, 1L, 2L, 4L, 3L), descending.getTasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Devrait combiner les filtres de statut, d'intervalle d'ids et de début de libellé")
+    void queryTasks_withFilters_shouldReturnMatchingTasks() {
+        for (int i = 1; i <= 10; i++) {
+            todoListService.addTask(new Task(null, (i % 2 == 0 ? "Appeler " : "Acheter ") + i, "Desc", i > 5));
+        }
+
+        TaskPage done = todoListService.queryTasks(TaskQuery.of(true, null, null, null, "id,desc"), null, null, 3);
+        assertEquals(List.of(10L, 9L, 8L), done.getTasks().stream().map(Task::getId).toList());
+        assertEquals(List.of(7L, 6L), todoListService.queryTasks(TaskQuery.of(true, null, null, null, "id,desc"),
+                done.getNextCursor(), null, 3).getTasks().stream().map(Task::getId).toList());
+
+        TaskPage range = todoListService.queryTasks(TaskQuery.of(null, 3L, 7L, "ACHÈ", null), null, null, 10);
+        assertEquals(List.of(3L, 5L, 7L), range.getTasks().stream().map(Task::getId).toList());
+        TaskPage prefixDescending = todoListService.queryTasks(TaskQuery.of(null, null, null, "ache", "id,desc"), 7L, null, 2);
+        assertEquals(List.of(5L, 3L), prefixDescending.getTasks().stream().map(Task::getId).toList());
+        assertEquals(3L, prefixDescending.getNextCursor());
+
+        TaskPage labelRange = todoListService.queryTasks(TaskQuery.of(false, 2L, null, "app", "label"), null, null, 10);
+        assertEquals(List.of(2L, 4L), labelRange.getTasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Devrait tenir à jour les index de tri après modification du statut et suppression")
+    void queryTasks_afterUpdateAndDelete_shouldFollowStatus() {
+        todoListService.addTask(new Task(null, "B", "Desc", false));
+        todoListService.addTask(new Task(null, "A", "Desc", false));
+        todoListService.addTask(new Task(null, "C", "Desc", true));
+
+        todoListService.updateTask(1L, true);
+        todoListService.deleteTask(3L);
+
+        TaskQuery done = TaskQuery.of(true, null, null, null, "label");
+        assertEquals(List.of(1L), todoListService.queryTasks(done, null, null, 10).getTasks().stream().map(Task::getId).toList());
+        TaskQuery all = TaskQuery.of(null, null, null, null, "label,desc");
+        assertEquals(List.of(1L, 2L), todoListService.queryTasks(all, null, null, 10).getTasks().stream().map(Task::getId).toList());
+
+        // Curseur d'une tâche supprimée : sa position n'est connue que par le libellé fourni par le client
+        assertNull(todoListService.queryTasks(all, 3L, null, 10));
+        assertEquals(List.of(1L, 2L), todoListService.queryTasks(all, 3L, "C", 10).getTasks().stream().map(Task::getId).toList());
+    }
+
     @Test
     @DisplayName("Devrait retourner une tâche par son id existant")
     void getTaskById_whenTaskExists_shouldReturnTask() {
@@ -123,6 +392,88 @@ class TodoListServiceTest {
         assertNull(updatedTask, "La mise à jour d'une tâche non existante devrait retourner null");
     }
 
+    @Test
+    @DisplayName("Devrait créer une nouvelle version de la tâche à chaque modification, sans modifier les versions déjà lues")
+    void updateTask_shouldReturnNewSnapshotWithIncrementedVersion() {
+        Task added = todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        assertEquals(1L, added.getVersion());
+
+        Task updated = todoListService.updateTask(added.getId(), true, 1L);
+
+        assertEquals(2L, updated.getVersion());
+        assertTrue(updated.isCompleted());
+        assertFalse(added.isCompleted(), "La version lue avant la modification ne devrait pas changer");
+        assertEquals(1L, added.getVersion());
+        assertEquals(2L, todoListService.getTaskById(added.getId()).getVersion());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser la modification d'une tâche qui a changé de version, en renvoyant la version courante")
+    void updateTask_whenVersionChanged_shouldThrowConflict() {
+        Task task = todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        todoListService.updateTask(task.getId(), true, 1L);
+
+        TaskVersionConflictException conflict = assertThrows(TaskVersionConflictException.class,
+                () -> todoListService.updateTask(task.getId(), false, 1L));
+
+        assertEquals(2L, conflict.getCurrent().getVersion());
+        assertTrue(todoListService.getTaskById(task.getId()).isCompleted(), "La tâche ne devrait pas avoir été modifiée");
+        assertNull(todoListService.updateTask(999L, true, 1L));
+        assertEquals(3L, todoListService.updateTask(task.getId(), false).getVersion(),
+                "Sans version attendue, la modification devrait toujours s'appliquer");
+    }
+
+    @Test
+    @DisplayName("Ne devrait perdre aucune modification quand des clients concurrents modifient les mêmes tâches par versions")
+    void updateTask_whenConcurrentVersionedUpdates_shouldNotLoseUpdates() throws Exception {
+        int taskCount = 4;
+        int threads = 8;
+        int updatesPerThread = 2_000;
+        for (int i = 0; i < taskCount; i++) {
+            todoListService.addTask(new Task(null, "Task " + i, "Desc", false));
+        }
+        long initialVersion = todoListService.getVersion();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < updatesPerThread; i++) {
+                    long id = 1 + (thread + i) % taskCount;
+                    // Lecture, modification à la version lue, nouvel essai en cas de conflit
+                    while (true) {
+                        Task task = todoListService.getTaskById(id);
+                        try {
+                            todoListService.updateTask(id, !task.isCompleted(), task.getVersion());
+                            break;
+                        } catch (TaskVersionConflictException e) {
+                            // Modifiée par un autre thread entre la lecture et la mise à jour
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        for (Future<?> result : results) {
+            result.get();
+        }
+
+        // Chaque modification réussie inverse le statut et incrémente la version d'une seule tâche
+        long totalUpdates = (long) threads * updatesPerThread;
+        long versions = todoListService.getAllTasks().stream().mapToLong(task -> task.getVersion() - 1).sum();
+        assertEquals(totalUpdates, versions, "Chaque modification acceptée devrait avoir produit une version");
+        assertEquals(initialVersion + totalUpdates, todoListService.getVersion());
+        for (Task task : todoListService.getAllTasks()) {
+            assertEquals((task.getVersion() - 1) % 2 == 1, task.isCompleted(),
+                    "Le statut devrait correspondre au nombre d'inversions de la tâche " + task.getId());
+        }
+    }
+
     @Test
     @DisplayName("Devrait supprimer une tâche existante et retourner true")
     void deleteTask_whenTaskExists_shouldRemoveTaskAndReturnTrue() {
@@ -148,4 +499,137 @@ class TodoListServiceTest {
         assertFalse(result, "La suppression devrait retourner false pour une tâche non existante");
         assertEquals(initialSize, todoListService.getAllTasks().size(), "La taille de la liste ne devrait pas changer");
     }
+
+    @Test
+    @DisplayName("Devrait appliquer un lot d'opérations et renvoyer un résultat par opération")
+    void applyBatch_shouldApplyOperationsInOrderWithPerItemResults() {
+        Task existing = todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+
+        List<TaskOperationResult> results = todoListService.applyBatch(List.of(
+                new TaskOperation(TaskOperation.Type.ADD, new Task(null, "Task 2", "Desc 2", false)),
+                new TaskOperation(TaskOperation.Type.ADD, new Task(null, "Task 3", "Desc 3", false)),
+                new TaskOperation(TaskOperation.Type.UPDATE, new Task(existing.getId(), null, null, true)),
+                new TaskOperation(TaskOperation.Type.DELETE, new Task(3L, null, null, false)),
+                new TaskOperation(TaskOperation.Type.DELETE, new Task(999L, null, null, false)),
+                new TaskOperation(TaskOperation.Type.UPDATE, new Task(null, null, null, true)),
+                new TaskOperation(TaskOperation.Type.UPDATE, new Task(existing.getId(), null, null, false, 1L))));
+
+        assertEquals(List.of(201, 201, 200, 204, 404, 400, 409), results.stream().map(TaskOperationResult::getStatus).toList());
+        assertEquals(2L, results.get(0).getTask().getId(), "Les ids du lot devraient suivre le dernier id attribué");
+        assertEquals(3L, results.get(1).getTask().getId());
+        assertTrue(todoListService.getTaskById(existing.getId()).isCompleted());
+        assertEquals(2L, results.get(6).getTask().getVersion(), "Un conflit devrait renvoyer la version courante");
+        assertNull(todoListService.getTaskById(3L), "La tâche ajoutée puis supprimée dans le lot ne devrait plus exister");
+        assertEquals(List.of(2L), todoListService.getTodoTasks().stream().map(Task::getId).toList());
+        assertEquals(4L, todoListService.addTask(new Task(null, "Task 4", "Desc 4", false)).getId());
+    }
+
+    @Test
+    @DisplayName("Devrait incrémenter la version du stockage à chaque modification effective")
+    void getVersion_shouldIncreaseOnEveryMutation() {
+        long initialVersion = todoListService.getVersion();
+
+        Task task = todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        todoListService.updateTask(task.getId(), true);
+        todoListService.deleteTask(task.getId());
+        assertEquals(initialVersion + 3, todoListService.getVersion());
+
+        todoListService.updateTask(999L, true);
+        todoListService.deleteTask(999L);
+        todoListService.getAllTasks();
+        assertEquals(initialVersion + 3, todoListService.getVersion(),
+                "Les lectures et les modifications de tâches inexistantes ne devraient pas changer la version");
+    }
+
+    @Test
+    @DisplayName("Devrait renvoyer les modifications postérieures à une version, dans l'ordre")
+    void getChangesSince_shouldReturnChangesAfterVersion() {
+        Task task = todoListService.addTask(new Task(null, "Task 1", "Desc 1", false));
+        long version = todoListService.getVersion();
+        todoListService.updateTask(task.getId(), true);
+        todoListService.deleteTask(task.getId());
+
+        TaskChanges changes = todoListService.getChangesSince(version, todoListService.getEpoch());
+
+        assertFalse(changes.isResyncRequired());
+        assertEquals(todoListService.getVersion(), changes.getVersion());
+        assertEquals(List.of(TaskChange.Type.UPDATE, TaskChange.Type.DELETE),
+                changes.getChanges().stream().map(TaskChange::getType).toList());
+        assertTrue(changes.getChanges().get(0).getTask().isCompleted());
+        assertNull(changes.getChanges().get(1).getTask());
+        assertTrue(todoListService.getChangesSince(changes.getVersion(), null).getChanges().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Devrait demander une relecture complète si les modifications ne sont plus disponibles")
+    void getChangesSince_whenChangesAreLost_shouldRequireResync() {
+        TodoListService service = new TodoListService(new InMemoryTaskPersistence(), new TaskChangeFeed(2));
+        long version = service.getVersion();
+        for (int i = 1; i <= 3; i++) {
+            service.addTask(new Task(null, "Task " + i, "Desc " + i, false));
+        }
+
+        assertTrue(service.getChangesSince(version, null).isResyncRequired(), "Seules les 2 dernières modifications sont conservées");
+        assertFalse(service.getChangesSince(version + 1, null).isResyncRequired());
+        assertTrue(service.getChangesSince(version + 1, service.getEpoch() + 1).isResyncRequired(),
+                "Une version d'une autre instance ne devrait pas être utilisée");
+        assertTrue(service.getChangesSince(service.getVersion() + 1, null).isResyncRequired());
+    }
+
+    @Test
+    @DisplayName("Devrait rechercher les tâches par mots et tenir l'index à jour après suppression")
+    void searchTasks_shouldFindTasksAndFollowDeletions() {
+        Task bread = todoListService.addTask(new Task(null, "Acheter du pain", "Aller à la boulangerie", false));
+        todoListService.addTask(new Task(null, "Acheter du lait", "Aller à l'épicerie", false));
+        todoListService.addTask(new Task(null, "Réviser", "Chapitre 3", true));
+
+        TaskSearchPage page = todoListService.searchTasks("acheter", 0, 1);
+        assertEquals(1, page.getTasks().size());
+        assertEquals(1, page.getNextOffset());
+        assertEquals("Acheter du pain", todoListService.searchTasks("acheter", 1, 1).getTasks().get(0).getLabel());
+        assertEquals(List.of("Réviser"), todoListService.searchTasks("reviser", 0, 10).getTasks().stream().map(Task::getLabel).toList());
+
+        todoListService.deleteTask(bread.getId());
+        assertTrue(todoListService.searchTasks("boulangerie", 0, 10).getTasks().isEmpty());
+        assertNull(todoListService.searchTasks("acheter", 0, 10).getNextOffset());
+    }
+
+    @Test
+    @DisplayName("Devrait mesurer chaque opération par résultat, et publier le nombre de tâches et de tâches à effectuer")
+    void operations_shouldRecordMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TodoListService service = new TodoListService(new InMemoryTaskPersistence(), new TaskChangeFeed(),
+                new MapTaskStore(), IdPartition.all(), registry);
+
+        Task first = service.addTask(new Task(null, "Task 1", "Desc 1", false));
+        service.addTask(new Task(null, "Task 2", "Desc 2", false));
+        service.addTask(new Task(null, "Task 3", "Desc 3", true));
+        service.updateTask(first.getId(), true);
+        service.updateTask(99L, true);
+        assertThrows(TaskVersionConflictException.class, () -> service.updateTask(first.getId(), false, 1L));
+        service.deleteTask(99L);
+        service.getAllTasks();
+        service.getTodoTasks();
+
+        assertEquals(3, timerCount(registry, "add", "success"));
+        assertEquals(1, timerCount(registry, "update", "success"));
+        assertEquals(1, timerCount(registry, "update", "not_found"));
+        assertEquals(1, timerCount(registry, "update", "conflict"));
+        assertEquals(1, timerCount(registry, "delete", "not_found"));
+        assertEquals(0, timerCount(registry, "delete", "success"));
+        assertEquals(1, timerCount(registry, "all", "success"));
+        assertEquals(3.0, registry.get(TaskMetrics.LISTED).tag("operation", "all").counter().count());
+        assertEquals(1.0, registry.get(TaskMetrics.LISTED).tag("operation", "todo").counter().count());
+        assertEquals(3.0, registry.get(TaskMetrics.STORED).gauge().value());
+        assertEquals(1.0, registry.get(TaskMetrics.OPEN).gauge().value());
+        assertEquals(0.0, registry.get(TaskMetrics.VERSIONS).gauge().value(), "Aucune lecture en cours ne retient d'état");
+
+        service.deleteTask(first.getId());
+        assertEquals(2.0, registry.get(TaskMetrics.STORED).gauge().value());
+        assertEquals(1, timerCount(registry, "delete", "success"));
+    }
+
+    private static long timerCount(SimpleMeterRegistry registry, String operation, String outcome) {
+        return registry.get(TaskMetrics.OPERATIONS).tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.sylvain.fullstack.todo_list.store;
+
+import com.sylvain.fullstack.todo_list.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTaskStoreTest {
+
+    private final CompactTaskStore store = new CompactTaskStore();
+
+    @Test
+    @DisplayName("Devrait restituer les textes à l'identique, y compris accents et valeurs null")
+    void put_shouldKeepTextsAndStatus() {
+        store.put(new Task(1L, "Acheter du pain", "Aller à la boulangerie, près de l'église", false));
+        store.put(new Task(2L, null, "", true));
+
+        Task first = store.get(1L);
+        assertEquals("Acheter du pain", first.getLabel());
+        assertEquals("Aller à la boulangerie, près de l'église", first.getDescription());
+        assertFalse(first.isCompleted());
+        Task second = store.get(2L);
+        assertNull(second.getLabel());
+        assertEquals("", second.getDescription());
+        assertTrue(second.isCompleted());
+        assertNull(store.get(3L));
+        assertNull(store.get(0L));
+    }
+
+    @Test
+    @DisplayName("Devrait parcourir les tâches par id croissant, même ajoutées dans le désordre")
+    void iterator_shouldReturnTasksSortedById() {
+        for (long id : new long[]{5, 1, 4, 2, 3}) {
+            store.put(new Task(id, "Task " + id, "Desc", id % 2 == 0));
+        }
+        store.remove(4L);
+
+        assertEquals(List.of(1L, 2L, 3L, 5L), ids(store.iterator(0, false)));
+        assertEquals(List.of(1L, 3L, 5L), ids(store.iterator(0, true)));
+        assertEquals(List.of(3L, 5L), ids(store.iterator(2, false)));
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    @DisplayName("Devrait compacter les blocs de textes quand les tâches supprimées y occupent trop de place")
+    void remove_shouldCompactSlabs() {
+        String description = "x".repeat(10_000);
+        for (long id = 1; id <= 1000; id++) {
+            store.put(new Task(id, "Task " + id, description, false));
+        }
+        for (long id = 1; id <= 1000; id++) {
+            if (id % 10 != 0) {
+                store.remove(id);
+            }
+        }
+        // Une description plus grande qu'un bloc a son propre bloc
+        store.put(new Task(2000L, "Grande tâche", "y".repeat(CompactTaskStore.SLAB_SIZE + 1), false));
+
+        assertEquals(101, store.size());
+        assertEquals(description, store.get(10L).getDescription());
+        assertEquals(CompactTaskStore.SLAB_SIZE + 1, store.get(2000L).getDescription().length());
+        assertEquals(101, ids(store.iterator(0, false)).size());
+    }
+
+    @Test
+    @DisplayName("Devrait se comporter comme le stockage par map sur une suite aléatoire de modifications")
+    void randomOperations_shouldMatchMapStore() {
+        MapTaskStore expected = new MapTaskStore();
+        Random random = new Random(42);
+        long nextId = 1;
+        for (int i = 0; i < 200_000; i++) {
+            int operation = random.nextInt(10);
+            long id = 1 + random.nextInt((int) nextId);
+            if (operation < 4) {
+                // Ids presque croissants, comme avec des ajouts concurrents
+                long newId = nextId + random.nextInt(3);
+                nextId = newId + 1;
+                Task task = new Task(newId, "Tâche " + newId, random.nextBoolean() ? null : "Desc " + i, random.nextBoolean());
+                expected.put(copy(task));
+                store.put(task);
+            } else if (operation < 7) {
+                boolean completed = random.nextBoolean();
+                assertEquals(expected.setCompleted(id, completed) != null, store.setCompleted(id, completed) != null);
+            } else {
+                assertEquals(expected.remove(id), store.remove(id));
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        assertEquals(expected.todoCount(), store.todoCount());
+        assertEquals(ids(expected.iterator(0, true)).size(), expected.todoCount());
+        assertEquals(tasks(expected.iterator(0, false)), tasks(store.iterator(0, false)));
+        assertEquals(tasks(expected.iterator(0, true)), tasks(store.iterator(0, true)));
+        assertEquals(tasks(expected.iterator(nextId / 2, true)), tasks(store.iterator(nextId / 2, true)));
+        for (boolean todoOnly : new boolean[]{false, true}) {
+            List<Long> sorted = ids(expected.iterator(0, todoOnly));
+            for (int offset : new int[]{0, 1, sorted.size() / 3, sorted.size() - 1, sorted.size(), sorted.size() + 10}) {
+                assertEquals(seekId(expected, offset, todoOnly), seekId(store, offset, todoOnly));
+                assertEquals(offset < sorted.size() ? sorted.get(offset) : null, seekId(store, offset, todoOnly),
+                        "Rang " + offset + (todoOnly ? " des tâches à effectuer" : ""));
+            }
+        }
+    }
+
+    /**
+     * Id de la tâche d'un rang, atteinte depuis la position donnée par seek
+     * @return null si le rang dépasse le nombre de tâches
+     */
+    private static Long seekId(TaskStore store, int offset, boolean todoOnly) {
+        TaskStore.RankCursor cursor = store.seek(offset, todoOnly);
+        assertTrue(cursor.rank() <= offset);
+        Iterator<Task> iterator = store.iterator(cursor.after(), todoOnly);
+        for (int rank = cursor.rank(); rank < offset && iterator.hasNext(); rank++) {
+            iterator.next();
+        }
+        return iterator.hasNext() ? iterator.next().getId() : null;
+    }
+
+    private static Task copy(Task task) {
+        return new Task(task.getId(), task.getLabel(), task.getDescription(), task.isCompleted());
+    }
+
+    private static List<Long> ids(Iterator<Task> iterator) {
+        List<Long> ids = new ArrayList<>();
+        iterator.forEachRemaining(task -> ids.add(task.getId()));
+        return ids;
+    }
+
+    /**
+     * Tâches sous forme de texte : Task n'est comparé que par son id
+     */
+    private static List<String> tasks(Iterator<Task> iterator) {
+        List<String> tasks = new ArrayList<>();
+        iterator.forEachRemaining(task -> tasks.add(task.getId() + "|" + task.getLabel() + "|" + task.getDescription() + "|" + task.isCompleted() + "|" + task.getVersion()));
+        return tasks;
+    }
+}